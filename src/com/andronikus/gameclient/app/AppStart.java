@@ -1,14 +1,19 @@
 package com.andronikus.gameclient.app;
 
-import com.andronikus.game.model.server.GameState;
 import com.andronikus.gameclient.ClientCertificateUtil;
 import com.andronikus.gameclient.client.GameClient;
 import com.andronikus.gameclient.client.GameClientStartException;
+import com.andronikus.gameclient.client.codec.GameStateCodecType;
+import com.andronikus.gameclient.engine.ClientEngine;
+import com.andronikus.gameclient.engine.ClientFrame;
 import com.andronikus.gameclient.engine.IClientInputManager;
 import com.andronikus.gameclient.engine.IGameStateRenderer;
 import com.andronikus.gameclient.engine.IRendererPresetup;
+import com.andronikus.gameclient.engine.SampledFrame;
+import com.andronikus.gameclient.engine.prediction.ApproximatePlayerMotionModel;
 import com.andronikus.gameclient.ui.GameWindow;
 import com.andronikus.gameclient.ui.input.ServerInput;
+import com.andronikus.util.TripleBuffer;
 import com.gabler.client.ClientStartException;
 import com.google.gson.Gson;
 
@@ -38,6 +43,15 @@ public class AppStart {
         final String username = options.getOption("username", true, 1).get(0);
         final String password = options.getOption("password", true, 1).get(0);
         final List<String> renderMethods = options.getOption("render", true, 1);
+        final List<String> codecNames = options.getOption("codec", false, 1);
+        final List<String> tickRates = options.getOption("tickrate", false, 1);
+        final List<String> frameRates = options.getOption("framerate", false, 1);
+        final List<String> rotationBuckets = options.getOption("rotationbuckets", false, 1);
+        final boolean fullScreen = options.getOption("fullscreen", false, 0) != null;
+        final boolean bakedAnimations = options.getOption("bakedanimations", false, 0) != null;
+        final boolean prediction = options.getOption("prediction", false, 0) != null;
+        final List<String> predictionModel = options.getOption("predictionmodel", false, 3);
+        final List<String> playoutDelayBounds = options.getOption("playoutdelay", false, 2);
         options.checkUnusedOptions();
 
         String renderMethod = "UI";
@@ -45,30 +59,65 @@ public class AppStart {
             renderMethod = renderMethods.get(0);
         }
 
+        GameStateCodecType codecType = GameStateCodecType.JAVA;
+        if (codecNames != null) {
+            codecType = GameStateCodecType.getByName(codecNames.get(0));
+        }
+
+        int tickRate = ClientEngine.DEFAULT_TICK_RATE;
+        if (tickRates != null) {
+            tickRate = Integer.parseInt(tickRates.get(0));
+        }
+
+        int frameRate = ClientEngine.DEFAULT_FRAME_RATE;
+        if (frameRates != null) {
+            frameRate = Integer.parseInt(frameRates.get(0));
+        }
+
         IGameStateRenderer renderer;
         IClientInputManager inputManager;
         IRendererPresetup presetupOperations;
-        if (renderMethod.equalsIgnoreCase("UI")) {
-            final GameWindow window = new GameWindow();
+        if (renderMethod.equalsIgnoreCase("UI") || renderMethod.equalsIgnoreCase("ACTIVE")) {
+            final GameWindow window = new GameWindow(renderMethod.equalsIgnoreCase("ACTIVE"), fullScreen);
+            if (rotationBuckets != null) {
+                window.setRotationBuckets(Integer.parseInt(rotationBuckets.get(0)));
+            }
+            if (bakedAnimations) {
+                window.enableBakedAnimations();
+            }
             renderer = window;
             inputManager = window;
             presetupOperations = window;
         } else if (renderMethod.equalsIgnoreCase("TXT")) {
             renderer = new IGameStateRenderer() {
+                private final Gson gson = new Gson();
+                private TripleBuffer<SampledFrame> framesToRender;
+                private ClientFrame lastPrintedFrame = null;
+
                 @Override
-                public void setGameStateToRender(GameState toRender) {
-                    System.out.println(new Gson().toJson(toRender));
+                public void setFramesToRender(TripleBuffer<SampledFrame> aFramesToRender) {
+                    framesToRender = aFramesToRender;
                 }
 
                 @Override
                 public void setSessionId(String sessionId) {}
 
                 @Override
-                public void render() {}
+                public void render() {
+                    // Print each game state from the server once, as received rather than interpolated
+                    final ClientFrame sourceFrame = framesToRender.getReadable().getSourceFrame();
+                    if (sourceFrame != null && sourceFrame != lastPrintedFrame) {
+                        System.out.println(gson.toJson(sourceFrame.getGameState()));
+                        lastPrintedFrame = sourceFrame;
+                    }
+                }
+
+                @Override
+                public void terminate() {}
             };
             inputManager = new IClientInputManager() {
                 @Override
-                public List<ServerInput> getAndClearInputs() {
+                public List<ServerInput> getAndClearInputs(ClientFrame latestFrame) {
                     return new ArrayList<>();
                 }
 
@@ -88,7 +137,23 @@ public class AppStart {
         }
 
         ClientCertificateUtil.addSslToSystemProperties();
-        final GameClient client = new GameClient(hostname, renderer, inputManager, presetupOperations);
+        final GameClient client = new GameClient(hostname, codecType, renderer, inputManager, presetupOperations);
+        client.getEngine().setLoopRates(tickRate, frameRate);
+        if (playoutDelayBounds != null) {
+            // Given in milliseconds
+            client.getEngine().setAdaptivePlayoutDelayBounds(
+                Long.parseLong(playoutDelayBounds.get(0)) * 1_000_000L,
+                Long.parseLong(playoutDelayBounds.get(1)) * 1_000_000L
+            );
+        }
+        client.getEngine().setPredictionEnabled(prediction);
+        if (predictionModel != null) {
+            client.getEngine().setPlayerMotionModel(new ApproximatePlayerMotionModel(
+                Long.parseLong(predictionModel.get(0)),
+                Long.parseLong(predictionModel.get(1)),
+                Double.parseDouble(predictionModel.get(2))
+            ));
+        }
         client.start(username, password);
     }
 }
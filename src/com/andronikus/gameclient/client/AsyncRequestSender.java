@@ -0,0 +1,354 @@
+package com.andronikus.gameclient.client;
+
+import com.andronikus.game.model.client.ClientRequest;
+import com.andronikus.game.model.client.InputRequest;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * <p>Sends client requests to the server on its own thread, so serializing, encrypting and writing to the socket never
+ * hold up the thread that builds the requests.</p>
+ *
+ * <p>Requests wait in a bounded queue. When a request is queued, any waiting request it supersedes is dropped. A
+ * request is superseded when it purges nothing and every input it carries is carried again by the newer request, which
+ * is what happens with join requests and with inputs that are resent until the server handles them. Commands are
+ * always resent in full, so they never keep a request alive. If the queue is still full the oldest request is dropped.
+ * </p>
+ *
+ * <p>Codec control messages, like baseline acknowledgements, go through the same queue so only this thread ever writes
+ * to the socket. A waiting control message is dropped when a newer one with the same keyword is queued, so only the
+ * newest baseline acknowledgement is sent.</p>
+ *
+ * @author Andronikus
+ */
+public class AsyncRequestSender implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger("AsyncRequestSender");
+    private static final double LATENCY_SMOOTHING = 0.1;
+
+    private final int capacity;
+    private final Consumer<ClientRequest> sendAction;
+    private final Consumer<String> controlMessageSendAction;
+    private final ArrayDeque<QueuedRequest> queue;
+    private boolean closed = false;
+
+    private long coalescedCount = 0;
+    private long droppedCount = 0;
+    private long sentCount = 0;
+    private int maximumQueueDepth = 0;
+    private long lastSendLatencyNanos = 0;
+    private double smoothedSendLatencyNanos = 0;
+    private long maximumSendLatencyNanos = 0;
+
+    private volatile Thread thread = null;
+
+    /**
+     * Instantiate an asynchronous request sender.
+     *
+     * @param aCapacity Most requests that can wait to be sent
+     * @param aSendAction Blocking send of a single request
+     * @param aControlMessageSendAction Blocking send of a single control message
+     */
+    public AsyncRequestSender(int aCapacity, Consumer<ClientRequest> aSendAction, Consumer<String> aControlMessageSendAction) {
+        capacity = aCapacity;
+        sendAction = aSendAction;
+        controlMessageSendAction = aControlMessageSendAction;
+        queue = new ArrayDeque<>(aCapacity);
+    }
+
+    /**
+     * Start the sender on its own thread.
+     */
+    public void start() {
+        thread = new Thread(this, "AsyncRequestSender");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the sender. Requests still waiting are not sent.
+     */
+    public synchronized void terminate() {
+        closed = true;
+        queue.clear();
+        notifyAll();
+    }
+
+    /**
+     * Queue a request to be sent. Never blocks.
+     *
+     * @param request The request. It must not be changed after being queued
+     */
+    public synchronized void offer(ClientRequest request) {
+        if (closed) {
+            return;
+        }
+
+        final Iterator<QueuedRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            final ClientRequest older = iterator.next().request;
+            if (older != null && supersedes(request, older)) {
+                iterator.remove();
+                coalescedCount++;
+            }
+        }
+
+        enqueue(new QueuedRequest(request, null, System.nanoTime()));
+    }
+
+    /**
+     * Queue a control message to be sent, dropping any waiting control message with the same keyword. Never blocks.
+     *
+     * @param controlMessage The control message, a keyword optionally followed by a space and arguments
+     */
+    public synchronized void offerControlMessage(String controlMessage) {
+        if (closed) {
+            return;
+        }
+
+        final Iterator<QueuedRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            final String older = iterator.next().controlMessage;
+            if (older != null && hasSameKeyword(controlMessage, older)) {
+                iterator.remove();
+                coalescedCount++;
+            }
+        }
+
+        enqueue(new QueuedRequest(null, controlMessage, System.nanoTime()));
+    }
+
+    /**
+     * Add to the back of the queue, dropping the oldest entry if the queue is full.
+     *
+     * @param queuedRequest The entry
+     */
+    private void enqueue(QueuedRequest queuedRequest) {
+        if (queue.size() == capacity) {
+            queue.removeFirst();
+            droppedCount++;
+            LOGGER.warning("Request queue full, dropped the oldest request.");
+        }
+
+        queue.addLast(queuedRequest);
+        maximumQueueDepth = Math.max(maximumQueueDepth, queue.size());
+        notifyAll();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        while (true) {
+            final QueuedRequest next;
+            synchronized (this) {
+                while (queue.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                next = queue.removeFirst();
+            }
+
+            if (next.request != null) {
+                sendAction.accept(next.request);
+            } else {
+                controlMessageSendAction.accept(next.controlMessage);
+            }
+            recordSend(System.nanoTime() - next.queuedNanos);
+        }
+    }
+
+    /**
+     * Check whether a newer request makes an older one pointless to send.
+     *
+     * @param newer The newer request
+     * @param older The older request
+     * @return True if the older request can be dropped
+     */
+    private static boolean supersedes(ClientRequest newer, ClientRequest older) {
+        if (
+            older.getInputPurge0() != null || older.getInputPurge1() != null || older.getInputPurge2() != null ||
+            older.getInputPurge3() != null || older.getInputPurge4() != null
+        ) {
+            return false;
+        }
+
+        return isCarriedBy(older.getInputCode0(), newer) &&
+            isCarriedBy(older.getInputCode1(), newer) &&
+            isCarriedBy(older.getInputCode2(), newer) &&
+            isCarriedBy(older.getInputCode3(), newer) &&
+            isCarriedBy(older.getInputCode4(), newer);
+    }
+
+    /**
+     * Check whether two control messages start with the same keyword.
+     *
+     * @param message The control message
+     * @param other The other control message
+     * @return True if the keywords match
+     */
+    private static boolean hasSameKeyword(String message, String other) {
+        final int keywordLength = keywordLength(message);
+        return keywordLength(other) == keywordLength && message.regionMatches(0, other, 0, keywordLength);
+    }
+
+    /**
+     * Get the length of the keyword a control message starts with.
+     *
+     * @param message The control message
+     * @return Length up to the first space, or of the whole message if it has none
+     */
+    private static int keywordLength(String message) {
+        final int space = message.indexOf(' ');
+        return space < 0 ? message.length() : space;
+    }
+
+    /**
+     * Check whether a request carries an input again.
+     *
+     * @param input The input, may be null
+     * @param request The request
+     * @return True if the input is null or the request carries it
+     */
+    private static boolean isCarriedBy(InputRequest input, ClientRequest request) {
+        return input == null ||
+            isSameInput(input, request.getInputCode0()) ||
+            isSameInput(input, request.getInputCode1()) ||
+            isSameInput(input, request.getInputCode2()) ||
+            isSameInput(input, request.getInputCode3()) ||
+            isSameInput(input, request.getInputCode4());
+    }
+
+    /**
+     * Check whether two inputs are the same input. Inputs without an ID, like joining the game, are the same when
+     * their codes match.
+     *
+     * @param input The input
+     * @param other The other input, may be null
+     * @return True if they are the same
+     */
+    private static boolean isSameInput(InputRequest input, InputRequest other) {
+        if (other == null) {
+            return false;
+        }
+        if (input.getInputId() == null) {
+            return other.getInputId() == null && Objects.equals(input.getInputCode(), other.getInputCode());
+        }
+        return input.getInputId().equals(other.getInputId());
+    }
+
+    /**
+     * Record a completed send.
+     *
+     * @param latencyNanos Time from queueing to the send completing
+     */
+    private synchronized void recordSend(long latencyNanos) {
+        sentCount++;
+        lastSendLatencyNanos = latencyNanos;
+        maximumSendLatencyNanos = Math.max(maximumSendLatencyNanos, latencyNanos);
+        if (smoothedSendLatencyNanos == 0) {
+            smoothedSendLatencyNanos = latencyNanos;
+        } else {
+            smoothedSendLatencyNanos += (latencyNanos - smoothedSendLatencyNanos) * LATENCY_SMOOTHING;
+        }
+    }
+
+    /**
+     * Get how many requests are waiting to be sent.
+     *
+     * @return Queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Get the most requests that have waited to be sent at once.
+     *
+     * @return Maximum queue depth
+     */
+    public synchronized int getMaximumQueueDepth() {
+        return maximumQueueDepth;
+    }
+
+    /**
+     * Get how many requests were dropped because a newer request superseded them.
+     *
+     * @return Coalesced request count
+     */
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Get how many requests were dropped because the queue was full.
+     *
+     * @return Dropped request count
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * Get how many requests were sent.
+     *
+     * @return Sent request count
+     */
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    /**
+     * Get the time from queueing to the send completing for the last request sent.
+     *
+     * @return Latency in nanoseconds
+     */
+    public synchronized long getLastSendLatencyNanos() {
+        return lastSendLatencyNanos;
+    }
+
+    /**
+     * Get the smoothed time from queueing to the send completing.
+     *
+     * @return Latency in nanoseconds
+     */
+    public synchronized long getSmoothedSendLatencyNanos() {
+        return Math.round(smoothedSendLatencyNanos);
+    }
+
+    /**
+     * Get the longest time from queueing to the send completing.
+     *
+     * @return Latency in nanoseconds
+     */
+    public synchronized long getMaximumSendLatencyNanos() {
+        return maximumSendLatencyNanos;
+    }
+
+    /**
+     * A request or control message waiting to be sent. Exactly one of the two is set.
+     */
+    private static class QueuedRequest {
+        private final ClientRequest request;
+        private final String controlMessage;
+        private final long queuedNanos;
+
+        private QueuedRequest(ClientRequest aRequest, String aControlMessage, long aQueuedNanos) {
+            request = aRequest;
+            controlMessage = aControlMessage;
+            queuedNanos = aQueuedNanos;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.andronikus.gameclient.client;
 
 import com.andronikus.game.model.client.ClientRequest;
 import com.andronikus.game.model.server.GameState;
+import com.andronikus.gameclient.client.codec.GameStateCodecType;
+import com.andronikus.gameclient.client.codec.NegotiatedGameStateTransformer;
 import com.andronikus.gameclient.dhke.DhkeClient;
 import com.andronikus.gameclient.engine.ClientEngine;
 import com.andronikus.gameclient.engine.IClientInputManager;
@@ -29,12 +31,14 @@ public class GameClient implements IUdpClientConfiguration {
     private static final Logger LOGGER = Logger.getLogger("GameClient");
 
     private static final int GAME_SERVER_PORT = 13350;
+    private static final int RECEIVED_PACKET_CAPACITY = 16;
+    private static final int REQUEST_QUEUE_CAPACITY = 8;
 
     private final Function<byte[], GameState> byteToGameStateTransformer;
     private final Function<Serializable, byte[]> objectToBytesTransformer;
     private final String hostname;
+    private final GameStateCodecType codecType;
 
-    private volatile long latestRecordedSequenceNumber;
     private volatile boolean keyReceived = false;
     private volatile boolean authenticated = false;
     private volatile String sessionSecret;
@@ -43,6 +47,9 @@ public class GameClient implements IUdpClientConfiguration {
     private final DhkeClient keyClient;
     private final UdpClient client;
     private final ClientEngine engine;
+    private final PacketRing receivedPackets;
+    private final GameStateDecodeStage decodeStage;
+    private final AsyncRequestSender requestSender;
     private final AuthenticationClient authenticationClient;
 
     /**
@@ -58,11 +65,31 @@ public class GameClient implements IUdpClientConfiguration {
         IGameStateRenderer aRenderer,
         IClientInputManager aInputSupplier,
         IRendererPresetup aSetupOperations
+    ) {
+        this(aHostname, GameStateCodecType.JAVA, aRenderer, aInputSupplier, aSetupOperations);
+    }
+
+    /**
+     * Instantiate a game client.
+     *
+     * @param aHostname Hostname of the game server
+     * @param aCodecType Codec to ask the server to encode game states with
+     * @param aRenderer Renderer the engine uses
+     * @param aInputSupplier Supplier for user inputs
+     * @param aSetupOperations Operations to setup the renderer
+     */
+    public GameClient(
+        String aHostname,
+        GameStateCodecType aCodecType,
+        IGameStateRenderer aRenderer,
+        IClientInputManager aInputSupplier,
+        IRendererPresetup aSetupOperations
     ) {
         this(
-            new BytesToObjectTransformer<>(),
+            new NegotiatedGameStateTransformer(),
             new ObjectToBytesTransformer(),
             aHostname,
+            aCodecType,
             aRenderer,
             aInputSupplier,
             aSetupOperations
@@ -75,6 +102,7 @@ public class GameClient implements IUdpClientConfiguration {
      * @param aByteToGameStateTransformer Transformer for turning a bytes message to a {@link GameState}
      * @param anObjectToBytesTransformer Transformer for turning an object to a byte array
      * @param aHostname Hostname of the game server
+     * @param aCodecType Codec to ask the server to encode game states with
      * @param aRenderer Renderer the engine uses
      * @param aInputSupplier Supplier for user inputs
      * @param aSetupOperations Operations to setup the renderer
@@ -84,6 +112,7 @@ public class GameClient implements IUdpClientConfiguration {
         Function<byte[], GameState> aByteToGameStateTransformer,
         Function<Serializable, byte[]> anObjectToBytesTransformer,
         String aHostname,
+        GameStateCodecType aCodecType,
         IGameStateRenderer aRenderer,
         IClientInputManager aInputSupplier,
         IRendererPresetup aSetupOperations
@@ -91,11 +120,18 @@ public class GameClient implements IUdpClientConfiguration {
         byteToGameStateTransformer = aByteToGameStateTransformer;
         objectToBytesTransformer = anObjectToBytesTransformer;
         hostname = aHostname;
+        codecType = aCodecType;
 
         keyClient = new DhkeClient(this::setKey);
         client = new UdpClient(aHostname, GAME_SERVER_PORT);
         client.setConfiguration(this);
+        if (codecType == GameStateCodecType.DELTA && byteToGameStateTransformer instanceof NegotiatedGameStateTransformer) {
+            ((NegotiatedGameStateTransformer) byteToGameStateTransformer).setControlMessageSender(this::sendControlMessage);
+        }
         engine = new ClientEngine(this, aRenderer, aInputSupplier, aSetupOperations);
+        receivedPackets = new PacketRing(RECEIVED_PACKET_CAPACITY);
+        decodeStage = new GameStateDecodeStage(receivedPackets, byteToGameStateTransformer, engine::takeGameState);
+        requestSender = new AsyncRequestSender(REQUEST_QUEUE_CAPACITY, this::sendClientRequestNow, this::sendControlMessageNow);
         authenticationClient = new AuthenticationClient(this::setSessionInfo);
     }
 
@@ -147,11 +183,20 @@ public class GameClient implements IUdpClientConfiguration {
     }
 
     /**
-     * Hook to send a message to the server.
+     * Hook to send a message to the server. The request is queued and sent on the request sender's thread.
      *
-     * @param request The client request
+     * @param request The client request. It must not be changed afterwards
      */
     public void sendClientRequest(ClientRequest request) {
+        requestSender.offer(request);
+    }
+
+    /**
+     * Serialize and send a request to the server, blocking until it is written to the socket.
+     *
+     * @param request The client request
+     */
+    private void sendClientRequestNow(ClientRequest request) {
         try {
             final byte[] bytes = objectToBytesTransformer.apply(request);
             client.sendMessageToServer(bytes);
@@ -160,6 +205,29 @@ public class GameClient implements IUdpClientConfiguration {
         }
     }
 
+    /**
+     * Hook to send a codec control message, such as a keyframe request, to the server. The message is queued and sent
+     * on the request sender's thread, so the decode stage never waits on the socket.
+     *
+     * @param message The control message
+     */
+    private void sendControlMessage(String message) {
+        requestSender.offerControlMessage(message);
+    }
+
+    /**
+     * Send a codec control message to the server, blocking until it is written to the socket.
+     *
+     * @param message The control message
+     */
+    private void sendControlMessageNow(String message) {
+        try {
+            client.sendMessageToServer(message);
+        } catch (Exception exception) {
+            LOGGER.log(Level.WARNING, "Failed to send control message to server.", exception);
+        }
+    }
+
     /**
      * Start the game client.
      *
@@ -204,8 +272,26 @@ public class GameClient implements IUdpClientConfiguration {
         LOGGER.info("All presetup steps completed. Starting client engine and UDP client.");
         // Okay, we're good to go live.
         engine.start();
+        decodeStage.start();
         client.start();
-        client.sendMessageToServer("CONN"); // TODO this can fail, add a mechanism to actually ensure the server notices or timeout
+        client.sendMessageToServer(buildConnectionMessage()); // TODO this can fail, add a mechanism to actually ensure the server notices or timeout
+
+        // Only the request sender writes to the socket from here on, what was queued meanwhile goes out now
+        requestSender.start();
+    }
+
+    /**
+     * Build the message that announces the client to the server. Codecs other than Java serialization are advertised
+     * after the connection keyword; the server may ignore the advertisement and keep using Java serialization.
+     *
+     * @return The connection message
+     */
+    private String buildConnectionMessage() {
+        final String codecToken = codecType.getHandshakeToken();
+        if (codecToken == null) {
+            return "CONN";
+        }
+        return "CONN " + codecToken;
     }
 
     /**
@@ -213,22 +299,44 @@ public class GameClient implements IUdpClientConfiguration {
      */
     @Override
     public void handleBytesMessage(byte[] bytes) {
+        // Only queue the packet here, decoding happens on the decode stage so the socket keeps being read
+        receivedPackets.offer(bytes);
+    }
 
-        GameState gameState;
-        try {
-            gameState = byteToGameStateTransformer.apply(bytes);
-        } catch (Exception exception) {
-            /*
-             * This is extremely abnormal.
-             */
-            LOGGER.log(Level.SEVERE, "Could not serialize server bytes message to a GameState.", exception);
-            return;
-        }
+    /**
+     * Get the engine the client drives.
+     *
+     * @return The engine
+     */
+    public ClientEngine getEngine() {
+        return engine;
+    }
 
-        if (gameState.getVersion() > latestRecordedSequenceNumber) {
-            engine.takeGameState(gameState);
-            latestRecordedSequenceNumber = gameState.getVersion();
-        }
+    /**
+     * Get the decode stage of the receive pipeline.
+     *
+     * @return The decode stage
+     */
+    public GameStateDecodeStage getDecodeStage() {
+        return decodeStage;
+    }
+
+    /**
+     * Get the sender requests to the server wait in.
+     *
+     * @return The request sender
+     */
+    public AsyncRequestSender getRequestSender() {
+        return requestSender;
+    }
+
+    /**
+     * Get the ring received packets wait in before decoding.
+     *
+     * @return The packet ring
+     */
+    public PacketRing getReceivedPackets() {
+        return receivedPackets;
     }
 
     /**
@@ -252,8 +360,10 @@ public class GameClient implements IUdpClientConfiguration {
      */
     @Override
     public void terminationAction() {
-        LOGGER.info("Game Client terminated. Killing the engine and key client.");
+        LOGGER.info("Game Client terminated. Killing the engine, decode stage, request sender and key client.");
         keyClient.terminate();
+        decodeStage.terminate();
+        requestSender.terminate();
         engine.kill();
     }
 
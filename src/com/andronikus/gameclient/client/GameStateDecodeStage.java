@@ -0,0 +1,184 @@
+package com.andronikus.gameclient.client;
+
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.gameclient.client.codec.PacketHeader;
+import com.andronikus.gameclient.engine.ClientFrame;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Decode stage of the receive pipeline. Takes packets off a {@link PacketRing} on its own thread, turns them into game
+ * states and hands the newest ones on as {@link ClientFrame}s, so they are indexed here instead of on the engine's
+ * thread. Stale packets, and packets a newer waiting packet makes redundant, are skipped before decoding where the
+ * packet header allows it.
+ *
+ * @author Andronikus
+ */
+public class GameStateDecodeStage implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger("GameStateDecodeStage");
+
+    private final PacketRing ring;
+    private final Function<byte[], GameState> byteToGameStateTransformer;
+    private final Consumer<ClientFrame> frameConsumer;
+
+    private final AtomicLong latestRecordedSequenceNumber = new AtomicLong(0);
+    private final AtomicLong staleCount = new AtomicLong(0);
+    private final AtomicLong supersededCount = new AtomicLong(0);
+    private final AtomicLong failedCount = new AtomicLong(0);
+
+    private volatile Thread thread = null;
+
+    /**
+     * Instantiate a decode stage.
+     *
+     * @param aRing Ring the listening thread puts packets in
+     * @param aByteToGameStateTransformer Transformer for turning a bytes message to a {@link GameState}
+     * @param aFrameConsumer Where frames of decoded game states go
+     */
+    public GameStateDecodeStage(
+        PacketRing aRing,
+        Function<byte[], GameState> aByteToGameStateTransformer,
+        Consumer<ClientFrame> aFrameConsumer
+    ) {
+        ring = aRing;
+        byteToGameStateTransformer = aByteToGameStateTransformer;
+        frameConsumer = aFrameConsumer;
+    }
+
+    /**
+     * Start the stage on its own thread.
+     */
+    public void start() {
+        thread = new Thread(this, "GameStateDecodeStage");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the stage.
+     */
+    public void terminate() {
+        ring.close();
+        final Thread runningThread = thread;
+        if (runningThread != null) {
+            runningThread.interrupt();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final byte[] packet;
+            try {
+                packet = ring.take();
+            } catch (InterruptedException exception) {
+                return;
+            }
+
+            if (packet == null) {
+                return;
+            }
+
+            handlePacket(packet);
+        }
+    }
+
+    /**
+     * Decode a packet and pass it on if it is the newest game state seen.
+     *
+     * @param packet The packet
+     */
+    private void handlePacket(byte[] packet) {
+        if (PacketHeader.isFramed(packet)) {
+            // Framed packets carry their version up front, so stale and duplicate ones are dropped without decoding
+            final long version = PacketHeader.readVersion(packet);
+            if (version <= latestRecordedSequenceNumber.get()) {
+                staleCount.incrementAndGet();
+                return;
+            }
+
+            // Keyframes may be needed as a baseline, anything else is useless if a newer packet is already waiting.
+            // Packets can arrive out of order, so only a waiting packet with a newer version counts
+            if (PacketHeader.readCodec(packet) != PacketHeader.CODEC_BINARY && ring.hasFramedPacketNewerThan(version)) {
+                supersededCount.incrementAndGet();
+                return;
+            }
+        }
+
+        final GameState gameState;
+        try {
+            gameState = byteToGameStateTransformer.apply(packet);
+        } catch (Exception exception) {
+            /*
+             * This is extremely abnormal.
+             */
+            failedCount.incrementAndGet();
+            LOGGER.log(Level.SEVERE, "Could not serialize server bytes message to a GameState.", exception);
+            return;
+        }
+
+        // Deltas against a baseline the client does not have produce nothing until a keyframe arrives
+        if (gameState == null) {
+            return;
+        }
+
+        if (advanceLatestRecordedSequenceNumber(gameState.getVersion())) {
+            frameConsumer.accept(new ClientFrame(gameState));
+        } else {
+            staleCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Raise the latest recorded sequence number to a version if the version is newer. The sequence number never goes
+     * backwards.
+     *
+     * @param version The version of a received game state
+     * @return True if the version was newer than anything recorded
+     */
+    private boolean advanceLatestRecordedSequenceNumber(long version) {
+        long latest = latestRecordedSequenceNumber.get();
+        while (version > latest) {
+            if (latestRecordedSequenceNumber.compareAndSet(latest, version)) {
+                return true;
+            }
+            latest = latestRecordedSequenceNumber.get();
+        }
+        return false;
+    }
+
+    /**
+     * Get how many packets were dropped for holding a game state no newer than one already seen.
+     *
+     * @return Stale packet count
+     */
+    public long getStaleCount() {
+        return staleCount.get();
+    }
+
+    /**
+     * Get how many packets were skipped without decoding because a newer packet was already waiting.
+     *
+     * @return Superseded packet count
+     */
+    public long getSupersededCount() {
+        return supersededCount.get();
+    }
+
+    /**
+     * Get how many packets failed to decode.
+     *
+     * @return Failed packet count
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+}
@@ -0,0 +1,114 @@
+package com.andronikus.gameclient.client;
+
+import com.andronikus.gameclient.client.codec.PacketHeader;
+
+/**
+ * Fixed size ring of received packets between the UDP listening thread and the decode stage. Offering never blocks;
+ * when the ring is full the oldest packet is overwritten, since a newer game state makes it useless anyway.
+ *
+ * @author Andronikus
+ */
+public class PacketRing {
+
+    private final byte[][] slots;
+    private int head = 0;
+    private int size = 0;
+    private long overwrittenCount = 0;
+    private boolean closed = false;
+
+    /**
+     * Instantiate a packet ring.
+     *
+     * @param capacity Maximum amount of packets held
+     */
+    public PacketRing(int capacity) {
+        slots = new byte[capacity][];
+    }
+
+    /**
+     * Add a packet, overwriting the oldest one if the ring is full.
+     *
+     * @param packet The packet. The ring keeps the reference, so the caller must not reuse the array
+     */
+    public synchronized void offer(byte[] packet) {
+        if (closed) {
+            return;
+        }
+
+        if (size == slots.length) {
+            slots[head] = null;
+            head = (head + 1) % slots.length;
+            size--;
+            overwrittenCount++;
+        }
+
+        slots[(head + size) % slots.length] = packet;
+        size++;
+        notifyAll();
+    }
+
+    /**
+     * Take the oldest packet, waiting for one if the ring is empty.
+     *
+     * @return The packet, or null if the ring was closed
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized byte[] take() throws InterruptedException {
+        while (size == 0 && !closed) {
+            wait();
+        }
+
+        if (size == 0) {
+            return null;
+        }
+
+        final byte[] packet = slots[head];
+        slots[head] = null;
+        head = (head + 1) % slots.length;
+        size--;
+        return packet;
+    }
+
+    /**
+     * Get how many packets are waiting.
+     *
+     * @return The amount of packets
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Check whether a waiting packet is framed with a game state version newer than a version. Unframed packets are
+     * not looked into.
+     *
+     * @param version The version
+     * @return True if a newer framed packet is waiting
+     */
+    public synchronized boolean hasFramedPacketNewerThan(long version) {
+        for (int index = 0; index < size; index++) {
+            final byte[] packet = slots[(head + index) % slots.length];
+            if (PacketHeader.isFramed(packet) && PacketHeader.readVersion(packet) > version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get how many packets were overwritten before the decode stage got to them.
+     *
+     * @return Overwritten packet count
+     */
+    public synchronized long getOverwrittenCount() {
+        return overwrittenCount;
+    }
+
+    /**
+     * Close the ring, waking up anything waiting on it. Packets offered afterwards are ignored.
+     */
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
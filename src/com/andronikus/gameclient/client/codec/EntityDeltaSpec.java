@@ -0,0 +1,83 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.GameState;
+
+/**
+ * Description of how one entity type is keyed and diffed in a snapshot delta.
+ *
+ * @param <ENTITY_TYPE> The type of entity
+ * @author Andronikus
+ */
+interface EntityDeltaSpec<ENTITY_TYPE> {
+
+    /**
+     * Get the key the entity is matched on between a baseline and the current state.
+     *
+     * @param entity The entity
+     * @return The key
+     */
+    Object key(ENTITY_TYPE entity);
+
+    /**
+     * Write the key of an entity.
+     *
+     * @param writer The writer
+     * @param entity The entity
+     */
+    void writeKey(VarIntWriter writer, ENTITY_TYPE entity);
+
+    /**
+     * Read a key written by {@link #writeKey(VarIntWriter, Object)}.
+     *
+     * @param reader The reader
+     * @return The key
+     */
+    Object readKey(VarIntReader reader);
+
+    /**
+     * Write an entity in full.
+     *
+     * @param writer The writer
+     * @param entity The entity
+     */
+    void writeFull(VarIntWriter writer, ENTITY_TYPE entity);
+
+    /**
+     * Read an entity written in full.
+     *
+     * @param reader The reader
+     * @param state The state being reconstructed, for resolving references
+     * @return The entity
+     */
+    ENTITY_TYPE readFull(VarIntReader reader, GameState state);
+
+    /**
+     * Compute which field groups changed between a baseline and the current entity.
+     *
+     * @param baseline The baseline entity
+     * @param current The current entity
+     * @return Bit mask of changed field groups, 0 if nothing changed
+     */
+    long changeMask(ENTITY_TYPE baseline, ENTITY_TYPE current);
+
+    /**
+     * Write the changed field groups.
+     *
+     * @param writer The writer
+     * @param baseline The baseline entity
+     * @param current The current entity
+     * @param mask The change mask
+     */
+    void writeChanges(VarIntWriter writer, ENTITY_TYPE baseline, ENTITY_TYPE current, long mask);
+
+    /**
+     * Read changed field groups into a copy of the baseline entity.
+     *
+     * @param reader The reader
+     * @param baseline The baseline entity, not modified
+     * @param mask The change mask
+     * @param state The state being reconstructed, for resolving references
+     * @return The updated copy
+     */
+    ENTITY_TYPE readChanges(VarIntReader reader, ENTITY_TYPE baseline, long mask, GameState state);
+}
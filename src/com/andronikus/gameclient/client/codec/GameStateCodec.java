@@ -0,0 +1,676 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.BoundingBoxBorder;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.IBorder;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.PlayerColor;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.game.model.server.debug.CommandAcknowledgement;
+import com.andronikus.game.model.server.debug.PlayerCollisionFlag;
+import com.andronikus.game.model.server.debug.ServerDebugSettings;
+import com.andronikus.game.model.server.input.InputAcknowledgement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Hand-written, versioned binary codec for a {@link GameState}. Positions and velocities are zigzag varints, angles
+ * are floats, booleans are packed into bit flags and strings (mostly session IDs) are interned per message.</p>
+ *
+ * <p>A message is a {@link #MAGIC} byte, a {@link #FORMAT_VERSION} byte and then the body. The magic byte can never
+ * start a Java serialization stream, so both formats can be told apart from the first byte.</p>
+ *
+ * <p>The server-side collision working set ({@link GameState#getCollideables()}) is not transmitted.</p>
+ *
+ * @author Andronikus
+ */
+public class GameStateCodec {
+
+    public static final int MAGIC = 0x47;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int BORDER_NONE = 0;
+    private static final int BORDER_BOUNDING_BOX = 1;
+
+    private static final int STATE_SERVER_DEBUG_MODE = 1;
+    private static final int STATE_TICK_ENABLED = 1 << 1;
+    private static final int STATE_COLLISIONS_ENABLED = 1 << 2;
+    private static final int STATE_MOVEMENT_ENABLED = 1 << 3;
+    private static final int STATE_SPAWNING_ENABLED = 1 << 4;
+    private static final int STATE_HAS_DEBUG_SETTINGS = 1 << 5;
+
+    private static final int PLAYER_BOOSTING = 1;
+    private static final int PLAYER_DEAD = 1 << 1;
+    private static final int PLAYER_SHIELD_LOST_THIS_TICK = 1 << 2;
+    private static final int PLAYER_THRUSTING = 1 << 3;
+    private static final int PLAYER_PERFORMED_WARP = 1 << 4;
+
+    private static final PlayerColor[] PLAYER_COLORS = PlayerColor.values();
+
+    /**
+     * Check whether or not a message was written by this codec.
+     *
+     * @param bytes The message
+     * @return True if the message starts with the codec's magic byte
+     */
+    public static boolean isBinaryMessage(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && (bytes[0] & 0xFF) == MAGIC;
+    }
+
+    /**
+     * Encode a game state. This is the reference encoder the server is expected to mirror.
+     *
+     * @param gameState The game state
+     * @return The message
+     */
+    public byte[] encode(GameState gameState) {
+        final VarIntWriter writer = new VarIntWriter();
+        writer.writeByte(MAGIC);
+        writer.writeByte(FORMAT_VERSION);
+        writeGameState(writer, gameState);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decode a message into a game state.
+     *
+     * @param bytes The message
+     * @return The game state
+     */
+    public GameState decode(byte[] bytes) {
+        return decode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decode a message held in a section of a byte array.
+     *
+     * @param bytes The bytes
+     * @param offset Where the message starts
+     * @param length Length of the message
+     * @return The game state
+     */
+    public GameState decode(byte[] bytes, int offset, int length) {
+        final VarIntReader reader = new VarIntReader(bytes, offset, length);
+        final int magic = reader.readByte();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Message is not a binary game state, magic byte was " + magic + ".");
+        }
+
+        final int formatVersion = reader.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported binary game state format " + formatVersion + ".");
+        }
+
+        return readGameState(reader);
+    }
+
+    /**
+     * Write the body of a game state.
+     *
+     * @param writer The writer
+     * @param gameState The game state
+     */
+    static void writeGameState(VarIntWriter writer, GameState gameState) {
+        final long version = gameState.getVersion();
+        writer.writeVarLong(version);
+        writer.writeVarLong(gameState.getNextLaserId());
+        writer.writeVarLong(gameState.getNextSpawnId());
+
+        int stateFlags = 0;
+        stateFlags |= gameState.isServerDebugMode() ? STATE_SERVER_DEBUG_MODE : 0;
+        stateFlags |= gameState.isTickEnabled() ? STATE_TICK_ENABLED : 0;
+        stateFlags |= gameState.isCollisionsEnabled() ? STATE_COLLISIONS_ENABLED : 0;
+        stateFlags |= gameState.isMovementEnabled() ? STATE_MOVEMENT_ENABLED : 0;
+        stateFlags |= gameState.isSpawningEnabled() ? STATE_SPAWNING_ENABLED : 0;
+        stateFlags |= gameState.getDebugSettings() != null ? STATE_HAS_DEBUG_SETTINGS : 0;
+        writer.writeByte(stateFlags);
+
+        writeBorder(writer, gameState.getBorder());
+
+        writer.writeUnsignedVarLong(gameState.getPlayers().size());
+        for (Player player : gameState.getPlayers()) {
+            writePlayer(writer, player);
+        }
+
+        writer.writeUnsignedVarLong(gameState.getLasers().size());
+        for (Laser laser : gameState.getLasers()) {
+            writeLaser(writer, laser);
+        }
+
+        writer.writeUnsignedVarLong(gameState.getAsteroids().size());
+        for (Asteroid asteroid : gameState.getAsteroids()) {
+            writeAsteroid(writer, asteroid);
+        }
+
+        writer.writeUnsignedVarLong(gameState.getSnakes().size());
+        for (Snake snake : gameState.getSnakes()) {
+            writeSnake(writer, snake);
+        }
+
+        writer.writeUnsignedVarLong(gameState.getBlackHoles().size());
+        for (MicroBlackHole blackHole : gameState.getBlackHoles()) {
+            writeBlackHole(writer, blackHole);
+        }
+
+        writer.writeUnsignedVarLong(gameState.getPortals().size());
+        for (Portal portal : gameState.getPortals()) {
+            writePortal(writer, portal);
+        }
+
+        writer.writeUnsignedVarLong(gameState.getInputAcknowledgements().size());
+        for (InputAcknowledgement acknowledgement : gameState.getInputAcknowledgements()) {
+            writeInputAcknowledgement(writer, acknowledgement, version);
+        }
+
+        final ServerDebugSettings debugSettings = gameState.getDebugSettings();
+        if (debugSettings != null) {
+            writeDebugSettings(writer, debugSettings, version);
+        }
+    }
+
+    /**
+     * Read the body of a game state.
+     *
+     * @param reader The reader
+     * @return The game state
+     */
+    static GameState readGameState(VarIntReader reader) {
+        final GameState gameState = new GameState();
+        final long version = reader.readVarLong();
+        gameState.setVersion(version);
+        gameState.setNextLaserId(reader.readVarLong());
+        gameState.setNextSpawnId(reader.readVarLong());
+
+        final int stateFlags = reader.readByte();
+        gameState.setServerDebugMode((stateFlags & STATE_SERVER_DEBUG_MODE) != 0);
+        gameState.setTickEnabled((stateFlags & STATE_TICK_ENABLED) != 0);
+        gameState.setCollisionsEnabled((stateFlags & STATE_COLLISIONS_ENABLED) != 0);
+        gameState.setMovementEnabled((stateFlags & STATE_MOVEMENT_ENABLED) != 0);
+        gameState.setSpawningEnabled((stateFlags & STATE_SPAWNING_ENABLED) != 0);
+
+        gameState.setBorder(readBorder(reader));
+
+        final int playerCount = reader.readCount();
+        final ArrayList<Player> players = new ArrayList<>(playerCount);
+        for (int index = 0; index < playerCount; index++) {
+            players.add(readPlayer(reader));
+        }
+        gameState.setPlayers(players);
+
+        final int laserCount = reader.readCount();
+        final ArrayList<Laser> lasers = new ArrayList<>(laserCount);
+        for (int index = 0; index < laserCount; index++) {
+            lasers.add(readLaser(reader));
+        }
+        gameState.setLasers(lasers);
+
+        final int asteroidCount = reader.readCount();
+        final ArrayList<Asteroid> asteroids = new ArrayList<>(asteroidCount);
+        for (int index = 0; index < asteroidCount; index++) {
+            asteroids.add(readAsteroid(reader));
+        }
+        gameState.setAsteroids(asteroids);
+
+        final int snakeCount = reader.readCount();
+        final ArrayList<Snake> snakes = new ArrayList<>(snakeCount);
+        for (int index = 0; index < snakeCount; index++) {
+            snakes.add(readSnake(reader, players));
+        }
+        gameState.setSnakes(snakes);
+
+        final int blackHoleCount = reader.readCount();
+        final ArrayList<MicroBlackHole> blackHoles = new ArrayList<>(blackHoleCount);
+        for (int index = 0; index < blackHoleCount; index++) {
+            blackHoles.add(readBlackHole(reader));
+        }
+        gameState.setBlackHoles(blackHoles);
+
+        final int portalCount = reader.readCount();
+        final ArrayList<Portal> portals = new ArrayList<>(portalCount);
+        for (int index = 0; index < portalCount; index++) {
+            portals.add(readPortal(reader));
+        }
+        gameState.setPortals(portals);
+
+        final int acknowledgementCount = reader.readCount();
+        final ArrayList<InputAcknowledgement> acknowledgements = new ArrayList<>(acknowledgementCount);
+        for (int index = 0; index < acknowledgementCount; index++) {
+            acknowledgements.add(readInputAcknowledgement(reader, version));
+        }
+        gameState.setInputAcknowledgements(acknowledgements);
+
+        if ((stateFlags & STATE_HAS_DEBUG_SETTINGS) != 0) {
+            gameState.setDebugSettings(readDebugSettings(reader, version));
+        }
+
+        return gameState;
+    }
+
+    /**
+     * Write the border.
+     *
+     * @param writer The writer
+     * @param border The border
+     */
+    static void writeBorder(VarIntWriter writer, IBorder border) {
+        if (border instanceof BoundingBoxBorder) {
+            final BoundingBoxBorder boundingBoxBorder = (BoundingBoxBorder) border;
+            writer.writeByte(BORDER_BOUNDING_BOX);
+            writer.writeVarLong(boundingBoxBorder.getMaxX());
+            writer.writeVarLong(boundingBoxBorder.getMaxY());
+        } else if (border == null) {
+            writer.writeByte(BORDER_NONE);
+        } else {
+            throw new IllegalArgumentException("No binary encoding for border type " + border.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Read the border.
+     *
+     * @param reader The reader
+     * @return The border
+     */
+    static IBorder readBorder(VarIntReader reader) {
+        final int borderType = reader.readByte();
+        if (borderType == BORDER_NONE) {
+            return null;
+        } else if (borderType == BORDER_BOUNDING_BOX) {
+            final BoundingBoxBorder border = new BoundingBoxBorder();
+            border.setMaxX(reader.readVarLong());
+            border.setMaxY(reader.readVarLong());
+            return border;
+        }
+
+        throw new IllegalStateException("Unknown border type " + borderType + ".");
+    }
+
+    /**
+     * Write a player.
+     *
+     * @param writer The writer
+     * @param player The player
+     */
+    static void writePlayer(VarIntWriter writer, Player player) {
+        writer.writeString(player.getSessionId());
+        writer.writeVarLong(player.getX());
+        writer.writeVarLong(player.getY());
+        writer.writeVarLong(player.getXVelocity());
+        writer.writeVarLong(player.getYVelocity());
+        writer.writeVarLong(player.getExternalXAcceleration());
+        writer.writeVarLong(player.getExternalYAcceleration());
+        writer.writeVarLong(player.getSpeed());
+        writer.writeVarLong(player.getAcceleration());
+        writer.writeVarLong(player.getBoostingCharge());
+        writer.writeVarLong(player.getBoostingRecharge());
+        writer.writeFloat(player.getAngle());
+        writer.writeFloat(player.getRotationalVelocity());
+        writer.writeVarLong(player.getHealth());
+        writer.writeVarLong(player.getShieldCount());
+        writer.writeVarLong(player.getShieldRecharge());
+        writer.writeVarLong(player.getLaserCharges());
+        writer.writeVarLong(player.getLaserRecharge());
+        writer.writeUnsignedVarLong(player.getColor() == null ? 0 : player.getColor().ordinal() + 1);
+        writer.writeVarLong(player.getVenom());
+        writer.writeNullableVarLong(player.getCollidedPortalId());
+
+        int flags = 0;
+        flags |= player.isBoosting() ? PLAYER_BOOSTING : 0;
+        flags |= player.isDead() ? PLAYER_DEAD : 0;
+        flags |= player.isShieldLostThisTick() ? PLAYER_SHIELD_LOST_THIS_TICK : 0;
+        flags |= player.isThrusting() ? PLAYER_THRUSTING : 0;
+        flags |= player.isPerformedWarp() ? PLAYER_PERFORMED_WARP : 0;
+        writer.writeByte(flags);
+    }
+
+    /**
+     * Read a player.
+     *
+     * @param reader The reader
+     * @return The player
+     */
+    static Player readPlayer(VarIntReader reader) {
+        final Player player = new Player();
+        player.setSessionId(reader.readString());
+        player.setX(reader.readVarLong());
+        player.setY(reader.readVarLong());
+        player.setXVelocity(reader.readVarLong());
+        player.setYVelocity(reader.readVarLong());
+        player.setExternalXAcceleration(reader.readVarLong());
+        player.setExternalYAcceleration(reader.readVarLong());
+        player.setSpeed(reader.readVarLong());
+        player.setAcceleration(reader.readVarLong());
+        player.setBoostingCharge(reader.readVarInt());
+        player.setBoostingRecharge(reader.readVarInt());
+        player.setAngle(reader.readFloat());
+        player.setRotationalVelocity(reader.readFloat());
+        player.setHealth(reader.readVarInt());
+        player.setShieldCount(reader.readVarInt());
+        player.setShieldRecharge(reader.readVarInt());
+        player.setLaserCharges(reader.readVarInt());
+        player.setLaserRecharge(reader.readVarInt());
+
+        final int colorOrdinal = reader.readUnsignedVarInt();
+        player.setColor(colorOrdinal == 0 ? null : PLAYER_COLORS[colorOrdinal - 1]);
+
+        player.setVenom(reader.readVarInt());
+        player.setCollidedPortalId(reader.readNullableVarLong());
+
+        final int flags = reader.readByte();
+        player.setBoosting((flags & PLAYER_BOOSTING) != 0);
+        player.setDead((flags & PLAYER_DEAD) != 0);
+        player.setShieldLostThisTick((flags & PLAYER_SHIELD_LOST_THIS_TICK) != 0);
+        player.setThrusting((flags & PLAYER_THRUSTING) != 0);
+        player.setPerformedWarp((flags & PLAYER_PERFORMED_WARP) != 0);
+        return player;
+    }
+
+    /**
+     * Write a laser.
+     *
+     * @param writer The writer
+     * @param laser The laser
+     */
+    static void writeLaser(VarIntWriter writer, Laser laser) {
+        writer.writeVarLong(laser.getId());
+        writer.writeVarLong(laser.getX());
+        writer.writeVarLong(laser.getY());
+        writer.writeVarLong(laser.getXVelocity());
+        writer.writeVarLong(laser.getYVelocity());
+        writer.writeFloat(laser.getAngle());
+        writer.writeString(laser.getLoyalty());
+        writer.writeBoolean(laser.isActive());
+    }
+
+    /**
+     * Read a laser.
+     *
+     * @param reader The reader
+     * @return The laser
+     */
+    static Laser readLaser(VarIntReader reader) {
+        final Laser laser = new Laser();
+        laser.setId(reader.readVarLong());
+        laser.setX(reader.readVarLong());
+        laser.setY(reader.readVarLong());
+        laser.setXVelocity(reader.readVarLong());
+        laser.setYVelocity(reader.readVarLong());
+        laser.setAngle(reader.readFloat());
+        laser.setLoyalty(reader.readString());
+        laser.setActive(reader.readBoolean());
+        return laser;
+    }
+
+    /**
+     * Write an asteroid.
+     *
+     * @param writer The writer
+     * @param asteroid The asteroid
+     */
+    static void writeAsteroid(VarIntWriter writer, Asteroid asteroid) {
+        writer.writeVarLong(asteroid.getId());
+        writer.writeVarLong(asteroid.getX());
+        writer.writeVarLong(asteroid.getY());
+        writer.writeVarLong(asteroid.getXVelocity());
+        writer.writeVarLong(asteroid.getYVelocity());
+        writer.writeFloat(asteroid.getAngle());
+        writer.writeFloat(asteroid.getAngularVelocity());
+        writer.writeVarLong(asteroid.getSize());
+        writer.writeVarLong(asteroid.getDurability());
+        writer.writeVarLong(asteroid.getCrackingTicks());
+    }
+
+    /**
+     * Read an asteroid.
+     *
+     * @param reader The reader
+     * @return The asteroid
+     */
+    static Asteroid readAsteroid(VarIntReader reader) {
+        final Asteroid asteroid = new Asteroid();
+        asteroid.setId(reader.readVarLong());
+        asteroid.setX(reader.readVarLong());
+        asteroid.setY(reader.readVarLong());
+        asteroid.setXVelocity(reader.readVarLong());
+        asteroid.setYVelocity(reader.readVarLong());
+        asteroid.setAngle(reader.readFloat());
+        asteroid.setAngularVelocity(reader.readFloat());
+        asteroid.setSize(reader.readVarInt());
+        asteroid.setDurability(reader.readVarInt());
+        asteroid.setCrackingTicks(reader.readVarInt());
+        return asteroid;
+    }
+
+    /**
+     * Write a snake. The snake's target is written as a reference to the targeted player's session.
+     *
+     * @param writer The writer
+     * @param snake The snake
+     */
+    static void writeSnake(VarIntWriter writer, Snake snake) {
+        writer.writeVarLong(snake.getId());
+        writer.writeVarLong(snake.getX());
+        writer.writeVarLong(snake.getY());
+        writer.writeVarLong(snake.getXVelocity());
+        writer.writeVarLong(snake.getYVelocity());
+        writer.writeFloat(snake.getAngle());
+        writer.writeVarLong(snake.getHealth());
+        writer.writeBoolean(snake.isChasing());
+        writer.writeString(snake.getTarget() == null ? null : snake.getTarget().getSessionId());
+    }
+
+    /**
+     * Read a snake.
+     *
+     * @param reader The reader
+     * @param players Players already read from the message, used to resolve the snake's target
+     * @return The snake
+     */
+    static Snake readSnake(VarIntReader reader, List<Player> players) {
+        final Snake snake = new Snake();
+        snake.setId(reader.readVarLong());
+        snake.setX(reader.readVarLong());
+        snake.setY(reader.readVarLong());
+        snake.setXVelocity(reader.readVarLong());
+        snake.setYVelocity(reader.readVarLong());
+        snake.setAngle(reader.readFloat());
+        snake.setHealth(reader.readVarInt());
+        snake.setChasing(reader.readBoolean());
+        snake.setTarget(resolvePlayer(reader.readString(), players));
+        return snake;
+    }
+
+    /**
+     * Write a black hole.
+     *
+     * @param writer The writer
+     * @param blackHole The black hole
+     */
+    static void writeBlackHole(VarIntWriter writer, MicroBlackHole blackHole) {
+        writer.writeVarLong(blackHole.getId());
+        writer.writeVarLong(blackHole.getX());
+        writer.writeVarLong(blackHole.getY());
+        writer.writeFloat(blackHole.getAngle());
+        writer.writeFloat(blackHole.getAngularVelocity());
+    }
+
+    /**
+     * Read a black hole.
+     *
+     * @param reader The reader
+     * @return The black hole
+     */
+    static MicroBlackHole readBlackHole(VarIntReader reader) {
+        final MicroBlackHole blackHole = new MicroBlackHole();
+        blackHole.setId(reader.readVarLong());
+        blackHole.setX(reader.readVarLong());
+        blackHole.setY(reader.readVarLong());
+        blackHole.setAngle(reader.readFloat());
+        blackHole.setAngularVelocity(reader.readFloat());
+        return blackHole;
+    }
+
+    /**
+     * Write a portal.
+     *
+     * @param writer The writer
+     * @param portal The portal
+     */
+    static void writePortal(VarIntWriter writer, Portal portal) {
+        writer.writeVarLong(portal.getId());
+        writer.writeVarLong(portal.getX());
+        writer.writeVarLong(portal.getY());
+        writer.writeFloat(portal.getAngle());
+        writer.writeFloat(portal.getAngularVelocity());
+        writer.writeNullableVarLong(portal.getTicksSinceCollision() == null ? null : (long) portal.getTicksSinceCollision());
+        writer.writeNullableVarLong(portal.getTicksSinceMovement() == null ? null : (long) portal.getTicksSinceMovement());
+    }
+
+    /**
+     * Read a portal.
+     *
+     * @param reader The reader
+     * @return The portal
+     */
+    static Portal readPortal(VarIntReader reader) {
+        final Portal portal = new Portal();
+        portal.setId(reader.readVarLong());
+        portal.setX(reader.readVarLong());
+        portal.setY(reader.readVarLong());
+        portal.setAngle(reader.readFloat());
+        portal.setAngularVelocity(reader.readFloat());
+
+        final Long ticksSinceCollision = reader.readNullableVarLong();
+        portal.setTicksSinceCollision(ticksSinceCollision == null ? null : ticksSinceCollision.intValue());
+
+        final Long ticksSinceMovement = reader.readNullableVarLong();
+        portal.setTicksSinceMovement(ticksSinceMovement == null ? null : ticksSinceMovement.intValue());
+        return portal;
+    }
+
+    /**
+     * Write an input acknowledgement. The creation version is written relative to the state version.
+     *
+     * @param writer The writer
+     * @param acknowledgement The acknowledgement
+     * @param stateVersion Version of the game state being written
+     */
+    static void writeInputAcknowledgement(VarIntWriter writer, InputAcknowledgement acknowledgement, long stateVersion) {
+        writer.writeString(acknowledgement.getSessionId());
+        writer.writeVarLong(acknowledgement.getInputId());
+        writer.writeVarLong(stateVersion - acknowledgement.getCreatedGameStateVersion());
+    }
+
+    /**
+     * Read an input acknowledgement.
+     *
+     * @param reader The reader
+     * @param stateVersion Version of the game state being read
+     * @return The acknowledgement
+     */
+    static InputAcknowledgement readInputAcknowledgement(VarIntReader reader, long stateVersion) {
+        final InputAcknowledgement acknowledgement = new InputAcknowledgement();
+        acknowledgement.setSessionId(reader.readString());
+        acknowledgement.setInputId(reader.readVarLong());
+        acknowledgement.setCreatedGameStateVersion(stateVersion - reader.readVarLong());
+        return acknowledgement;
+    }
+
+    /**
+     * Write the debug settings.
+     *
+     * @param writer The writer
+     * @param debugSettings The debug settings
+     * @param stateVersion Version of the game state being written
+     */
+    static void writeDebugSettings(VarIntWriter writer, ServerDebugSettings debugSettings, long stateVersion) {
+        final List<CommandAcknowledgement> commandAcknowledgements = debugSettings.getCommandAcknowledgements();
+        writer.writeBoolean(commandAcknowledgements != null);
+        if (commandAcknowledgements != null) {
+            writer.writeUnsignedVarLong(commandAcknowledgements.size());
+            for (CommandAcknowledgement acknowledgement : commandAcknowledgements) {
+                writer.writeString(acknowledgement.getSessionId());
+                writer.writeVarLong(acknowledgement.getCommandId());
+            }
+        }
+
+        final List<PlayerCollisionFlag> collisionFlags = debugSettings.getPlayerCollisionFlags();
+        writer.writeBoolean(collisionFlags != null);
+        if (collisionFlags != null) {
+            writer.writeUnsignedVarLong(collisionFlags.size());
+            for (PlayerCollisionFlag collisionFlag : collisionFlags) {
+                writer.writeString(collisionFlag.getSessionId());
+                writer.writeString(collisionFlag.getCollisionType());
+                writer.writeVarLong(collisionFlag.getCollisionId());
+                writer.writeVarLong(stateVersion - collisionFlag.getGameStateVersion());
+            }
+        }
+    }
+
+    /**
+     * Read the debug settings.
+     *
+     * @param reader The reader
+     * @param stateVersion Version of the game state being read
+     * @return The debug settings
+     */
+    static ServerDebugSettings readDebugSettings(VarIntReader reader, long stateVersion) {
+        final ServerDebugSettings debugSettings = new ServerDebugSettings();
+
+        if (reader.readBoolean()) {
+            final int commandAcknowledgementCount = reader.readCount();
+            final ArrayList<CommandAcknowledgement> commandAcknowledgements = new ArrayList<>(commandAcknowledgementCount);
+            for (int index = 0; index < commandAcknowledgementCount; index++) {
+                final CommandAcknowledgement acknowledgement = new CommandAcknowledgement();
+                acknowledgement.setSessionId(reader.readString());
+                acknowledgement.setCommandId(reader.readVarLong());
+                commandAcknowledgements.add(acknowledgement);
+            }
+            debugSettings.setCommandAcknowledgements(commandAcknowledgements);
+        }
+
+        if (reader.readBoolean()) {
+            final int collisionFlagCount = reader.readCount();
+            final ArrayList<PlayerCollisionFlag> collisionFlags = new ArrayList<>(collisionFlagCount);
+            for (int index = 0; index < collisionFlagCount; index++) {
+                final PlayerCollisionFlag collisionFlag = new PlayerCollisionFlag();
+                collisionFlag.setSessionId(reader.readString());
+                collisionFlag.setCollisionType(reader.readString());
+                collisionFlag.setCollisionId(reader.readVarLong());
+                collisionFlag.setGameStateVersion(stateVersion - reader.readVarLong());
+                collisionFlags.add(collisionFlag);
+            }
+            debugSettings.setPlayerCollisionFlags(collisionFlags);
+        }
+
+        return debugSettings;
+    }
+
+    /**
+     * Find a player by session, creating a reference-only player if the session is not in the list.
+     *
+     * @param sessionId The session ID
+     * @param players The players to search
+     * @return The player, or null if the session is null
+     */
+    private static Player resolvePlayer(String sessionId, List<Player> players) {
+        if (sessionId == null) {
+            return null;
+        }
+
+        for (Player player : players) {
+            if (sessionId.equals(player.getSessionId())) {
+                return player;
+            }
+        }
+
+        final Player reference = new Player();
+        reference.setSessionId(sessionId);
+        return reference;
+    }
+}
@@ -0,0 +1,44 @@
+package com.andronikus.gameclient.client.codec;
+
+/**
+ * Codec a client asks the server to encode game states with.
+ *
+ * @author Andronikus
+ */
+public enum GameStateCodecType {
+    JAVA(null),
+    BINARY("BINARY"),
+    DELTA("DELTA");
+
+    private final String handshakeToken;
+
+    GameStateCodecType(String aHandshakeToken) {
+        handshakeToken = aHandshakeToken;
+    }
+
+    /**
+     * Get the token appended to the connection message to advertise support for the codec. Java serialization is the
+     * server's default and is never advertised.
+     *
+     * @return The token, or null if nothing needs to be advertised
+     */
+    public String getHandshakeToken() {
+        return handshakeToken;
+    }
+
+    /**
+     * Get a codec type by its name.
+     *
+     * @param name The name, case insensitive
+     * @return The codec type
+     */
+    public static GameStateCodecType getByName(String name) {
+        for (GameStateCodecType candidate : GameStateCodecType.values()) {
+            if (candidate.name().equalsIgnoreCase(name)) {
+                return candidate;
+            }
+        }
+
+        throw new IllegalArgumentException("No game state codec named " + name);
+    }
+}
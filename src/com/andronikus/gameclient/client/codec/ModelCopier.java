@@ -0,0 +1,266 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+
+import java.util.List;
+
+/**
+ * Field-by-field copies of the server model. States produced by the client (delta reconstruction, interpolation)
+ * share unchanged entities with older states, so anything that needs to change an entity copies it first.
+ *
+ * @author Andronikus
+ */
+public class ModelCopier {
+
+    /**
+     * Copy a game state. Entity lists are new lists, but hold the same entity instances as the original.
+     *
+     * @param original The game state
+     * @return The copy
+     */
+    public static GameState copyGameStateShallow(GameState original) {
+        return copyGameStateShallow(original, new GameState());
+    }
+
+    /**
+     * Copy a game state into another game state, overwriting everything it holds. The copy keeps its own entity
+     * lists, refilled with the same entity instances as the original, so copying into the same game state again does
+     * not allocate once its lists are big enough.
+     *
+     * @param original The game state
+     * @param copy The game state to copy into
+     * @return The copy
+     */
+    public static GameState copyGameStateShallow(GameState original, GameState copy) {
+        copy.setVersion(original.getVersion());
+        copyList(original.getCollideables(), copy.getCollideables());
+        copyList(original.getPlayers(), copy.getPlayers());
+        copyList(original.getLasers(), copy.getLasers());
+        copyList(original.getAsteroids(), copy.getAsteroids());
+        copyList(original.getSnakes(), copy.getSnakes());
+        copyList(original.getBlackHoles(), copy.getBlackHoles());
+        copyList(original.getPortals(), copy.getPortals());
+        copy.setNextLaserId(original.getNextLaserId());
+        copy.setNextSpawnId(original.getNextSpawnId());
+        copy.setBorder(original.getBorder());
+        copy.setServerDebugMode(original.isServerDebugMode());
+        copy.setDebugSettings(original.getDebugSettings());
+        copy.setTickEnabled(original.isTickEnabled());
+        copy.setCollisionsEnabled(original.isCollisionsEnabled());
+        copy.setMovementEnabled(original.isMovementEnabled());
+        copy.setSpawningEnabled(original.isSpawningEnabled());
+        copyList(original.getInputAcknowledgements(), copy.getInputAcknowledgements());
+        return copy;
+    }
+
+    /**
+     * Copy a player.
+     *
+     * @param original The player
+     * @return The copy
+     */
+    public static Player copyPlayer(Player original) {
+        return copyPlayer(original, new Player());
+    }
+
+    /**
+     * Copy a player into another player, overwriting everything it holds.
+     *
+     * @param original The player
+     * @param copy The player to copy into
+     * @return The copy
+     */
+    public static Player copyPlayer(Player original, Player copy) {
+        copy.setSessionId(original.getSessionId());
+        copy.setX(original.getX());
+        copy.setY(original.getY());
+        copy.setXVelocity(original.getXVelocity());
+        copy.setYVelocity(original.getYVelocity());
+        copy.setExternalXAcceleration(original.getExternalXAcceleration());
+        copy.setExternalYAcceleration(original.getExternalYAcceleration());
+        copy.setSpeed(original.getSpeed());
+        copy.setAcceleration(original.getAcceleration());
+        copy.setBoosting(original.isBoosting());
+        copy.setBoostingCharge(original.getBoostingCharge());
+        copy.setBoostingRecharge(original.getBoostingRecharge());
+        copy.setAngle(original.getAngle());
+        copy.setRotationalVelocity(original.getRotationalVelocity());
+        copy.setHealth(original.getHealth());
+        copy.setDead(original.isDead());
+        copy.setShieldCount(original.getShieldCount());
+        copy.setShieldRecharge(original.getShieldRecharge());
+        copy.setShieldLostThisTick(original.isShieldLostThisTick());
+        copy.setLaserCharges(original.getLaserCharges());
+        copy.setLaserRecharge(original.getLaserRecharge());
+        copy.setColor(original.getColor());
+        copy.setThrusting(original.isThrusting());
+        copy.setVenom(original.getVenom());
+        copy.setCollidedPortalId(original.getCollidedPortalId());
+        copy.setPerformedWarp(original.isPerformedWarp());
+        return copy;
+    }
+
+    /**
+     * Copy a laser.
+     *
+     * @param original The laser
+     * @return The copy
+     */
+    public static Laser copyLaser(Laser original) {
+        return copyLaser(original, new Laser());
+    }
+
+    /**
+     * Copy a laser into another laser, overwriting everything it holds.
+     *
+     * @param original The laser
+     * @param copy The laser to copy into
+     * @return The copy
+     */
+    public static Laser copyLaser(Laser original, Laser copy) {
+        copy.setId(original.getId());
+        copy.setX(original.getX());
+        copy.setY(original.getY());
+        copy.setXVelocity(original.getXVelocity());
+        copy.setYVelocity(original.getYVelocity());
+        copy.setLoyalty(original.getLoyalty());
+        copy.setActive(original.isActive());
+        copy.setAngle(original.getAngle());
+        return copy;
+    }
+
+    /**
+     * Copy an asteroid.
+     *
+     * @param original The asteroid
+     * @return The copy
+     */
+    public static Asteroid copyAsteroid(Asteroid original) {
+        return copyAsteroid(original, new Asteroid());
+    }
+
+    /**
+     * Copy an asteroid into another asteroid, overwriting everything it holds.
+     *
+     * @param original The asteroid
+     * @param copy The asteroid to copy into
+     * @return The copy
+     */
+    public static Asteroid copyAsteroid(Asteroid original, Asteroid copy) {
+        copy.setId(original.getId());
+        copy.setX(original.getX());
+        copy.setY(original.getY());
+        copy.setXVelocity(original.getXVelocity());
+        copy.setYVelocity(original.getYVelocity());
+        copy.setAngle(original.getAngle());
+        copy.setAngularVelocity(original.getAngularVelocity());
+        copy.setSize(original.getSize());
+        copy.setDurability(original.getDurability());
+        copy.setCrackingTicks(original.getCrackingTicks());
+        return copy;
+    }
+
+    /**
+     * Copy a snake. The target is shared with the original.
+     *
+     * @param original The snake
+     * @return The copy
+     */
+    public static Snake copySnake(Snake original) {
+        return copySnake(original, new Snake());
+    }
+
+    /**
+     * Copy a snake into another snake, overwriting everything it holds. The target is shared with the original.
+     *
+     * @param original The snake
+     * @param copy The snake to copy into
+     * @return The copy
+     */
+    public static Snake copySnake(Snake original, Snake copy) {
+        copy.setId(original.getId());
+        copy.setX(original.getX());
+        copy.setY(original.getY());
+        copy.setXVelocity(original.getXVelocity());
+        copy.setYVelocity(original.getYVelocity());
+        copy.setAngle(original.getAngle());
+        copy.setHealth(original.getHealth());
+        copy.setTarget(original.getTarget());
+        copy.setChasing(original.isChasing());
+        return copy;
+    }
+
+    /**
+     * Copy a black hole.
+     *
+     * @param original The black hole
+     * @return The copy
+     */
+    public static MicroBlackHole copyBlackHole(MicroBlackHole original) {
+        return copyBlackHole(original, new MicroBlackHole());
+    }
+
+    /**
+     * Copy a black hole into another black hole, overwriting everything it holds.
+     *
+     * @param original The black hole
+     * @param copy The black hole to copy into
+     * @return The copy
+     */
+    public static MicroBlackHole copyBlackHole(MicroBlackHole original, MicroBlackHole copy) {
+        copy.setId(original.getId());
+        copy.setX(original.getX());
+        copy.setY(original.getY());
+        copy.setAngle(original.getAngle());
+        copy.setAngularVelocity(original.getAngularVelocity());
+        return copy;
+    }
+
+    /**
+     * Copy a portal.
+     *
+     * @param original The portal
+     * @return The copy
+     */
+    public static Portal copyPortal(Portal original) {
+        return copyPortal(original, new Portal());
+    }
+
+    /**
+     * Copy a portal into another portal, overwriting everything it holds.
+     *
+     * @param original The portal
+     * @param copy The portal to copy into
+     * @return The copy
+     */
+    public static Portal copyPortal(Portal original, Portal copy) {
+        copy.setId(original.getId());
+        copy.setX(original.getX());
+        copy.setY(original.getY());
+        copy.setAngle(original.getAngle());
+        copy.setAngularVelocity(original.getAngularVelocity());
+        copy.setTicksSinceCollision(original.getTicksSinceCollision());
+        copy.setTicksSinceMovement(original.getTicksSinceMovement());
+        return copy;
+    }
+
+    /**
+     * Refill a list with the items of another, one at a time since {@link List#addAll} copies through a new array.
+     *
+     * @param from The list to copy
+     * @param to The list to refill
+     * @param <ITEM_TYPE> Type of the items
+     */
+    private static <ITEM_TYPE> void copyList(List<? extends ITEM_TYPE> from, List<ITEM_TYPE> to) {
+        to.clear();
+        for (int index = 0; index < from.size(); index++) {
+            to.add(from.get(index));
+        }
+    }
+}
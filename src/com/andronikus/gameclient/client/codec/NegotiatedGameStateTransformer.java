@@ -0,0 +1,91 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.gameclient.client.BytesToObjectTransformer;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Transform bytes to a {@link GameState} with whichever codec the server used. Binary keyframes and snapshot deltas are
+ * recognized by their magic byte; anything else falls back to Java serialization, so a server that ignored the codec
+ * negotiation still works. Packets framed with a {@link PacketHeader} are dispatched on the codec ID in the header. A
+ * delta whose baseline is unknown transforms to null.
+ *
+ * @author Andronikus
+ */
+public class NegotiatedGameStateTransformer implements Function<byte[], GameState> {
+
+    private final SnapshotDeltaDecoder deltaDecoder;
+    private final Function<byte[], GameState> fallbackTransformer;
+
+    /**
+     * Instantiate a transformer that falls back to Java serialization.
+     */
+    public NegotiatedGameStateTransformer() {
+        this(new SnapshotDeltaDecoder(), new BytesToObjectTransformer<>());
+    }
+
+    /**
+     * Instantiate a transformer.
+     *
+     * @param aDeltaDecoder Decoder for binary keyframes and snapshot deltas
+     * @param aFallbackTransformer Transformer for messages that are not binary
+     */
+    public NegotiatedGameStateTransformer(SnapshotDeltaDecoder aDeltaDecoder, Function<byte[], GameState> aFallbackTransformer) {
+        deltaDecoder = aDeltaDecoder;
+        fallbackTransformer = aFallbackTransformer;
+    }
+
+    /**
+     * Set where keyframe requests and baseline acknowledgements for the snapshot delta stream are sent.
+     *
+     * @param controlMessageSender Sender of string messages to the server
+     */
+    public void setControlMessageSender(Consumer<String> controlMessageSender) {
+        deltaDecoder.setControlMessageSender(controlMessageSender);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GameState apply(byte[] bytes) {
+        if (PacketHeader.isFramed(bytes)) {
+            return applyFramed(bytes);
+        }
+
+        if (GameStateCodec.isBinaryMessage(bytes)) {
+            return deltaDecoder.decodeKeyframe(bytes);
+        }
+
+        if (SnapshotDeltaCodec.isDeltaMessage(bytes)) {
+            return deltaDecoder.decodeDelta(bytes);
+        }
+
+        return fallbackTransformer.apply(bytes);
+    }
+
+    /**
+     * Transform the payload of a framed packet.
+     *
+     * @param bytes The packet
+     * @return The game state, or null if the payload is a delta against an unknown baseline
+     */
+    private GameState applyFramed(byte[] bytes) {
+        final int codec = PacketHeader.readCodec(bytes);
+        final int payloadLength = PacketHeader.readPayloadLength(bytes);
+
+        switch (codec) {
+            case PacketHeader.CODEC_BINARY:
+                return deltaDecoder.decodeKeyframe(bytes, PacketHeader.LENGTH, payloadLength);
+            case PacketHeader.CODEC_DELTA:
+                return deltaDecoder.decodeDelta(bytes, PacketHeader.LENGTH, payloadLength);
+            case PacketHeader.CODEC_JAVA:
+                return fallbackTransformer.apply(Arrays.copyOfRange(bytes, PacketHeader.LENGTH, PacketHeader.LENGTH + payloadLength));
+            default:
+                throw new IllegalStateException("Unknown codec ID " + codec + " in packet header.");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.andronikus.gameclient.client.codec;
+
+/**
+ * <p>Fixed size header in front of a game state packet, so the receiver can see the version of the state and which
+ * codec wrote it without decoding the payload.</p>
+ *
+ * <p>The header is {@link #MAGIC} (1 byte), the codec ID (1 byte), the game state version (8 bytes) and the payload
+ * length (4 bytes), all big-endian. The payload is the unchanged message of the codec. The magic byte can not start a
+ * Java serialization stream or any of the codec messages, so framed and unframed packets can be told apart.</p>
+ *
+ * @author Andronikus
+ */
+public class PacketHeader {
+
+    public static final int MAGIC = 0x56;
+    public static final int LENGTH = 14;
+
+    public static final int CODEC_JAVA = 0;
+    public static final int CODEC_BINARY = 1;
+    public static final int CODEC_DELTA = 2;
+
+    private static final int CODEC_OFFSET = 1;
+    private static final int VERSION_OFFSET = 2;
+    private static final int PAYLOAD_LENGTH_OFFSET = 10;
+
+    /**
+     * Check whether or not a packet starts with a header.
+     *
+     * @param bytes The packet
+     * @return True if the packet is framed
+     */
+    public static boolean isFramed(byte[] bytes) {
+        return bytes != null && bytes.length >= LENGTH && (bytes[0] & 0xFF) == MAGIC;
+    }
+
+    /**
+     * Read the codec ID of a framed packet.
+     *
+     * @param bytes The packet
+     * @return The codec ID
+     */
+    public static int readCodec(byte[] bytes) {
+        return bytes[CODEC_OFFSET] & 0xFF;
+    }
+
+    /**
+     * Read the game state version of a framed packet.
+     *
+     * @param bytes The packet
+     * @return The version
+     */
+    public static long readVersion(byte[] bytes) {
+        long version = 0;
+        for (int index = VERSION_OFFSET; index < VERSION_OFFSET + 8; index++) {
+            version = (version << 8) | (bytes[index] & 0xFF);
+        }
+        return version;
+    }
+
+    /**
+     * Read the payload length of a framed packet, checking it against the packet size.
+     *
+     * @param bytes The packet
+     * @return The payload length
+     */
+    public static int readPayloadLength(byte[] bytes) {
+        final int payloadLength = ((bytes[PAYLOAD_LENGTH_OFFSET] & 0xFF) << 24) |
+            ((bytes[PAYLOAD_LENGTH_OFFSET + 1] & 0xFF) << 16) |
+            ((bytes[PAYLOAD_LENGTH_OFFSET + 2] & 0xFF) << 8) |
+            (bytes[PAYLOAD_LENGTH_OFFSET + 3] & 0xFF);
+        if (payloadLength < 0 || payloadLength > bytes.length - LENGTH) {
+            throw new IllegalStateException(
+                "Packet header declares " + payloadLength + " payload bytes but packet has " + (bytes.length - LENGTH) + "."
+            );
+        }
+        return payloadLength;
+    }
+
+    /**
+     * Frame a codec message. This is the reference the server is expected to mirror.
+     *
+     * @param codec The codec ID
+     * @param version Version of the game state in the payload
+     * @param payload The codec message
+     * @return The framed packet
+     */
+    public static byte[] frame(int codec, long version, byte[] payload) {
+        final VarIntWriter writer = new VarIntWriter(LENGTH + payload.length);
+        writer.writeByte(MAGIC);
+        writer.writeByte(codec);
+        writer.writeFixedLong(version);
+        writer.writeFixedInt(payload.length);
+        writer.writeBytes(payload);
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,1181 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.PlayerColor;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.game.model.server.input.InputAcknowledgement;
+import com.andronikus.util.Pair;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>Wire format for a snapshot delta: a game state described as changes against a baseline state the client already
+ * holds. Entities are matched by ID (players by session) and only the field groups that changed are written.</p>
+ *
+ * <p>A delta message is the {@link #MAGIC} byte, the {@link #FORMAT_VERSION} byte, the version of the state, the
+ * version of the baseline and then the body. Keyframes are plain {@link GameStateCodec} messages.</p>
+ *
+ * @author Andronikus
+ */
+public class SnapshotDeltaCodec {
+
+    public static final int MAGIC = 0x44;
+    public static final int FORMAT_VERSION = 1;
+
+    private static final PlayerColor[] PLAYER_COLORS = PlayerColor.values();
+
+    private static final PlayerDeltaSpec PLAYER_SPEC = new PlayerDeltaSpec();
+    private static final LaserDeltaSpec LASER_SPEC = new LaserDeltaSpec();
+    private static final AsteroidDeltaSpec ASTEROID_SPEC = new AsteroidDeltaSpec();
+    private static final SnakeDeltaSpec SNAKE_SPEC = new SnakeDeltaSpec();
+    private static final BlackHoleDeltaSpec BLACK_HOLE_SPEC = new BlackHoleDeltaSpec();
+    private static final PortalDeltaSpec PORTAL_SPEC = new PortalDeltaSpec();
+
+    /**
+     * Check whether or not a message is a snapshot delta.
+     *
+     * @param bytes The message
+     * @return True if the message starts with the delta magic byte
+     */
+    public static boolean isDeltaMessage(byte[] bytes) {
+        return bytes != null && bytes.length > 0 && (bytes[0] & 0xFF) == MAGIC;
+    }
+
+    /**
+     * Read which baseline version a delta message was encoded against, without decoding it.
+     *
+     * @param bytes The delta message
+     * @return The baseline version
+     */
+    public static long readBaselineVersion(byte[] bytes) {
+        return readBaselineVersion(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Read which baseline version a delta message held in a section of a byte array was encoded against.
+     *
+     * @param bytes The bytes
+     * @param offset Where the message starts
+     * @param length Length of the message
+     * @return The baseline version
+     */
+    public static long readBaselineVersion(byte[] bytes, int offset, int length) {
+        final VarIntReader reader = new VarIntReader(bytes, offset, length);
+        readHeader(reader);
+        reader.readVarLong();
+        return reader.readVarLong();
+    }
+
+    /**
+     * Encode a game state as a delta against a baseline.
+     *
+     * @param baseline The baseline the receiver holds
+     * @param current The state to encode
+     * @return The delta message
+     */
+    public byte[] encode(GameState baseline, GameState current) {
+        final VarIntWriter writer = new VarIntWriter();
+        writer.writeByte(MAGIC);
+        writer.writeByte(FORMAT_VERSION);
+
+        final long version = current.getVersion();
+        writer.writeVarLong(version);
+        writer.writeVarLong(baseline.getVersion());
+
+        // Scalars are a handful of bytes, always send them rather than diffing
+        writer.writeVarLong(current.getNextLaserId());
+        writer.writeVarLong(current.getNextSpawnId());
+        writer.writeBoolean(current.isServerDebugMode());
+        writer.writeBoolean(current.isTickEnabled());
+        writer.writeBoolean(current.isCollisionsEnabled());
+        writer.writeBoolean(current.isMovementEnabled());
+        writer.writeBoolean(current.isSpawningEnabled());
+        GameStateCodec.writeBorder(writer, current.getBorder());
+
+        writeEntityList(writer, baseline.getPlayers(), current.getPlayers(), PLAYER_SPEC);
+        writeEntityList(writer, baseline.getLasers(), current.getLasers(), LASER_SPEC);
+        writeEntityList(writer, baseline.getAsteroids(), current.getAsteroids(), ASTEROID_SPEC);
+        writeEntityList(writer, baseline.getSnakes(), current.getSnakes(), SNAKE_SPEC);
+        writeEntityList(writer, baseline.getBlackHoles(), current.getBlackHoles(), BLACK_HOLE_SPEC);
+        writeEntityList(writer, baseline.getPortals(), current.getPortals(), PORTAL_SPEC);
+        writeInputAcknowledgements(writer, baseline.getInputAcknowledgements(), current.getInputAcknowledgements(), version);
+
+        // Debug settings are only present on debug servers, send them whole
+        writer.writeBoolean(current.getDebugSettings() != null);
+        if (current.getDebugSettings() != null) {
+            GameStateCodec.writeDebugSettings(writer, current.getDebugSettings(), version);
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Decode a delta message against the baseline it was encoded for. The baseline is not modified; entities that did
+     * not change are shared between the baseline and the decoded state.
+     *
+     * @param bytes The delta message
+     * @param baseline The baseline, must be the version returned by {@link #readBaselineVersion(byte[])}
+     * @return The reconstructed game state
+     */
+    public GameState decode(byte[] bytes, GameState baseline) {
+        return decode(bytes, 0, bytes.length, baseline);
+    }
+
+    /**
+     * Decode a delta message held in a section of a byte array.
+     *
+     * @param bytes The bytes
+     * @param offset Where the message starts
+     * @param length Length of the message
+     * @param baseline The baseline the delta was encoded against
+     * @return The reconstructed game state
+     */
+    public GameState decode(byte[] bytes, int offset, int length, GameState baseline) {
+        final VarIntReader reader = new VarIntReader(bytes, offset, length);
+        readHeader(reader);
+
+        final GameState state = new GameState();
+        final long version = reader.readVarLong();
+        final long baselineVersion = reader.readVarLong();
+        if (baselineVersion != baseline.getVersion()) {
+            throw new IllegalArgumentException(
+                "Delta encoded against version " + baselineVersion + " but baseline is version " + baseline.getVersion() + "."
+            );
+        }
+
+        state.setVersion(version);
+        state.setNextLaserId(reader.readVarLong());
+        state.setNextSpawnId(reader.readVarLong());
+        state.setServerDebugMode(reader.readBoolean());
+        state.setTickEnabled(reader.readBoolean());
+        state.setCollisionsEnabled(reader.readBoolean());
+        state.setMovementEnabled(reader.readBoolean());
+        state.setSpawningEnabled(reader.readBoolean());
+        state.setBorder(GameStateCodec.readBorder(reader));
+
+        state.setPlayers(readEntityList(reader, baseline.getPlayers(), PLAYER_SPEC, state));
+        state.setLasers(readEntityList(reader, baseline.getLasers(), LASER_SPEC, state));
+        state.setAsteroids(readEntityList(reader, baseline.getAsteroids(), ASTEROID_SPEC, state));
+        state.setSnakes(readEntityList(reader, baseline.getSnakes(), SNAKE_SPEC, state));
+        relinkSnakeTargets(state);
+        state.setBlackHoles(readEntityList(reader, baseline.getBlackHoles(), BLACK_HOLE_SPEC, state));
+        state.setPortals(readEntityList(reader, baseline.getPortals(), PORTAL_SPEC, state));
+        state.setInputAcknowledgements(readInputAcknowledgements(reader, baseline.getInputAcknowledgements(), version));
+
+        if (reader.readBoolean()) {
+            state.setDebugSettings(GameStateCodec.readDebugSettings(reader, version));
+        }
+
+        return state;
+    }
+
+    /**
+     * Point snake targets at the players of the reconstructed state. Snakes carried over from the baseline still
+     * reference the baseline's player, which is stale if that player changed.
+     *
+     * @param state The reconstructed state
+     */
+    private static void relinkSnakeTargets(GameState state) {
+        final List<Snake> snakes = state.getSnakes();
+        for (int index = 0; index < snakes.size(); index++) {
+            final Snake snake = snakes.get(index);
+            final Player target = snake.getTarget();
+            if (target == null) {
+                continue;
+            }
+
+            for (Player player : state.getPlayers()) {
+                if (player != target && player.getSessionId() != null && player.getSessionId().equals(target.getSessionId())) {
+                    final Snake relinked = ModelCopier.copySnake(snake);
+                    relinked.setTarget(player);
+                    snakes.set(index, relinked);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read and validate the magic and format bytes.
+     *
+     * @param reader The reader
+     */
+    private static void readHeader(VarIntReader reader) {
+        final int magic = reader.readByte();
+        if (magic != MAGIC) {
+            throw new IllegalArgumentException("Message is not a snapshot delta, magic byte was " + magic + ".");
+        }
+
+        final int formatVersion = reader.readByte();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported snapshot delta format " + formatVersion + ".");
+        }
+    }
+
+    /**
+     * Write the removals, changes and additions for one entity list.
+     *
+     * @param writer The writer
+     * @param baselineEntities Entities in the baseline
+     * @param currentEntities Entities in the current state
+     * @param spec How the entity type is keyed and diffed
+     * @param <ENTITY_TYPE> Type of entity
+     */
+    private static <ENTITY_TYPE> void writeEntityList(
+        VarIntWriter writer, List<ENTITY_TYPE> baselineEntities, List<ENTITY_TYPE> currentEntities, EntityDeltaSpec<ENTITY_TYPE> spec
+    ) {
+        final Map<Object, ENTITY_TYPE> baselineByKey = new HashMap<>(baselineEntities.size() * 2);
+        for (ENTITY_TYPE entity : baselineEntities) {
+            baselineByKey.put(spec.key(entity), entity);
+        }
+
+        final Set<Object> currentKeys = new HashSet<>(currentEntities.size() * 2);
+        final List<ENTITY_TYPE> changed = new ArrayList<>();
+        final List<ENTITY_TYPE> added = new ArrayList<>();
+        for (ENTITY_TYPE entity : currentEntities) {
+            final Object key = spec.key(entity);
+            currentKeys.add(key);
+
+            final ENTITY_TYPE baselineEntity = baselineByKey.get(key);
+            if (baselineEntity == null) {
+                added.add(entity);
+            } else if (spec.changeMask(baselineEntity, entity) != 0) {
+                changed.add(entity);
+            }
+        }
+
+        final List<ENTITY_TYPE> removed = new ArrayList<>();
+        for (ENTITY_TYPE entity : baselineEntities) {
+            if (!currentKeys.contains(spec.key(entity))) {
+                removed.add(entity);
+            }
+        }
+
+        writer.writeUnsignedVarLong(removed.size());
+        for (ENTITY_TYPE entity : removed) {
+            spec.writeKey(writer, entity);
+        }
+
+        writer.writeUnsignedVarLong(changed.size());
+        for (ENTITY_TYPE entity : changed) {
+            final ENTITY_TYPE baselineEntity = baselineByKey.get(spec.key(entity));
+            final long mask = spec.changeMask(baselineEntity, entity);
+            spec.writeKey(writer, entity);
+            writer.writeUnsignedVarLong(mask);
+            spec.writeChanges(writer, baselineEntity, entity, mask);
+        }
+
+        writer.writeUnsignedVarLong(added.size());
+        for (ENTITY_TYPE entity : added) {
+            spec.writeFull(writer, entity);
+        }
+    }
+
+    /**
+     * Rebuild one entity list from the baseline and the delta. Surviving entities keep their baseline order and new
+     * entities are appended.
+     *
+     * @param reader The reader
+     * @param baselineEntities Entities in the baseline
+     * @param spec How the entity type is keyed and diffed
+     * @param state The state being reconstructed
+     * @param <ENTITY_TYPE> Type of entity
+     * @return The rebuilt list
+     */
+    private static <ENTITY_TYPE> ArrayList<ENTITY_TYPE> readEntityList(
+        VarIntReader reader, List<ENTITY_TYPE> baselineEntities, EntityDeltaSpec<ENTITY_TYPE> spec, GameState state
+    ) {
+        final Map<Object, Integer> baselineIndexByKey = new HashMap<>(baselineEntities.size() * 2);
+        for (int index = 0; index < baselineEntities.size(); index++) {
+            baselineIndexByKey.put(spec.key(baselineEntities.get(index)), index);
+        }
+
+        final ArrayList<ENTITY_TYPE> entities = new ArrayList<>(baselineEntities);
+
+        final int removedCount = reader.readCount();
+        final Set<Integer> removedIndices = new HashSet<>(removedCount * 2);
+        for (int removal = 0; removal < removedCount; removal++) {
+            final Integer index = baselineIndexByKey.get(spec.readKey(reader));
+            if (index != null) {
+                removedIndices.add(index);
+            }
+        }
+
+        final int changedCount = reader.readCount();
+        for (int change = 0; change < changedCount; change++) {
+            final Object key = spec.readKey(reader);
+            final long mask = reader.readUnsignedVarLong();
+            final Integer index = baselineIndexByKey.get(key);
+            if (index == null) {
+                throw new IllegalStateException("Delta changes entity " + key + " which is not in the baseline.");
+            }
+            entities.set(index, spec.readChanges(reader, baselineEntities.get(index), mask, state));
+        }
+
+        if (!removedIndices.isEmpty()) {
+            final ArrayList<ENTITY_TYPE> survivors = new ArrayList<>(entities.size());
+            for (int index = 0; index < entities.size(); index++) {
+                if (!removedIndices.contains(index)) {
+                    survivors.add(entities.get(index));
+                }
+            }
+            entities.clear();
+            entities.addAll(survivors);
+        }
+
+        final int addedCount = reader.readCount();
+        entities.ensureCapacity(entities.size() + addedCount);
+        for (int addition = 0; addition < addedCount; addition++) {
+            entities.add(spec.readFull(reader, state));
+        }
+
+        return entities;
+    }
+
+    /**
+     * Write the input acknowledgements that were removed and added since the baseline.
+     *
+     * @param writer The writer
+     * @param baselineAcknowledgements Acknowledgements in the baseline
+     * @param currentAcknowledgements Acknowledgements in the current state
+     * @param version Version of the current state
+     */
+    private static void writeInputAcknowledgements(
+        VarIntWriter writer,
+        List<InputAcknowledgement> baselineAcknowledgements,
+        List<InputAcknowledgement> currentAcknowledgements,
+        long version
+    ) {
+        final Set<Pair<String, Long>> baselineKeys = new HashSet<>();
+        for (InputAcknowledgement acknowledgement : baselineAcknowledgements) {
+            baselineKeys.add(acknowledgementKey(acknowledgement));
+        }
+
+        final Set<Pair<String, Long>> currentKeys = new HashSet<>();
+        final List<InputAcknowledgement> added = new ArrayList<>();
+        for (InputAcknowledgement acknowledgement : currentAcknowledgements) {
+            final Pair<String, Long> key = acknowledgementKey(acknowledgement);
+            currentKeys.add(key);
+            if (!baselineKeys.contains(key)) {
+                added.add(acknowledgement);
+            }
+        }
+
+        final List<InputAcknowledgement> removed = new ArrayList<>();
+        for (InputAcknowledgement acknowledgement : baselineAcknowledgements) {
+            if (!currentKeys.contains(acknowledgementKey(acknowledgement))) {
+                removed.add(acknowledgement);
+            }
+        }
+
+        writer.writeUnsignedVarLong(removed.size());
+        for (InputAcknowledgement acknowledgement : removed) {
+            writer.writeString(acknowledgement.getSessionId());
+            writer.writeVarLong(acknowledgement.getInputId());
+        }
+
+        writer.writeUnsignedVarLong(added.size());
+        for (InputAcknowledgement acknowledgement : added) {
+            GameStateCodec.writeInputAcknowledgement(writer, acknowledgement, version);
+        }
+    }
+
+    /**
+     * Rebuild the input acknowledgements from the baseline and the delta.
+     *
+     * @param reader The reader
+     * @param baselineAcknowledgements Acknowledgements in the baseline
+     * @param version Version of the state being reconstructed
+     * @return The acknowledgements
+     */
+    private static ArrayList<InputAcknowledgement> readInputAcknowledgements(
+        VarIntReader reader, List<InputAcknowledgement> baselineAcknowledgements, long version
+    ) {
+        final int removedCount = reader.readCount();
+        final Set<Pair<String, Long>> removedKeys = new HashSet<>(removedCount * 2);
+        for (int removal = 0; removal < removedCount; removal++) {
+            final String sessionId = reader.readString();
+            removedKeys.add(new Pair<>(sessionId, reader.readVarLong()));
+        }
+
+        final ArrayList<InputAcknowledgement> acknowledgements = new ArrayList<>(baselineAcknowledgements.size());
+        for (InputAcknowledgement acknowledgement : baselineAcknowledgements) {
+            if (!removedKeys.contains(acknowledgementKey(acknowledgement))) {
+                acknowledgements.add(acknowledgement);
+            }
+        }
+
+        final int addedCount = reader.readCount();
+        for (int addition = 0; addition < addedCount; addition++) {
+            acknowledgements.add(GameStateCodec.readInputAcknowledgement(reader, version));
+        }
+
+        return acknowledgements;
+    }
+
+    /**
+     * Key an input acknowledgement by its session and input.
+     *
+     * @param acknowledgement The acknowledgement
+     * @return The key
+     */
+    private static Pair<String, Long> acknowledgementKey(InputAcknowledgement acknowledgement) {
+        return new Pair<>(acknowledgement.getSessionId(), acknowledgement.getInputId());
+    }
+
+    /**
+     * Check if an angle changed at the precision it is sent at.
+     *
+     * @param baseline The baseline angle
+     * @param current The current angle
+     * @return True if the angle changed
+     */
+    private static boolean angleChanged(double baseline, double current) {
+        return Float.floatToIntBits((float) baseline) != Float.floatToIntBits((float) current);
+    }
+
+    /**
+     * Delta spec for a player, keyed by session.
+     */
+    private static class PlayerDeltaSpec implements EntityDeltaSpec<Player> {
+
+        private static final long POSITION = 1;
+        private static final long VELOCITY = 1 << 1;
+        private static final long EXTERNAL_ACCELERATION = 1 << 2;
+        private static final long SPEED = 1 << 3;
+        private static final long ANGLE = 1 << 4;
+        private static final long HEALTH = 1 << 5;
+        private static final long SHIELD = 1 << 6;
+        private static final long BOOST = 1 << 7;
+        private static final long LASER = 1 << 8;
+        private static final long COLOR = 1 << 9;
+        private static final long VENOM = 1 << 10;
+        private static final long PORTAL = 1 << 11;
+        private static final long FLAGS = 1 << 12;
+
+        private static final int BOOSTING = 1;
+        private static final int DEAD = 1 << 1;
+        private static final int SHIELD_LOST_THIS_TICK = 1 << 2;
+        private static final int THRUSTING = 1 << 3;
+        private static final int PERFORMED_WARP = 1 << 4;
+
+        @Override
+        public Object key(Player entity) {
+            return entity.getSessionId();
+        }
+
+        @Override
+        public void writeKey(VarIntWriter writer, Player entity) {
+            writer.writeString(entity.getSessionId());
+        }
+
+        @Override
+        public Object readKey(VarIntReader reader) {
+            return reader.readString();
+        }
+
+        @Override
+        public void writeFull(VarIntWriter writer, Player entity) {
+            GameStateCodec.writePlayer(writer, entity);
+        }
+
+        @Override
+        public Player readFull(VarIntReader reader, GameState state) {
+            return GameStateCodec.readPlayer(reader);
+        }
+
+        @Override
+        public long changeMask(Player baseline, Player current) {
+            long mask = 0;
+            if (baseline.getX() != current.getX() || baseline.getY() != current.getY()) {
+                mask |= POSITION;
+            }
+            if (baseline.getXVelocity() != current.getXVelocity() || baseline.getYVelocity() != current.getYVelocity()) {
+                mask |= VELOCITY;
+            }
+            if (baseline.getExternalXAcceleration() != current.getExternalXAcceleration() ||
+                baseline.getExternalYAcceleration() != current.getExternalYAcceleration()) {
+                mask |= EXTERNAL_ACCELERATION;
+            }
+            if (baseline.getSpeed() != current.getSpeed() || baseline.getAcceleration() != current.getAcceleration()) {
+                mask |= SPEED;
+            }
+            if (angleChanged(baseline.getAngle(), current.getAngle()) ||
+                angleChanged(baseline.getRotationalVelocity(), current.getRotationalVelocity())) {
+                mask |= ANGLE;
+            }
+            if (baseline.getHealth() != current.getHealth()) {
+                mask |= HEALTH;
+            }
+            if (baseline.getShieldCount() != current.getShieldCount() || baseline.getShieldRecharge() != current.getShieldRecharge()) {
+                mask |= SHIELD;
+            }
+            if (baseline.getBoostingCharge() != current.getBoostingCharge() ||
+                baseline.getBoostingRecharge() != current.getBoostingRecharge()) {
+                mask |= BOOST;
+            }
+            if (baseline.getLaserCharges() != current.getLaserCharges() || baseline.getLaserRecharge() != current.getLaserRecharge()) {
+                mask |= LASER;
+            }
+            if (baseline.getColor() != current.getColor()) {
+                mask |= COLOR;
+            }
+            if (baseline.getVenom() != current.getVenom()) {
+                mask |= VENOM;
+            }
+            if (!Objects.equals(baseline.getCollidedPortalId(), current.getCollidedPortalId())) {
+                mask |= PORTAL;
+            }
+            if (flags(baseline) != flags(current)) {
+                mask |= FLAGS;
+            }
+            return mask;
+        }
+
+        @Override
+        public void writeChanges(VarIntWriter writer, Player baseline, Player current, long mask) {
+            if ((mask & POSITION) != 0) {
+                writer.writeVarLong(current.getX() - baseline.getX());
+                writer.writeVarLong(current.getY() - baseline.getY());
+            }
+            if ((mask & VELOCITY) != 0) {
+                writer.writeVarLong(current.getXVelocity());
+                writer.writeVarLong(current.getYVelocity());
+            }
+            if ((mask & EXTERNAL_ACCELERATION) != 0) {
+                writer.writeVarLong(current.getExternalXAcceleration());
+                writer.writeVarLong(current.getExternalYAcceleration());
+            }
+            if ((mask & SPEED) != 0) {
+                writer.writeVarLong(current.getSpeed());
+                writer.writeVarLong(current.getAcceleration());
+            }
+            if ((mask & ANGLE) != 0) {
+                writer.writeFloat(current.getAngle());
+                writer.writeFloat(current.getRotationalVelocity());
+            }
+            if ((mask & HEALTH) != 0) {
+                writer.writeVarLong(current.getHealth());
+            }
+            if ((mask & SHIELD) != 0) {
+                writer.writeVarLong(current.getShieldCount());
+                writer.writeVarLong(current.getShieldRecharge());
+            }
+            if ((mask & BOOST) != 0) {
+                writer.writeVarLong(current.getBoostingCharge());
+                writer.writeVarLong(current.getBoostingRecharge());
+            }
+            if ((mask & LASER) != 0) {
+                writer.writeVarLong(current.getLaserCharges());
+                writer.writeVarLong(current.getLaserRecharge());
+            }
+            if ((mask & COLOR) != 0) {
+                writer.writeUnsignedVarLong(current.getColor() == null ? 0 : current.getColor().ordinal() + 1);
+            }
+            if ((mask & VENOM) != 0) {
+                writer.writeVarLong(current.getVenom());
+            }
+            if ((mask & PORTAL) != 0) {
+                writer.writeNullableVarLong(current.getCollidedPortalId());
+            }
+            if ((mask & FLAGS) != 0) {
+                writer.writeByte(flags(current));
+            }
+        }
+
+        @Override
+        public Player readChanges(VarIntReader reader, Player baseline, long mask, GameState state) {
+            final Player player = ModelCopier.copyPlayer(baseline);
+            if ((mask & POSITION) != 0) {
+                player.setX(baseline.getX() + reader.readVarLong());
+                player.setY(baseline.getY() + reader.readVarLong());
+            }
+            if ((mask & VELOCITY) != 0) {
+                player.setXVelocity(reader.readVarLong());
+                player.setYVelocity(reader.readVarLong());
+            }
+            if ((mask & EXTERNAL_ACCELERATION) != 0) {
+                player.setExternalXAcceleration(reader.readVarLong());
+                player.setExternalYAcceleration(reader.readVarLong());
+            }
+            if ((mask & SPEED) != 0) {
+                player.setSpeed(reader.readVarLong());
+                player.setAcceleration(reader.readVarLong());
+            }
+            if ((mask & ANGLE) != 0) {
+                player.setAngle(reader.readFloat());
+                player.setRotationalVelocity(reader.readFloat());
+            }
+            if ((mask & HEALTH) != 0) {
+                player.setHealth(reader.readVarInt());
+            }
+            if ((mask & SHIELD) != 0) {
+                player.setShieldCount(reader.readVarInt());
+                player.setShieldRecharge(reader.readVarInt());
+            }
+            if ((mask & BOOST) != 0) {
+                player.setBoostingCharge(reader.readVarInt());
+                player.setBoostingRecharge(reader.readVarInt());
+            }
+            if ((mask & LASER) != 0) {
+                player.setLaserCharges(reader.readVarInt());
+                player.setLaserRecharge(reader.readVarInt());
+            }
+            if ((mask & COLOR) != 0) {
+                final int colorOrdinal = reader.readUnsignedVarInt();
+                player.setColor(colorOrdinal == 0 ? null : PLAYER_COLORS[colorOrdinal - 1]);
+            }
+            if ((mask & VENOM) != 0) {
+                player.setVenom(reader.readVarInt());
+            }
+            if ((mask & PORTAL) != 0) {
+                player.setCollidedPortalId(reader.readNullableVarLong());
+            }
+            if ((mask & FLAGS) != 0) {
+                final int flags = reader.readByte();
+                player.setBoosting((flags & BOOSTING) != 0);
+                player.setDead((flags & DEAD) != 0);
+                player.setShieldLostThisTick((flags & SHIELD_LOST_THIS_TICK) != 0);
+                player.setThrusting((flags & THRUSTING) != 0);
+                player.setPerformedWarp((flags & PERFORMED_WARP) != 0);
+            }
+            return player;
+        }
+
+        private static int flags(Player player) {
+            int flags = 0;
+            flags |= player.isBoosting() ? BOOSTING : 0;
+            flags |= player.isDead() ? DEAD : 0;
+            flags |= player.isShieldLostThisTick() ? SHIELD_LOST_THIS_TICK : 0;
+            flags |= player.isThrusting() ? THRUSTING : 0;
+            flags |= player.isPerformedWarp() ? PERFORMED_WARP : 0;
+            return flags;
+        }
+    }
+
+    /**
+     * Delta spec for a laser.
+     */
+    private static class LaserDeltaSpec implements EntityDeltaSpec<Laser> {
+
+        private static final long POSITION = 1;
+        private static final long VELOCITY = 1 << 1;
+        private static final long ANGLE = 1 << 2;
+        private static final long LOYALTY = 1 << 3;
+        private static final long ACTIVE = 1 << 4;
+
+        @Override
+        public Object key(Laser entity) {
+            return entity.getId();
+        }
+
+        @Override
+        public void writeKey(VarIntWriter writer, Laser entity) {
+            writer.writeVarLong(entity.getId());
+        }
+
+        @Override
+        public Object readKey(VarIntReader reader) {
+            return reader.readVarLong();
+        }
+
+        @Override
+        public void writeFull(VarIntWriter writer, Laser entity) {
+            GameStateCodec.writeLaser(writer, entity);
+        }
+
+        @Override
+        public Laser readFull(VarIntReader reader, GameState state) {
+            return GameStateCodec.readLaser(reader);
+        }
+
+        @Override
+        public long changeMask(Laser baseline, Laser current) {
+            long mask = 0;
+            if (baseline.getX() != current.getX() || baseline.getY() != current.getY()) {
+                mask |= POSITION;
+            }
+            if (baseline.getXVelocity() != current.getXVelocity() || baseline.getYVelocity() != current.getYVelocity()) {
+                mask |= VELOCITY;
+            }
+            if (angleChanged(baseline.getAngle(), current.getAngle())) {
+                mask |= ANGLE;
+            }
+            if (!Objects.equals(baseline.getLoyalty(), current.getLoyalty())) {
+                mask |= LOYALTY;
+            }
+            if (baseline.isActive() != current.isActive()) {
+                mask |= ACTIVE;
+            }
+            return mask;
+        }
+
+        @Override
+        public void writeChanges(VarIntWriter writer, Laser baseline, Laser current, long mask) {
+            if ((mask & POSITION) != 0) {
+                writer.writeVarLong(current.getX() - baseline.getX());
+                writer.writeVarLong(current.getY() - baseline.getY());
+            }
+            if ((mask & VELOCITY) != 0) {
+                writer.writeVarLong(current.getXVelocity());
+                writer.writeVarLong(current.getYVelocity());
+            }
+            if ((mask & ANGLE) != 0) {
+                writer.writeFloat(current.getAngle());
+            }
+            if ((mask & LOYALTY) != 0) {
+                writer.writeString(current.getLoyalty());
+            }
+            if ((mask & ACTIVE) != 0) {
+                writer.writeBoolean(current.isActive());
+            }
+        }
+
+        @Override
+        public Laser readChanges(VarIntReader reader, Laser baseline, long mask, GameState state) {
+            final Laser laser = ModelCopier.copyLaser(baseline);
+            if ((mask & POSITION) != 0) {
+                laser.setX(baseline.getX() + reader.readVarLong());
+                laser.setY(baseline.getY() + reader.readVarLong());
+            }
+            if ((mask & VELOCITY) != 0) {
+                laser.setXVelocity(reader.readVarLong());
+                laser.setYVelocity(reader.readVarLong());
+            }
+            if ((mask & ANGLE) != 0) {
+                laser.setAngle(reader.readFloat());
+            }
+            if ((mask & LOYALTY) != 0) {
+                laser.setLoyalty(reader.readString());
+            }
+            if ((mask & ACTIVE) != 0) {
+                laser.setActive(reader.readBoolean());
+            }
+            return laser;
+        }
+    }
+
+    /**
+     * Delta spec for an asteroid.
+     */
+    private static class AsteroidDeltaSpec implements EntityDeltaSpec<Asteroid> {
+
+        private static final long POSITION = 1;
+        private static final long VELOCITY = 1 << 1;
+        private static final long ANGLE = 1 << 2;
+        private static final long SIZE = 1 << 3;
+        private static final long DURABILITY = 1 << 4;
+        private static final long CRACKING = 1 << 5;
+
+        @Override
+        public Object key(Asteroid entity) {
+            return entity.getId();
+        }
+
+        @Override
+        public void writeKey(VarIntWriter writer, Asteroid entity) {
+            writer.writeVarLong(entity.getId());
+        }
+
+        @Override
+        public Object readKey(VarIntReader reader) {
+            return reader.readVarLong();
+        }
+
+        @Override
+        public void writeFull(VarIntWriter writer, Asteroid entity) {
+            GameStateCodec.writeAsteroid(writer, entity);
+        }
+
+        @Override
+        public Asteroid readFull(VarIntReader reader, GameState state) {
+            return GameStateCodec.readAsteroid(reader);
+        }
+
+        @Override
+        public long changeMask(Asteroid baseline, Asteroid current) {
+            long mask = 0;
+            if (baseline.getX() != current.getX() || baseline.getY() != current.getY()) {
+                mask |= POSITION;
+            }
+            if (baseline.getXVelocity() != current.getXVelocity() || baseline.getYVelocity() != current.getYVelocity()) {
+                mask |= VELOCITY;
+            }
+            if (angleChanged(baseline.getAngle(), current.getAngle()) ||
+                angleChanged(baseline.getAngularVelocity(), current.getAngularVelocity())) {
+                mask |= ANGLE;
+            }
+            if (baseline.getSize() != current.getSize()) {
+                mask |= SIZE;
+            }
+            if (baseline.getDurability() != current.getDurability()) {
+                mask |= DURABILITY;
+            }
+            if (baseline.getCrackingTicks() != current.getCrackingTicks()) {
+                mask |= CRACKING;
+            }
+            return mask;
+        }
+
+        @Override
+        public void writeChanges(VarIntWriter writer, Asteroid baseline, Asteroid current, long mask) {
+            if ((mask & POSITION) != 0) {
+                writer.writeVarLong(current.getX() - baseline.getX());
+                writer.writeVarLong(current.getY() - baseline.getY());
+            }
+            if ((mask & VELOCITY) != 0) {
+                writer.writeVarLong(current.getXVelocity());
+                writer.writeVarLong(current.getYVelocity());
+            }
+            if ((mask & ANGLE) != 0) {
+                writer.writeFloat(current.getAngle());
+                writer.writeFloat(current.getAngularVelocity());
+            }
+            if ((mask & SIZE) != 0) {
+                writer.writeVarLong(current.getSize());
+            }
+            if ((mask & DURABILITY) != 0) {
+                writer.writeVarLong(current.getDurability());
+            }
+            if ((mask & CRACKING) != 0) {
+                writer.writeVarLong(current.getCrackingTicks());
+            }
+        }
+
+        @Override
+        public Asteroid readChanges(VarIntReader reader, Asteroid baseline, long mask, GameState state) {
+            final Asteroid asteroid = ModelCopier.copyAsteroid(baseline);
+            if ((mask & POSITION) != 0) {
+                asteroid.setX(baseline.getX() + reader.readVarLong());
+                asteroid.setY(baseline.getY() + reader.readVarLong());
+            }
+            if ((mask & VELOCITY) != 0) {
+                asteroid.setXVelocity(reader.readVarLong());
+                asteroid.setYVelocity(reader.readVarLong());
+            }
+            if ((mask & ANGLE) != 0) {
+                asteroid.setAngle(reader.readFloat());
+                asteroid.setAngularVelocity(reader.readFloat());
+            }
+            if ((mask & SIZE) != 0) {
+                asteroid.setSize(reader.readVarInt());
+            }
+            if ((mask & DURABILITY) != 0) {
+                asteroid.setDurability(reader.readVarInt());
+            }
+            if ((mask & CRACKING) != 0) {
+                asteroid.setCrackingTicks(reader.readVarInt());
+            }
+            return asteroid;
+        }
+    }
+
+    /**
+     * Delta spec for a snake. The target is sent as a session reference.
+     */
+    private static class SnakeDeltaSpec implements EntityDeltaSpec<Snake> {
+
+        private static final long POSITION = 1;
+        private static final long VELOCITY = 1 << 1;
+        private static final long ANGLE = 1 << 2;
+        private static final long HEALTH = 1 << 3;
+        private static final long CHASING = 1 << 4;
+        private static final long TARGET = 1 << 5;
+
+        @Override
+        public Object key(Snake entity) {
+            return entity.getId();
+        }
+
+        @Override
+        public void writeKey(VarIntWriter writer, Snake entity) {
+            writer.writeVarLong(entity.getId());
+        }
+
+        @Override
+        public Object readKey(VarIntReader reader) {
+            return reader.readVarLong();
+        }
+
+        @Override
+        public void writeFull(VarIntWriter writer, Snake entity) {
+            GameStateCodec.writeSnake(writer, entity);
+        }
+
+        @Override
+        public Snake readFull(VarIntReader reader, GameState state) {
+            return GameStateCodec.readSnake(reader, state.getPlayers());
+        }
+
+        @Override
+        public long changeMask(Snake baseline, Snake current) {
+            long mask = 0;
+            if (baseline.getX() != current.getX() || baseline.getY() != current.getY()) {
+                mask |= POSITION;
+            }
+            if (baseline.getXVelocity() != current.getXVelocity() || baseline.getYVelocity() != current.getYVelocity()) {
+                mask |= VELOCITY;
+            }
+            if (angleChanged(baseline.getAngle(), current.getAngle())) {
+                mask |= ANGLE;
+            }
+            if (baseline.getHealth() != current.getHealth()) {
+                mask |= HEALTH;
+            }
+            if (baseline.isChasing() != current.isChasing()) {
+                mask |= CHASING;
+            }
+            if (!Objects.equals(targetSession(baseline), targetSession(current))) {
+                mask |= TARGET;
+            }
+            return mask;
+        }
+
+        @Override
+        public void writeChanges(VarIntWriter writer, Snake baseline, Snake current, long mask) {
+            if ((mask & POSITION) != 0) {
+                writer.writeVarLong(current.getX() - baseline.getX());
+                writer.writeVarLong(current.getY() - baseline.getY());
+            }
+            if ((mask & VELOCITY) != 0) {
+                writer.writeVarLong(current.getXVelocity());
+                writer.writeVarLong(current.getYVelocity());
+            }
+            if ((mask & ANGLE) != 0) {
+                writer.writeFloat(current.getAngle());
+            }
+            if ((mask & HEALTH) != 0) {
+                writer.writeVarLong(current.getHealth());
+            }
+            if ((mask & CHASING) != 0) {
+                writer.writeBoolean(current.isChasing());
+            }
+            if ((mask & TARGET) != 0) {
+                writer.writeString(targetSession(current));
+            }
+        }
+
+        @Override
+        public Snake readChanges(VarIntReader reader, Snake baseline, long mask, GameState state) {
+            final Snake snake = ModelCopier.copySnake(baseline);
+            if ((mask & POSITION) != 0) {
+                snake.setX(baseline.getX() + reader.readVarLong());
+                snake.setY(baseline.getY() + reader.readVarLong());
+            }
+            if ((mask & VELOCITY) != 0) {
+                snake.setXVelocity(reader.readVarLong());
+                snake.setYVelocity(reader.readVarLong());
+            }
+            if ((mask & ANGLE) != 0) {
+                snake.setAngle(reader.readFloat());
+            }
+            if ((mask & HEALTH) != 0) {
+                snake.setHealth(reader.readVarInt());
+            }
+            if ((mask & CHASING) != 0) {
+                snake.setChasing(reader.readBoolean());
+            }
+            if ((mask & TARGET) != 0) {
+                final String targetSession = reader.readString();
+                Player target = null;
+                if (targetSession != null) {
+                    for (Player player : state.getPlayers()) {
+                        if (targetSession.equals(player.getSessionId())) {
+                            target = player;
+                            break;
+                        }
+                    }
+                    if (target == null) {
+                        target = new Player();
+                        target.setSessionId(targetSession);
+                    }
+                }
+                snake.setTarget(target);
+            }
+            return snake;
+        }
+
+        private static String targetSession(Snake snake) {
+            return snake.getTarget() == null ? null : snake.getTarget().getSessionId();
+        }
+    }
+
+    /**
+     * Delta spec for a black hole.
+     */
+    private static class BlackHoleDeltaSpec implements EntityDeltaSpec<MicroBlackHole> {
+
+        private static final long POSITION = 1;
+        private static final long ANGLE = 1 << 1;
+
+        @Override
+        public Object key(MicroBlackHole entity) {
+            return entity.getId();
+        }
+
+        @Override
+        public void writeKey(VarIntWriter writer, MicroBlackHole entity) {
+            writer.writeVarLong(entity.getId());
+        }
+
+        @Override
+        public Object readKey(VarIntReader reader) {
+            return reader.readVarLong();
+        }
+
+        @Override
+        public void writeFull(VarIntWriter writer, MicroBlackHole entity) {
+            GameStateCodec.writeBlackHole(writer, entity);
+        }
+
+        @Override
+        public MicroBlackHole readFull(VarIntReader reader, GameState state) {
+            return GameStateCodec.readBlackHole(reader);
+        }
+
+        @Override
+        public long changeMask(MicroBlackHole baseline, MicroBlackHole current) {
+            long mask = 0;
+            if (baseline.getX() != current.getX() || baseline.getY() != current.getY()) {
+                mask |= POSITION;
+            }
+            if (angleChanged(baseline.getAngle(), current.getAngle()) ||
+                angleChanged(baseline.getAngularVelocity(), current.getAngularVelocity())) {
+                mask |= ANGLE;
+            }
+            return mask;
+        }
+
+        @Override
+        public void writeChanges(VarIntWriter writer, MicroBlackHole baseline, MicroBlackHole current, long mask) {
+            if ((mask & POSITION) != 0) {
+                writer.writeVarLong(current.getX() - baseline.getX());
+                writer.writeVarLong(current.getY() - baseline.getY());
+            }
+            if ((mask & ANGLE) != 0) {
+                writer.writeFloat(current.getAngle());
+                writer.writeFloat(current.getAngularVelocity());
+            }
+        }
+
+        @Override
+        public MicroBlackHole readChanges(VarIntReader reader, MicroBlackHole baseline, long mask, GameState state) {
+            final MicroBlackHole blackHole = ModelCopier.copyBlackHole(baseline);
+            if ((mask & POSITION) != 0) {
+                blackHole.setX(baseline.getX() + reader.readVarLong());
+                blackHole.setY(baseline.getY() + reader.readVarLong());
+            }
+            if ((mask & ANGLE) != 0) {
+                blackHole.setAngle(reader.readFloat());
+                blackHole.setAngularVelocity(reader.readFloat());
+            }
+            return blackHole;
+        }
+    }
+
+    /**
+     * Delta spec for a portal.
+     */
+    private static class PortalDeltaSpec implements EntityDeltaSpec<Portal> {
+
+        private static final long POSITION = 1;
+        private static final long ANGLE = 1 << 1;
+        private static final long TICKS_SINCE_COLLISION = 1 << 2;
+        private static final long TICKS_SINCE_MOVEMENT = 1 << 3;
+
+        @Override
+        public Object key(Portal entity) {
+            return entity.getId();
+        }
+
+        @Override
+        public void writeKey(VarIntWriter writer, Portal entity) {
+            writer.writeVarLong(entity.getId());
+        }
+
+        @Override
+        public Object readKey(VarIntReader reader) {
+            return reader.readVarLong();
+        }
+
+        @Override
+        public void writeFull(VarIntWriter writer, Portal entity) {
+            GameStateCodec.writePortal(writer, entity);
+        }
+
+        @Override
+        public Portal readFull(VarIntReader reader, GameState state) {
+            return GameStateCodec.readPortal(reader);
+        }
+
+        @Override
+        public long changeMask(Portal baseline, Portal current) {
+            long mask = 0;
+            if (baseline.getX() != current.getX() || baseline.getY() != current.getY()) {
+                mask |= POSITION;
+            }
+            if (angleChanged(baseline.getAngle(), current.getAngle()) ||
+                angleChanged(baseline.getAngularVelocity(), current.getAngularVelocity())) {
+                mask |= ANGLE;
+            }
+            if (!Objects.equals(baseline.getTicksSinceCollision(), current.getTicksSinceCollision())) {
+                mask |= TICKS_SINCE_COLLISION;
+            }
+            if (!Objects.equals(baseline.getTicksSinceMovement(), current.getTicksSinceMovement())) {
+                mask |= TICKS_SINCE_MOVEMENT;
+            }
+            return mask;
+        }
+
+        @Override
+        public void writeChanges(VarIntWriter writer, Portal baseline, Portal current, long mask) {
+            if ((mask & POSITION) != 0) {
+                writer.writeVarLong(current.getX() - baseline.getX());
+                writer.writeVarLong(current.getY() - baseline.getY());
+            }
+            if ((mask & ANGLE) != 0) {
+                writer.writeFloat(current.getAngle());
+                writer.writeFloat(current.getAngularVelocity());
+            }
+            if ((mask & TICKS_SINCE_COLLISION) != 0) {
+                writer.writeNullableVarLong(current.getTicksSinceCollision() == null ? null : (long) current.getTicksSinceCollision());
+            }
+            if ((mask & TICKS_SINCE_MOVEMENT) != 0) {
+                writer.writeNullableVarLong(current.getTicksSinceMovement() == null ? null : (long) current.getTicksSinceMovement());
+            }
+        }
+
+        @Override
+        public Portal readChanges(VarIntReader reader, Portal baseline, long mask, GameState state) {
+            final Portal portal = ModelCopier.copyPortal(baseline);
+            if ((mask & POSITION) != 0) {
+                portal.setX(baseline.getX() + reader.readVarLong());
+                portal.setY(baseline.getY() + reader.readVarLong());
+            }
+            if ((mask & ANGLE) != 0) {
+                portal.setAngle(reader.readFloat());
+                portal.setAngularVelocity(reader.readFloat());
+            }
+            if ((mask & TICKS_SINCE_COLLISION) != 0) {
+                final Long ticksSinceCollision = reader.readNullableVarLong();
+                portal.setTicksSinceCollision(ticksSinceCollision == null ? null : ticksSinceCollision.intValue());
+            }
+            if ((mask & TICKS_SINCE_MOVEMENT) != 0) {
+                final Long ticksSinceMovement = reader.readNullableVarLong();
+                portal.setTicksSinceMovement(ticksSinceMovement == null ? null : ticksSinceMovement.intValue());
+            }
+            return portal;
+        }
+    }
+}
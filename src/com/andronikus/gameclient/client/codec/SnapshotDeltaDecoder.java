@@ -0,0 +1,172 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.GameState;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Client side of the snapshot delta stream. Remembers the last few reconstructed states as baselines, acknowledges
+ * them to the server and asks for a keyframe when a delta references a baseline the client does not have.
+ *
+ * @author Andronikus
+ */
+public class SnapshotDeltaDecoder {
+
+    private static final Logger LOGGER = Logger.getLogger("SnapshotDeltaDecoder");
+
+    public static final String KEYFRAME_REQUEST = "KEYFRAME";
+    public static final String BASELINE_ACKNOWLEDGEMENT = "BASELINE";
+
+    private static final int DEFAULT_BASELINE_CAPACITY = 32;
+    private static final long KEYFRAME_REQUEST_INTERVAL_NANOS = 250_000_000L;
+
+    private final GameStateCodec keyframeCodec;
+    private final SnapshotDeltaCodec deltaCodec;
+    private final int baselineCapacity;
+    private final Map<Long, GameState> baselines = new LinkedHashMap<>();
+
+    private volatile Consumer<String> controlMessageSender;
+    private long lastKeyframeRequestNanos = Long.MIN_VALUE;
+    private long missedBaselineCount = 0;
+
+    /**
+     * Instantiate a snapshot delta decoder.
+     */
+    public SnapshotDeltaDecoder() {
+        this(new GameStateCodec(), new SnapshotDeltaCodec(), DEFAULT_BASELINE_CAPACITY);
+    }
+
+    /**
+     * Instantiate a snapshot delta decoder.
+     *
+     * @param aKeyframeCodec Codec for keyframes
+     * @param aDeltaCodec Codec for deltas
+     * @param aBaselineCapacity How many baselines to remember
+     */
+    public SnapshotDeltaDecoder(GameStateCodec aKeyframeCodec, SnapshotDeltaCodec aDeltaCodec, int aBaselineCapacity) {
+        keyframeCodec = aKeyframeCodec;
+        deltaCodec = aDeltaCodec;
+        baselineCapacity = aBaselineCapacity;
+    }
+
+    /**
+     * Set where keyframe requests and baseline acknowledgements are sent. Until this is set, nothing is sent.
+     *
+     * @param aControlMessageSender Sender of string messages to the server
+     */
+    public void setControlMessageSender(Consumer<String> aControlMessageSender) {
+        controlMessageSender = aControlMessageSender;
+    }
+
+    /**
+     * Decode a keyframe and remember it as a baseline.
+     *
+     * @param bytes A {@link GameStateCodec} message
+     * @return The game state
+     */
+    public GameState decodeKeyframe(byte[] bytes) {
+        return decodeKeyframe(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decode a keyframe held in a section of a byte array and remember it as a baseline.
+     *
+     * @param bytes The bytes
+     * @param offset Where the message starts
+     * @param length Length of the message
+     * @return The game state
+     */
+    public synchronized GameState decodeKeyframe(byte[] bytes, int offset, int length) {
+        final GameState gameState = keyframeCodec.decode(bytes, offset, length);
+        recordBaseline(gameState);
+        return gameState;
+    }
+
+    /**
+     * Decode a delta against a remembered baseline.
+     *
+     * @param bytes A {@link SnapshotDeltaCodec} message
+     * @return The game state, or null if the baseline is unknown and a keyframe was requested instead
+     */
+    public GameState decodeDelta(byte[] bytes) {
+        return decodeDelta(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Decode a delta held in a section of a byte array against a remembered baseline.
+     *
+     * @param bytes The bytes
+     * @param offset Where the message starts
+     * @param length Length of the message
+     * @return The game state, or null if the baseline is unknown and a keyframe was requested instead
+     */
+    public synchronized GameState decodeDelta(byte[] bytes, int offset, int length) {
+        final long baselineVersion = SnapshotDeltaCodec.readBaselineVersion(bytes, offset, length);
+        final GameState baseline = baselines.get(baselineVersion);
+        if (baseline == null) {
+            missedBaselineCount++;
+            requestKeyframe();
+            return null;
+        }
+
+        final GameState gameState = deltaCodec.decode(bytes, offset, length, baseline);
+        recordBaseline(gameState);
+        return gameState;
+    }
+
+    /**
+     * Get how many deltas arrived for a baseline the client no longer or never had.
+     *
+     * @return Missed baseline count
+     */
+    public synchronized long getMissedBaselineCount() {
+        return missedBaselineCount;
+    }
+
+    /**
+     * Remember a state as a baseline, evicting the oldest when full, and acknowledge it to the server.
+     *
+     * @param gameState The state
+     */
+    private void recordBaseline(GameState gameState) {
+        baselines.put(gameState.getVersion(), gameState);
+        if (baselines.size() > baselineCapacity) {
+            final Iterator<Long> oldest = baselines.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+
+        sendControlMessage(BASELINE_ACKNOWLEDGEMENT + " " + gameState.getVersion());
+    }
+
+    /**
+     * Ask the server for a keyframe. Requests are rate limited, since every delta in flight will miss its baseline
+     * until the keyframe arrives.
+     */
+    private void requestKeyframe() {
+        final long now = System.nanoTime();
+        if (lastKeyframeRequestNanos != Long.MIN_VALUE && now - lastKeyframeRequestNanos < KEYFRAME_REQUEST_INTERVAL_NANOS) {
+            return;
+        }
+        lastKeyframeRequestNanos = now;
+
+        LOGGER.info("Delta received for an unknown baseline. Requesting keyframe.");
+        sendControlMessage(KEYFRAME_REQUEST);
+    }
+
+    /**
+     * Send a control message if there is somewhere to send it.
+     *
+     * @param message The message
+     */
+    private void sendControlMessage(String message) {
+        final Consumer<String> sender = controlMessageSender;
+        if (sender != null) {
+            sender.accept(message);
+        }
+    }
+}
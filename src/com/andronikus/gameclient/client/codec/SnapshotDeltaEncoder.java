@@ -0,0 +1,110 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.GameState;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Sending side of the snapshot delta stream for one client. This is the reference the server is expected to mirror.
+ * Each state is sent as a delta against the newest state the client acknowledged, or as a keyframe when there is no
+ * usable baseline, the client asked for one or the keyframe interval elapsed.</p>
+ *
+ * <p>States handed to the encoder are kept as baselines, so they must not be modified afterwards.</p>
+ *
+ * @author Andronikus
+ */
+public class SnapshotDeltaEncoder {
+
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+    private static final int DEFAULT_HISTORY_CAPACITY = 64;
+
+    private final GameStateCodec keyframeCodec;
+    private final SnapshotDeltaCodec deltaCodec;
+    private final int keyframeInterval;
+    private final int historyCapacity;
+    private final Map<Long, GameState> sentStates = new LinkedHashMap<>();
+
+    private GameState acknowledgedBaseline = null;
+    private boolean keyframeRequested = true;
+    private int statesSinceKeyframe = 0;
+
+    /**
+     * Instantiate a snapshot delta encoder.
+     */
+    public SnapshotDeltaEncoder() {
+        this(new GameStateCodec(), new SnapshotDeltaCodec(), DEFAULT_KEYFRAME_INTERVAL, DEFAULT_HISTORY_CAPACITY);
+    }
+
+    /**
+     * Instantiate a snapshot delta encoder.
+     *
+     * @param aKeyframeCodec Codec for keyframes
+     * @param aDeltaCodec Codec for deltas
+     * @param aKeyframeInterval Maximum amount of states between keyframes
+     * @param aHistoryCapacity How many sent states to keep for acknowledgement
+     */
+    public SnapshotDeltaEncoder(
+        GameStateCodec aKeyframeCodec,
+        SnapshotDeltaCodec aDeltaCodec,
+        int aKeyframeInterval,
+        int aHistoryCapacity
+    ) {
+        keyframeCodec = aKeyframeCodec;
+        deltaCodec = aDeltaCodec;
+        keyframeInterval = aKeyframeInterval;
+        historyCapacity = aHistoryCapacity;
+    }
+
+    /**
+     * Encode the next state for the client.
+     *
+     * @param gameState The state
+     * @return A keyframe or a delta message
+     */
+    public synchronized byte[] encode(GameState gameState) {
+        final byte[] message;
+        if (keyframeRequested || acknowledgedBaseline == null || statesSinceKeyframe >= keyframeInterval) {
+            message = keyframeCodec.encode(gameState);
+            keyframeRequested = false;
+            statesSinceKeyframe = 0;
+        } else {
+            message = deltaCodec.encode(acknowledgedBaseline, gameState);
+            statesSinceKeyframe++;
+        }
+
+        sentStates.put(gameState.getVersion(), gameState);
+        if (sentStates.size() > historyCapacity) {
+            final Iterator<Long> oldest = sentStates.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+
+        return message;
+    }
+
+    /**
+     * Record that the client reconstructed a state. Older or unknown acknowledgements are ignored.
+     *
+     * @param version Version of the state
+     */
+    public synchronized void acknowledgeBaseline(long version) {
+        if (acknowledgedBaseline != null && version <= acknowledgedBaseline.getVersion()) {
+            return;
+        }
+
+        final GameState acknowledged = sentStates.get(version);
+        if (acknowledged != null) {
+            acknowledgedBaseline = acknowledged;
+        }
+    }
+
+    /**
+     * Record that the client lost its baseline. States are sent as keyframes until the client acknowledges one.
+     */
+    public synchronized void requestKeyframe() {
+        keyframeRequested = true;
+        acknowledgedBaseline = null;
+    }
+}
@@ -0,0 +1,227 @@
+package com.andronikus.gameclient.client.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader for bytes written by a {@link VarIntWriter}.
+ *
+ * @author Andronikus
+ */
+public class VarIntReader {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+    private final List<String> stringTable = new ArrayList<>();
+
+    /**
+     * Instantiate a reader over an entire byte array.
+     *
+     * @param aBuffer The bytes
+     */
+    public VarIntReader(byte[] aBuffer) {
+        this(aBuffer, 0, aBuffer.length);
+    }
+
+    /**
+     * Instantiate a reader over a section of a byte array.
+     *
+     * @param aBuffer The bytes
+     * @param offset Where reading starts
+     * @param length How many bytes may be read
+     */
+    public VarIntReader(byte[] aBuffer, int offset, int length) {
+        buffer = aBuffer;
+        position = offset;
+        limit = offset + length;
+    }
+
+    /**
+     * Read a single raw byte.
+     *
+     * @return The byte, as an unsigned value
+     */
+    public int readByte() {
+        checkRemaining(1);
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Read a fixed width, big-endian int.
+     *
+     * @return The value
+     */
+    public int readFixedInt() {
+        checkRemaining(4);
+        final int value = ((buffer[position] & 0xFF) << 24) |
+            ((buffer[position + 1] & 0xFF) << 16) |
+            ((buffer[position + 2] & 0xFF) << 8) |
+            (buffer[position + 3] & 0xFF);
+        position += 4;
+        return value;
+    }
+
+    /**
+     * Read a fixed width, big-endian long.
+     *
+     * @return The value
+     */
+    public long readFixedLong() {
+        final long high = readFixedInt();
+        final long low = readFixedInt() & 0xFFFFFFFFL;
+        return (high << 32) | low;
+    }
+
+    /**
+     * Read a boolean.
+     *
+     * @return The value
+     */
+    public boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    /**
+     * Read an unsigned variable length integer.
+     *
+     * @return The value
+     */
+    public long readUnsignedVarLong() {
+        long value = 0;
+        int shift = 0;
+        while (shift < 64) {
+            final int nextByte = readByte();
+            value |= (long) (nextByte & 0x7F) << shift;
+            if ((nextByte & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+        throw new IllegalStateException("Malformed variable length integer.");
+    }
+
+    /**
+     * Read an unsigned variable length integer that is expected to fit in an int, such as a count.
+     *
+     * @return The value
+     */
+    public int readUnsignedVarInt() {
+        final long value = readUnsignedVarLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Length " + value + " exceeds int range.");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read the count of a list that follows. Every element takes at least one byte, so a count larger than what is left
+     * of the message can only come from a corrupt message, and is rejected before anything is allocated for it.
+     *
+     * @return The count
+     */
+    public int readCount() {
+        final int count = readUnsignedVarInt();
+        if (count > getRemaining()) {
+            throw new IllegalStateException("Count " + count + " exceeds the " + getRemaining() + " bytes left in the message.");
+        }
+        return count;
+    }
+
+    /**
+     * Read a zigzag encoded signed variable length integer.
+     *
+     * @return The value
+     */
+    public long readVarLong() {
+        final long encoded = readUnsignedVarLong();
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Read a zigzag encoded signed variable length integer as an int.
+     *
+     * @return The value
+     */
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    /**
+     * Read a nullable signed variable length integer.
+     *
+     * @return The value, or null
+     */
+    public Long readNullableVarLong() {
+        if (!readBoolean()) {
+            return null;
+        }
+        return readVarLong();
+    }
+
+    /**
+     * Read a float written as a fixed width int.
+     *
+     * @return The value
+     */
+    public double readFloat() {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    /**
+     * Read a string, resolving references into the per-message string table.
+     *
+     * @return The string, may be null
+     */
+    public String readString() {
+        final int tag = readUnsignedVarInt();
+        if (tag == 0) {
+            return null;
+        }
+
+        if (tag >= 2) {
+            final int tableIndex = tag - 2;
+            if (tableIndex >= stringTable.size()) {
+                throw new IllegalStateException("String reference " + tableIndex + " is not in the string table.");
+            }
+            return stringTable.get(tableIndex);
+        }
+
+        final int length = readUnsignedVarInt();
+        checkRemaining(length);
+        final String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        stringTable.add(value);
+        return value;
+    }
+
+    /**
+     * Get the current read position.
+     *
+     * @return The position
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Get how many bytes are left to read.
+     *
+     * @return Remaining byte count
+     */
+    public int getRemaining() {
+        return limit - position;
+    }
+
+    /**
+     * Make sure the buffer has enough bytes left.
+     *
+     * @param byteCount Amount of bytes about to be read
+     */
+    private void checkRemaining(int byteCount) {
+        if (limit - position < byteCount) {
+            throw new IllegalStateException("Unexpected end of message at byte " + position + ".");
+        }
+    }
+}
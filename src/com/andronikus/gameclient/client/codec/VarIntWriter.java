@@ -0,0 +1,211 @@
+package com.andronikus.gameclient.client.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Growable byte buffer that writes primitives as compact variable length integers. Signed values are zigzag encoded
+ * so that small negative velocities stay small on the wire.
+ *
+ * @author Andronikus
+ */
+public class VarIntWriter {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private byte[] buffer;
+    private int position;
+    private final Map<String, Integer> stringTable = new HashMap<>();
+
+    /**
+     * Instantiate a writer with a default starting capacity.
+     */
+    public VarIntWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiate a writer.
+     *
+     * @param initialCapacity Starting size of the buffer
+     */
+    public VarIntWriter(int initialCapacity) {
+        buffer = new byte[Math.max(16, initialCapacity)];
+        position = 0;
+    }
+
+    /**
+     * Reset the writer so the buffer can be reused for another message.
+     */
+    public void reset() {
+        position = 0;
+        stringTable.clear();
+    }
+
+    /**
+     * Write a single raw byte.
+     *
+     * @param value The byte
+     */
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Write a fixed width, big-endian int.
+     *
+     * @param value The value
+     */
+    public void writeFixedInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Write a fixed width, big-endian long.
+     *
+     * @param value The value
+     */
+    public void writeFixedLong(long value) {
+        writeFixedInt((int) (value >>> 32));
+        writeFixedInt((int) value);
+    }
+
+    /**
+     * Write a boolean as a single byte.
+     *
+     * @param value The value
+     */
+    public void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    /**
+     * Write an unsigned variable length integer. Meant for counts and lengths.
+     *
+     * @param value The value, treated as unsigned
+     */
+    public void writeUnsignedVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Write a signed variable length integer using zigzag encoding.
+     *
+     * @param value The value
+     */
+    public void writeVarLong(long value) {
+        writeUnsignedVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Write a nullable signed variable length integer.
+     *
+     * @param value The value, may be null
+     */
+    public void writeNullableVarLong(Long value) {
+        writeBoolean(value != null);
+        if (value != null) {
+            writeVarLong(value);
+        }
+    }
+
+    /**
+     * Write a float. Used for angles where full double precision is not needed to render.
+     *
+     * @param value The value
+     */
+    public void writeFloat(double value) {
+        writeFixedInt(Float.floatToIntBits((float) value));
+    }
+
+    /**
+     * Write a string. Strings are interned in a per-message table so repeated session IDs are only sent once.
+     *
+     * @param value The string, may be null
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeUnsignedVarLong(0);
+            return;
+        }
+
+        final Integer tableIndex = stringTable.get(value);
+        if (tableIndex != null) {
+            writeUnsignedVarLong(tableIndex + 2);
+            return;
+        }
+
+        stringTable.put(value, stringTable.size());
+        final byte[] stringBytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsignedVarLong(1);
+        writeUnsignedVarLong(stringBytes.length);
+        ensureCapacity(stringBytes.length);
+        System.arraycopy(stringBytes, 0, buffer, position, stringBytes.length);
+        position += stringBytes.length;
+    }
+
+    /**
+     * Write raw bytes.
+     *
+     * @param bytes The bytes
+     */
+    public void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    /**
+     * Overwrite a fixed width int that was written earlier.
+     *
+     * @param offset Offset the int was written at
+     * @param value The new value
+     */
+    public void setFixedInt(int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Get the current write position.
+     *
+     * @return The position
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Copy out the bytes written so far.
+     *
+     * @return The bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Make sure there is room for some amount of bytes.
+     *
+     * @param byteCount The amount of bytes about to be written
+     */
+    private void ensureCapacity(int byteCount) {
+        if (position + byteCount > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + byteCount));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.andronikus.gameclient.engine;
+
+import java.util.Arrays;
+
+/**
+ * <p>Chooses the playout delay for interpolation from how regularly game states actually arrive. Each arrival is turned
+ * into an inter-arrival time per game state version, so lost or skipped versions do not look like jitter.</p>
+ *
+ * <p>The target delay is the 95th percentile inter-arrival time of recent arrivals plus twice the smoothed jitter,
+ * clamped to the configured bounds. The delay in use jumps up to the target straight away, so a bad link stops
+ * stuttering quickly, and eases down towards it, so a good patch does not make entities jump backwards in time.</p>
+ *
+ * @author Andronikus
+ */
+public class AdaptiveJitterBuffer {
+
+    private static final int SAMPLE_WINDOW = 128;
+    private static final double PERCENTILE = 0.95;
+    private static final double SMOOTHING = 0.1;
+    private static final double SHRINK_RATE = 0.02;
+
+    private long minimumDelayNanos;
+    private long maximumDelayNanos;
+    private final long[] samples = new long[SAMPLE_WINDOW];
+    private final long[] sortedSamples = new long[SAMPLE_WINDOW];
+    private int sampleCount = 0;
+    private int nextSampleIndex = 0;
+
+    private long lastVersion = -1;
+    private long lastArrivalNanos;
+    private double smoothedIntervalNanos = 0;
+    private double smoothedJitterNanos = 0;
+    private long targetDelayNanos;
+    private double playoutDelayNanos;
+
+    /**
+     * Instantiate an adaptive jitter buffer.
+     *
+     * @param aMinimumDelayNanos Lowest playout delay to use
+     * @param aMaximumDelayNanos Highest playout delay to use
+     * @param initialDelayNanos Playout delay to use until enough game states have arrived
+     */
+    public AdaptiveJitterBuffer(long aMinimumDelayNanos, long aMaximumDelayNanos, long initialDelayNanos) {
+        checkBounds(aMinimumDelayNanos, aMaximumDelayNanos);
+        minimumDelayNanos = aMinimumDelayNanos;
+        maximumDelayNanos = aMaximumDelayNanos;
+        targetDelayNanos = clamp(initialDelayNanos);
+        playoutDelayNanos = targetDelayNanos;
+    }
+
+    /**
+     * Set the bounds the playout delay is kept within. The delay in use is clamped to them straight away.
+     *
+     * @param aMinimumDelayNanos Lowest playout delay to use
+     * @param aMaximumDelayNanos Highest playout delay to use
+     */
+    public synchronized void setDelayBounds(long aMinimumDelayNanos, long aMaximumDelayNanos) {
+        checkBounds(aMinimumDelayNanos, aMaximumDelayNanos);
+        minimumDelayNanos = aMinimumDelayNanos;
+        maximumDelayNanos = aMaximumDelayNanos;
+        targetDelayNanos = clamp(targetDelayNanos);
+        playoutDelayNanos = clamp(Math.round(playoutDelayNanos));
+    }
+
+    /**
+     * Record the arrival of a game state.
+     *
+     * @param version Version of the game state
+     * @param arrivalNanos When it arrived, in {@link System#nanoTime()} time
+     */
+    public synchronized void recordArrival(long version, long arrivalNanos) {
+        if (lastVersion < 0) {
+            lastVersion = version;
+            lastArrivalNanos = arrivalNanos;
+            return;
+        }
+
+        if (version <= lastVersion) {
+            return;
+        }
+
+        final long interval = (arrivalNanos - lastArrivalNanos) / (version - lastVersion);
+        lastVersion = version;
+        lastArrivalNanos = arrivalNanos;
+
+        samples[nextSampleIndex] = interval;
+        nextSampleIndex = (nextSampleIndex + 1) % SAMPLE_WINDOW;
+        sampleCount = Math.min(sampleCount + 1, SAMPLE_WINDOW);
+
+        if (smoothedIntervalNanos == 0) {
+            smoothedIntervalNanos = interval;
+        } else {
+            smoothedJitterNanos += (Math.abs(interval - smoothedIntervalNanos) - smoothedJitterNanos) * SMOOTHING;
+            smoothedIntervalNanos += (interval - smoothedIntervalNanos) * SMOOTHING;
+        }
+
+        System.arraycopy(samples, 0, sortedSamples, 0, sampleCount);
+        Arrays.sort(sortedSamples, 0, sampleCount);
+        final long percentileInterval = sortedSamples[(int) Math.min(sampleCount - 1, Math.floor(sampleCount * PERCENTILE))];
+
+        targetDelayNanos = clamp(Math.round(percentileInterval + 2 * smoothedJitterNanos));
+        if (targetDelayNanos > playoutDelayNanos) {
+            playoutDelayNanos = targetDelayNanos;
+        } else {
+            playoutDelayNanos -= (playoutDelayNanos - targetDelayNanos) * SHRINK_RATE;
+        }
+    }
+
+    /**
+     * Get the delay the buffer is aiming for.
+     *
+     * @return Target delay in nanoseconds
+     */
+    public synchronized long getTargetDelayNanos() {
+        return targetDelayNanos;
+    }
+
+    /**
+     * Get the delay to render behind the newest game state right now.
+     *
+     * @return Playout delay in nanoseconds
+     */
+    public synchronized long getPlayoutDelayNanos() {
+        return Math.round(playoutDelayNanos);
+    }
+
+    /**
+     * Get the smoothed time between consecutive game state versions.
+     *
+     * @return Inter-arrival time in nanoseconds
+     */
+    public synchronized long getSmoothedIntervalNanos() {
+        return Math.round(smoothedIntervalNanos);
+    }
+
+    /**
+     * Get the smoothed deviation of inter-arrival times from their average.
+     *
+     * @return Jitter in nanoseconds
+     */
+    public synchronized long getSmoothedJitterNanos() {
+        return Math.round(smoothedJitterNanos);
+    }
+
+    /**
+     * Check that playout delay bounds can be used.
+     *
+     * @param minimumDelayNanos Lowest playout delay
+     * @param maximumDelayNanos Highest playout delay
+     */
+    private static void checkBounds(long minimumDelayNanos, long maximumDelayNanos) {
+        if (minimumDelayNanos < 0 || maximumDelayNanos < minimumDelayNanos) {
+            throw new IllegalArgumentException(
+                "Playout delay bounds must be non-negative and in order, were " + minimumDelayNanos + " and " +
+                maximumDelayNanos + "."
+            );
+        }
+    }
+
+    /**
+     * Clamp a delay to the configured bounds.
+     *
+     * @param delayNanos The delay
+     * @return The clamped delay
+     */
+    private long clamp(long delayNanos) {
+        return Math.max(minimumDelayNanos, Math.min(maximumDelayNanos, delayNanos));
+    }
+}
@@ -3,14 +3,15 @@ package com.andronikus.gameclient.engine;
 import com.andronikus.game.model.client.ClientRequest;
 import com.andronikus.game.model.client.InputRequest;
 import com.andronikus.game.model.client.InputPurgeRequest;
-import com.andronikus.game.model.server.GameState;
 import com.andronikus.gameclient.client.GameClient;
 import com.andronikus.gameclient.engine.command.ClientCommandManager;
+import com.andronikus.gameclient.engine.prediction.ApproximatePlayerMotionModel;
+import com.andronikus.gameclient.engine.prediction.IPlayerMotionModel;
+import com.andronikus.gameclient.engine.prediction.LocalPlayerPredictor;
 import com.andronikus.gameclient.ui.input.ServerInput;
+import com.andronikus.util.TripleBuffer;
 
-import javax.swing.Timer;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -19,23 +20,58 @@ import java.util.List;
  *
  * @author Andronikus
  */
-public class ClientEngine implements ActionListener {
+public class ClientEngine {
 
     /**
-     * The delay a timer needs to fire 30 times a second
+     * Engine ticks per second, which is also how often requests are sent to the server
      */
-    private static final double JAVA_TIMER_30FPS_DELAY = 30;
+    public static final int DEFAULT_TICK_RATE = 30;
+
+    /**
+     * Frames rendered per second
+     */
+    public static final int DEFAULT_FRAME_RATE = 60;
+
+    /**
+     * How many received game states are kept around for interpolation
+     */
+    private static final int SNAPSHOT_HISTORY_CAPACITY = 32;
+
+    /**
+     * How far behind the newest game state entities are rendered, so there is a snapshot on either side to
+     * interpolate between. About three server ticks.
+     */
+    private static final long DEFAULT_PLAYOUT_DELAY_NANOS = 100_000_000L;
+
+    /**
+     * Default bounds for the adaptive playout delay. The lower bound is about one server tick, the least interpolation
+     * needs.
+     */
+    public static final long DEFAULT_MINIMUM_PLAYOUT_DELAY_NANOS = 34_000_000L;
+    public static final long DEFAULT_MAXIMUM_PLAYOUT_DELAY_NANOS = 300_000_000L;
 
     private int sequenceNumber;
     private final GameClient client;
     private final IGameStateRenderer renderer;
     private final IClientInputManager inputManager;
     private final IRendererPresetup setupOperations;
-    private final Timer timer;
+    private final GameLoop gameLoop;
+    private final GameStateMailbox gameStateMailbox = new GameStateMailbox();
+    private final SnapshotHistory snapshotHistory = new SnapshotHistory(SNAPSHOT_HISTORY_CAPACITY);
+    private final SnapshotInterpolator snapshotInterpolator = new SnapshotInterpolator();
+    private final TripleBuffer<SampledFrame> framesToRender = new TripleBuffer<>(SampledFrame::new);
+    private volatile long playoutDelayNanos = DEFAULT_PLAYOUT_DELAY_NANOS;
+    private final AdaptiveJitterBuffer jitterBuffer = new AdaptiveJitterBuffer(
+        DEFAULT_MINIMUM_PLAYOUT_DELAY_NANOS, DEFAULT_MAXIMUM_PLAYOUT_DELAY_NANOS, DEFAULT_PLAYOUT_DELAY_NANOS
+    );
+    private volatile boolean adaptivePlayoutDelay = true;
+    private final LocalPlayerPredictor localPlayerPredictor = new LocalPlayerPredictor(new ApproximatePlayerMotionModel());
+    // Off unless asked for, since the motion model's constants have to be matched to the server's physics
+    private volatile boolean predictionEnabled = false;
     private ClientCommandManager commandManager = null;
 
     // Setter for whether or not this client has been acked by the server
-    private volatile GameState latestGameState = null;
+    private volatile ClientFrame latestFrame = null;
     private volatile boolean serverAckedClient = false;
 
     /**
@@ -52,18 +88,11 @@ public class ClientEngine implements ActionListener {
         inputManager = anInputManager;
         setupOperations = aSetupOperations;
         sequenceNumber = 0;
-        timer = makeTimer(30, this); // TODO non-static or different frame rate?
-    }
-
-    /**
-     * Create a timer with a specified amount of ticks per second.
-     *
-     * @param tickRate The tick rate
-     * @param listener The listener the timer calls
-     * @return The timer
-     */
-    private static Timer makeTimer(int tickRate, ActionListener listener) {
-        return new Timer((int) Math.pow(JAVA_TIMER_30FPS_DELAY, 2) / tickRate, listener);
+        renderer.setFramesToRender(framesToRender);
+        gameLoop = new GameLoop(DEFAULT_TICK_RATE, DEFAULT_FRAME_RATE, () -> {
+            applyLatestGameState();
+            tick();
+        }, this::renderFrame);
     }
 
     /**
@@ -74,12 +103,12 @@ public class ClientEngine implements ActionListener {
         // Until server acks client, keep sending requests
         if (
             !serverAckedClient && (
-            latestGameState == null ||
-            latestGameState.getPlayers().stream().anyMatch(player -> player.getSessionId().equalsIgnoreCase(client.getSessionId()))
+            latestFrame == null ||
+            latestFrame.getPlayer(client.getSessionId()) != null
         )) {
             // Clear queued inputs
             sequenceNumber = sequenceNumber + 1;
-            inputManager.getAndClearInputs();
+            inputManager.getAndClearInputs(latestFrame);
 
             final ClientRequest request = new ClientRequest();
             request.setSessionToken(client.getSessionSecret());
@@ -94,9 +123,10 @@ public class ClientEngine implements ActionListener {
             return;
         }
 
-        final List<ServerInput> inputCodes = inputManager.getAndClearInputs();
+        final List<ServerInput> inputCodes = inputManager.getAndClearInputs(latestFrame);
         final String commandCode = inputManager.getCommand();
         final List<Long> inputIdsToPurge = inputManager.getInputPurgeRequests();
+        localPlayerPredictor.recordTick(inputCodes, System.nanoTime());
         if (inputCodes.size() > 0 || commandCode != null || inputIdsToPurge.size() > 0) {
             sequenceNumber = sequenceNumber + 1;
 
@@ -141,13 +171,14 @@ public class ClientEngine implements ActionListener {
                 }
             }
 
-            if (latestGameState != null && commandManager != null && latestGameState.isServerDebugMode()) {
+            if (latestFrame != null && commandManager != null && latestFrame.getGameState().isServerDebugMode()) {
                 if (commandCode != null) {
                     commandManager.addCommand(commandCode);
                 }
-                commandManager.processGameState(latestGameState);
-                request.setClientCommands(commandManager.getUnackedCommands());
-                request.setCommandsToRemove(commandManager.getAckedCommands());
+                commandManager.processClientFrame(latestFrame);
+                // Copied since the request is serialized on the request sender's thread
+                request.setClientCommands(new ArrayList<>(commandManager.getUnackedCommands()));
+                request.setCommandsToRemove(new ArrayList<>(commandManager.getAckedCommands()));
             } else {
                 request.setClientCommands(Collections.emptyList());
                 request.setCommandsToRemove(Collections.emptyList());
@@ -158,28 +189,162 @@ public class ClientEngine implements ActionListener {
     }
 
     /**
-     * Take a game state.
+     * Take a game state. Safe to call from any thread; the state is applied on the next engine tick, and only the
+     * newest state taken since the last tick is applied.
+     *
+     * @param frame Frame of the game state
+     */
+    public void takeGameState(ClientFrame frame) {
+        final long receivedAtNanos = System.nanoTime();
+        jitterBuffer.recordArrival(frame.getGameState().getVersion(), receivedAtNanos);
+        snapshotHistory.record(frame, receivedAtNanos);
+        gameStateMailbox.post(frame);
+    }
+
+    /**
+     * Set a fixed delay to render behind the newest game state, turning off the adaptive delay. Zero renders the
+     * newest game state as is.
+     *
+     * @param aPlayoutDelayNanos The playout delay in nanoseconds
+     */
+    public void setPlayoutDelayNanos(long aPlayoutDelayNanos) {
+        playoutDelayNanos = aPlayoutDelayNanos;
+        adaptivePlayoutDelay = false;
+    }
+
+    /**
+     * Set the bounds the adaptive playout delay picked from measured packet arrival is kept within, turning the
+     * adaptive delay back on if a fixed delay was set.
+     *
+     * @param minimumDelayNanos Lowest playout delay in nanoseconds
+     * @param maximumDelayNanos Highest playout delay in nanoseconds
+     */
+    public void setAdaptivePlayoutDelayBounds(long minimumDelayNanos, long maximumDelayNanos) {
+        jitterBuffer.setDelayBounds(minimumDelayNanos, maximumDelayNanos);
+        adaptivePlayoutDelay = true;
+    }
+
+    /**
+     * Set how long entities keep moving on their last known velocities when game states stop arriving. Zero freezes
+     * them at the newest game state instead.
+     *
+     * @param maxExtrapolationNanos The cap in nanoseconds
+     */
+    public void setMaxExtrapolationNanos(long maxExtrapolationNanos) {
+        snapshotInterpolator.setMaxExtrapolationNanos(maxExtrapolationNanos);
+    }
+
+    /**
+     * Get the jitter buffer that picks the playout delay from measured packet arrival.
+     *
+     * @return The jitter buffer
+     */
+    public AdaptiveJitterBuffer getJitterBuffer() {
+        return jitterBuffer;
+    }
+
+    /**
+     * Set whether or not the local player is predicted from the client's own inputs rather than drawn from the last
+     * game state. Off by default.
+     *
+     * @param aPredictionEnabled True to predict the local player
+     */
+    public void setPredictionEnabled(boolean aPredictionEnabled) {
+        predictionEnabled = aPredictionEnabled;
+    }
+
+    /**
+     * Set the model of the server's player physics the local player is predicted with. Only set before the engine
+     * starts.
+     *
+     * @param motionModel The model
+     */
+    public void setPlayerMotionModel(IPlayerMotionModel motionModel) {
+        localPlayerPredictor.setMotionModel(motionModel);
+    }
+
+    /**
+     * Set how often the engine ticks and renders.
+     *
+     * @param tickRate Ticks per second
+     * @param frameRate Frames per second, 0 to render as often as possible
+     */
+    public void setLoopRates(int tickRate, int frameRate) {
+        gameLoop.setRates(tickRate, frameRate);
+    }
+
+    /**
+     * Get the loop driving the engine.
      *
-     * @param gameState The game state
+     * @return The game loop
      */
-    public void takeGameState(GameState gameState) {
-        latestGameState = gameState;
+    public GameLoop getGameLoop() {
+        return gameLoop;
+    }
+
+    /**
+     * Get the mailbox game states wait in until the next engine tick.
+     *
+     * @return The mailbox
+     */
+    public GameStateMailbox getGameStateMailbox() {
+        return gameStateMailbox;
+    }
+
+    /**
+     * Apply the newest game state taken since the last tick, if any. The game loop calls this at the start of every
+     * tick.
+     */
+    public void applyLatestGameState() {
+        final ClientFrame frame = gameStateMailbox.take();
+        if (frame == null) {
+            return;
+        }
+
+        latestFrame = frame;
 
         // TODO mechanism for handling server rejecting the client
-        if (!serverAckedClient &&
-            gameState.getPlayers().stream().anyMatch(player -> player.getSessionId().equals(client.getSessionId()))) {
+        if (!serverAckedClient && frame.getPlayer(client.getSessionId()) != null) {
             commandManager = new ClientCommandManager(client.getSessionId());
             serverAckedClient = true;
         }
 
-        renderer.setGameStateToRender(gameState);
+        if (serverAckedClient) {
+            localPlayerPredictor.reconcile(frame, client.getSessionId(), System.nanoTime());
+        }
+    }
+
+    /**
+     * Render a frame. With a playout delay, the renderer gets the game state interpolated for this instant. With
+     * prediction, the local player is replaced by the predicted one. The game loop calls this every frame; the frame
+     * is sampled into one the renderer is not reading, so rendering a frame does not allocate.
+     */
+    public void renderFrame() {
+        final long delayNanos = adaptivePlayoutDelay ? jitterBuffer.getPlayoutDelayNanos() : playoutDelayNanos;
+        final SampledFrame frameToRender = framesToRender.getWritable();
+        final boolean sampled = delayNanos > 0 && snapshotInterpolator.sample(snapshotHistory, System.nanoTime() - delayNanos, frameToRender);
+        if (!sampled) {
+            final ClientFrame frame = latestFrame;
+            if (frame == null) {
+                renderer.render();
+                return;
+            }
+            frameToRender.reset(frame);
+        }
+
+        if (predictionEnabled && serverAckedClient) {
+            localPlayerPredictor.applyPrediction(frameToRender, client.getSessionId());
+        }
+
+        framesToRender.publish();
+        renderer.render();
     }
 
     /**
      * Start the engine.
      */
     public void start() {
-        timer.start();
+        gameLoop.start();
         setupOperations.setupBeforeRender();
         renderer.setSessionId(client.getSessionId());
     }
@@ -188,31 +353,21 @@ public class ClientEngine implements ActionListener {
      * Pause the engine.
      */
     public void pauseEngine() {
-        timer.stop();
+        gameLoop.pause();
     }
 
     /**
      * Resume the engine.
      */
     public void resumeEngine() {
-        timer.start();
+        gameLoop.resume();
     }
 
     /**
      * Kill the engine.
      */
     public void kill() {
-        timer.stop();
-    }
-
-    /**
-     * Hook for the internal timer to decide when the engine should fire.
-     *
-     * {@inheritDoc}
-     */
-    @Override
-    public void actionPerformed(ActionEvent event) {
-        tick();
-        renderer.render();
+        gameLoop.terminate();
+        renderer.terminate();
     }
 }
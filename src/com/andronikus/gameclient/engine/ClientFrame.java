@@ -0,0 +1,294 @@
+package com.andronikus.gameclient.engine;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.IMoveable;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.game.model.server.debug.CommandAcknowledgement;
+import com.andronikus.game.model.server.input.InputAcknowledgement;
+import com.andronikus.gameclient.engine.spatial.CollisionFlagIndex;
+import com.andronikus.gameclient.engine.spatial.GameStateIndex;
+import com.andronikus.util.LongObjectMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>A received game state together with lookups derived from it: players by session, other entities by ID,
+ * acknowledged inputs and commands by session, collision flags and the spatial index the renderer culls with. Built
+ * once on the decode thread when the state arrives, so the engine, input handling and rendering look things up instead
+ * of scanning the state's lists every time.</p>
+ *
+ * <p>Acknowledgements are matched to sessions regardless of case, as the server's acknowledgements always have been.
+ * The frame does not change once built and can be read from any thread, as long as the game state is not changed
+ * either.</p>
+ *
+ * @author Andronikus
+ */
+public class ClientFrame {
+
+    /**
+     * Index of a player that is not in the game state
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final GameState gameState;
+    private final Map<String, Integer> playerIndicesBySession;
+    private final LongObjectMap<Laser> lasersById;
+    private final LongObjectMap<Asteroid> asteroidsById;
+    private final LongObjectMap<Snake> snakesById;
+    private final LongObjectMap<MicroBlackHole> blackHolesById;
+    private final LongObjectMap<Portal> portalsById;
+    private final Map<String, long[]> inputAcknowledgementsBySession;
+    private final Map<String, long[]> commandAcknowledgementsBySession;
+    private final CollisionFlagIndex collisionFlags;
+    private final GameStateIndex stateIndex;
+
+    /**
+     * Build a client frame.
+     *
+     * @param aGameState The received game state
+     */
+    public ClientFrame(GameState aGameState) {
+        gameState = aGameState;
+
+        final List<Player> players = aGameState.getPlayers();
+        playerIndicesBySession = new HashMap<>(players.size() * 2);
+        for (int index = 0; index < players.size(); index++) {
+            playerIndicesBySession.put(players.get(index).getSessionId(), index);
+        }
+        lasersById = indexById(aGameState.getLasers());
+        asteroidsById = indexById(aGameState.getAsteroids());
+        snakesById = indexById(aGameState.getSnakes());
+        blackHolesById = indexById(aGameState.getBlackHoles());
+        portalsById = indexById(aGameState.getPortals());
+
+        inputAcknowledgementsBySession = indexIdsBySession(
+            aGameState.getInputAcknowledgements(), InputAcknowledgement::getSessionId, InputAcknowledgement::getInputId
+        );
+
+        if (aGameState.getDebugSettings() == null) {
+            commandAcknowledgementsBySession = Collections.emptyMap();
+            collisionFlags = new CollisionFlagIndex(null);
+        } else {
+            commandAcknowledgementsBySession = indexIdsBySession(
+                aGameState.getDebugSettings().getCommandAcknowledgements(),
+                CommandAcknowledgement::getSessionId,
+                CommandAcknowledgement::getCommandId
+            );
+            collisionFlags = new CollisionFlagIndex(aGameState.getDebugSettings().getPlayerCollisionFlags());
+        }
+
+        stateIndex = new GameStateIndex(aGameState);
+    }
+
+    /**
+     * Get the game state.
+     *
+     * @return The game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Get a player by session.
+     *
+     * @param sessionId The session
+     * @return The player, or null if the session has no player in the game state
+     */
+    public Player getPlayer(String sessionId) {
+        final int index = getPlayerIndex(sessionId);
+        return index == NOT_FOUND ? null : gameState.getPlayers().get(index);
+    }
+
+    /**
+     * Get where a player is in the game state's list of players.
+     *
+     * @param sessionId The session
+     * @return Index of the player, or {@link #NOT_FOUND} if the session has no player in the game state
+     */
+    public int getPlayerIndex(String sessionId) {
+        final Integer index = playerIndicesBySession.get(sessionId);
+        return index == null ? NOT_FOUND : index;
+    }
+
+    /**
+     * Get a laser by ID.
+     *
+     * @param id ID of the laser
+     * @return The laser, or null if there is no such laser in the game state
+     */
+    public Laser getLaser(long id) {
+        return lasersById.get(id);
+    }
+
+    /**
+     * Get an asteroid by ID.
+     *
+     * @param id ID of the asteroid
+     * @return The asteroid, or null if there is no such asteroid in the game state
+     */
+    public Asteroid getAsteroid(long id) {
+        return asteroidsById.get(id);
+    }
+
+    /**
+     * Get a snake by ID.
+     *
+     * @param id ID of the snake
+     * @return The snake, or null if there is no such snake in the game state
+     */
+    public Snake getSnake(long id) {
+        return snakesById.get(id);
+    }
+
+    /**
+     * Get a black hole by ID.
+     *
+     * @param id ID of the black hole
+     * @return The black hole, or null if there is no such black hole in the game state
+     */
+    public MicroBlackHole getBlackHole(long id) {
+        return blackHolesById.get(id);
+    }
+
+    /**
+     * Get a portal by ID.
+     *
+     * @param id ID of the portal
+     * @return The portal, or null if there is no such portal in the game state
+     */
+    public Portal getPortal(long id) {
+        return portalsById.get(id);
+    }
+
+    /**
+     * Check whether the server acknowledged an input.
+     *
+     * @param sessionId Session the input was sent from
+     * @param inputId ID of the input
+     * @return True if the input is acknowledged
+     */
+    public boolean isInputAcknowledged(String sessionId, long inputId) {
+        return Arrays.binarySearch(idsFor(inputAcknowledgementsBySession, sessionId), inputId) >= 0;
+    }
+
+    /**
+     * Get the newest input the server acknowledged for a session.
+     *
+     * @param sessionId The session
+     * @return ID of the newest acknowledged input, or null if none are acknowledged
+     */
+    public Long getNewestInputAcknowledgement(String sessionId) {
+        final long[] inputIds = idsFor(inputAcknowledgementsBySession, sessionId);
+        return inputIds.length == 0 ? null : inputIds[inputIds.length - 1];
+    }
+
+    /**
+     * Check whether the server acknowledged a command.
+     *
+     * @param sessionId Session the command was sent from
+     * @param commandId ID of the command
+     * @return True if the command is acknowledged
+     */
+    public boolean isCommandAcknowledged(String sessionId, long commandId) {
+        return Arrays.binarySearch(idsFor(commandAcknowledgementsBySession, sessionId), commandId) >= 0;
+    }
+
+    /**
+     * Get the collision flags.
+     *
+     * @return The collision flags
+     */
+    public CollisionFlagIndex getCollisionFlags() {
+        return collisionFlags;
+    }
+
+    /**
+     * Get the spatial index of the game state.
+     *
+     * @return The index
+     */
+    public GameStateIndex getStateIndex() {
+        return stateIndex;
+    }
+
+    /**
+     * Get the sorted IDs indexed for a session.
+     *
+     * @param idsBySession IDs by lower case session
+     * @param sessionId The session
+     * @return The IDs, empty if the session has none
+     */
+    private static long[] idsFor(Map<String, long[]> idsBySession, String sessionId) {
+        if (sessionId == null) {
+            return NO_IDS;
+        }
+        final long[] ids = idsBySession.get(sessionId.toLowerCase(Locale.ROOT));
+        return ids == null ? NO_IDS : ids;
+    }
+
+    /**
+     * Index entities by ID.
+     *
+     * @param entities The entities
+     * @param <MOVEABLE_TYPE> Type of the entities
+     * @return The entities by ID
+     */
+    private static <MOVEABLE_TYPE extends IMoveable> LongObjectMap<MOVEABLE_TYPE> indexById(List<MOVEABLE_TYPE> entities) {
+        final LongObjectMap<MOVEABLE_TYPE> entitiesById = new LongObjectMap<>(entities.size());
+        for (int index = 0; index < entities.size(); index++) {
+            final MOVEABLE_TYPE entity = entities.get(index);
+            entitiesById.put(entity.getMoveableId(), entity);
+        }
+        return entitiesById;
+    }
+
+    /**
+     * Group the IDs of acknowledgements by lower case session into sorted arrays.
+     *
+     * @param acknowledgements The acknowledgements, may be null if there are none
+     * @param sessionOf Gets the session of an acknowledgement
+     * @param idOf Gets the ID of an acknowledgement
+     * @param <ACK_TYPE> Type of the acknowledgements
+     * @return Sorted IDs by lower case session
+     */
+    private static <ACK_TYPE> Map<String, long[]> indexIdsBySession(
+        List<ACK_TYPE> acknowledgements, Function<ACK_TYPE, String> sessionOf, ToLongFunction<ACK_TYPE> idOf
+    ) {
+        if (acknowledgements == null || acknowledgements.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // Count first so each session's IDs go straight into an array of the right size
+        final Map<String, int[]> countsBySession = new HashMap<>();
+        for (ACK_TYPE acknowledgement : acknowledgements) {
+            countsBySession.computeIfAbsent(sessionOf.apply(acknowledgement).toLowerCase(Locale.ROOT), sessionId -> new int[1])[0]++;
+        }
+
+        final Map<String, long[]> idsBySession = new HashMap<>(countsBySession.size() * 2);
+        countsBySession.forEach((sessionId, count) -> idsBySession.put(sessionId, new long[count[0]]));
+        for (ACK_TYPE acknowledgement : acknowledgements) {
+            final String sessionId = sessionOf.apply(acknowledgement).toLowerCase(Locale.ROOT);
+            final int[] remaining = countsBySession.get(sessionId);
+            remaining[0]--;
+            idsBySession.get(sessionId)[remaining[0]] = idOf.applyAsLong(acknowledgement);
+        }
+
+        idsBySession.values().forEach(Arrays::sort);
+        return idsBySession;
+    }
+}
@@ -0,0 +1,234 @@
+package com.andronikus.gameclient.engine;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Fixed timestep game loop on its own thread, timed with {@link System#nanoTime()}. Ticks and frames run at
+ * independent rates. Ticks that fall behind are caught up, up to a limit, so the tick rate holds on average; frames
+ * are simply skipped when late.</p>
+ *
+ * <p>A loop iteration that leaves the loop more than one tick behind is an overrun. Overruns are counted and the
+ * amount of time the loop fell behind by is recorded.</p>
+ *
+ * @author Andronikus
+ */
+public class GameLoop implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger("GameLoop");
+
+    /**
+     * Most ticks run back to back to catch up before the loop gives up on the backlog.
+     */
+    private static final int MAX_CATCH_UP_TICKS = 5;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final Runnable tickAction;
+    private final Runnable renderAction;
+
+    private volatile long tickNanos;
+    private volatile long frameNanos;
+    private volatile boolean running = false;
+    private volatile boolean paused = false;
+    private volatile Thread thread = null;
+
+    private volatile long overrunCount = 0;
+    private volatile long droppedTickCount = 0;
+    private volatile long lastOverrunNanos = 0;
+    private volatile long maximumOverrunNanos = 0;
+
+    /**
+     * Instantiate a game loop.
+     *
+     * @param tickRate Ticks per second
+     * @param frameRate Frames per second, 0 for as many as possible
+     * @param aTickAction What a tick does
+     * @param aRenderAction What a frame does
+     */
+    public GameLoop(int tickRate, int frameRate, Runnable aTickAction, Runnable aRenderAction) {
+        tickAction = aTickAction;
+        renderAction = aRenderAction;
+        setRates(tickRate, frameRate);
+    }
+
+    /**
+     * Set the tick and frame rates. Takes effect on the next loop iteration.
+     *
+     * @param tickRate Ticks per second
+     * @param frameRate Frames per second, 0 for as many as possible
+     */
+    public void setRates(int tickRate, int frameRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("Tick rate must be positive, was " + tickRate + ".");
+        }
+        if (frameRate < 0) {
+            throw new IllegalArgumentException("Frame rate can not be negative, was " + frameRate + ".");
+        }
+        tickNanos = NANOS_PER_SECOND / tickRate;
+        frameNanos = frameRate == 0 ? 0 : NANOS_PER_SECOND / frameRate;
+    }
+
+    /**
+     * Start the loop thread.
+     */
+    public void start() {
+        running = true;
+        thread = new Thread(this, "GameLoop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Pause the loop. Nothing runs until resumed.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Resume a paused loop.
+     */
+    public void resume() {
+        paused = false;
+        final Thread loopThread = thread;
+        if (loopThread != null) {
+            LockSupport.unpark(loopThread);
+        }
+    }
+
+    /**
+     * Stop the loop for good.
+     */
+    public void terminate() {
+        running = false;
+        final Thread loopThread = thread;
+        if (loopThread != null) {
+            LockSupport.unpark(loopThread);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        long nextTickNanos = System.nanoTime();
+        long nextFrameNanos = nextTickNanos;
+
+        while (running) {
+            if (paused) {
+                LockSupport.park(this);
+                nextTickNanos = System.nanoTime();
+                nextFrameNanos = nextTickNanos;
+                continue;
+            }
+
+            long now = System.nanoTime();
+            final long currentTickNanos = tickNanos;
+
+            int ticksRun = 0;
+            while (now - nextTickNanos >= 0 && ticksRun < MAX_CATCH_UP_TICKS) {
+                runSafely(tickAction);
+                nextTickNanos += currentTickNanos;
+                ticksRun++;
+                now = System.nanoTime();
+            }
+
+            final long behindNanos = now - nextTickNanos;
+            if (behindNanos >= currentTickNanos) {
+                recordOverrun(behindNanos, currentTickNanos);
+                // Give up on the backlog rather than spiralling, the next tick is due now
+                nextTickNanos = now;
+            }
+
+            final long currentFrameNanos = frameNanos;
+            if (currentFrameNanos == 0 || now - nextFrameNanos >= 0) {
+                runSafely(renderAction);
+                if (currentFrameNanos != 0) {
+                    nextFrameNanos += currentFrameNanos;
+                    // Late frames are not worth catching up on
+                    if (System.nanoTime() - nextFrameNanos > 0) {
+                        nextFrameNanos = System.nanoTime() + currentFrameNanos;
+                    }
+                }
+            }
+
+            if (currentFrameNanos == 0) {
+                Thread.yield();
+            } else {
+                final long wakeNanos = nextTickNanos - nextFrameNanos < 0 ? nextTickNanos : nextFrameNanos;
+                final long sleepNanos = wakeNanos - System.nanoTime();
+                if (sleepNanos > 0) {
+                    LockSupport.parkNanos(this, sleepNanos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record that the loop fell behind.
+     *
+     * @param behindNanos How far behind the loop is
+     * @param currentTickNanos Length of a tick
+     */
+    private void recordOverrun(long behindNanos, long currentTickNanos) {
+        overrunCount++;
+        droppedTickCount += behindNanos / currentTickNanos;
+        lastOverrunNanos = behindNanos;
+        if (behindNanos > maximumOverrunNanos) {
+            maximumOverrunNanos = behindNanos;
+            LOGGER.warning("Game loop fell " + (behindNanos / 1_000_000) + "ms behind.");
+        }
+    }
+
+    /**
+     * Run an action, keeping the loop alive if it throws.
+     *
+     * @param action The action
+     */
+    private static void runSafely(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException exception) {
+            LOGGER.log(Level.SEVERE, "Game loop action failed.", exception);
+        }
+    }
+
+    /**
+     * Get how many times the loop fell more than a tick behind.
+     *
+     * @return Overrun count
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * Get how many ticks were given up on because the loop was too far behind to catch up.
+     *
+     * @return Dropped tick count
+     */
+    public long getDroppedTickCount() {
+        return droppedTickCount;
+    }
+
+    /**
+     * Get how far behind the loop was at its last overrun.
+     *
+     * @return Nanoseconds behind
+     */
+    public long getLastOverrunNanos() {
+        return lastOverrunNanos;
+    }
+
+    /**
+     * Get the furthest the loop has fallen behind.
+     *
+     * @return Nanoseconds behind
+     */
+    public long getMaximumOverrunNanos() {
+        return maximumOverrunNanos;
+    }
+}
@@ -0,0 +1,45 @@
+package com.andronikus.gameclient.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Single slot, latest-wins hand-off of game states, as {@link ClientFrame}s, from the decode stage to the engine.
+ * Posting never blocks; a state the engine has not picked up yet is simply replaced by a newer one.
+ *
+ * @author Andronikus
+ */
+public class GameStateMailbox {
+
+    private final AtomicReference<ClientFrame> slot = new AtomicReference<>(null);
+    private final AtomicLong overwrittenCount = new AtomicLong(0);
+
+    /**
+     * Post a game state, replacing any state that was not taken yet.
+     *
+     * @param frame Frame of the game state
+     */
+    public void post(ClientFrame frame) {
+        if (slot.getAndSet(frame) != null) {
+            overwrittenCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Take the posted game state, if any.
+     *
+     * @return Frame of the game state, or null if nothing new was posted
+     */
+    public ClientFrame take() {
+        return slot.getAndSet(null);
+    }
+
+    /**
+     * Get how many game states were replaced before the engine took them.
+     *
+     * @return Overwritten game state count
+     */
+    public long getOverwrittenCount() {
+        return overwrittenCount.get();
+    }
+}
@@ -14,9 +14,11 @@ public interface IClientInputManager {
     /**
      * Get the inputs the user has put in and then clear get the inputs ready for next call.
      *
+     * @param latestFrame Frame of the newest game state from the server, used to find inputs the server has
+     *                    acknowledged. Null if no game state has arrived yet
      * @return The inputs
      */
-    List<ServerInput> getAndClearInputs();
+    List<ServerInput> getAndClearInputs(ClientFrame latestFrame);
 
     /**
      * Get the command that will be sent to the server.
@@ -1,20 +1,23 @@
 package com.andronikus.gameclient.engine;
 
 import com.andronikus.game.model.server.GameState;
+import com.andronikus.util.TripleBuffer;
 
 /**
- * Renderer for a {@link GameState}.
+ * Renderer for a {@link GameState}, handed over as a {@link SampledFrame}.
  *
  * @author Andronikus
  */
 public interface IGameStateRenderer {
 
     /**
-     * Set the game state to render.
+     * Set where the frames to render come from. The engine publishes a sampled frame to it every frame, and the
+     * renderer takes the newest with {@link TripleBuffer#getReadable()}, always from the same thread. A frame without a
+     * source frame means there is nothing to render yet.
      *
-     * @param toRender The game state to render
+     * @param framesToRender Frames of the game state to render
      */
-    void setGameStateToRender(GameState toRender);
+    void setFramesToRender(TripleBuffer<SampledFrame> framesToRender);
 
     /**
      * Set the session associated to the player whose perspective is being followed.
@@ -27,4 +30,9 @@ public interface IGameStateRenderer {
      * Render a game-state in a user-readable way.
      */
     void render();
+
+    /**
+     * Stop any threads the renderer started. Called once the engine is killed.
+     */
+    void terminate();
 }
@@ -0,0 +1,172 @@
+package com.andronikus.gameclient.engine;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.gameclient.client.codec.ModelCopier;
+import com.andronikus.util.ObjectPool;
+
+/**
+ * <p>A game state to render and the received frame it was sampled from. The state's entity lists line up index for
+ * index with the frame's, but interpolation and prediction may have moved entities away from where the frame has them,
+ * by at most the displacement. Renderers query the frame's spatial index, widened by the displacement, instead of
+ * indexing every sampled state again.</p>
+ *
+ * <p>Sampled frames are reused from frame to frame, so sampling does not allocate. A sampled frame starts out as its
+ * received frame's game state as is; the first change copies that state into the sampled frame's own game state, and
+ * entities that are moved are copies taken from the sampled frame's pools. The engine hands sampled frames to the
+ * renderer through a {@link com.andronikus.util.TripleBuffer}, so a frame is only refilled once the renderer is done
+ * with it. Anything kept past that has to be copied.</p>
+ *
+ * @author Andronikus
+ */
+public class SampledFrame {
+
+    private ClientFrame sourceFrame = null;
+    private GameState gameState = null;
+    private long displacement = 0;
+
+    private final GameState sampledGameState = new GameState();
+    private final ObjectPool<Player> playerPool = new ObjectPool<>(Player::new);
+    private final ObjectPool<Laser> laserPool = new ObjectPool<>(Laser::new);
+    private final ObjectPool<Asteroid> asteroidPool = new ObjectPool<>(Asteroid::new);
+    private final ObjectPool<Snake> snakePool = new ObjectPool<>(Snake::new);
+    private final ObjectPool<MicroBlackHole> blackHolePool = new ObjectPool<>(MicroBlackHole::new);
+    private final ObjectPool<Portal> portalPool = new ObjectPool<>(Portal::new);
+
+    /**
+     * Start the sampled frame over as a received frame as it is, handing back every entity taken from its pools.
+     *
+     * @param aSourceFrame The received frame
+     */
+    public void reset(ClientFrame aSourceFrame) {
+        sourceFrame = aSourceFrame;
+        gameState = aSourceFrame.getGameState();
+        displacement = 0;
+        playerPool.reset();
+        laserPool.reset();
+        asteroidPool.reset();
+        snakePool.reset();
+        blackHolePool.reset();
+        portalPool.reset();
+    }
+
+    /**
+     * Get the received frame the game state was sampled from.
+     *
+     * @return The frame, or null if the sampled frame was never filled
+     */
+    public ClientFrame getSourceFrame() {
+        return sourceFrame;
+    }
+
+    /**
+     * Get the sampled game state.
+     *
+     * @return The game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Get the sampled game state to change, copying the received game state into the sampled frame's own the first
+     * time. Entities in it are still shared with the received game state, so copy them before changing them.
+     *
+     * @return The game state
+     */
+    public GameState getWritableGameState() {
+        if (gameState != sampledGameState) {
+            ModelCopier.copyGameStateShallow(gameState, sampledGameState);
+            gameState = sampledGameState;
+        }
+        return sampledGameState;
+    }
+
+    /**
+     * Get how far any entity was moved from where the received frame has it, as the sum of the X and Y distances.
+     *
+     * @return The displacement in world units
+     */
+    public long getDisplacement() {
+        return displacement;
+    }
+
+    /**
+     * Widen the displacement to cover an entity moved away from where the received frame has it.
+     *
+     * @param distance How far the entity was moved, as the sum of the X and Y distances
+     */
+    public void widenDisplacement(long distance) {
+        displacement = Math.max(displacement, distance);
+    }
+
+    /**
+     * Get a player of the sampled game state by session.
+     *
+     * @param sessionId The session
+     * @return The player, or null if the session has no player in the game state
+     */
+    public Player getPlayer(String sessionId) {
+        final int index = sourceFrame.getPlayerIndex(sessionId);
+        return index == ClientFrame.NOT_FOUND ? null : gameState.getPlayers().get(index);
+    }
+
+    /**
+     * Get the pool moved players are copied into.
+     *
+     * @return The pool
+     */
+    public ObjectPool<Player> getPlayerPool() {
+        return playerPool;
+    }
+
+    /**
+     * Get the pool moved lasers are copied into.
+     *
+     * @return The pool
+     */
+    public ObjectPool<Laser> getLaserPool() {
+        return laserPool;
+    }
+
+    /**
+     * Get the pool moved asteroids are copied into.
+     *
+     * @return The pool
+     */
+    public ObjectPool<Asteroid> getAsteroidPool() {
+        return asteroidPool;
+    }
+
+    /**
+     * Get the pool moved snakes are copied into.
+     *
+     * @return The pool
+     */
+    public ObjectPool<Snake> getSnakePool() {
+        return snakePool;
+    }
+
+    /**
+     * Get the pool moved black holes are copied into.
+     *
+     * @return The pool
+     */
+    public ObjectPool<MicroBlackHole> getBlackHolePool() {
+        return blackHolePool;
+    }
+
+    /**
+     * Get the pool moved portals are copied into.
+     *
+     * @return The pool
+     */
+    public ObjectPool<Portal> getPortalPool() {
+        return portalPool;
+    }
+}
@@ -0,0 +1,140 @@
+package com.andronikus.gameclient.engine;
+
+/**
+ * The last few game states received from the server, as {@link ClientFrame}s, with the time each was received. Game
+ * states must be recorded in increasing version order.
+ *
+ * @author Andronikus
+ */
+public class SnapshotHistory {
+
+    private final ClientFrame[] snapshots;
+    private final long[] receiveNanos;
+    private int newestIndex = -1;
+    private int size = 0;
+
+    /**
+     * Instantiate a snapshot history.
+     *
+     * @param capacity How many snapshots to remember
+     */
+    public SnapshotHistory(int capacity) {
+        snapshots = new ClientFrame[capacity];
+        receiveNanos = new long[capacity];
+    }
+
+    /**
+     * Record a snapshot, forgetting the oldest if the history is full.
+     *
+     * @param frame Frame of the game state
+     * @param receivedAtNanos When the game state was received, in {@link System#nanoTime()} time
+     */
+    public synchronized void record(ClientFrame frame, long receivedAtNanos) {
+        newestIndex = (newestIndex + 1) % snapshots.length;
+        snapshots[newestIndex] = frame;
+        receiveNanos[newestIndex] = receivedAtNanos;
+        size = Math.min(size + 1, snapshots.length);
+    }
+
+    /**
+     * Find the two snapshots either side of a point in time. Before the oldest snapshot both sides are the oldest,
+     * after the newest snapshot both sides are the newest.
+     *
+     * @param timeNanos The point in time, in {@link System#nanoTime()} time
+     * @param bracket The bracket to fill, so finding one does not allocate
+     * @return False if nothing was recorded yet, in which case the bracket is left as it was
+     */
+    public synchronized boolean bracket(long timeNanos, SnapshotBracket bracket) {
+        if (size == 0) {
+            return false;
+        }
+
+        if (timeNanos - receiveNanos[newestIndex] >= 0) {
+            bracket.set(snapshots[newestIndex], receiveNanos[newestIndex], snapshots[newestIndex], receiveNanos[newestIndex], true);
+            return true;
+        }
+
+        int newerIndex = newestIndex;
+        for (int age = 1; age < size; age++) {
+            final int olderIndex = Math.floorMod(newestIndex - age, snapshots.length);
+            if (timeNanos - receiveNanos[olderIndex] >= 0) {
+                bracket.set(snapshots[olderIndex], receiveNanos[olderIndex], snapshots[newerIndex], receiveNanos[newerIndex], false);
+                return true;
+            }
+            newerIndex = olderIndex;
+        }
+
+        bracket.set(snapshots[newerIndex], receiveNanos[newerIndex], snapshots[newerIndex], receiveNanos[newerIndex], false);
+        return true;
+    }
+
+    /**
+     * Get the newest snapshot.
+     *
+     * @return The snapshot, or null if nothing was recorded yet
+     */
+    public synchronized ClientFrame getNewest() {
+        return size == 0 ? null : snapshots[newestIndex];
+    }
+
+    /**
+     * Two snapshots bracketing a point in time. Empty until filled by {@link #bracket(long, SnapshotBracket)}.
+     */
+    public static class SnapshotBracket {
+        private ClientFrame older;
+        private long olderNanos;
+        private ClientFrame newer;
+        private long newerNanos;
+        private boolean pastNewest;
+
+        private void set(ClientFrame anOlder, long anOlderNanos, ClientFrame aNewer, long aNewerNanos, boolean aPastNewest) {
+            older = anOlder;
+            olderNanos = anOlderNanos;
+            newer = aNewer;
+            newerNanos = aNewerNanos;
+            pastNewest = aPastNewest;
+        }
+
+        /**
+         * Get the snapshot at or before the point in time.
+         *
+         * @return The snapshot
+         */
+        public ClientFrame getOlder() {
+            return older;
+        }
+
+        /**
+         * Get the snapshot after the point in time.
+         *
+         * @return The snapshot
+         */
+        public ClientFrame getNewer() {
+            return newer;
+        }
+
+        /**
+         * Get how far a point in time is past the newest snapshot in the history.
+         *
+         * @param timeNanos The point in time
+         * @return Nanoseconds past the newest snapshot, 0 if the point in time is not past it
+         */
+        public long nanosPastNewer(long timeNanos) {
+            return pastNewest ? Math.max(0, timeNanos - newerNanos) : 0;
+        }
+
+        /**
+         * Get how far between the two snapshots a point in time is.
+         *
+         * @param timeNanos The point in time
+         * @return 0 at the older snapshot, 1 at the newer snapshot
+         */
+        public double fractionAt(long timeNanos) {
+            if (older == newer || newerNanos == olderNanos) {
+                return 1;
+            }
+            final double fraction = (double) (timeNanos - olderNanos) / (double) (newerNanos - olderNanos);
+            return Math.max(0, Math.min(1, fraction));
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package com.andronikus.gameclient.engine;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.IMoveable;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.gameclient.client.codec.ModelCopier;
+import com.andronikus.util.ObjectPool;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>Samples a {@link SnapshotHistory} at a point in time. Positions and angles of every entity present in both
+ * bracketing snapshots are linearly interpolated, angles along the shortest arc. Everything else is taken from the
+ * newer snapshot.</p>
+ *
+ * <p>When the point in time is past the newest snapshot, because snapshots are late, entities are dead reckoned from
+ * their velocities for up to a capped amount of time. Once snapshots catch up, the difference between where entities
+ * were extrapolated to and where they really are is blended out over a few frames instead of snapping.</p>
+ *
+ * <p>Samples are written into a {@link SampledFrame} in place, with moved entities copied into the frame's pools, and
+ * the entities of the older snapshot are looked up through its {@link ClientFrame}, so sampling between snapshots does
+ * not allocate. Only the bookkeeping for extrapolated entities and their corrections does, while there are any.</p>
+ *
+ * <p>Meant to be driven from the engine thread only.</p>
+ *
+ * @author Andronikus
+ */
+public class SnapshotInterpolator {
+
+    /**
+     * Jumps further than this in one snapshot are teleports (portals, respawns) and are not smeared across the gap.
+     */
+    private static final long SNAP_DISTANCE = 1000;
+
+    private static final double FULL_TURN = 2 * Math.PI;
+
+    private static final long DEFAULT_MAX_EXTRAPOLATION_NANOS = 250_000_000L;
+    private static final long DEFAULT_SERVER_TICK_NANOS = 33_333_333L;
+
+    /**
+     * Fraction of the remaining correction kept each frame after extrapolation ends.
+     */
+    private static final double CORRECTION_DECAY = 0.8;
+    private static final double CORRECTION_EPSILON = 0.5;
+
+    private static final EntityKinematics<Player> PLAYER_KINEMATICS = new EntityKinematics<>(
+        "PLAYER", Player::getSessionId, (frame, player) -> frame.getPlayer(player.getSessionId()),
+        ModelCopier::copyPlayer, SampledFrame::getPlayerPool,
+        Player::getXVelocity, Player::getYVelocity, Player::getRotationalVelocity
+    );
+    private static final EntityKinematics<Laser> LASER_KINEMATICS = new EntityKinematics<>(
+        "LASER", IMoveable::getMoveableId, (frame, laser) -> frame.getLaser(laser.getId()),
+        ModelCopier::copyLaser, SampledFrame::getLaserPool,
+        Laser::getXVelocity, Laser::getYVelocity, laser -> 0
+    );
+    private static final EntityKinematics<Asteroid> ASTEROID_KINEMATICS = new EntityKinematics<>(
+        "ASTEROID", IMoveable::getMoveableId, (frame, asteroid) -> frame.getAsteroid(asteroid.getId()),
+        ModelCopier::copyAsteroid, SampledFrame::getAsteroidPool,
+        Asteroid::getXVelocity, Asteroid::getYVelocity, Asteroid::getAngularVelocity
+    );
+    private static final EntityKinematics<Snake> SNAKE_KINEMATICS = new EntityKinematics<>(
+        "SNAKE", IMoveable::getMoveableId, (frame, snake) -> frame.getSnake(snake.getId()),
+        ModelCopier::copySnake, SampledFrame::getSnakePool,
+        Snake::getXVelocity, Snake::getYVelocity, snake -> 0
+    );
+    private static final EntityKinematics<MicroBlackHole> BLACK_HOLE_KINEMATICS = new EntityKinematics<>(
+        "BLACKHOLE", IMoveable::getMoveableId, (frame, blackHole) -> frame.getBlackHole(blackHole.getId()),
+        ModelCopier::copyBlackHole, SampledFrame::getBlackHolePool,
+        blackHole -> 0, blackHole -> 0, MicroBlackHole::getAngularVelocity
+    );
+    private static final EntityKinematics<Portal> PORTAL_KINEMATICS = new EntityKinematics<>(
+        "PORTAL", IMoveable::getMoveableId, (frame, portal) -> frame.getPortal(portal.getId()),
+        ModelCopier::copyPortal, SampledFrame::getPortalPool,
+        portal -> 0, portal -> 0, Portal::getAngularVelocity
+    );
+
+    private long maxExtrapolationNanos = DEFAULT_MAX_EXTRAPOLATION_NANOS;
+    private long serverTickNanos = DEFAULT_SERVER_TICK_NANOS;
+
+    private final SnapshotHistory.SnapshotBracket bracket = new SnapshotHistory.SnapshotBracket();
+    private boolean lastSampleExtrapolated = false;
+    private final Map<EntityKey, RenderedPose> extrapolatedPoses = new HashMap<>();
+    // Corrections blended in this frame, and the previous frame's being read while they are
+    private Map<EntityKey, RenderedPose> corrections = new HashMap<>();
+    private Map<EntityKey, RenderedPose> previousCorrections = new HashMap<>();
+
+    /**
+     * Set how far past the newest snapshot entities may be dead reckoned. Zero turns extrapolation off.
+     *
+     * @param aMaxExtrapolationNanos The cap in nanoseconds
+     */
+    public void setMaxExtrapolationNanos(long aMaxExtrapolationNanos) {
+        maxExtrapolationNanos = aMaxExtrapolationNanos;
+    }
+
+    /**
+     * Set how long one server tick is, which is the time unit entity velocities are in.
+     *
+     * @param aServerTickNanos Server tick length in nanoseconds
+     */
+    public void setServerTickNanos(long aServerTickNanos) {
+        serverTickNanos = aServerTickNanos;
+    }
+
+    /**
+     * Sample a history at a point in time.
+     *
+     * @param history The history
+     * @param timeNanos The point in time, in {@link System#nanoTime()} time
+     * @param into The sampled frame to fill. It is lined up with the newer snapshot, and left as the newer snapshot's
+     *             game state itself if no interpolation, extrapolation or correction is needed
+     * @return False if the history is empty, in which case the sampled frame is left as it was
+     */
+    public boolean sample(SnapshotHistory history, long timeNanos, SampledFrame into) {
+        if (!history.bracket(timeNanos, bracket)) {
+            return false;
+        }
+
+        final long lateNanos = Math.min(bracket.nanosPastNewer(timeNanos), maxExtrapolationNanos);
+        if (lateNanos > 0) {
+            extrapolate(bracket.getNewer(), (double) lateNanos / serverTickNanos, into);
+            return true;
+        }
+
+        if (lastSampleExtrapolated) {
+            // Snapshots caught up, so remember where everything was drawn to blend from there
+            corrections.clear();
+            corrections.putAll(extrapolatedPoses);
+            extrapolatedPoses.clear();
+            lastSampleExtrapolated = false;
+        }
+
+        into.reset(bracket.getNewer());
+        final double fraction = bracket.fractionAt(timeNanos);
+        if (fraction >= 1 && corrections.isEmpty()) {
+            return true;
+        }
+
+        // Swap instead of copying, so this frame's corrections go in one map while the previous frame's are read
+        final Map<EntityKey, RenderedPose> blending = corrections;
+        corrections = previousCorrections;
+        corrections.clear();
+        previousCorrections = blending;
+
+        final ClientFrame older = bracket.getOlder();
+        final GameState sampled = into.getWritableGameState();
+        interpolate(older, sampled.getPlayers(), fraction, PLAYER_KINEMATICS, into);
+        interpolate(older, sampled.getLasers(), fraction, LASER_KINEMATICS, into);
+        interpolate(older, sampled.getAsteroids(), fraction, ASTEROID_KINEMATICS, into);
+        interpolate(older, sampled.getSnakes(), fraction, SNAKE_KINEMATICS, into);
+        interpolate(older, sampled.getBlackHoles(), fraction, BLACK_HOLE_KINEMATICS, into);
+        interpolate(older, sampled.getPortals(), fraction, PORTAL_KINEMATICS, into);
+        return true;
+    }
+
+    /**
+     * Dead reckon every entity of a snapshot forward, remembering where each was put so the difference can be blended
+     * out once real snapshots arrive.
+     *
+     * @param newest The newest snapshot
+     * @param ticks How many server ticks to advance by
+     * @param into The sampled frame to fill
+     */
+    private void extrapolate(ClientFrame newest, double ticks, SampledFrame into) {
+        extrapolatedPoses.clear();
+        lastSampleExtrapolated = true;
+
+        into.reset(newest);
+        final GameState sampled = into.getWritableGameState();
+        extrapolate(sampled.getPlayers(), ticks, PLAYER_KINEMATICS, into);
+        extrapolate(sampled.getLasers(), ticks, LASER_KINEMATICS, into);
+        extrapolate(sampled.getAsteroids(), ticks, ASTEROID_KINEMATICS, into);
+        extrapolate(sampled.getSnakes(), ticks, SNAKE_KINEMATICS, into);
+        extrapolate(sampled.getBlackHoles(), ticks, BLACK_HOLE_KINEMATICS, into);
+        extrapolate(sampled.getPortals(), ticks, PORTAL_KINEMATICS, into);
+    }
+
+    /**
+     * Dead reckon one entity list in place.
+     *
+     * @param entities Entities of the sampled game state, as they are in the newest snapshot
+     * @param ticks How many server ticks to advance by
+     * @param kinematics How to read the entity type
+     * @param into The sampled frame the entities are in
+     * @param <MOVEABLE_TYPE> Type of entity
+     */
+    private <MOVEABLE_TYPE extends IMoveable> void extrapolate(
+        List<MOVEABLE_TYPE> entities, double ticks, EntityKinematics<MOVEABLE_TYPE> kinematics, SampledFrame into
+    ) {
+        for (int index = 0; index < entities.size(); index++) {
+            final MOVEABLE_TYPE entity = entities.get(index);
+            final long xVelocity = kinematics.xVelocity.applyAsLong(entity);
+            final long yVelocity = kinematics.yVelocity.applyAsLong(entity);
+            final double angularVelocity = kinematics.angularVelocity.applyAsDouble(entity);
+            final RenderedPose correction = corrections.isEmpty() ? null : corrections.get(kinematics.keyOf(entity));
+            if (xVelocity == 0 && yVelocity == 0 && angularVelocity == 0 && correction == null) {
+                continue;
+            }
+
+            final MOVEABLE_TYPE moved = kinematics.copyInto(into, entity);
+            double x = entity.getBoxX() + xVelocity * ticks;
+            double y = entity.getBoxY() + yVelocity * ticks;
+            double angle = entity.getTilt() + angularVelocity * ticks;
+            if (correction != null) {
+                x += correction.x;
+                y += correction.y;
+                angle += correction.angle;
+            }
+            moved.setXPosition(Math.round(x));
+            moved.setYPosition(Math.round(y));
+            moved.setDirection(angle);
+            entities.set(index, moved);
+            trackDisplacement(into, entity, moved);
+
+            extrapolatedPoses.put(kinematics.keyOf(entity), new RenderedPose(x, y, angle));
+        }
+    }
+
+    /**
+     * Interpolate one entity list in place, blending in what is left of any correction from extrapolation. Entities
+     * only in the newer snapshot appear as they are; entities only in the older snapshot are gone.
+     *
+     * @param older The older snapshot
+     * @param entities Entities of the sampled game state, as they are in the newer snapshot
+     * @param fraction How far between the snapshots to sample
+     * @param kinematics How to read the entity type
+     * @param into The sampled frame the entities are in
+     * @param <MOVEABLE_TYPE> Type of entity
+     */
+    private <MOVEABLE_TYPE extends IMoveable> void interpolate(
+        ClientFrame older, List<MOVEABLE_TYPE> entities, double fraction, EntityKinematics<MOVEABLE_TYPE> kinematics, SampledFrame into
+    ) {
+        for (int index = 0; index < entities.size(); index++) {
+            final MOVEABLE_TYPE newerEntity = entities.get(index);
+            final MOVEABLE_TYPE olderEntity = fraction < 1 ? kinematics.findIn(older, newerEntity) : null;
+            final boolean interpolating = olderEntity != null && shouldInterpolate(olderEntity, newerEntity);
+            final RenderedPose previous = previousCorrections.isEmpty()
+                ? null
+                : previousCorrections.get(kinematics.keyOf(newerEntity));
+            if (!interpolating && previous == null) {
+                continue;
+            }
+
+            double x = newerEntity.getBoxX();
+            double y = newerEntity.getBoxY();
+            double angle = newerEntity.getTilt();
+            if (interpolating) {
+                x = lerp(olderEntity.getBoxX(), newerEntity.getBoxX(), fraction);
+                y = lerp(olderEntity.getBoxY(), newerEntity.getBoxY(), fraction);
+                angle = lerpAngle(olderEntity.getTilt(), newerEntity.getTilt(), fraction);
+            }
+
+            if (previous != null) {
+                final RenderedPose correction = previous.isExtrapolatedPose()
+                    ? new RenderedPose(previous.x - x, previous.y - y, shortestArc(angle, previous.angle))
+                    : previous;
+                if (Math.abs(correction.x) < SNAP_DISTANCE && Math.abs(correction.y) < SNAP_DISTANCE) {
+                    final RenderedPose decayed = correction.decay();
+                    x += decayed.x;
+                    y += decayed.y;
+                    angle += decayed.angle;
+                    if (!decayed.isNegligible()) {
+                        corrections.put(kinematics.keyOf(newerEntity), decayed);
+                    }
+                }
+            }
+
+            final MOVEABLE_TYPE entity = kinematics.copyInto(into, newerEntity);
+            entity.setXPosition(Math.round(x));
+            entity.setYPosition(Math.round(y));
+            entity.setDirection(angle);
+            entities.set(index, entity);
+            trackDisplacement(into, newerEntity, entity);
+        }
+    }
+
+    /**
+     * Widen the displacement of the sample being taken to cover an entity that was moved.
+     *
+     * @param into The sampled frame
+     * @param original The entity in the snapshot the sample lines up with
+     * @param moved The entity where it is drawn
+     */
+    private static void trackDisplacement(SampledFrame into, IMoveable original, IMoveable moved) {
+        into.widenDisplacement(Math.abs(moved.getBoxX() - original.getBoxX()) + Math.abs(moved.getBoxY() - original.getBoxY()));
+    }
+
+    /**
+     * Check whether an entity moved in a way worth interpolating.
+     *
+     * @param older The entity in the older snapshot
+     * @param newer The entity in the newer snapshot
+     * @return True if the entity moved or turned, but not so far it must have teleported
+     */
+    private static boolean shouldInterpolate(IMoveable older, IMoveable newer) {
+        final long deltaX = newer.getBoxX() - older.getBoxX();
+        final long deltaY = newer.getBoxY() - older.getBoxY();
+        if (Math.abs(deltaX) > SNAP_DISTANCE || Math.abs(deltaY) > SNAP_DISTANCE) {
+            return false;
+        }
+        return deltaX != 0 || deltaY != 0 || older.getTilt() != newer.getTilt();
+    }
+
+    /**
+     * Linearly interpolate a coordinate.
+     *
+     * @param from Starting value
+     * @param to Ending value
+     * @param fraction How far along to go
+     * @return The interpolated value
+     */
+    static double lerp(long from, long to, double fraction) {
+        return from + (to - from) * fraction;
+    }
+
+    /**
+     * Interpolate an angle in radians along the shortest arc.
+     *
+     * @param from Starting angle
+     * @param to Ending angle
+     * @param fraction How far along to go
+     * @return The interpolated angle
+     */
+    static double lerpAngle(double from, double to, double fraction) {
+        return from + shortestArc(from, to) * fraction;
+    }
+
+    /**
+     * Get the signed shortest turn from one angle to another.
+     *
+     * @param from Starting angle in radians
+     * @param to Ending angle in radians
+     * @return The turn, between minus and plus pi
+     */
+    static double shortestArc(double from, double to) {
+        double delta = (to - from) % FULL_TURN;
+        if (delta > Math.PI) {
+            delta -= FULL_TURN;
+        } else if (delta < -Math.PI) {
+            delta += FULL_TURN;
+        }
+        return delta;
+    }
+
+    /**
+     * How to identify, look up, copy and read the velocities of one entity type.
+     *
+     * @param <MOVEABLE_TYPE> Type of entity
+     */
+    private static class EntityKinematics<MOVEABLE_TYPE extends IMoveable> {
+        private final String tag;
+        private final Function<MOVEABLE_TYPE, Object> id;
+        private final BiFunction<ClientFrame, MOVEABLE_TYPE, MOVEABLE_TYPE> finder;
+        private final BinaryOperator<MOVEABLE_TYPE> copier;
+        private final Function<SampledFrame, ObjectPool<MOVEABLE_TYPE>> pool;
+        private final ToLongFunction<MOVEABLE_TYPE> xVelocity;
+        private final ToLongFunction<MOVEABLE_TYPE> yVelocity;
+        private final ToDoubleFunction<MOVEABLE_TYPE> angularVelocity;
+
+        private EntityKinematics(
+            String aTag,
+            Function<MOVEABLE_TYPE, Object> anId,
+            BiFunction<ClientFrame, MOVEABLE_TYPE, MOVEABLE_TYPE> aFinder,
+            BinaryOperator<MOVEABLE_TYPE> aCopier,
+            Function<SampledFrame, ObjectPool<MOVEABLE_TYPE>> aPool,
+            ToLongFunction<MOVEABLE_TYPE> anXVelocity,
+            ToLongFunction<MOVEABLE_TYPE> aYVelocity,
+            ToDoubleFunction<MOVEABLE_TYPE> anAngularVelocity
+        ) {
+            tag = aTag;
+            id = anId;
+            finder = aFinder;
+            copier = aCopier;
+            pool = aPool;
+            xVelocity = anXVelocity;
+            yVelocity = aYVelocity;
+            angularVelocity = anAngularVelocity;
+        }
+
+        private EntityKey keyOf(MOVEABLE_TYPE entity) {
+            return new EntityKey(tag, id.apply(entity));
+        }
+
+        private MOVEABLE_TYPE findIn(ClientFrame frame, MOVEABLE_TYPE entity) {
+            return finder.apply(frame, entity);
+        }
+
+        private MOVEABLE_TYPE copyInto(SampledFrame frame, MOVEABLE_TYPE entity) {
+            return copier.apply(entity, pool.apply(frame).take());
+        }
+    }
+
+    /**
+     * Entity identity across entity types.
+     */
+    private static class EntityKey {
+        private final String tag;
+        private final Object id;
+
+        private EntityKey(String aTag, Object anId) {
+            tag = aTag;
+            id = anId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof EntityKey)) {
+                return false;
+            }
+            final EntityKey otherKey = (EntityKey) other;
+            return tag.equals(otherKey.tag) && id.equals(otherKey.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tag.hashCode() + id.hashCode();
+        }
+    }
+
+    /**
+     * Either where an entity was extrapolated to, or the offset still to blend out of its position.
+     */
+    private static class RenderedPose {
+        private final double x;
+        private final double y;
+        private final double angle;
+        private final boolean extrapolatedPose;
+
+        private RenderedPose(double anX, double aY, double anAngle) {
+            this(anX, aY, anAngle, true);
+        }
+
+        private RenderedPose(double anX, double aY, double anAngle, boolean anExtrapolatedPose) {
+            x = anX;
+            y = aY;
+            angle = anAngle;
+            extrapolatedPose = anExtrapolatedPose;
+        }
+
+        private boolean isExtrapolatedPose() {
+            return extrapolatedPose;
+        }
+
+        private RenderedPose decay() {
+            return new RenderedPose(x * CORRECTION_DECAY, y * CORRECTION_DECAY, angle * CORRECTION_DECAY, false);
+        }
+
+        private boolean isNegligible() {
+            return Math.abs(x) < CORRECTION_EPSILON && Math.abs(y) < CORRECTION_EPSILON && Math.abs(angle) < 0.001;
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package com.andronikus.gameclient.engine.command;
 
 import com.andronikus.game.model.client.ClientCommand;
-import com.andronikus.game.model.server.GameState;
-import com.andronikus.game.model.server.debug.CommandAcknowledgement;
+import com.andronikus.gameclient.engine.ClientFrame;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Utility to manage commands for the server.
@@ -47,22 +45,17 @@ public class ClientCommandManager {
     }
 
     /**
-     * Process the current game state, mainly scanning for acks.
+     * Process the current game state, mainly looking up acks.
      *
-     * @param gameState The game state
+     * @param frame Frame of the game state
      */
-    public void processGameState(GameState gameState) {
-        if (gameState == null || !gameState.isServerDebugMode()) {
+    public void processClientFrame(ClientFrame frame) {
+        if (frame == null || !frame.getGameState().isServerDebugMode()) {
             return;
         }
 
-        final List<CommandAcknowledgement> commandAcknowledgements = gameState.getDebugSettings().getCommandAcknowledgements()
-            .stream()
-            .filter(commandAcknowledgement -> commandAcknowledgement.getSessionId().equalsIgnoreCase(clientId))
-            .collect(Collectors.toList());
-
         unackedCommands.removeIf((unackedCommand) -> {
-            if (commandAcknowledgements.stream().anyMatch(commandAcknowledgement -> commandAcknowledgement.getCommandId() == unackedCommand.getCommandNumber())) {
+            if (frame.isCommandAcknowledged(clientId, unackedCommand.getCommandNumber())) {
                 ackedCommands.add(unackedCommand);
                 return true;
             }
@@ -70,12 +63,7 @@ public class ClientCommandManager {
         });
 
         // If server is no longer acking this command, remove the deletion from the server command tray
-        ackedCommands
-            .removeIf(ackedCommand ->
-                commandAcknowledgements
-                    .stream()
-                    .noneMatch(commandAcknowledgement -> commandAcknowledgement.getCommandId() == ackedCommand.getCommandNumber())
-            );
+        ackedCommands.removeIf(ackedCommand -> !frame.isCommandAcknowledged(clientId, ackedCommand.getCommandNumber()));
     }
 
     /**
@@ -0,0 +1,108 @@
+package com.andronikus.gameclient.engine.prediction;
+
+import com.andronikus.game.model.server.IBorder;
+import com.andronikus.game.model.server.Player;
+
+/**
+ * <p>Approximation of the server's player physics. Thrust accelerates along the heading up to a top speed, boosting
+ * doubles the acceleration, rotation inputs turn the ship by a fixed step and external accelerations (black holes)
+ * are carried over from the last server state.</p>
+ *
+ * <p>The constants are not shared with the server, so the defaults only approximate it. They can be given on the
+ * command line with {@code -predictionmodel <thrust acceleration> <max speed> <rotation step>} to match the server
+ * being played on. Any mismatch shows up as a correction when the next game state is reconciled, which is why
+ * prediction is off unless turned on with {@code -prediction}.</p>
+ *
+ * @author Andronikus
+ */
+public class ApproximatePlayerMotionModel implements IPlayerMotionModel {
+
+    private static final long DEFAULT_THRUST_ACCELERATION = 1;
+    private static final long DEFAULT_MAX_SPEED = 20;
+    private static final double DEFAULT_ROTATION_STEP = Math.PI / 16;
+
+    private final long thrustAcceleration;
+    private final long maxSpeed;
+    private final double rotationStep;
+
+    /**
+     * Instantiate the model with default constants.
+     */
+    public ApproximatePlayerMotionModel() {
+        this(DEFAULT_THRUST_ACCELERATION, DEFAULT_MAX_SPEED, DEFAULT_ROTATION_STEP);
+    }
+
+    /**
+     * Instantiate the model.
+     *
+     * @param aThrustAcceleration Speed gained per tick while thrusting
+     * @param aMaxSpeed Top speed, forwards or backwards
+     * @param aRotationStep Radians turned per rotation input
+     */
+    public ApproximatePlayerMotionModel(long aThrustAcceleration, long aMaxSpeed, double aRotationStep) {
+        thrustAcceleration = aThrustAcceleration;
+        maxSpeed = aMaxSpeed;
+        rotationStep = aRotationStep;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void applyInput(Player player, String inputCode) {
+        switch (inputCode) {
+            case "THRUST":
+                player.setThrusting(true);
+                break;
+            case "THRUSTEND":
+                player.setThrusting(false);
+                break;
+            case "BOOST":
+                player.setBoosting(player.getBoostingCharge() > 0);
+                break;
+            case "BOOSTEND":
+                player.setBoosting(false);
+                break;
+            case "BREAK":
+                player.setSpeed(0);
+                break;
+            case "RTHRUST":
+                player.setSpeed(Math.max(-maxSpeed, player.getSpeed() - thrustAcceleration));
+                break;
+            case "LROTATE":
+                player.setAngle(player.getAngle() + rotationStep);
+                break;
+            case "RROTATE":
+                player.setAngle(player.getAngle() - rotationStep);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void step(Player player, IBorder border) {
+        if (player.isDead()) {
+            return;
+        }
+
+        if (player.isThrusting()) {
+            final long acceleration = player.isBoosting() ? thrustAcceleration * 2 : thrustAcceleration;
+            player.setSpeed(Math.min(maxSpeed, player.getSpeed() + acceleration));
+        }
+
+        player.setAngle(player.getAngle() + player.getRotationalVelocity());
+        player.setXVelocity(Math.round(player.getSpeed() * Math.cos(player.getAngle())) + player.getExternalXAcceleration());
+        player.setYVelocity(Math.round(player.getSpeed() * Math.sin(player.getAngle())) + player.getExternalYAcceleration());
+
+        if (border != null) {
+            border.adjustSpeedToNotCrossBorder(player);
+        }
+
+        player.setX(player.getX() + player.getXVelocity());
+        player.setY(player.getY() + player.getYVelocity());
+    }
+}
@@ -0,0 +1,28 @@
+package com.andronikus.gameclient.engine.prediction;
+
+import com.andronikus.game.model.server.IBorder;
+import com.andronikus.game.model.server.Player;
+
+/**
+ * Model of how the server moves a player, used to predict the local player ahead of the server.
+ *
+ * @author Andronikus
+ */
+public interface IPlayerMotionModel {
+
+    /**
+     * Apply the effect of an input to a player.
+     *
+     * @param player The player, modified in place
+     * @param inputCode The input code
+     */
+    void applyInput(Player player, String inputCode);
+
+    /**
+     * Advance a player by one server tick.
+     *
+     * @param player The player, modified in place
+     * @param border The border of the game, may be null
+     */
+    void step(Player player, IBorder border);
+}
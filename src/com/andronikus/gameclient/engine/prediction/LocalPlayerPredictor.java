@@ -0,0 +1,283 @@
+package com.andronikus.gameclient.engine.prediction;
+
+import com.andronikus.game.model.server.IBorder;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.gameclient.client.codec.ModelCopier;
+import com.andronikus.gameclient.engine.ClientFrame;
+import com.andronikus.gameclient.engine.SampledFrame;
+import com.andronikus.gameclient.ui.input.ServerInput;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Predicts the local player by applying the client's own inputs as they are sent, instead of waiting a round trip
+ * for the server to apply them.</p>
+ *
+ * <p>Every engine tick is recorded with the inputs sent in it. When a game state arrives, the prediction is rewound to
+ * the server's player and the ticks the server has not seen yet are replayed on top. A tick counts as seen once it is
+ * older than the round trip time, or once an input sent in or after it has been acknowledged.</p>
+ *
+ * <p>Meant to be driven from the engine thread only. The predicted player is the predictor's own and is advanced in
+ * place; sampled frames get a copy of it, so nothing the renderer reads is changed. Recorded ticks are reused once
+ * they are no longer pending, so recording a tick does not allocate.</p>
+ *
+ * @author Andronikus
+ */
+public class LocalPlayerPredictor {
+
+    private static final int MAX_PENDING_TICKS = 60;
+    private static final long DEFAULT_ROUND_TRIP_NANOS = 100_000_000L;
+    private static final double ROUND_TRIP_SMOOTHING = 0.125;
+
+    private IPlayerMotionModel motionModel;
+    private final ArrayDeque<PendingTick> pendingTicks = new ArrayDeque<>(MAX_PENDING_TICKS + 1);
+    private final ArrayDeque<PendingTick> spareTicks = new ArrayDeque<>(MAX_PENDING_TICKS + 1);
+    private final Set<Long> recordedInputIds = new HashSet<>();
+    private final Map<Long, Long> unackedInputSendNanos = new HashMap<>();
+
+    private final Player predictedPlayer = new Player();
+    private boolean predicting = false;
+    private IBorder border = null;
+    private long roundTripNanos = DEFAULT_ROUND_TRIP_NANOS;
+
+    /**
+     * Instantiate a local player predictor.
+     *
+     * @param aMotionModel Model of the server's player physics
+     */
+    public LocalPlayerPredictor(IPlayerMotionModel aMotionModel) {
+        motionModel = aMotionModel;
+    }
+
+    /**
+     * Set the model of the server's player physics. Takes effect from the next tick recorded or game state reconciled.
+     *
+     * @param aMotionModel The model
+     */
+    public void setMotionModel(IPlayerMotionModel aMotionModel) {
+        motionModel = aMotionModel;
+    }
+
+    /**
+     * Record an engine tick and advance the prediction by it.
+     *
+     * @param sentInputs Inputs sent to the server this tick. Inputs that are resent until acknowledged only count the
+     *                   first time
+     * @param nowNanos Current time, in {@link System#nanoTime()} time
+     */
+    public void recordTick(List<ServerInput> sentInputs, long nowNanos) {
+        final PendingTick tick = spareTicks.isEmpty() ? new PendingTick() : spareTicks.removeFirst();
+        tick.sentNanos = nowNanos;
+        for (int index = 0; index < sentInputs.size(); index++) {
+            final ServerInput input = sentInputs.get(index);
+            if (input.getInputId() == null || recordedInputIds.add(input.getInputId())) {
+                tick.inputs.add(input);
+                if (input.isDirectAckRequired()) {
+                    unackedInputSendNanos.put(input.getInputId(), nowNanos);
+                }
+            }
+        }
+
+        pendingTicks.addLast(tick);
+        while (pendingTicks.size() > MAX_PENDING_TICKS) {
+            forgetTick(pendingTicks.removeFirst());
+        }
+
+        if (predicting) {
+            replay(predictedPlayer, tick);
+        }
+    }
+
+    /**
+     * Rewind the prediction to a game state from the server and replay what the server has not seen yet.
+     *
+     * @param frame Frame of the game state
+     * @param sessionId Session of the local player
+     * @param nowNanos Current time, in {@link System#nanoTime()} time
+     */
+    public void reconcile(ClientFrame frame, String sessionId, long nowNanos) {
+        final Player serverPlayer = frame.getPlayer(sessionId);
+        if (serverPlayer == null || serverPlayer.isDead()) {
+            predicting = false;
+            return;
+        }
+
+        border = frame.getGameState().getBorder();
+        final Long newestAckedInputId = processAcknowledgements(frame, sessionId, nowNanos);
+        dropSeenTicks(newestAckedInputId, nowNanos);
+
+        ModelCopier.copyPlayer(serverPlayer, predictedPlayer);
+        for (PendingTick tick : pendingTicks) {
+            replay(predictedPlayer, tick);
+        }
+        predicting = true;
+    }
+
+    /**
+     * Put a copy of the predicted local player into a sampled frame, in place of the player sampled from the game
+     * state.
+     *
+     * @param frame The sampled frame
+     * @param sessionId Session of the local player
+     */
+    public void applyPrediction(SampledFrame frame, String sessionId) {
+        if (!predicting) {
+            return;
+        }
+
+        final int index = frame.getSourceFrame().getPlayerIndex(sessionId);
+        if (index == ClientFrame.NOT_FOUND) {
+            return;
+        }
+
+        final Player player = ModelCopier.copyPlayer(predictedPlayer, frame.getPlayerPool().take());
+        frame.getWritableGameState().getPlayers().set(index, player);
+        final Player serverPlayer = frame.getSourceFrame().getGameState().getPlayers().get(index);
+        frame.widenDisplacement(Math.abs(player.getBoxX() - serverPlayer.getBoxX()) + Math.abs(player.getBoxY() - serverPlayer.getBoxY()));
+    }
+
+    /**
+     * Get the estimated round trip time to the server.
+     *
+     * @return Round trip time in nanoseconds
+     */
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    /**
+     * Apply a tick's inputs to a player and advance it.
+     *
+     * @param player The player
+     * @param tick The tick
+     */
+    private void replay(Player player, PendingTick tick) {
+        for (int index = 0; index < tick.inputs.size(); index++) {
+            motionModel.applyInput(player, tick.inputs.get(index).getCode());
+        }
+        motionModel.step(player, border);
+    }
+
+    /**
+     * Look up acknowledgements of the local player's inputs in a game state, updating the round trip estimate.
+     *
+     * @param frame Frame of the game state
+     * @param sessionId Session of the local player
+     * @param nowNanos Current time
+     * @return The newest acknowledged input ID, or null if none are acknowledged
+     */
+    private Long processAcknowledgements(ClientFrame frame, String sessionId, long nowNanos) {
+        final Iterator<Map.Entry<Long, Long>> iterator = unackedInputSendNanos.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Long, Long> unackedInput = iterator.next();
+            final Long inputId = unackedInput.getKey();
+            if (frame.isInputAcknowledged(sessionId, inputId)) {
+                final long sample = nowNanos - unackedInput.getValue();
+                roundTripNanos = Math.round(roundTripNanos + (sample - roundTripNanos) * ROUND_TRIP_SMOOTHING);
+                iterator.remove();
+
+                // The input is no longer resent, so its ID is only needed while its tick is pending
+                if (!isPending(inputId)) {
+                    recordedInputIds.remove(inputId);
+                }
+            }
+        }
+        return frame.getNewestInputAcknowledgement(sessionId);
+    }
+
+    /**
+     * Drop the ticks the server has already applied.
+     *
+     * @param newestAckedInputId Newest acknowledged input, may be null
+     * @param nowNanos Current time
+     */
+    private void dropSeenTicks(Long newestAckedInputId, long nowNanos) {
+        // Input IDs only grow, so everything up to the tick holding the newest acknowledged input has been applied
+        if (newestAckedInputId != null) {
+            int ticksToDrop = 0;
+            int index = 0;
+            for (PendingTick tick : pendingTicks) {
+                index++;
+                if (tick.containsInputAtOrAfter(newestAckedInputId)) {
+                    ticksToDrop = index;
+                    break;
+                }
+            }
+            for (int drop = 0; drop < ticksToDrop; drop++) {
+                forgetTick(pendingTicks.removeFirst());
+            }
+        }
+
+        final long seenBeforeNanos = nowNanos - roundTripNanos;
+        while (!pendingTicks.isEmpty() && pendingTicks.peekFirst().sentNanos - seenBeforeNanos < 0) {
+            forgetTick(pendingTicks.removeFirst());
+        }
+    }
+
+    /**
+     * Check whether an input is in a tick that is still pending.
+     *
+     * @param inputId ID of the input
+     * @return True if a pending tick holds the input
+     */
+    private boolean isPending(long inputId) {
+        for (PendingTick tick : pendingTicks) {
+            if (tick.containsInput(inputId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forget the inputs of a tick that is no longer pending, and keep the tick to record a later one in.
+     *
+     * @param tick The tick
+     */
+    private void forgetTick(PendingTick tick) {
+        for (int index = 0; index < tick.inputs.size(); index++) {
+            final Long inputId = tick.inputs.get(index).getInputId();
+            // Keep the ID of inputs resent until acknowledged, or they would be replayed again when resent
+            if (inputId != null && !unackedInputSendNanos.containsKey(inputId)) {
+                recordedInputIds.remove(inputId);
+            }
+        }
+        tick.inputs.clear();
+        spareTicks.addLast(tick);
+    }
+
+    /**
+     * An engine tick that the server may not have seen yet.
+     */
+    private static class PendingTick {
+        private long sentNanos;
+        private final List<ServerInput> inputs = new ArrayList<>();
+
+        private boolean containsInputAtOrAfter(long inputId) {
+            for (int index = 0; index < inputs.size(); index++) {
+                final Long id = inputs.get(index).getInputId();
+                if (id != null && id >= inputId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean containsInput(long inputId) {
+            for (int index = 0; index < inputs.size(); index++) {
+                final Long id = inputs.get(index).getInputId();
+                if (id != null && id == inputId) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.andronikus.gameclient.engine.spatial;
+
+import com.andronikus.game.model.server.debug.PlayerCollisionFlag;
+import com.andronikus.util.LongObjectMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collision flags of a game state, indexed by session and then by what the player collided with, so checking an
+ * entity for a collision is a lookup instead of a scan over every flag.
+ *
+ * @author Andronikus
+ */
+public class CollisionFlagIndex {
+
+    private final Map<String, Map<String, LongObjectMap<PlayerCollisionFlag>>> flagsBySession = new HashMap<>();
+
+    /**
+     * Build an index of collision flags.
+     *
+     * @param flags The collision flags, may be null if there are none
+     */
+    public CollisionFlagIndex(List<PlayerCollisionFlag> flags) {
+        if (flags == null) {
+            return;
+        }
+
+        for (PlayerCollisionFlag flag : flags) {
+            flagsBySession
+                .computeIfAbsent(flag.getSessionId(), sessionId -> new HashMap<>())
+                .computeIfAbsent(flag.getCollisionType(), collisionType -> new LongObjectMap<>(4))
+                .put(flag.getCollisionId(), flag);
+        }
+    }
+
+    /**
+     * Check whether a player collided with anything.
+     *
+     * @param sessionId Session of the player
+     * @return True if the player has a collision flag
+     */
+    public boolean hasCollision(String sessionId) {
+        return flagsBySession.containsKey(sessionId);
+    }
+
+    /**
+     * Check whether a player collided with an entity.
+     *
+     * @param sessionId Session of the player
+     * @param collisionType Moveable tag of the entity
+     * @param collisionId ID of the entity
+     * @return True if the player has a collision flag for the entity
+     */
+    public boolean hasCollision(String sessionId, String collisionType, long collisionId) {
+        final Map<String, LongObjectMap<PlayerCollisionFlag>> flagsByType = flagsBySession.get(sessionId);
+        if (flagsByType == null) {
+            return false;
+        }
+
+        final LongObjectMap<PlayerCollisionFlag> flagsById = flagsByType.get(collisionType);
+        return flagsById != null && flagsById.get(collisionId) != null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.andronikus.gameclient.engine.spatial;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+
+/**
+ * Spatial grids of one received game state, built once with its {@link com.andronikus.gameclient.engine.ClientFrame} on
+ * the decode thread so rendering and debug views can query them without scanning entity lists. Players by session and
+ * collision flags are looked up on the frame. The game state must not change once indexed.
+ *
+ * @author Andronikus
+ */
+public class GameStateIndex {
+
+    /**
+     * Width and height of a grid cell in world units, a few times the size of the largest sprite
+     */
+    private static final int CELL_SIZE = 256;
+
+    private final SpatialGrid<Player> players;
+    private final SpatialGrid<Laser> lasers;
+    private final SpatialGrid<Asteroid> asteroids;
+    private final SpatialGrid<Snake> snakes;
+    private final SpatialGrid<MicroBlackHole> blackHoles;
+    private final SpatialGrid<Portal> portals;
+
+    /**
+     * Index a game state.
+     *
+     * @param aGameState The game state
+     */
+    public GameStateIndex(GameState aGameState) {
+        players = new SpatialGrid<>(aGameState.getPlayers(), CELL_SIZE);
+        lasers = new SpatialGrid<>(aGameState.getLasers(), CELL_SIZE);
+        asteroids = new SpatialGrid<>(aGameState.getAsteroids(), CELL_SIZE);
+        snakes = new SpatialGrid<>(aGameState.getSnakes(), CELL_SIZE);
+        blackHoles = new SpatialGrid<>(aGameState.getBlackHoles(), CELL_SIZE);
+        portals = new SpatialGrid<>(aGameState.getPortals(), CELL_SIZE);
+    }
+
+    /**
+     * Get the grid of players.
+     *
+     * @return The grid
+     */
+    public SpatialGrid<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Get the grid of lasers.
+     *
+     * @return The grid
+     */
+    public SpatialGrid<Laser> getLasers() {
+        return lasers;
+    }
+
+    /**
+     * Get the grid of asteroids.
+     *
+     * @return The grid
+     */
+    public SpatialGrid<Asteroid> getAsteroids() {
+        return asteroids;
+    }
+
+    /**
+     * Get the grid of snakes.
+     *
+     * @return The grid
+     */
+    public SpatialGrid<Snake> getSnakes() {
+        return snakes;
+    }
+
+    /**
+     * Get the grid of micro black holes.
+     *
+     * @return The grid
+     */
+    public SpatialGrid<MicroBlackHole> getBlackHoles() {
+        return blackHoles;
+    }
+
+    /**
+     * Get the grid of portals.
+     *
+     * @return The grid
+     */
+    public SpatialGrid<Portal> getPortals() {
+        return portals;
+    }
+}
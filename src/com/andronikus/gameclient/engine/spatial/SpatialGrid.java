@@ -0,0 +1,232 @@
+package com.andronikus.gameclient.engine.spatial;
+
+import com.andronikus.game.model.server.IMoveable;
+import com.andronikus.util.LongObjectMap;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * <p>Uniform grid over a list of entities, so finding the entities in an area or near a point does not scan the whole
+ * list. Each entity is put in the cell holding the centre of its hitbox, and range queries are widened by the largest
+ * hitbox so entities reaching into the range from a neighbouring cell are still found.</p>
+ *
+ * <p>Entities are referred to by their index in the list the grid was built from, so callers can walk results in list
+ * order, or look them up in another list lined up with it. Such a list may have the entities moved, like where they
+ * are drawn, as long as the caller widens its queries by how far they were moved. The grid is not changed once built
+ * and can be queried from any thread.</p>
+ *
+ * @param <ENTITY_TYPE> Type of the entities
+ * @author Andronikus
+ */
+public class SpatialGrid<ENTITY_TYPE extends IMoveable> {
+
+    private final List<ENTITY_TYPE> entities;
+    private final int cellSize;
+    private final LongObjectMap<Cell> cells;
+    private final long reach;
+    private int cellCount = 0;
+    private long minCellX = Long.MAX_VALUE;
+    private long minCellY = Long.MAX_VALUE;
+    private long maxCellX = Long.MIN_VALUE;
+    private long maxCellY = Long.MIN_VALUE;
+
+    /**
+     * Build a grid.
+     *
+     * @param anEntities The entities, which must not change while the grid is in use
+     * @param aCellSize Width and height of a cell in world units
+     */
+    public SpatialGrid(List<ENTITY_TYPE> anEntities, int aCellSize) {
+        entities = anEntities;
+        cellSize = aCellSize;
+        cells = new LongObjectMap<>(anEntities.size());
+
+        long largestReach = 0;
+        for (int index = 0; index < anEntities.size(); index++) {
+            final ENTITY_TYPE entity = anEntities.get(index);
+            final long cellX = cellFor(entity.getBoxX());
+            final long cellY = cellFor(entity.getBoxY());
+            final long key = keyFor(cellX, cellY);
+
+            Cell cell = cells.get(key);
+            if (cell == null) {
+                cell = new Cell();
+                cells.put(key, cell);
+                cellCount++;
+                minCellX = Math.min(minCellX, cellX);
+                minCellY = Math.min(minCellY, cellY);
+                maxCellX = Math.max(maxCellX, cellX);
+                maxCellY = Math.max(maxCellY, cellY);
+            }
+            cell.add(index);
+
+            largestReach = Math.max(largestReach, (long) Math.ceil(
+                Math.sqrt((double) entity.getBoxWidth() * entity.getBoxWidth() + (double) entity.getBoxHeight() * entity.getBoxHeight()) / 2
+            ));
+        }
+        reach = largestReach;
+    }
+
+    /**
+     * Get an entity.
+     *
+     * @param index Index of the entity in the list the grid was built from
+     * @return The entity
+     */
+    public ENTITY_TYPE get(int index) {
+        return entities.get(index);
+    }
+
+    /**
+     * Get how many entities the grid holds.
+     *
+     * @return Entity count
+     */
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * Find the entities whose hitbox could overlap a rectangle. May include entities that are near the rectangle but
+     * not in it.
+     *
+     * @param minX Smallest X of the rectangle
+     * @param minY Smallest Y of the rectangle
+     * @param maxX Largest X of the rectangle
+     * @param maxY Largest Y of the rectangle
+     * @param found Set to the indices of the entities found
+     */
+    public void collectInRange(long minX, long minY, long maxX, long maxY, BitSet found) {
+        found.clear();
+        if (cellCount == 0) {
+            return;
+        }
+
+        final long fromCellX = Math.max(cellFor(minX - reach), minCellX);
+        final long fromCellY = Math.max(cellFor(minY - reach), minCellY);
+        final long toCellX = Math.min(cellFor(maxX + reach), maxCellX);
+        final long toCellY = Math.min(cellFor(maxY + reach), maxCellY);
+        if (fromCellX > toCellX || fromCellY > toCellY) {
+            return;
+        }
+
+        // A range covering more cells than are occupied is cheaper to answer by checking every entity
+        if ((toCellX - fromCellX + 1) * (toCellY - fromCellY + 1) > cellCount) {
+            for (int index = 0; index < entities.size(); index++) {
+                final ENTITY_TYPE entity = entities.get(index);
+                if (entity.getBoxX() >= minX - reach && entity.getBoxX() <= maxX + reach &&
+                    entity.getBoxY() >= minY - reach && entity.getBoxY() <= maxY + reach) {
+                    found.set(index);
+                }
+            }
+            return;
+        }
+
+        for (long cellX = fromCellX; cellX <= toCellX; cellX++) {
+            for (long cellY = fromCellY; cellY <= toCellY; cellY++) {
+                final Cell cell = cells.get(keyFor(cellX, cellY));
+                if (cell != null) {
+                    for (int cellIndex = 0; cellIndex < cell.size; cellIndex++) {
+                        found.set(cell.indices[cellIndex]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the entity whose hitbox centre is nearest a point, going by where the entities are in a list lined up with
+     * the one the grid was built from.
+     *
+     * @param x X of the point
+     * @param y Y of the point
+     * @param placedEntities The entities, in the same order as the list the grid was built from
+     * @param displacement Farthest any entity was moved from where the grid has it, as the sum of the X and Y distances
+     * @param filter Which entities to consider
+     * @return The nearest entity of the placed entities, or null if no entity passes the filter
+     */
+    public ENTITY_TYPE nearest(long x, long y, List<ENTITY_TYPE> placedEntities, long displacement, Predicate<ENTITY_TYPE> filter) {
+        if (cellCount == 0) {
+            return null;
+        }
+
+        final long centerCellX = cellFor(x);
+        final long centerCellY = cellFor(y);
+        final long maxRing = Math.max(
+            Math.max(Math.abs(centerCellX - minCellX), Math.abs(maxCellX - centerCellX)),
+            Math.max(Math.abs(centerCellY - minCellY), Math.abs(maxCellY - centerCellY))
+        );
+
+        ENTITY_TYPE nearestEntity = null;
+        double nearestDistanceSquared = Double.MAX_VALUE;
+        for (long ring = 0; ring <= maxRing; ring++) {
+            // Everything in this ring and further out is at least this far from the point
+            final double ringDistance = (double) (ring - 1) * cellSize - displacement;
+            if (nearestEntity != null && ringDistance > 0 && ringDistance * ringDistance > nearestDistanceSquared) {
+                break;
+            }
+
+            for (long cellX = centerCellX - ring; cellX <= centerCellX + ring; cellX++) {
+                final boolean onVerticalEdge = cellX == centerCellX - ring || cellX == centerCellX + ring;
+                final long cellYStep = onVerticalEdge || ring == 0 ? 1 : ring * 2;
+                for (long cellY = centerCellY - ring; cellY <= centerCellY + ring; cellY += cellYStep) {
+                    final Cell cell = cells.get(keyFor(cellX, cellY));
+                    if (cell == null) {
+                        continue;
+                    }
+                    for (int cellIndex = 0; cellIndex < cell.size; cellIndex++) {
+                        final ENTITY_TYPE entity = placedEntities.get(cell.indices[cellIndex]);
+                        final double xDiff = entity.getBoxX() - x;
+                        final double yDiff = entity.getBoxY() - y;
+                        final double distanceSquared = xDiff * xDiff + yDiff * yDiff;
+                        if (distanceSquared < nearestDistanceSquared && filter.test(entity)) {
+                            nearestEntity = entity;
+                            nearestDistanceSquared = distanceSquared;
+                        }
+                    }
+                }
+            }
+        }
+        return nearestEntity;
+    }
+
+    /**
+     * Get the cell coordinate holding a world coordinate.
+     *
+     * @param coordinate The world coordinate
+     * @return The cell coordinate
+     */
+    private long cellFor(long coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    /**
+     * Get the key of a cell.
+     *
+     * @param cellX X of the cell
+     * @param cellY Y of the cell
+     * @return The key
+     */
+    private static long keyFor(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Indices of the entities in a cell, in ascending order.
+     */
+    private static class Cell {
+        private int[] indices = new int[4];
+        private int size = 0;
+
+        private void add(int index) {
+            if (size == indices.length) {
+                final int[] newIndices = new int[size * 2];
+                System.arraycopy(indices, 0, newIndices, 0, size);
+                indices = newIndices;
+            }
+            indices[size++] = index;
+        }
+    }
+}
@@ -1,21 +1,39 @@
 package com.andronikus.gameclient.ui;
 
+import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.game.model.server.Asteroid;
 import com.andronikus.game.model.server.BoundingBoxBorder;
 import com.andronikus.game.model.server.GameState;
-import com.andronikus.game.model.server.Laser;
-import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.IMoveable;
 import com.andronikus.game.model.server.Player;
-import com.andronikus.game.model.server.Portal;
-import com.andronikus.game.model.server.Snake;
+import com.andronikus.gameclient.client.codec.ModelCopier;
+import com.andronikus.gameclient.engine.ClientFrame;
 import com.andronikus.gameclient.engine.IClientInputManager;
 import com.andronikus.gameclient.engine.IGameStateRenderer;
 import com.andronikus.gameclient.engine.IRendererPresetup;
+import com.andronikus.gameclient.engine.SampledFrame;
+import com.andronikus.gameclient.engine.spatial.CollisionFlagIndex;
+import com.andronikus.gameclient.engine.spatial.GameStateIndex;
 import com.andronikus.gameclient.ui.input.ClientInput;
 import com.andronikus.gameclient.ui.input.ConcurrentServerInputManager;
 import com.andronikus.gameclient.ui.input.IUserInput;
 import com.andronikus.gameclient.ui.input.ServerInput;
 import com.andronikus.gameclient.ui.keyboard.KeyBoardListener;
+import com.andronikus.gameclient.ui.render.AnimationClock;
+import com.andronikus.gameclient.ui.render.AnimationControllerRegistry;
+import com.andronikus.gameclient.ui.render.BakedAnimation;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.ClockedAnimation;
+import com.andronikus.gameclient.ui.render.EntityRenderDescriptor;
+import com.andronikus.gameclient.ui.render.EntityRenderPipeline;
+import com.andronikus.gameclient.ui.render.FrameBuildWorker;
+import com.andronikus.gameclient.ui.render.RenderBucket;
+import com.andronikus.gameclient.ui.render.RenderCommandList;
+import com.andronikus.gameclient.ui.render.RenderLayer;
+import com.andronikus.gameclient.ui.render.RotatedSpriteCache;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
+import com.andronikus.gameclient.ui.render.TextBuffer;
+import com.andronikus.gameclient.ui.render.ViewportCuller;
 import com.andronikus.gameclient.ui.render.asteroid.LargeAsteroidStopMotionController;
 import com.andronikus.gameclient.ui.render.asteroid.SmallAsteroidStopMotionController;
 import com.andronikus.gameclient.ui.render.background.BackgroundRenderer;
@@ -26,20 +44,28 @@ import com.andronikus.gameclient.ui.render.laser.LaserAnimationController;
 import com.andronikus.gameclient.ui.render.player.PlayerStopMotionController;
 import com.andronikus.gameclient.ui.render.portal.PortalStopMotionController;
 import com.andronikus.gameclient.ui.render.snake.SnakeStopMotionController;
+import com.andronikus.util.TripleBuffer;
 import lombok.Getter;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import java.awt.Canvas;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
 import java.awt.Font;
+import java.awt.Toolkit;
 import java.awt.geom.AffineTransform;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * The graphical user interface for a game. Responsible for rendering states of the game as well as collecting user
@@ -55,12 +81,15 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
     @Getter
     private volatile int height;
     private final RenderRatio candidateRenderRatio;
+    // Ratio of the frame being drawn, and of the frame being prepared
     @Getter
     private volatile RenderRatio renderRatio;
+    private RenderRatio frameRenderRatio;
 
     private volatile String sessionId;
     private final JFrame frame;
     private volatile GameState latestGameState = null;
+    private volatile TripleBuffer<SampledFrame> framesToRender = null;
     private final ConcurrentServerInputManager serverInputManager;
 
     private final BackgroundRenderer backgroundRenderer;
@@ -84,17 +113,62 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
 
     private static final Color COLLISION_MARKER_COLOR = new Color(239, 58, 58, 136);
 
-    private PlayerStopMotionController mainPlayerStopMotionController = null;
-    private final List<PlayerStopMotionController> playerStopMotionControllers = new ArrayList<>();
-    private final List<LaserAnimationController> laserAnimationControllers = new ArrayList<>();
-    private final List<SmallAsteroidStopMotionController> smallAsteroidStopMotionControllers = new ArrayList<>();
-    private final List<LargeAsteroidStopMotionController> largeAsteroidStopMotionControllers = new ArrayList<>();
-    private final List<SnakeStopMotionController> snakeStopMotionControllers = new ArrayList<>();
-    private final List<PortalStopMotionController> portalStopMotionControllers = new ArrayList<>();
-    private final List<MicroBlackHoleStopMotionController> blackHoleStopMotionControllers = new ArrayList<>();
+    // Server ID passed for things drawn that are not server entities, like players and trackers
+    private static final long NO_SERVER_ID = -1;
+
+    // Nearest distance or ID when there is nothing near
+    private static final long NOT_FOUND = -1;
+
+    // How long an animation controller is kept after its entity stops showing up in game states
+    private static final long CONTROLLER_GRACE_PERIOD_NANOS = 2_000_000_000L;
+
+    // Angles rotated sprites and trackers are pre-rotated at, unless set otherwise
+    private static final int DEFAULT_ROTATION_BUCKETS = 64;
+
+    // Most pixels of pre-rotated sprites to hold, about 64MB
+    private static final long ROTATED_SPRITE_PIXEL_BUDGET = 16_000_000L;
+
+    // Most pixels of pre-rotated trackers to hold, enough for every color at every angle
+    private static final long ROTATED_TRACKER_PIXEL_BUDGET = 1_000_000L;
+    private static final int TRACKER_SIZE = 32;
+
+    // Sprites face up, entities at angle 0 face right, so most sprites are turned a quarter more to fit
+    private static final double SPRITE_FIT_OFFSET = Math.PI / 2;
+    private static final RenderLayer[] RENDER_LAYERS = RenderLayer.values();
+
+    private final AnimationClock animationClock = new AnimationClock();
+    private ClockedAnimation<GameState, Player> mainPlayerAnimation = null;
+    private final AnimationControllerRegistry<Player, ClockedAnimation<GameState, Player>> playerStopMotionControllers =
+        new AnimationControllerRegistry<>(
+            player -> createAnimation(player, PlayerStopMotionController::getBakedGraph, PlayerStopMotionController::new), CONTROLLER_GRACE_PERIOD_NANOS
+        );
+    private final EntityRenderPipeline renderPipeline = new EntityRenderPipeline();
+
+    private volatile RotatedSpriteCache rotatedSpriteCache = null;
+    private volatile RotatedSpriteCache rotatedTrackerCache = null;
+    private volatile boolean bakedAnimations = false;
+    private final ViewportCuller viewportCuller = new ViewportCuller();
+    private CollisionFlagIndex frameCollisionFlags = null;
+
+    // Scratch objects reused by every frame, owned by the thread that prepares frames or the thread that draws them
+    private final AffineTransform spriteTransform = new AffineTransform();
+    private final TextBuffer text = new TextBuffer();
+    private Player framePlayer = null;
+    private final Predicate<Player> isNotFramePlayer = otherPlayer -> otherPlayer != framePlayer;
+    private volatile boolean renderRatioChanged = false;
+
+    // Frames are prepared on a worker and drawn on the event dispatch thread when Swing paints a window, otherwise
+    // the thread that draws a frame prepares it first
+    private final TripleBuffer<PreparedFrame> frameBuffer;
+    private final PreparedFrame inlineFrame;
+    private volatile FrameBuildWorker frameBuildWorker = null;
+
+    private final Canvas canvas;
+    private final boolean fullScreen;
+    private volatile BufferStrategy bufferStrategy = null;
 
     private final HudRenderer hudRenderer = new HudRenderer();
-    private final TrackerSpriteSheet trackerSpriteSheet = new TrackerSpriteSheet();
+    private final TrackerSpriteSheet trackerSpriteSheet = SpriteSheetCache.get(TrackerSpriteSheet.class);
 
     @Getter
     private volatile boolean commandMode;
@@ -102,65 +176,254 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
     private volatile boolean commandLocked = false;
     private int commandCarrotTickCount = 0;
     private boolean commandCarrotToggle = false;
-    private boolean advancedHudEnabled = false;
-    private boolean collisionWatch = false;
+    private volatile boolean advancedHudEnabled = false;
+    private volatile boolean collisionWatch = false;
 
     /**
-     * Instantiate the graphical user interface for a game.
+     * Instantiate the graphical user interface for a game, painted through Swing's repaint.
      */
     public GameWindow() {
-        frame = new JFrame("Maybe Game Client"); // TODO cleverly title
+        this(false, false);
+    }
+
+    /**
+     * Instantiate the graphical user interface for a game.
+     *
+     * @param activeRendering Whether or not frames are drawn straight to a canvas through a buffer strategy when the
+     *                        engine renders, instead of asking Swing to repaint
+     * @param aFullScreen Whether or not to take the screen in full screen exclusive mode where supported. Only applies
+     *                    to active rendering
+     */
+    public GameWindow(boolean activeRendering, boolean aFullScreen) {
+        // Without a screen there is no window, but frames can still be painted onto images, as the test drivers do
+        frame = GraphicsEnvironment.isHeadless() ? null : new JFrame("Maybe Game Client"); // TODO cleverly title
+        fullScreen = activeRendering && aFullScreen;
+
+        // Active rendering draws on a canvas of its own, the panel is then only the keeper of render state
+        final Component surface;
+        if (activeRendering) {
+            canvas = new Canvas();
+            canvas.setIgnoreRepaint(true);
+            surface = canvas;
+        } else {
+            canvas = null;
+            surface = this;
+        }
 
         final MouseListenerImpl mouseListener = new MouseListenerImpl(this);
-        this.addMouseListener(mouseListener);
-        this.addMouseMotionListener(mouseListener);
+        surface.addMouseListener(mouseListener);
+        surface.addMouseMotionListener(mouseListener);
 
         KeyBoardListener keyBoardListener = new KeyBoardListener(this);
-        this.addKeyListener(keyBoardListener);
+        surface.addKeyListener(keyBoardListener);
         renderRatio = new RenderRatio(550, 330);
+        frameRenderRatio = renderRatio;
         candidateRenderRatio = renderRatio.copy();
-        frame.addKeyListener(keyBoardListener);
-        this.addComponentListener(new ResizeListener(this));
-
-        frame.add(this);
-        frame.setIconImage(ImagesUtil.getImage("icon.png"));
-        frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frameBuffer = frame != null && !activeRendering ? new TripleBuffer<>(PreparedFrame::new) : null;
+        inlineFrame = frameBuffer == null ? new PreparedFrame() : null;
+        setRotationBuckets(DEFAULT_ROTATION_BUCKETS);
+        surface.addComponentListener(new ResizeListener(this));
+
+        if (frame != null) {
+            frame.setIgnoreRepaint(activeRendering);
+            frame.addKeyListener(keyBoardListener);
+            frame.add(surface);
+            if (fullScreen) {
+                frame.setUndecorated(true);
+            }
+            frame.setIconImage(ImagesUtil.getImage("icon.png"));
+            frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        }
 
+        SpriteSheetCache.preload();
         backgroundRenderer = new BackgroundRenderer("background.png");
+        registerEntityRenderers();
         serverInputManager = new ConcurrentServerInputManager();
     }
 
     /**
-     * Graphical hook.
+     * Register how each type of entity is drawn. Players are drawn by the window itself.
+     */
+    private void registerEntityRenderers() {
+        renderPipeline.addSource(
+            GameStateIndex::getLasers,
+            GameState::getLasers,
+            new EntityRenderDescriptor<>(
+                laser -> laser.getXVelocity() != 0 || laser.getYVelocity() != 0 ? RenderLayer.MOVING_LASERS : RenderLayer.STOPPED_LASERS,
+                LASER_WIDTH, LASER_HEIGHT, SPRITE_FIT_OFFSET,
+                laser -> createAnimation(laser, LaserAnimationController::getBakedGraph, LaserAnimationController::new),
+                CONTROLLER_GRACE_PERIOD_NANOS
+            )
+        );
+        renderPipeline.addSource(
+            GameStateIndex::getBlackHoles,
+            GameState::getBlackHoles,
+            new EntityRenderDescriptor<>(
+                blackHole -> RenderLayer.BLACK_HOLES, PORTAL_SIZE, PORTAL_SIZE, SPRITE_FIT_OFFSET,
+                blackHole -> createAnimation(blackHole, MicroBlackHoleStopMotionController::getBakedGraph, MicroBlackHoleStopMotionController::new),
+                CONTROLLER_GRACE_PERIOD_NANOS
+            )
+        );
+        renderPipeline.addSource(
+            GameStateIndex::getPortals,
+            GameState::getPortals,
+            new EntityRenderDescriptor<>(
+                portal -> RenderLayer.PORTALS, PORTAL_SIZE, PORTAL_SIZE, SPRITE_FIT_OFFSET,
+                portal -> createAnimation(portal, PortalStopMotionController::getBakedGraph, PortalStopMotionController::new),
+                CONTROLLER_GRACE_PERIOD_NANOS
+            )
+        );
+        renderPipeline.addSource(
+            GameStateIndex::getSnakes,
+            GameState::getSnakes,
+            new EntityRenderDescriptor<>(
+                snake -> RenderLayer.SNAKES, SNAKE_WIDTH, SNAKE_HEIGHT, SPRITE_FIT_OFFSET,
+                snake -> createAnimation(snake, SnakeStopMotionController::getBakedGraph, SnakeStopMotionController::new),
+                CONTROLLER_GRACE_PERIOD_NANOS
+            )
+        );
+
+        // Large asteroid sprites already lie the way the asteroid faces
+        renderPipeline.addSource(
+            GameStateIndex::getAsteroids,
+            GameState::getAsteroids,
+            new EntityRenderDescriptor<>(
+                asteroid -> asteroid.getSize() == 0 ? RenderLayer.ASTEROIDS : null,
+                SMALL_ASTEROID_SIZE, SMALL_ASTEROID_SIZE, SPRITE_FIT_OFFSET,
+                asteroid -> createAnimation(asteroid, SmallAsteroidStopMotionController::getBakedGraph, SmallAsteroidStopMotionController::new),
+                CONTROLLER_GRACE_PERIOD_NANOS
+            ),
+            new EntityRenderDescriptor<>(
+                asteroid -> RenderLayer.ASTEROIDS, LARGE_ASTEROID_WIDTH, LARGE_ASTEROID_HEIGHT, 0,
+                asteroid -> createAnimation(asteroid, LargeAsteroidStopMotionController::getBakedGraph, LargeAsteroidStopMotionController::new),
+                CONTROLLER_GRACE_PERIOD_NANOS
+            )
+        );
+    }
+
+    /**
+     * Graphical hook. Draws the newest frame the frame build worker prepared or, where there is no worker, prepares a
+     * frame then draws it.
      *
      * @param graphics The graphics to draw on.
      */
     public void paintComponent(Graphics graphics) {
-        // TODO generify iterative animations
-        renderRatio = candidateRenderRatio.copy();
+        if (frameBuffer == null) {
+            prepareFrame(inlineFrame);
+            drawFrame(graphics, inlineFrame);
+        } else {
+            drawFrame(graphics, frameBuffer.getReadable());
+        }
+    }
+
+    /**
+     * Prepare a frame on the frame build worker, hand it to the event dispatch thread and ask for it to be drawn.
+     */
+    private void buildFrame() {
+        prepareFrame(frameBuffer.getWritable());
+        frameBuffer.publish();
+        repaint();
+    }
+
+    /**
+     * Prepare a frame from the latest game state, working out every sprite and where it goes. Runs on the frame build
+     * worker, or on the thread that draws where there is no worker.
+     *
+     * @param preparedFrame The frame to prepare into
+     */
+    private void prepareFrame(PreparedFrame preparedFrame) {
+        final RenderCommandList commands = preparedFrame.getCommands();
+        commands.clear();
+        preparedFrame.setReady(false);
+
+        // The window may be resized while the frame is prepared, so the frame is laid out for the size it started at
+        preparedFrame.setWidth(width);
+        preparedFrame.setHeight(height);
+
+        if (renderRatioChanged) {
+            synchronized (candidateRenderRatio) {
+                renderRatioChanged = false;
+                frameRenderRatio = candidateRenderRatio.copy();
+            }
+        }
 
         // Check if the game state is loaded in (that is, has the server acked us, if not, blue screen)
-        final GameState state = latestGameState;
-        if (state == null) {
-            graphics.setColor(Color.BLUE);
-            graphics.fillRect(0, 0, width, height);
+        final TripleBuffer<SampledFrame> frames = framesToRender;
+        if (frames == null) {
+            return;
+        }
+        final SampledFrame sampledFrame = frames.getReadable();
+        final ClientFrame sourceFrame = sampledFrame.getSourceFrame();
+        if (sourceFrame == null) {
             return;
         }
+        latestGameState = sourceFrame.getGameState();
+        final GameState state = sampledFrame.getGameState();
+        frameCollisionFlags = sourceFrame.getCollisionFlags();
 
         // Precompute some variables like current player to reduce operation time for complex operations
-        final Optional<Player> currentPlayerOpt = state.getPlayers().stream().filter(player1 -> player1.getSessionId().equals(sessionId)).findFirst();
-        if (currentPlayerOpt.isEmpty()) {
+        final Player player = sampledFrame.getPlayer(sessionId);
+        if (player == null) {
+            return;
+        }
+        framePlayer = player;
+
+        final long frameNanos = System.nanoTime();
+        animationClock.advance(frameNanos);
+        playerStopMotionControllers.beginFrame(frameNanos);
+        renderPipeline.beginFrame(frameNanos);
+
+        // The sampled frame is refilled once the next one is taken, which may be before this frame is drawn, so the
+        // frame only keeps the received game state and its own copy of the player
+        preparedFrame.setGameState(sourceFrame.getGameState());
+        ModelCopier.copyPlayer(player, preparedFrame.getPlayer());
+        preparedFrame.setRenderRatio(frameRenderRatio);
+        preparedFrame.setAdvancedHudEnabled(advancedHudEnabled);
+        preparedFrame.setCollisionWatch(collisionWatch);
+
+        final long playerX = player.getX();
+        final long playerY = player.getY();
+        viewportCuller.setViewport(playerX, playerY, preparedFrame.getWidth(), preparedFrame.getHeight(), frameRenderRatio);
+
+        // Sort the entities on screen into layers, then add the layers bottom up
+        renderPipeline.collect(sampledFrame, viewportCuller);
+        for (int layerIndex = 0; layerIndex < RENDER_LAYERS.length; layerIndex++) {
+            final RenderLayer layer = RENDER_LAYERS[layerIndex];
+            if (layer == RenderLayer.PLAYERS) {
+                preparePlayers(preparedFrame, sampledFrame, player);
+            } else {
+                prepareBucket(preparedFrame, layer, renderPipeline.getBucket(layer), playerX, playerY);
+            }
+        }
+
+        playerStopMotionControllers.evictUnseen();
+        renderPipeline.evictUnseen();
+        preparedFrame.setReady(true);
+    }
+
+    /**
+     * Draw a prepared frame. Only blits what the frame says to, besides the background and the HUD.
+     *
+     * @param graphics The graphics to draw on.
+     * @param preparedFrame The frame
+     */
+    private void drawFrame(Graphics graphics, PreparedFrame preparedFrame) {
+        if (!preparedFrame.isReady()) {
             graphics.setColor(Color.BLUE);
-            graphics.fillRect(0, 0, width, height);
+            graphics.fillRect(0, 0, preparedFrame.getWidth(), preparedFrame.getHeight());
             return;
         }
+        final GameState state = preparedFrame.getGameState();
+        final Player player = preparedFrame.getPlayer();
+        final int frameWidth = preparedFrame.getWidth();
+        final int frameHeight = preparedFrame.getHeight();
+        renderRatio = preparedFrame.getRenderRatio();
 
         // Put an obnoxious color in the background so its obvious if render has gone wrong or missed a spot
         graphics.setColor(Color.MAGENTA);
-        graphics.fillRect(0, 0, width, height);
+        graphics.fillRect(0, 0, frameWidth, frameHeight);
 
-        final Player player = currentPlayerOpt.get();
         final long playerX = player.getX();
         final long playerY = player.getY();
         final long maxPlayerX = ((BoundingBoxBorder) state.getBorder()).getMaxX();
@@ -169,212 +432,179 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
         // Draw the background
         backgroundRenderer.render(graphics, player, (BoundingBoxBorder) state.getBorder(), this);
 
-        // Render lasers that hit something
-        state.getLasers().forEach(laser -> {
-            if (laser.getXVelocity() != 0 || laser.getYVelocity() != 0) {
-                final BufferedImage sprite = getOrCreateAnimationControllerForLaser(laser).nextSprite(state, laser);
+        final RenderCommandList commands = preparedFrame.getCommands();
+        for (int index = 0; index < commands.size(); index++) {
+            switch (commands.getKind(index)) {
+                case RenderCommandList.SPRITE:
+                    drawSprite(graphics, commands, index);
+                    break;
+                case RenderCommandList.ENTITY_OVERLAY:
+                    drawEntityOverlay(graphics, preparedFrame, commands, index);
+                    break;
+                case RenderCommandList.PLAYER_OVERLAY:
+                    drawPlayerOverlay(graphics, preparedFrame, commands, index);
+                    break;
+            }
+        }
 
-                renderObjectRelativeToMainPlayer(
-                    graphics, sprite, laser.getX(), laser.getY(),
-                    LASER_WIDTH, LASER_HEIGHT, laser.getAngle(), playerX, playerY, laser.getId(), laser.moveableTag()
-                );
+        graphics.setColor(Color.GREEN);
+        graphics.drawRect(
+            (int) ((renderRatio.getWidthScale() * (double) playerX * -1) + ((double) frameWidth / 2)),
+            (int) ((renderRatio.getHeightScale() * (double) (playerY - maxPlayerY)) + ((double) frameHeight / 2)),
+            (int) (renderRatio.getWidthScale() * (double) maxPlayerX),
+            (int) (renderRatio.getHeightScale() * (double) maxPlayerY)
+        );
+
+        hudRenderer.drawHud(
+            graphics, player.getHealth(), player.getShieldCount(), player.getShieldRecharge(),
+            player.getBoostingCharge(), player.getBoostingRecharge(), player.getLaserCharges(), this
+        );
+
+        if (commandMode) {
+            commandCarrotTickCount = (commandCarrotTickCount + 1) % 13;
+            if (commandCarrotTickCount == 0) {
+                commandCarrotToggle = !commandCarrotToggle;
             }
-        });
+            String carrot = commandCarrotToggle ? "|" : "";
+            graphics.setColor(COMMAND_TEXT_COLOR);
+            graphics.setFont(COMMAND_TEXT_FONT);
+            graphics.drawString("ENTER COMMAND:", 60, 15);
+            text.clear().append(commandBuffer).append(carrot).draw(graphics, 60, 33);
+        }
 
-        state.getBlackHoles().forEach(blackHole -> {
-            final BufferedImage sprite = getOrCreateAnimationControllerForBlackHole(blackHole).nextSprite(state, blackHole);
+        if (!state.isSpawningEnabled() ||
+            !state.isMovementEnabled() ||
+            !state.isCollisionsEnabled() ||
+            !state.isTickEnabled()) {
+            graphics.setFont(GAME_SETTING_TEXT_FONT);
 
-            renderObjectRelativeToMainPlayer(
-                graphics, sprite, blackHole.getX(), blackHole.getY(),
-                PORTAL_SIZE, PORTAL_SIZE, blackHole.getAngle(), playerX, playerY, blackHole.getId(), blackHole.moveableTag()
-            );
-        });
+            graphics.setColor(state.isTickEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
+            graphics.drawString(state.isTickEnabled() ? "Tick Enabled: true" : "Tick Enabled: false", 14, frameHeight - 40);
 
-        state.getPortals().forEach(portal -> {
-            final BufferedImage sprite = getOrCreateAnimationControllerForPortal(portal).nextSprite(state, portal);
+            graphics.setColor(state.isMovementEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
+            graphics.drawString(state.isMovementEnabled() ? "Movement Enabled: true" : "Movement Enabled: false", 14, frameHeight - 30);
 
-            renderObjectRelativeToMainPlayer(
-                graphics, sprite, portal.getX(), portal.getY(),
-                PORTAL_SIZE, PORTAL_SIZE, portal.getAngle(), playerX, playerY, portal.getId(), portal.moveableTag()
-            );
-        });
+            graphics.setColor(state.isCollisionsEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
+            graphics.drawString(state.isCollisionsEnabled() ? "Collision Enabled: true" : "Collision Enabled: false", 14, frameHeight - 20);
+
+            graphics.setColor(state.isSpawningEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
+            graphics.drawString(state.isSpawningEnabled() ? "Spawning Enabled: true" : "Spawning Enabled: false", 14, frameHeight - 10);
+        }
+    }
 
-        // Render players
-        state.getPlayers().forEach(playerToRender -> {
+    /**
+     * Prepare every player. Players are not culled, since players off screen still get a tracker on its edge.
+     *
+     * @param preparedFrame The frame being prepared
+     * @param sampledFrame The sampled frame
+     * @param player The main player
+     */
+    private void preparePlayers(PreparedFrame preparedFrame, SampledFrame sampledFrame, Player player) {
+        final GameState state = sampledFrame.getGameState();
+        final GameStateIndex stateIndex = sampledFrame.getSourceFrame().getStateIndex();
+        final RenderCommandList commands = preparedFrame.getCommands();
+        final int centerX = preparedFrame.getWidth() / 2;
+        final int centerY = preparedFrame.getHeight() / 2;
+        final long playerX = player.getX();
+        final long playerY = player.getY();
+        final List<Player> players = state.getPlayers();
+        for (int playerIndex = 0; playerIndex < players.size(); playerIndex++) {
+            final Player playerToRender = players.get(playerIndex);
             if (playerToRender == player) {
-                if (mainPlayerStopMotionController == null) {
-                    mainPlayerStopMotionController = new PlayerStopMotionController(playerToRender);
+                if (mainPlayerAnimation == null) {
+                    mainPlayerAnimation = createAnimation(playerToRender, PlayerStopMotionController::getBakedGraph, PlayerStopMotionController::new);
                 }
 
-                final BufferedImage sprite = mainPlayerStopMotionController.nextSprite(state, playerToRender);
-
-                final AffineTransform transform = new AffineTransform();
-                transform.translate(width / 2, height / 2);
-                transform.rotate((playerToRender.getAngle() * -1) + Math.PI / 2);
-                transform.translate(-(renderRatio.getWidthScale() * (double) PLAYER_SIZE) / 2, -(renderRatio.getHeightScale() * (double) PLAYER_SIZE / 2));
-                transform.scale(renderRatio.getWidthScale(), renderRatio.getHeightScale());
-
-                ((Graphics2D)graphics).drawImage(sprite, transform, this);
+                final BufferedImage sprite = mainPlayerAnimation.sprite(state, playerToRender);
+                prepareSprite(
+                    commands, RenderLayer.PLAYERS, sprite, centerX, centerY, PLAYER_SIZE, PLAYER_SIZE,
+                    (playerToRender.getAngle() * -1) + Math.PI / 2
+                );
 
-                if (advancedHudEnabled) {
-                    int hudY = height / 2 - player.getBoxHeight() / 2;
-                    graphics.setColor(ADVANCED_HUD_TEXT_COLOR);
-                    graphics.setFont(ADVANCED_HUD_TEXT_FONT);
-                    graphics.drawString("(" + player.getX() + ", " + player.getY() + ")", width / 2, hudY);
-                    hudY += 30;
-                    String displayAngle = String.format("%.2f", Math.toDegrees(player.getAngle() % (Math.PI * 2)));
-                    graphics.drawString("Angle: " + displayAngle, width / 2, hudY);
+                if (preparedFrame.isAdvancedHudEnabled()) {
+                    final Player nearestPlayer = stateIndex.getPlayers().nearest(
+                        playerX, playerY, players, sampledFrame.getDisplacement(), isNotFramePlayer
+                    );
+                    preparedFrame.setNearestPlayerDistance(
+                        nearestPlayer == null ? NOT_FOUND : (long) Math.hypot(nearestPlayer.getX() - playerX, nearestPlayer.getY() - playerY)
+                    );
+                    final Asteroid nearestAsteroid = stateIndex.getAsteroids().nearest(
+                        playerX, playerY, state.getAsteroids(), sampledFrame.getDisplacement(), asteroid -> true
+                    );
+                    preparedFrame.setNearestAsteroidId(nearestAsteroid == null ? NOT_FOUND : nearestAsteroid.getId());
                 }
-                if (collisionWatch) {
-                    graphics.setColor(Color.CYAN);
-                    final int playerBoxWidth = (int) (renderRatio.getWidthScale() * (double) player.getBoxWidth());
-                    final int playerBoxHeight = (int) (renderRatio.getHeightScale() * (double) player.getBoxHeight());
-                    final int collisionWatchX = width / 2 - playerBoxWidth / 2;
-                    final int collisionWatchY = height / 2 - playerBoxHeight / 2;
-                    graphics.drawRect(
-                        collisionWatchX,
-                        collisionWatchY,
-                        playerBoxWidth,
-                        playerBoxHeight
+                if (preparedFrame.isAdvancedHudEnabled() || preparedFrame.isCollisionWatch()) {
+                    commands.addPlayerOverlay(
+                        centerX, centerY,
+                        (int) (frameRenderRatio.getWidthScale() * (double) player.getBoxWidth()),
+                        (int) (frameRenderRatio.getHeightScale() * (double) player.getBoxHeight()),
+                        preparedFrame.isCollisionWatch() && sampledFrame.getSourceFrame().getCollisionFlags().hasCollision(sessionId)
                     );
-
-                    final boolean collisionFlag = state
-                        .getDebugSettings()
-                        .getPlayerCollisionFlags()
-                        .stream()
-                        .anyMatch(flag -> flag.getSessionId().equalsIgnoreCase(sessionId));
-                    if (collisionFlag) {
-                        graphics.setColor(COLLISION_MARKER_COLOR);
-                        graphics.fillRect(
-                            collisionWatchX,
-                            collisionWatchY,
-                            playerBoxWidth,
-                            playerBoxHeight
-                        );
-                    }
                 }
             } else {
-                final BufferedImage sprite = getOrCreateAnimationControllerForPlayer(playerToRender).nextSprite(state, playerToRender);
-
-                renderObjectRelativeToMainPlayer(
-                    graphics, sprite, playerToRender.getX(), playerToRender.getY(),
-                    PLAYER_SIZE, PLAYER_SIZE, playerToRender.getAngle(), playerX, playerY, null, null
-                );
+                final BufferedImage sprite = getOrCreateAnimationControllerForPlayer(playerToRender).sprite(state, playerToRender);
+                if (viewportCuller.isVisible(playerToRender, PLAYER_SIZE, PLAYER_SIZE)) {
+                    prepareObjectRelativeToMainPlayer(
+                        preparedFrame, RenderLayer.PLAYERS, sprite, playerToRender.getX(), playerToRender.getY(),
+                        PLAYER_SIZE, PLAYER_SIZE, playerToRender.getAngle(), playerX, playerY, NO_SERVER_ID, null
+                    );
+                }
 
                 final BufferedImage tracker = trackerSpriteSheet.getTrackerSpriteForColor(playerToRender.getColor());
                 final long yDiff = playerToRender.getY() - player.getY();
                 final long xDiff = playerToRender.getX() - player.getX();
 
                 if (!playerToRender.isDead()) {
-                    if (Math.abs(yDiff) > height / 2 || Math.abs(xDiff) > width / 2) {
+                    if (Math.abs(yDiff) > centerY || Math.abs(xDiff) > centerX) {
                         // Render tracker for player outside of visible range
-                        drawTrackerForOffScreenPlayer(graphics, tracker, (double) xDiff, (double) yDiff);
+                        prepareTrackerForOffScreenPlayer(preparedFrame, tracker, (double) xDiff, (double) yDiff);
                     } else {
                         // Render tracker for player that is within visible range
-                        renderObjectRelativeToMainPlayer(
-                            graphics, tracker, playerToRender.getX(), playerToRender.getY() + PLAYER_SIZE,
-                            PLAYER_SIZE / 2, PLAYER_SIZE / 2, Math.PI / 2 * 3, playerX, playerY, null, null
+                        prepareObjectRelativeToMainPlayer(
+                            preparedFrame, RenderLayer.PLAYERS, tracker, playerToRender.getX(), playerToRender.getY() + PLAYER_SIZE,
+                            PLAYER_SIZE / 2, PLAYER_SIZE / 2, Math.PI / 2 * 3, playerX, playerY, NO_SERVER_ID, null
                         );
                     }
                 }
             }
-        });
-
-        // Render snakes
-        state.getSnakes().forEach(snake -> {
-            final BufferedImage sprite = getOrCreateAnimationControllerForSnake(snake).nextSprite(state, snake);
-            renderObjectRelativeToMainPlayer(
-                graphics, sprite, snake.getX(), snake.getY(), SNAKE_WIDTH, SNAKE_HEIGHT, snake.getAngle(), playerX, playerY, snake.getId(), snake.moveableTag()
-            );
-        });
-
-        // Render asteroids
-        state.getAsteroids().forEach(asteroid -> {
-            if (asteroid.getSize() == 0) {
-                final BufferedImage sprite = getOrCreateAnimationControllerForSmallAsteroid(asteroid).nextSprite(state, asteroid);
-
-                renderObjectRelativeToMainPlayer(
-                    graphics, sprite, asteroid.getX(), asteroid.getY(),
-                    SMALL_ASTEROID_SIZE, SMALL_ASTEROID_SIZE, asteroid.getAngle(), playerX, playerY, asteroid.getId(), asteroid.moveableTag()
-                );
-            } else {
-                final BufferedImage sprite = getOrCreateAnimationControllerForLargeAsteroid(asteroid).nextSprite(state, asteroid);
-
-                renderObjectRelativeToMainPlayer(
-                    graphics, sprite, asteroid.getX(), asteroid.getY(),
-                    LARGE_ASTEROID_WIDTH, LARGE_ASTEROID_HEIGHT, asteroid.getAngle(), playerX, playerY, asteroid.getId(), asteroid.moveableTag(), true
-                );
-            }
-        });
-
-        // Render traveling lasers
-        state.getLasers().forEach(laser -> {
-            if (laser.getXVelocity() == 0 && laser.getYVelocity() == 0) {
-                final BufferedImage sprite = getOrCreateAnimationControllerForLaser(laser).nextSprite(state, laser);
-
-                renderObjectRelativeToMainPlayer(
-                    graphics, sprite, laser.getX(), laser.getY(),
-                    LASER_WIDTH, LASER_HEIGHT, laser.getAngle(), playerX, playerY, laser.getId(), laser.moveableTag()
-                );
-            }
-        });
-
-        graphics.setColor(Color.GREEN);
-        graphics.drawRect(
-            (int) ((renderRatio.getWidthScale() * (double) playerX * -1) + ((double) width / 2)),
-            (int) ((renderRatio.getHeightScale() * (double) (playerY - maxPlayerY)) + ((double) height / 2)),
-            (int) (renderRatio.getWidthScale() * (double) maxPlayerX),
-            (int) (renderRatio.getHeightScale() * (double) maxPlayerY)
-        );
-
-        hudRenderer.drawHud(
-            graphics, player.getHealth(), player.getShieldCount(), player.getShieldRecharge(),
-            player.getBoostingCharge(), player.getBoostingRecharge(), player.getLaserCharges(), this
-        );
-
-        if (commandMode) {
-            commandCarrotTickCount = (commandCarrotTickCount + 1) % 13;
-            if (commandCarrotTickCount == 0) {
-                commandCarrotToggle = !commandCarrotToggle;
-            }
-            String carrot = commandCarrotToggle ? "|" : "";
-            graphics.setColor(COMMAND_TEXT_COLOR);
-            graphics.setFont(COMMAND_TEXT_FONT);
-            graphics.drawString("ENTER COMMAND:", 60, 15);
-            graphics.drawString(commandBuffer + carrot, 60, 33);
         }
+    }
 
-        if (!latestGameState.isSpawningEnabled() ||
-            !latestGameState.isMovementEnabled() ||
-            !latestGameState.isCollisionsEnabled() ||
-            !latestGameState.isTickEnabled()) {
-            graphics.setFont(GAME_SETTING_TEXT_FONT);
-
-            graphics.setColor(latestGameState.isTickEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
-            graphics.drawString("Tick Enabled: " + latestGameState.isTickEnabled(), 14, height - 40);
-
-            graphics.setColor(latestGameState.isMovementEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
-            graphics.drawString("Movement Enabled: " + latestGameState.isMovementEnabled(), 14, height - 30);
-
-            graphics.setColor(latestGameState.isCollisionsEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
-            graphics.drawString("Collision Enabled: " + latestGameState.isCollisionsEnabled(), 14, height - 20);
-
-            graphics.setColor(latestGameState.isSpawningEnabled() ? GAME_SETTING_ON_TEXT_COLOR : GAME_SETTING_OFF_TEXT_COLOR);
-            graphics.drawString("Spawning Enabled: " + latestGameState.isSpawningEnabled(), 14, height - 10);
+    /**
+     * Prepare the entities of one layer.
+     *
+     * @param preparedFrame The frame being prepared
+     * @param layer The layer
+     * @param bucket Entities of the layer, with their sprites and descriptors
+     * @param playerX X position the main player is at
+     * @param playerY Y position the main player is at
+     */
+    private void prepareBucket(PreparedFrame preparedFrame, RenderLayer layer, RenderBucket bucket, long playerX, long playerY) {
+        for (int index = 0; index < bucket.size(); index++) {
+            final IMoveable entity = bucket.getEntity(index);
+            final EntityRenderDescriptor<?> descriptor = bucket.getDescriptor(index);
+            prepareObjectRelativeToMainPlayer(
+                preparedFrame, layer, bucket.getSprite(index), entity.getBoxX(), entity.getBoxY(),
+                descriptor.getWidth(), descriptor.getHeight(), entity.getTilt(), playerX, playerY,
+                entity.getMoveableId(), entity.moveableTag(), descriptor.getRotationOffset()
+            );
         }
     }
 
     /**
-     * Draw a tracker for a player that is off the screen.
+     * Prepare a tracker for a player that is off the screen.
      *
-     * @param graphics The graphics
+     * @param preparedFrame The frame being prepared
      * @param trackerSprite The sprite used to track the player
      * @param xDiff The difference in X location from the client player
      * @param yDiff The difference in Y location from the client player
      */
-    private void drawTrackerForOffScreenPlayer(Graphics graphics, BufferedImage trackerSprite, double xDiff, double yDiff) {
-        final double screenHypotenuse = Math.sqrt(Math.pow(height, 2) + Math.pow(width, 2));
-        final double thetaBr = Math.acos((double)width / screenHypotenuse);
+    private void prepareTrackerForOffScreenPlayer(PreparedFrame preparedFrame, BufferedImage trackerSprite, double xDiff, double yDiff) {
+        final RenderCommandList commands = preparedFrame.getCommands();
+        final int frameWidth = preparedFrame.getWidth();
+        final int frameHeight = preparedFrame.getHeight();
+        final double screenHypotenuse = Math.sqrt(Math.pow(frameHeight, 2) + Math.pow(frameWidth, 2));
+        final double thetaBr = Math.acos((double)frameWidth / screenHypotenuse);
         final double thetaBl = Math.PI - thetaBr;
         final double thetaTl = Math.PI + thetaBr;
 
@@ -391,58 +621,107 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
 
             if (yDiff > 0) {
                 // dY = height/2 ON TOP
-                yLocationFromPlayer = (double)height / -2;
+                yLocationFromPlayer = (double)frameHeight / -2;
                 if (xDiff != 0) {
                     xLocationFromPlayer = -yLocationFromPlayer / Math.tan(phi);
                 }
             } else {
                 // dY = -height/2 ON BOTTOM
-                yLocationFromPlayer = (double)height / 2;
+                yLocationFromPlayer = (double)frameHeight / 2;
                 yOffset = -32;
                 if (xDiff != 0) {
                     xLocationFromPlayer = yLocationFromPlayer / Math.tan(phi);
                 }
             }
 
-            xDrawLocation = (int)(xLocationFromPlayer + width / 2 - 16);
-            yDrawLocation = (int)(yLocationFromPlayer + height / 2 + yOffset);
+            xDrawLocation = (int)(xLocationFromPlayer + frameWidth / 2 - 16);
+            yDrawLocation = (int)(yLocationFromPlayer + frameHeight / 2 + yOffset);
         } else if (thetaTl > phi && phi >= thetaBl) {
             // dX = -width/2 ON LEFT
-            double xLocationFromPlayer = -(double)width / 2;
+            double xLocationFromPlayer = -(double)frameWidth / 2;
             double yLocationFromPlayer = Math.tan(phi) * -xLocationFromPlayer;
 
             if (yDiff != 0) {
                 yLocationFromPlayer *= (yDiff / Math.abs(yDiff));
             }
 
-            xDrawLocation = (int)xLocationFromPlayer + width / 2;
-            yDrawLocation = (int)yLocationFromPlayer + height / 2 - 16;
+            xDrawLocation = (int)xLocationFromPlayer + frameWidth / 2;
+            yDrawLocation = (int)yLocationFromPlayer + frameHeight / 2 - 16;
         } else {
             // dX = width/2 ON RIGHT
-            double xLocationFromPlayer = (double)width / 2;
+            double xLocationFromPlayer = (double)frameWidth / 2;
             double yLocationFromPlayer = Math.tan(phi) * -xLocationFromPlayer;
 
             if (yDiff != 0) {
                 yLocationFromPlayer *= (yDiff / Math.abs(yDiff));
             }
 
-            xDrawLocation = (int)xLocationFromPlayer + width / 2 - 32;
-            yDrawLocation = (int)yLocationFromPlayer + height / 2 - 16;
+            xDrawLocation = (int)xLocationFromPlayer + frameWidth / 2 - 32;
+            yDrawLocation = (int)yLocationFromPlayer + frameHeight / 2 - 16;
         }
 
-        final AffineTransform transform = new AffineTransform();
-        transform.translate(xDrawLocation + 16, yDrawLocation + 16);
-        transform.rotate((phi * -1) + Math.PI / 2);
-        transform.translate(-(32 / 2), -(32 / 2));
+        // Trackers are not scaled by the render ratio, so they have their own cache of rotations
+        final int trackerCenterX = xDrawLocation + TRACKER_SIZE / 2;
+        final int trackerCenterY = yDrawLocation + TRACKER_SIZE / 2;
+        final double rotation = (phi * -1) + Math.PI / 2;
+        final RotatedSpriteCache trackerCache = rotatedTrackerCache;
+        final BufferedImage rotatedTracker = trackerCache == null ? null : trackerCache.get(
+            trackerSprite, TRACKER_SIZE, TRACKER_SIZE, rotation, 1.0, 1.0
+        );
 
-        ((Graphics2D)graphics).drawImage(trackerSprite, transform, this);
+        if (rotatedTracker != null) {
+            commands.addSprite(
+                RenderLayer.PLAYERS, rotatedTracker, trackerCenterX, trackerCenterY,
+                rotatedTracker.getWidth(), rotatedTracker.getHeight()
+            );
+        } else {
+            commands.addTransformedSprite(
+                RenderLayer.PLAYERS, trackerSprite, trackerCenterX, trackerCenterY,
+                TRACKER_SIZE, TRACKER_SIZE, rotation, 1.0, 1.0
+            );
+        }
+    }
+
+    /**
+     * Prepare a sprite scaled by the render ratio and rotated about its centre. Uses the pre-rotated sprite if the
+     * cache has one, otherwise the sprite is transformed when drawn.
+     *
+     * @param commands Commands of the frame being prepared
+     * @param layer Layer the sprite is drawn in
+     * @param sprite The sprite
+     * @param drawingX X on screen of the sprite's centre
+     * @param drawingY Y on screen of the sprite's centre
+     * @param unscaledWidth Width of the sprite before scaling by the render ratio
+     * @param unscaledHeight Height of the sprite before scaling by the render ratio
+     * @param rotation Rotation in radians
+     */
+    private void prepareSprite(
+        RenderCommandList commands, RenderLayer layer, BufferedImage sprite, int drawingX, int drawingY,
+        int unscaledWidth, int unscaledHeight, double rotation
+    ) {
+        final RotatedSpriteCache spriteCache = rotatedSpriteCache;
+        final BufferedImage rotatedSprite = spriteCache == null ? null : spriteCache.get(
+            sprite, unscaledWidth, unscaledHeight, rotation, frameRenderRatio.getWidthScale(), frameRenderRatio.getHeightScale()
+        );
+
+        if (rotatedSprite != null) {
+            commands.addSprite(layer, rotatedSprite, drawingX, drawingY, rotatedSprite.getWidth(), rotatedSprite.getHeight());
+        } else {
+            commands.addTransformedSprite(
+                layer, sprite, drawingX, drawingY,
+                (int) (frameRenderRatio.getWidthScale() * (double) unscaledWidth),
+                (int) (frameRenderRatio.getHeightScale() * (double) unscaledHeight),
+                rotation, frameRenderRatio.getWidthScale(), frameRenderRatio.getHeightScale()
+            );
+        }
     }
 
     /**
-     * Render object when its position is relative to the player. This should be most objects since the player is the
+     * Prepare object when its position is relative to the player. This should be most objects since the player is the
      * center of attention.
      *
-     * @param graphics The graphics
+     * @param preparedFrame The frame being prepared
+     * @param layer Layer the object is drawn in
      * @param sprite The sprite being rendered
      * @param x The absolute X location, the relative coordinate will be calculated within this method
      * @param y The absolute Y location, the relative coordinate will be calculated within this method
@@ -451,22 +730,25 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
      * @param angle The angle of the render
      * @param playerX X position the main player is at
      * @param playerY Y position the main player is at
-     * @param serverId ID of the entity according to the connected server
+     * @param serverId ID of the entity according to the connected server, {@link #NO_SERVER_ID} if it has none
      * @param moveableTag Tag name of the type of moveable being rendered
      */
-    private void renderObjectRelativeToMainPlayer(
-            Graphics graphics, BufferedImage sprite,
+    private void prepareObjectRelativeToMainPlayer(
+            PreparedFrame preparedFrame, RenderLayer layer, BufferedImage sprite,
             long x, long y, int renderWidth, int renderHeight, double angle,
-            long playerX, long playerY, Long serverId, String moveableTag
+            long playerX, long playerY, long serverId, String moveableTag
     ) {
-        renderObjectRelativeToMainPlayer(graphics, sprite, x, y, renderWidth, renderHeight, angle, playerX, playerY, serverId, moveableTag, false);
+        prepareObjectRelativeToMainPlayer(
+            preparedFrame, layer, sprite, x, y, renderWidth, renderHeight, angle, playerX, playerY, serverId, moveableTag, SPRITE_FIT_OFFSET
+        );
     }
 
     /**
-     * Render object when its position is relative to the player. This should be most objects since the player is the
+     * Prepare object when its position is relative to the player. This should be most objects since the player is the
      * center of attention.
      *
-     * @param graphics The graphics
+     * @param preparedFrame The frame being prepared
+     * @param layer Layer the object is drawn in
      * @param sprite The sprite being rendered
      * @param x The absolute X location, the relative coordinate will be calculated within this method
      * @param y The absolute Y location, the relative coordinate will be calculated within this method
@@ -475,202 +757,177 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
      * @param angle The angle of the render
      * @param playerX X position the main player is at
      * @param playerY Y position the main player is at
-     * @param serverId ID of the entity according to the connected server
+     * @param serverId ID of the entity according to the connected server, {@link #NO_SERVER_ID} if it has none
      * @param moveableTag Tag name of the type of moveable being rendered
-     * @param skipForceRotate Skip the step where the client forcefully rotates object to fit sprite specs
+     * @param spriteFitOffset Added to the rotation to turn the sprite the way the object faces
      */
-    private void renderObjectRelativeToMainPlayer(
-        Graphics graphics, BufferedImage sprite,
+    private void prepareObjectRelativeToMainPlayer(
+        PreparedFrame preparedFrame, RenderLayer layer, BufferedImage sprite,
         long x, long y, int renderWidth, int renderHeight, double angle,
-        long playerX, long playerY, Long serverId, String moveableTag,
-        boolean skipForceRotate
+        long playerX, long playerY, long serverId, String moveableTag,
+        double spriteFitOffset
     ) {
-        renderWidth = (int) (renderRatio.getWidthScale() * (double) renderWidth);
-        renderHeight = (int) (renderRatio.getHeightScale() * (double) renderHeight);
+        final int unscaledWidth = renderWidth;
+        final int unscaledHeight = renderHeight;
+        renderWidth = (int) (frameRenderRatio.getWidthScale() * (double) renderWidth);
+        renderHeight = (int) (frameRenderRatio.getHeightScale() * (double) renderHeight);
 
-        final int xOffset = (int)(renderRatio.getWidthScale() * (double)(x - playerX));
-        final int yOffset = (int)(renderRatio.getHeightScale() * (double)(y - playerY));
+        final int xOffset = (int)(frameRenderRatio.getWidthScale() * (double)(x - playerX));
+        final int yOffset = (int)(frameRenderRatio.getHeightScale() * (double)(y - playerY));
 
-        final int drawingX = this.width / 2 + xOffset;
-        final int drawingY = this.height / 2 - yOffset;
-        final AffineTransform transform = new AffineTransform();
-        transform.translate(drawingX, drawingY);
-
-        double spriteFitOffset = Math.PI / 2;
-        if (skipForceRotate) {
-            spriteFitOffset = 0;
-        }
+        final int drawingX = preparedFrame.getWidth() / 2 + xOffset;
+        final int drawingY = preparedFrame.getHeight() / 2 - yOffset;
 
-        transform.rotate((angle * -1) + spriteFitOffset);
-        transform.translate(-(renderWidth / 2), -(renderHeight / 2));
-        transform.scale(renderRatio.getWidthScale(), renderRatio.getHeightScale());
+        final RenderCommandList commands = preparedFrame.getCommands();
+        prepareSprite(commands, layer, sprite, drawingX, drawingY, unscaledWidth, unscaledHeight, (angle * -1) + spriteFitOffset);
 
-        ((Graphics2D)graphics).drawImage(sprite, transform, this);
-
-        if (advancedHudEnabled) {
-            int hudY = drawingY;
-            graphics.setColor(ADVANCED_HUD_TEXT_COLOR);
-            graphics.setFont(ADVANCED_HUD_TEXT_FONT);
-            graphics.drawString("ID: " + serverId, drawingX, hudY);
-            hudY += 30;
-            graphics.drawString("(" + x + ", " + y + ")", drawingX, hudY);
-            hudY += 30;
-            String displayAngle = String.format("%.2f", Math.toDegrees(angle % (Math.PI * 2)));
-            graphics.drawString("Angle: " + displayAngle, drawingX, hudY);
-        }
-        if (collisionWatch) {
-            graphics.setColor(Color.CYAN);
-            final int collisionWatchX = drawingX - renderWidth / 2;
-            final int collisionWatchY = drawingY - renderHeight / 2;
-            graphics.drawRect(collisionWatchX, collisionWatchY, renderWidth, renderHeight);
-
-            if (moveableTag != null) {
-                final boolean isColliding = latestGameState
-                    .getDebugSettings()
-                    .getPlayerCollisionFlags()
-                    .stream()
-                    .anyMatch(flag -> flag.getSessionId().equals(sessionId) && flag.getCollisionType().equals(moveableTag) && flag.getCollisionId() == serverId);
-                if (isColliding) {
-                    graphics.setColor(COLLISION_MARKER_COLOR);
-                    graphics.fillRect(collisionWatchX, collisionWatchY, renderWidth, renderHeight);
-                }
-            }
+        if (preparedFrame.isAdvancedHudEnabled() || preparedFrame.isCollisionWatch()) {
+            final boolean isCollided = preparedFrame.isCollisionWatch() && moveableTag != null &&
+                frameCollisionFlags.hasCollision(sessionId, moveableTag, serverId);
+            commands.addEntityOverlay(layer, drawingX, drawingY, renderWidth, renderHeight, serverId, x, y, angle, isCollided);
         }
     }
 
     /**
-     * Get or create animation controller for a snake.
+     * Draw a sprite command, as is or transformed.
      *
-     * @param snake The snake
-     * @return The snake's animation controller, whether newly created or old
+     * @param graphics The graphics
+     * @param commands Commands of the frame
+     * @param index Index of the command
      */
-    private SnakeStopMotionController getOrCreateAnimationControllerForSnake(Snake snake) {
-        return snakeStopMotionControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(snake))
-            .findFirst()
-            .orElseGet(() -> {
-                final SnakeStopMotionController newController = new SnakeStopMotionController(snake);
-                snakeStopMotionControllers.add(newController);
-                return newController;
-            });
-    }
+    private void drawSprite(Graphics graphics, RenderCommandList commands, int index) {
+        final BufferedImage sprite = commands.getSprite(index);
+        final int drawingX = commands.getX(index);
+        final int drawingY = commands.getY(index);
 
-    /**
-     * Get or create animation controller for a player that is not the client player.
-     *
-     * @param player The player
-     * @return The player's animation controller, whether newly created or old
-     */
-    private PlayerStopMotionController getOrCreateAnimationControllerForPlayer(Player player) {
-        return playerStopMotionControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(player))
-            .findFirst()
-            .orElseGet(() -> {
-                final PlayerStopMotionController newController = new PlayerStopMotionController(player);
-                playerStopMotionControllers.add(newController);
-                return newController;
-            });
-    }
+        if (!commands.isTransformed(index)) {
+            graphics.drawImage(sprite, drawingX - commands.getWidth(index) / 2, drawingY - commands.getHeight(index) / 2, this);
+        } else {
+            spriteTransform.setToTranslation(drawingX, drawingY);
+            spriteTransform.rotate(commands.getRotation(index));
+            spriteTransform.translate(-(commands.getWidth(index) / 2), -(commands.getHeight(index) / 2));
+            spriteTransform.scale(commands.getScaleX(index), commands.getScaleY(index));
 
-    /**
-     * Get or create animation controller for a laser.
-     *
-     * @param laser The laser
-     * @return The laser's animation controller, whether newly created or old
-     */
-    private LaserAnimationController getOrCreateAnimationControllerForLaser(Laser laser) {
-        return laserAnimationControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(laser))
-            .findFirst()
-            .orElseGet(() -> {
-                final LaserAnimationController newController = new LaserAnimationController(laser);
-                laserAnimationControllers.add(newController);
-                return newController;
-            });
+            ((Graphics2D)graphics).drawImage(sprite, spriteTransform, this);
+        }
     }
 
     /**
-     * Get or create animation controller for a small asteroid.
+     * Draw the debug overlay of an entity.
      *
-     * @param asteroid The asteroid
-     * @return The asteroid's animation controller, whether newly created or old
+     * @param graphics The graphics
+     * @param preparedFrame The frame
+     * @param commands Commands of the frame
+     * @param index Index of the command
      */
-    private SmallAsteroidStopMotionController getOrCreateAnimationControllerForSmallAsteroid(Asteroid asteroid) {
-        return smallAsteroidStopMotionControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(asteroid))
-            .findFirst()
-            .orElseGet(() -> {
-                final SmallAsteroidStopMotionController newController = new SmallAsteroidStopMotionController(asteroid);
-                smallAsteroidStopMotionControllers.add(newController);
-                return newController;
-            });
+    private void drawEntityOverlay(Graphics graphics, PreparedFrame preparedFrame, RenderCommandList commands, int index) {
+        final int drawingX = commands.getX(index);
+        final int drawingY = commands.getY(index);
+
+        if (preparedFrame.isAdvancedHudEnabled()) {
+            int hudY = drawingY;
+            graphics.setColor(ADVANCED_HUD_TEXT_COLOR);
+            graphics.setFont(ADVANCED_HUD_TEXT_FONT);
+            text.clear().append("ID: ");
+            if (commands.getServerId(index) == NO_SERVER_ID) {
+                text.append("none");
+            } else {
+                text.append(commands.getServerId(index));
+            }
+            text.draw(graphics, drawingX, hudY);
+            hudY += 30;
+            text.clear().append("(").append(commands.getWorldX(index)).append(", ").append(commands.getWorldY(index)).append(")")
+                .draw(graphics, drawingX, hudY);
+            hudY += 30;
+            text.clear().append("Angle: ").append(Math.toDegrees(commands.getAngle(index) % (Math.PI * 2)), 2)
+                .draw(graphics, drawingX, hudY);
+        }
+        if (preparedFrame.isCollisionWatch()) {
+            drawCollisionBox(graphics, commands, index);
+        }
     }
 
     /**
-     * Get or create animation controller for a large asteroid.
+     * Draw the debug overlay of the main player.
      *
-     * @param asteroid The asteroid
-     * @return The asteroid's animation controller, whether newly created or old
+     * @param graphics The graphics
+     * @param preparedFrame The frame
+     * @param commands Commands of the frame
+     * @param index Index of the command
      */
-    private LargeAsteroidStopMotionController getOrCreateAnimationControllerForLargeAsteroid(Asteroid asteroid) {
-        return largeAsteroidStopMotionControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(asteroid))
-            .findFirst()
-            .orElseGet(() -> {
-                final LargeAsteroidStopMotionController newController = new LargeAsteroidStopMotionController(asteroid);
-                largeAsteroidStopMotionControllers.add(newController);
-                return newController;
-            });
+    private void drawPlayerOverlay(Graphics graphics, PreparedFrame preparedFrame, RenderCommandList commands, int index) {
+        if (preparedFrame.isAdvancedHudEnabled()) {
+            final Player player = preparedFrame.getPlayer();
+            final int drawingX = commands.getX(index);
+            int hudY = commands.getY(index) - player.getBoxHeight() / 2;
+            graphics.setColor(ADVANCED_HUD_TEXT_COLOR);
+            graphics.setFont(ADVANCED_HUD_TEXT_FONT);
+            text.clear().append("(").append(player.getX()).append(", ").append(player.getY()).append(")")
+                .draw(graphics, drawingX, hudY);
+            hudY += 30;
+            text.clear().append("Angle: ").append(Math.toDegrees(player.getAngle() % (Math.PI * 2)), 2)
+                .draw(graphics, drawingX, hudY);
+            hudY += 30;
+            text.clear().append("Nearest player: ");
+            if (preparedFrame.getNearestPlayerDistance() == NOT_FOUND) {
+                text.append("none");
+            } else {
+                text.append(preparedFrame.getNearestPlayerDistance());
+            }
+            text.draw(graphics, drawingX, hudY);
+            hudY += 30;
+            text.clear().append("Nearest asteroid: ");
+            if (preparedFrame.getNearestAsteroidId() == NOT_FOUND) {
+                text.append("none");
+            } else {
+                text.append(preparedFrame.getNearestAsteroidId());
+            }
+            text.draw(graphics, drawingX, hudY);
+        }
+        if (preparedFrame.isCollisionWatch()) {
+            drawCollisionBox(graphics, commands, index);
+        }
     }
 
     /**
-     * Get or create animation controller for a black hole.
+     * Draw the collision box of an overlay command, filled in if it was flagged as colliding.
      *
-     * @param blackHole The black hole
-     * @return The black hole's animation controller, whether newly created or old
+     * @param graphics The graphics
+     * @param commands Commands of the frame
+     * @param index Index of the command
      */
-    private MicroBlackHoleStopMotionController getOrCreateAnimationControllerForBlackHole(MicroBlackHole blackHole) {
-        return blackHoleStopMotionControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(blackHole))
-            .findFirst()
-            .orElseGet(() -> {
-                final MicroBlackHoleStopMotionController newController = new MicroBlackHoleStopMotionController(blackHole);
-                blackHoleStopMotionControllers.add(newController);
-                return newController;
-            });
+    private void drawCollisionBox(Graphics graphics, RenderCommandList commands, int index) {
+        final int boxWidth = commands.getWidth(index);
+        final int boxHeight = commands.getHeight(index);
+        final int collisionWatchX = commands.getX(index) - boxWidth / 2;
+        final int collisionWatchY = commands.getY(index) - boxHeight / 2;
+        graphics.setColor(Color.CYAN);
+        graphics.drawRect(collisionWatchX, collisionWatchY, boxWidth, boxHeight);
+
+        if (commands.isCollided(index)) {
+            graphics.setColor(COLLISION_MARKER_COLOR);
+            graphics.fillRect(collisionWatchX, collisionWatchY, boxWidth, boxHeight);
+        }
     }
 
     /**
-     * Get or create animation controller for a portal.
+     * Get or create animation controller for a player that is not the client player.
      *
-     * @param portal The portal
-     * @return The portal's animation controller, whether newly created or old
+     * @param player The player
+     * @return The player's animation controller, whether newly created or old
      */
-    private PortalStopMotionController getOrCreateAnimationControllerForPortal(Portal portal) {
-        return portalStopMotionControllers
-            .stream()
-            .filter(controller -> controller.checkIfObjectIsRoot(portal))
-            .findFirst()
-            .orElseGet(() -> {
-                final PortalStopMotionController newController = new PortalStopMotionController(portal);
-                portalStopMotionControllers.add(newController);
-                return newController;
-            });
+    private ClockedAnimation<GameState, Player> getOrCreateAnimationControllerForPlayer(Player player) {
+        return playerStopMotionControllers.getOrCreate(player.getSessionId(), player);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void setGameStateToRender(GameState toRender) {
+    public void setFramesToRender(TripleBuffer<SampledFrame> aFramesToRender) {
         // Do not repaint off of the word of the server thread. Only a Java AWT thread can update this.
-        latestGameState = toRender;
+        // Frames are taken when one is prepared, so only the thread that prepares frames reads them.
+        framesToRender = aFramesToRender;
     }
 
     /**
@@ -686,7 +943,57 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
      */
     @Override
     public void render() {
-        repaint();
+        if (canvas != null) {
+            renderActively();
+        } else if (frameBuffer == null) {
+            repaint();
+        } else {
+            // Only the engine's thread renders, so the worker is only ever started once
+            if (frameBuildWorker == null) {
+                frameBuildWorker = new FrameBuildWorker(this::buildFrame);
+            }
+            frameBuildWorker.request();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void terminate() {
+        final FrameBuildWorker worker = frameBuildWorker;
+        if (worker != null) {
+            worker.terminate();
+        }
+        rotatedSpriteCache.terminate();
+        rotatedTrackerCache.terminate();
+    }
+
+    /**
+     * Prepare a frame, draw it straight to the canvas and present it, redrawing if the buffer's contents are lost on
+     * the way.
+     */
+    private void renderActively() {
+        final BufferStrategy strategy = bufferStrategy;
+        if (strategy == null) {
+            return;
+        }
+
+        prepareFrame(inlineFrame);
+        do {
+            do {
+                final Graphics graphics = strategy.getDrawGraphics();
+                try {
+                    drawFrame(graphics, inlineFrame);
+                } finally {
+                    graphics.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        // Flush the windowing system's queue so the frame shows now rather than whenever it gets around to it
+        Toolkit.getDefaultToolkit().sync();
     }
 
     /**
@@ -768,10 +1075,22 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
     @Override
     public void setupBeforeRender() {
         frame.setMinimumSize(new Dimension(600, 400));
-        frame.setVisible(true);
+
+        final GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        if (fullScreen && device.isFullScreenSupported()) {
+            device.setFullScreenWindow(frame);
+        } else {
+            frame.setVisible(true);
+        }
 
         width = (int) frame.getSize().getWidth();
         height = (int) frame.getSize().getHeight();
+
+        if (canvas != null) {
+            // Page flipping where the platform allows it, blitting otherwise
+            canvas.createBufferStrategy(2);
+            bufferStrategy = canvas.getBufferStrategy();
+        }
     }
 
     /**
@@ -791,15 +1110,83 @@ public class GameWindow extends JPanel implements IGameStateRenderer, IClientInp
         this.width = aWidth;
         this.height = aHeight;
 
-        candidateRenderRatio.calculate(aWidth, aHeight);
+        // The thread that prepares frames copies the candidate ratio when it changes
+        synchronized (candidateRenderRatio) {
+            candidateRenderRatio.calculate(aWidth, aHeight);
+            renderRatioChanged = true;
+
+            final RotatedSpriteCache spriteCache = rotatedSpriteCache;
+            if (spriteCache != null) {
+                spriteCache.setScale(candidateRenderRatio.getWidthScale(), candidateRenderRatio.getHeightScale());
+            }
+        }
+        hudRenderer.invalidate();
+    }
+
+    /**
+     * Set how many angles rotated sprites and off-screen player trackers are pre-rotated at. They are drawn from caches
+     * of pre-rotated sprites instead of being transformed every frame, and angles are rounded to the nearest bucket.
+     * Defaults to 64.
+     *
+     * @param angleBuckets How many angles the full turn is split into, for example 64 or 128
+     */
+    public void setRotationBuckets(int angleBuckets) {
+        final RotatedSpriteCache spriteCache = new RotatedSpriteCache(angleBuckets, ROTATED_SPRITE_PIXEL_BUDGET);
+        final RotatedSpriteCache oldSpriteCache;
+        synchronized (candidateRenderRatio) {
+            spriteCache.setScale(candidateRenderRatio.getWidthScale(), candidateRenderRatio.getHeightScale());
+            oldSpriteCache = rotatedSpriteCache;
+            rotatedSpriteCache = spriteCache;
+        }
+        final RotatedSpriteCache oldTrackerCache = rotatedTrackerCache;
+        rotatedTrackerCache = new RotatedSpriteCache(angleBuckets, ROTATED_TRACKER_PIXEL_BUDGET);
+
+        // The caches replaced are the defaults set up by the constructor
+        if (oldSpriteCache != null) {
+            oldSpriteCache.terminate();
+        }
+        if (oldTrackerCache != null) {
+            oldTrackerCache.terminate();
+        }
+    }
+
+    /**
+     * Animate entities from baked animations, whose sprites are looked up ahead of time and whose transitions are only
+     * checked when what they depend on changes, instead of from stop motion controllers. Applies to animations created
+     * after this is called.
+     */
+    public void enableBakedAnimations() {
+        bakedAnimations = true;
+    }
+
+    /**
+     * Create an animation for an entity, baked or from a stop motion controller.
+     *
+     * @param entity The entity
+     * @param bakedGraph Gets the baked animation graph for the type of entity
+     * @param controllerFactory Creates a stop motion controller for the entity
+     * @param <ENTITY_TYPE> Type of the entity
+     * @return The animation, played by the animation clock
+     */
+    private <ENTITY_TYPE> ClockedAnimation<GameState, ENTITY_TYPE> createAnimation(
+        ENTITY_TYPE entity,
+        Supplier<BakedAnimationGraph<ENTITY_TYPE>> bakedGraph,
+        Function<ENTITY_TYPE, ? extends StopMotionController<GameState, ENTITY_TYPE, ?>> controllerFactory
+    ) {
+        if (bakedAnimations) {
+            return new ClockedAnimation<>(animationClock, new BakedAnimation<>(bakedGraph.get()));
+        }
+        return new ClockedAnimation<>(animationClock, controllerFactory.apply(entity));
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public List<ServerInput> getAndClearInputs() {
-        serverInputManager.removeInputsFromServerState(latestGameState);
+    public List<ServerInput> getAndClearInputs(ClientFrame latestFrame) {
+        if (latestFrame != null) {
+            serverInputManager.removeInputsFromServerState(latestFrame);
+        }
         return serverInputManager.getUnhandledInputs();
     }
 
@@ -1,5 +1,9 @@
 package com.andronikus.gameclient.ui;
 
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.net.URL;
@@ -42,6 +46,90 @@ public class ImagesUtil {
             throw new RuntimeException(problem);
         }
 
-        return image;
+        return toCompatibleImage(image);
+    }
+
+    /**
+     * Image in the pixel layout of the screen, so drawing it does not convert it pixel by pixel every time. Images cut
+     * out of a larger image are always copied, so they can be accelerated on their own.
+     *
+     * @param image The image
+     * @return The image itself if it is already compatible, otherwise a compatible copy
+     */
+    public static BufferedImage toCompatibleImage(BufferedImage image) {
+        final boolean isSubimage = image.getRaster().getParent() != null;
+
+        if (GraphicsEnvironment.isHeadless()) {
+            final int headlessType = headlessTypeFor(image);
+            if (!isSubimage && image.getType() == headlessType) {
+                return image;
+            }
+            return copyInto(image, new BufferedImage(image.getWidth(), image.getHeight(), headlessType));
+        }
+
+        final GraphicsConfiguration configuration = GraphicsEnvironment
+            .getLocalGraphicsEnvironment()
+            .getDefaultScreenDevice()
+            .getDefaultConfiguration();
+        if (!isSubimage && image.getColorModel().equals(configuration.getColorModel(image.getTransparency()))) {
+            return image;
+        }
+        return copyInto(image, configuration.createCompatibleImage(image.getWidth(), image.getHeight(), image.getTransparency()));
+    }
+
+    /**
+     * Image scaled ahead of time to the size it is always drawn at, in the pixel layout of the screen, so drawing it is
+     * a plain blit instead of a scaled one.
+     *
+     * @param image The image
+     * @param width Width to draw the image at
+     * @param height Height to draw the image at
+     * @return The compatible image if it is already that size, otherwise a scaled compatible copy
+     */
+    public static BufferedImage toScaledImage(BufferedImage image, int width, int height) {
+        if (image.getWidth() == width && image.getHeight() == height) {
+            return toCompatibleImage(image);
+        }
+
+        final BufferedImage scaledImage;
+        if (GraphicsEnvironment.isHeadless()) {
+            scaledImage = new BufferedImage(width, height, headlessTypeFor(image));
+        } else {
+            scaledImage = GraphicsEnvironment
+                .getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice()
+                .getDefaultConfiguration()
+                .createCompatibleImage(width, height, image.getTransparency());
+        }
+
+        final Graphics2D graphics = scaledImage.createGraphics();
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaledImage;
+    }
+
+    /**
+     * Get the image type to use for an image without a screen, opaque images staying opaque so drawing them does not
+     * blend.
+     *
+     * @param image The image
+     * @return The image type
+     */
+    private static int headlessTypeFor(BufferedImage image) {
+        return image.getTransparency() == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE;
+    }
+
+    /**
+     * Draw an image onto another.
+     *
+     * @param source The image to draw
+     * @param destination The image to draw onto
+     * @return The destination
+     */
+    private static BufferedImage copyInto(BufferedImage source, BufferedImage destination) {
+        final Graphics2D graphics = destination.createGraphics();
+        graphics.drawImage(source, 0, 0, null);
+        graphics.dispose();
+        return destination;
     }
 }
@@ -0,0 +1,30 @@
+package com.andronikus.gameclient.ui;
+
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.gameclient.ui.render.RenderCommandList;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A frame ready to be drawn: the game state it was prepared from, the commands that draw its entities, and what the
+ * HUD and overlays need so that drawing it does not look at the live state of the window.
+ *
+ * @author Andronikus
+ */
+@Getter
+@Setter
+public class PreparedFrame {
+    private boolean ready = false;
+    private GameState gameState;
+    // The frame's own copy, since the sampled player may be reused before the frame is drawn
+    private final Player player = new Player();
+    private int width;
+    private int height;
+    private RenderRatio renderRatio;
+    private boolean advancedHudEnabled;
+    private boolean collisionWatch;
+    private long nearestPlayerDistance;
+    private long nearestAsteroidId;
+    private final RenderCommandList commands = new RenderCommandList();
+}
@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.input;
 
-import com.andronikus.game.model.server.GameState;
+import com.andronikus.gameclient.engine.ClientFrame;
 import com.gabler.udpmanager.ResourceLock;
 
 import java.util.ArrayList;
@@ -48,14 +48,14 @@ public class ConcurrentServerInputManager {
      * Remove inputs that are acked or their condition met from the list of repeating inputs. Meant to be called from a
      * single Input Polling thread.
      *
-     * @param state The state from the server
+     * @param frame Frame of the state from the server
      */
-    public void removeInputsFromServerState(GameState state) {
+    public void removeInputsFromServerState(ClientFrame frame) {
         // TODO this feels a bit too un-modular with the requirement of a game state in here
         performQueueTransfer();
 
         ackRequiredInputs.removeIf(input ->
-            checkAckAndQueuePurge(state, input)
+            checkAckAndQueuePurge(frame, input)
         );
     }
 
@@ -134,12 +134,12 @@ public class ConcurrentServerInputManager {
     /**
      * Check for acknowledgements on the game state and handle purges.
      *
-     * @param state The state of the game
+     * @param frame Frame of the state of the game
      * @param input The input
      * @return If the acknowledgement is ready to be purged
      */
-    private boolean checkAckAndQueuePurge(GameState state, ServerInput input) {
-        final boolean isAcked = input.checkProcessed(state);
+    private boolean checkAckAndQueuePurge(ClientFrame frame, ServerInput input) {
+        final boolean isAcked = input.checkProcessed(frame);
 
         if (input.isDirectAckRequired()) {
             inputPurgeQueue.add(input.getInputId());
@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.input;
 
-import com.andronikus.game.model.server.GameState;
+import com.andronikus.gameclient.engine.ClientFrame;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -19,7 +19,7 @@ public class ServerInput implements IUserInput {
     @Getter
     private boolean directAckRequired = false;
 
-    private final BiFunction<GameState, ServerInput, Boolean> repeatUntilFulfilledCondition;
+    private final BiFunction<ClientFrame, ServerInput, Boolean> repeatUntilFulfilledCondition;
 
     /**
      * ID of the input to assign pre-flight.
@@ -55,16 +55,12 @@ public class ServerInput implements IUserInput {
         directAckRequired = aRequiresAck;
     }
 
-    private static BiFunction<GameState, ServerInput, Boolean> serverAcknowledgementScanner(boolean scannerNeeded) {
+    private static BiFunction<ClientFrame, ServerInput, Boolean> serverAcknowledgementScanner(boolean scannerNeeded) {
         if (!scannerNeeded) {
             return null;
         }
 
-        return ((gameState, input) ->
-            gameState.getInputAcknowledgements()
-                .stream()
-                .anyMatch(ack -> ack.getInputId() == input.inputId && ack.getSessionId().equalsIgnoreCase(input.sessionId))
-        );
+        return ((frame, input) -> frame.isInputAcknowledged(input.sessionId, input.inputId));
     }
 
     /**
@@ -73,7 +69,7 @@ public class ServerInput implements IUserInput {
      * @param aCode The input code
      * @param aRepeatUntilFulfilledCondition Condition that, when fulfilled, will stop the repetition of an input
      */
-    public ServerInput(String aCode, BiFunction<GameState, ServerInput, Boolean> aRepeatUntilFulfilledCondition) {
+    public ServerInput(String aCode, BiFunction<ClientFrame, ServerInput, Boolean> aRepeatUntilFulfilledCondition) {
         code = aCode;
         repeatUntilFulfilledCondition = aRepeatUntilFulfilledCondition;
     }
@@ -81,11 +77,11 @@ public class ServerInput implements IUserInput {
     /**
      * Check if input has been processed by the server.
      *
-     * @param state The state of the game
+     * @param frame Frame of the state of the game
      * @return True if input's been processed
      */
-    public boolean checkProcessed(GameState state) {
-        return repeatUntilFulfilledCondition.apply(state, this);
+    public boolean checkProcessed(ClientFrame frame) {
+        return repeatUntilFulfilledCondition.apply(frame, this);
     }
 
     /**
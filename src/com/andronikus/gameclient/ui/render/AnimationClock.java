@@ -0,0 +1,59 @@
+package com.andronikus.gameclient.ui.render;
+
+/**
+ * <p>Clock that animations are timed by, so they play at the same speed whatever the frame rate. Time is counted in
+ * animation ticks of one server tick, a thirtieth of a second. Frame lengths given to stop motion controllers are in
+ * these ticks, which is also how many frames they lasted when the client painted thirty times a second.</p>
+ *
+ * <p>The clock is advanced once per frame, so every animation in a frame sees the same tick. Meant to be used from the
+ * thread that renders only.</p>
+ *
+ * @author Andronikus
+ */
+public class AnimationClock {
+
+    /**
+     * Animation ticks per second
+     */
+    public static final int TICKS_PER_SECOND = 30;
+
+    private static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+
+    private final long startNanos;
+    private long tick = 0;
+
+    /**
+     * Instantiate an animation clock, starting at tick 0 now.
+     */
+    public AnimationClock() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Instantiate an animation clock, starting at tick 0 at a given time.
+     *
+     * @param aStartNanos When the clock starts, in {@link System#nanoTime()} time
+     */
+    public AnimationClock(long aStartNanos) {
+        startNanos = aStartNanos;
+    }
+
+    /**
+     * Advance the clock to the current time. Never goes back.
+     *
+     * @param nowNanos Current time, in {@link System#nanoTime()} time
+     */
+    public void advance(long nowNanos) {
+        tick = Math.max(tick, (nowNanos - startNanos) / TICK_NANOS);
+    }
+
+    /**
+     * Get the current animation tick.
+     *
+     * @return The tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+}
@@ -0,0 +1,180 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.util.LongObjectMap;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * <p>Animation controllers for one type of entity, indexed by the entity's ID so finding an entity's controller does
+ * not scan every controller. Entities are keyed by their long ID, or by a string for entities like players that are
+ * identified by their session.</p>
+ *
+ * <p>Controllers for entities that stop showing up are evicted once they have not been asked for within a grace
+ * period, so the registry does not grow for the length of a match. The grace period lets an entity that drops out of
+ * a game state or two keep its animation instead of restarting it. Controllers are bound to their entity and have no
+ * way to be reset, so only the registry's slot objects are pooled for reuse, not the controllers themselves. Looking
+ * for controllers to evict happens a few times per grace period rather than every frame.</p>
+ *
+ * <p>Meant to be used from the thread that renders only.</p>
+ *
+ * @param <ENTITY_TYPE> Type of the animated entity
+ * @param <CONTROLLER_TYPE> Type of the animation controller
+ * @author Andronikus
+ */
+public class AnimationControllerRegistry<ENTITY_TYPE, CONTROLLER_TYPE> {
+
+    private static final int SLOT_POOL_CAPACITY = 64;
+    private static final int EVICTIONS_PER_GRACE_PERIOD = 4;
+
+    private final Function<ENTITY_TYPE, CONTROLLER_TYPE> controllerFactory;
+    private final long gracePeriodNanos;
+    private final LongObjectMap<Slot<CONTROLLER_TYPE>> slotsById = new LongObjectMap<>(64);
+    private final Map<String, Slot<CONTROLLER_TYPE>> slotsByName = new HashMap<>();
+    private final ArrayDeque<Slot<CONTROLLER_TYPE>> slotPool = new ArrayDeque<>();
+    private final LongObjectMap.IEntryVisitor<Slot<CONTROLLER_TYPE>> evictionVisitor = (id, slot) -> evictIfUnseen(slot);
+
+    private long frameNanos = System.nanoTime();
+    private long lastEvictionNanos = frameNanos;
+    private long evictBeforeNanos;
+    private long evictedCount = 0;
+
+    /**
+     * Instantiate an animation controller registry.
+     *
+     * @param aControllerFactory Creates a controller for an entity that has none
+     * @param aGracePeriodNanos How long a controller is kept after its entity was last seen
+     */
+    public AnimationControllerRegistry(Function<ENTITY_TYPE, CONTROLLER_TYPE> aControllerFactory, long aGracePeriodNanos) {
+        controllerFactory = aControllerFactory;
+        gracePeriodNanos = aGracePeriodNanos;
+    }
+
+    /**
+     * Start a frame. Entities asked for during the frame count as seen at this time.
+     *
+     * @param nowNanos Current time, in {@link System#nanoTime()} time
+     */
+    public void beginFrame(long nowNanos) {
+        frameNanos = nowNanos;
+    }
+
+    /**
+     * Get the controller for an entity, creating one if it has none.
+     *
+     * @param id ID of the entity
+     * @param entity The entity
+     * @return The controller
+     */
+    public CONTROLLER_TYPE getOrCreate(long id, ENTITY_TYPE entity) {
+        Slot<CONTROLLER_TYPE> slot = slotsById.get(id);
+        if (slot == null) {
+            slot = takeSlot(controllerFactory.apply(entity));
+            slotsById.put(id, slot);
+        }
+        slot.lastSeenNanos = frameNanos;
+        return slot.controller;
+    }
+
+    /**
+     * Get the controller for an entity identified by name, creating one if it has none.
+     *
+     * @param name Name of the entity
+     * @param entity The entity
+     * @return The controller
+     */
+    public CONTROLLER_TYPE getOrCreate(String name, ENTITY_TYPE entity) {
+        Slot<CONTROLLER_TYPE> slot = slotsByName.get(name);
+        if (slot == null) {
+            slot = takeSlot(controllerFactory.apply(entity));
+            slotsByName.put(name, slot);
+        }
+        slot.lastSeenNanos = frameNanos;
+        return slot.controller;
+    }
+
+    /**
+     * Evict the controllers of entities that have not been seen within the grace period. Does nothing if controllers
+     * were looked at recently.
+     */
+    public void evictUnseen() {
+        if (frameNanos - lastEvictionNanos < gracePeriodNanos / EVICTIONS_PER_GRACE_PERIOD) {
+            return;
+        }
+        lastEvictionNanos = frameNanos;
+        evictBeforeNanos = frameNanos - gracePeriodNanos;
+        slotsById.removeIf(evictionVisitor);
+
+        if (!slotsByName.isEmpty()) {
+            final Iterator<Slot<CONTROLLER_TYPE>> iterator = slotsByName.values().iterator();
+            while (iterator.hasNext()) {
+                if (evictIfUnseen(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get how many controllers are held.
+     *
+     * @return Controller count
+     */
+    public int size() {
+        return slotsById.size() + slotsByName.size();
+    }
+
+    /**
+     * Get how many controllers have been evicted.
+     *
+     * @return Evicted controller count
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Return a slot to the pool if its entity has not been seen recently.
+     *
+     * @param slot The slot
+     * @return True if the slot was evicted
+     */
+    private boolean evictIfUnseen(Slot<CONTROLLER_TYPE> slot) {
+        if (slot.lastSeenNanos - evictBeforeNanos >= 0) {
+            return false;
+        }
+
+        evictedCount++;
+        slot.controller = null;
+        if (slotPool.size() < SLOT_POOL_CAPACITY) {
+            slotPool.push(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Get a slot from the pool, or a new one if the pool is empty.
+     *
+     * @param controller Controller the slot holds
+     * @return The slot
+     */
+    private Slot<CONTROLLER_TYPE> takeSlot(CONTROLLER_TYPE controller) {
+        final Slot<CONTROLLER_TYPE> pooledSlot = slotPool.poll();
+        final Slot<CONTROLLER_TYPE> slot = pooledSlot == null ? new Slot<>() : pooledSlot;
+        slot.controller = controller;
+        return slot;
+    }
+
+    /**
+     * A held controller and when its entity was last seen.
+     *
+     * @param <CONTROLLER_TYPE> Type of the animation controller
+     */
+    private static class Slot<CONTROLLER_TYPE> {
+        private CONTROLLER_TYPE controller;
+        private long lastSeenNanos;
+    }
+}
@@ -0,0 +1,60 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>Animation of one entity played from a {@link BakedAnimationGraph}. Holds only where the entity is in the graph,
+ * so creating one does no work.</p>
+ *
+ * <p>Transitions are checked when the fields they read changed since they were last checked, or when the state has just
+ * changed so the new state's transitions have not been checked yet. Otherwise a step only counts down the frame.</p>
+ *
+ * @param <CONTEXT_TYPE> Type of the context, which baked animations do not read
+ * @param <ENTITY_TYPE> Type of the animated entity
+ * @author Andronikus
+ */
+public class BakedAnimation<CONTEXT_TYPE, ENTITY_TYPE> implements IAnimation<CONTEXT_TYPE, ENTITY_TYPE> {
+
+    private final BakedAnimationGraph<ENTITY_TYPE> graph;
+    private BakedAnimationState<ENTITY_TYPE, ?> state;
+    private int frame = 0;
+    private long frameTicks = 0;
+    private long dependencies;
+    private boolean transitionsChecked = false;
+
+    /**
+     * Instantiate a baked animation, starting at the first frame of the graph's initial state.
+     *
+     * @param aGraph The graph
+     */
+    public BakedAnimation(BakedAnimationGraph<ENTITY_TYPE> aGraph) {
+        graph = aGraph;
+        state = aGraph.getInitialState();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BufferedImage nextSprite(CONTEXT_TYPE context, ENTITY_TYPE entity) {
+        final long currentDependencies = graph.dependenciesOf(entity);
+        if (!transitionsChecked || currentDependencies != dependencies) {
+            dependencies = currentDependencies;
+            final BakedAnimationState<ENTITY_TYPE, ?> nextState = state.transitionFor(entity);
+            if (nextState != null) {
+                state = nextState;
+                frame = 0;
+                frameTicks = 0;
+            }
+            transitionsChecked = nextState == null;
+        }
+
+        final BufferedImage sprite = state.getSprite(frame);
+        frameTicks++;
+        if (frameTicks >= state.getDuration(frame)) {
+            frameTicks = 0;
+            frame = (frame + 1) % state.getFrameCount();
+        }
+        return sprite;
+    }
+}
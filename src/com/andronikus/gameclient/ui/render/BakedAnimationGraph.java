@@ -0,0 +1,47 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * The states of a baked animation, shared by every entity of a type, along with what their transitions depend on.
+ * Transitions only read a few fields of an entity, so those fields are packed into one value. While the value stays the
+ * same between game states no transition can fire, and none are checked.
+ *
+ * @param <ENTITY_TYPE> Type of the animated entity
+ * @author Andronikus
+ */
+public class BakedAnimationGraph<ENTITY_TYPE> {
+
+    private final BakedAnimationState<ENTITY_TYPE, ?> initialState;
+    private final ToLongFunction<ENTITY_TYPE> dependencies;
+
+    /**
+     * Instantiate a baked animation graph.
+     *
+     * @param anInitialState State every animation starts in
+     * @param aDependencies Packs every field any transition reads into one value
+     */
+    public BakedAnimationGraph(BakedAnimationState<ENTITY_TYPE, ?> anInitialState, ToLongFunction<ENTITY_TYPE> aDependencies) {
+        initialState = anInitialState;
+        dependencies = aDependencies;
+    }
+
+    /**
+     * Get the state every animation starts in.
+     *
+     * @return The initial state
+     */
+    public BakedAnimationState<ENTITY_TYPE, ?> getInitialState() {
+        return initialState;
+    }
+
+    /**
+     * Get the value of the fields transitions read for an entity.
+     *
+     * @param entity The entity
+     * @return The packed fields
+     */
+    public long dependenciesOf(ENTITY_TYPE entity) {
+        return dependencies.applyAsLong(entity);
+    }
+}
@@ -0,0 +1,136 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+/**
+ * <p>A state of a baked animation. Built the same way as a stop motion state, except each frame's sprite is looked up
+ * from the sprite sheet once while building, so playing a frame is an array read. States are shared by every entity
+ * of a type and must not be changed once built.</p>
+ *
+ * <p>States loop their frames. A frame added without a duration is held until the state is left.</p>
+ *
+ * @param <ENTITY_TYPE> Type of the animated entity
+ * @param <SHEET_TYPE> Type of the sprite sheet frames are taken from
+ * @author Andronikus
+ */
+public class BakedAnimationState<ENTITY_TYPE, SHEET_TYPE> {
+
+    private static final long HOLD = Long.MAX_VALUE;
+
+    private final SHEET_TYPE spriteSheet;
+    private final List<Transition<ENTITY_TYPE>> transitions = new ArrayList<>();
+    private BufferedImage[] sprites = new BufferedImage[0];
+    private long[] durations = new long[0];
+
+    /**
+     * Instantiate a baked animation state.
+     *
+     * @param aSpriteSheet Sprite sheet frames are taken from
+     */
+    public BakedAnimationState(SHEET_TYPE aSpriteSheet) {
+        spriteSheet = aSpriteSheet;
+    }
+
+    /**
+     * Add a frame, looking up its sprite now.
+     *
+     * @param duration How many animation ticks the frame lasts, or null to hold it
+     * @param spriteAccessor Gets the sprite from the sheet, given the index of the frame within the state
+     * @return This state
+     */
+    public BakedAnimationState<ENTITY_TYPE, SHEET_TYPE> addFrame(Long duration, BiFunction<SHEET_TYPE, Integer, BufferedImage> spriteAccessor) {
+        final int frame = sprites.length;
+        sprites = Arrays.copyOf(sprites, frame + 1);
+        durations = Arrays.copyOf(durations, frame + 1);
+        sprites[frame] = spriteAccessor.apply(spriteSheet, frame);
+        durations[frame] = duration == null ? HOLD : duration;
+        return this;
+    }
+
+    /**
+     * Create a state this state moves to when a condition holds.
+     *
+     * @param condition The condition
+     * @return The new state
+     */
+    public BakedAnimationState<ENTITY_TYPE, SHEET_TYPE> createTransitionState(Predicate<ENTITY_TYPE> condition) {
+        final BakedAnimationState<ENTITY_TYPE, SHEET_TYPE> state = new BakedAnimationState<>(spriteSheet);
+        createTransition(condition, state);
+        return state;
+    }
+
+    /**
+     * Move from this state to another when a condition holds. Conditions are checked in the order they were added.
+     *
+     * @param condition The condition
+     * @param state The state to move to
+     */
+    public void createTransition(Predicate<ENTITY_TYPE> condition, BakedAnimationState<ENTITY_TYPE, ?> state) {
+        transitions.add(new Transition<>(condition, state));
+    }
+
+    /**
+     * Get the state to move to for an entity.
+     *
+     * @param entity The entity
+     * @return The state of the first transition whose condition holds, or null to stay
+     */
+    BakedAnimationState<ENTITY_TYPE, ?> transitionFor(ENTITY_TYPE entity) {
+        for (int index = 0; index < transitions.size(); index++) {
+            final Transition<ENTITY_TYPE> transition = transitions.get(index);
+            if (transition.condition.test(entity)) {
+                return transition.state;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the count of frames.
+     *
+     * @return The count of frames
+     */
+    int getFrameCount() {
+        return sprites.length;
+    }
+
+    /**
+     * Get the sprite of a frame.
+     *
+     * @param frame The frame
+     * @return The sprite
+     */
+    BufferedImage getSprite(int frame) {
+        return sprites[frame];
+    }
+
+    /**
+     * Get how many animation ticks a frame lasts.
+     *
+     * @param frame The frame
+     * @return Animation ticks, {@link Long#MAX_VALUE} for a held frame
+     */
+    long getDuration(int frame) {
+        return durations[frame];
+    }
+
+    /**
+     * A condition and the state it moves to.
+     *
+     * @param <ENTITY_TYPE> Type of the animated entity
+     */
+    private static class Transition<ENTITY_TYPE> {
+        private final Predicate<ENTITY_TYPE> condition;
+        private final BakedAnimationState<ENTITY_TYPE, ?> state;
+
+        private Transition(Predicate<ENTITY_TYPE> aCondition, BakedAnimationState<ENTITY_TYPE, ?> aState) {
+            condition = aCondition;
+            state = aState;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.ImagesUtil;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Sprite sheet that slices each tile once and hands out the same image every time after. Tiles are copied into images
+ * compatible with the screen when sliced. Instances are shared through {@link SpriteSheetCache}, so they are read from
+ * any thread that renders.
+ *
+ * @author Andronikus
+ */
+public abstract class CachedSpriteSheet extends SpriteSheet {
+
+    private volatile BufferedImage[][] tiles = new BufferedImage[0][];
+
+    /**
+     * Instantiate a sprite sheet with square tiles.
+     *
+     * @param filePath Path to the sheet within the image directory
+     * @param tileSize Width and height of a tile
+     */
+    protected CachedSpriteSheet(String filePath, int tileSize) {
+        super(filePath, tileSize);
+    }
+
+    /**
+     * Instantiate a sprite sheet.
+     *
+     * @param filePath Path to the sheet within the image directory
+     * @param tileWidth Width of a tile
+     * @param tileHeight Height of a tile
+     */
+    protected CachedSpriteSheet(String filePath, int tileWidth, int tileHeight) {
+        super(filePath, tileWidth, tileHeight);
+    }
+
+    /**
+     * Get a tile, slicing it from the sheet the first time it is asked for.
+     *
+     * @param row Row of the tile
+     * @param column Column of the tile
+     * @return The tile
+     */
+    protected BufferedImage getCachedTile(int row, int column) {
+        final BufferedImage[][] currentTiles = tiles;
+        if (row < currentTiles.length && currentTiles[row] != null && column < currentTiles[row].length) {
+            final BufferedImage tile = currentTiles[row][column];
+            if (tile != null) {
+                return tile;
+            }
+        }
+        return sliceTile(row, column);
+    }
+
+    /**
+     * Slice a tile and remember it. Copies the table so readers never see it half updated.
+     *
+     * @param row Row of the tile
+     * @param column Column of the tile
+     * @return The tile
+     */
+    private synchronized BufferedImage sliceTile(int row, int column) {
+        final BufferedImage[][] newTiles = new BufferedImage[Math.max(tiles.length, row + 1)][];
+        for (int index = 0; index < tiles.length; index++) {
+            newTiles[index] = tiles[index];
+        }
+
+        final BufferedImage[] oldRow = newTiles[row];
+        final BufferedImage[] newRow = new BufferedImage[Math.max(oldRow == null ? 0 : oldRow.length, column + 1)];
+        if (oldRow != null) {
+            System.arraycopy(oldRow, 0, newRow, 0, oldRow.length);
+        }
+
+        BufferedImage tile = newRow[column];
+        if (tile == null) {
+            tile = ImagesUtil.toCompatibleImage(getTile(row, column));
+            newRow[column] = tile;
+        }
+
+        newTiles[row] = newRow;
+        tiles = newTiles;
+        return tile;
+    }
+}
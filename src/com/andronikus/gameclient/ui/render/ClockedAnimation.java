@@ -0,0 +1,72 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.animation4j.stopmotion.StopMotionController;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>Animation played by an {@link AnimationClock} instead of by frames painted. Animations, like stop motion
+ * controllers, step one frame count each time they are asked for a sprite, so the animation is stepped once per
+ * animation tick that passed since it was last asked, and the same sprite is handed back when no tick has passed.</p>
+ *
+ * <p>An entity that was not drawn for a while catches up when it is drawn again, up to a limit, so animations of
+ * culled entities keep their timing without being stepped while off screen.</p>
+ *
+ * @param <CONTEXT_TYPE> Type of the context the controller reads, like the game state
+ * @param <ENTITY_TYPE> Type of the animated entity
+ * @author Andronikus
+ */
+public class ClockedAnimation<CONTEXT_TYPE, ENTITY_TYPE> {
+
+    // Entities unseen for longer than this lose their controllers anyway, so there is never more to catch up on
+    private static final long MAX_CATCH_UP_TICKS = 2L * AnimationClock.TICKS_PER_SECOND;
+
+    private final AnimationClock clock;
+    private final IAnimation<CONTEXT_TYPE, ENTITY_TYPE> animation;
+    private BufferedImage sprite = null;
+    private long lastTick;
+
+    /**
+     * Instantiate a clocked animation of a stop motion controller.
+     *
+     * @param aClock Clock the animation is played by
+     * @param aController The controller
+     */
+    public ClockedAnimation(AnimationClock aClock, StopMotionController<CONTEXT_TYPE, ENTITY_TYPE, ?> aController) {
+        this(aClock, aController::nextSprite);
+    }
+
+    /**
+     * Instantiate a clocked animation.
+     *
+     * @param aClock Clock the animation is played by
+     * @param anAnimation The animation
+     */
+    public ClockedAnimation(AnimationClock aClock, IAnimation<CONTEXT_TYPE, ENTITY_TYPE> anAnimation) {
+        clock = aClock;
+        animation = anAnimation;
+    }
+
+    /**
+     * Get the sprite for the clock's current tick.
+     *
+     * @param context The context
+     * @param entity The animated entity
+     * @return The sprite
+     */
+    public BufferedImage sprite(CONTEXT_TYPE context, ENTITY_TYPE entity) {
+        final long tick = clock.getTick();
+        if (sprite == null) {
+            sprite = animation.nextSprite(context, entity);
+            lastTick = tick;
+            return sprite;
+        }
+
+        final long elapsedTicks = Math.min(tick - lastTick, MAX_CATCH_UP_TICKS);
+        for (long step = 0; step < elapsedTicks; step++) {
+            sprite = animation.nextSprite(context, entity);
+        }
+        lastTick = tick;
+        return sprite;
+    }
+}
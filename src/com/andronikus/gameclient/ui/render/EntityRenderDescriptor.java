@@ -0,0 +1,102 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.IMoveable;
+
+import java.awt.image.BufferedImage;
+import java.util.function.Function;
+
+/**
+ * How to draw one type of entity: the layer it goes in, the size and rotation of its sprite, and the animations that
+ * give the sprite. Several descriptors can share a source of entities, like small and large asteroids, each drawing
+ * the entities it picks a layer for.
+ *
+ * @param <ENTITY_TYPE> Type of the entity
+ * @author Andronikus
+ */
+public class EntityRenderDescriptor<ENTITY_TYPE extends IMoveable> {
+
+    private final Function<ENTITY_TYPE, RenderLayer> layerFinder;
+    private final int width;
+    private final int height;
+    private final double rotationOffset;
+    private final AnimationControllerRegistry<ENTITY_TYPE, ClockedAnimation<GameState, ENTITY_TYPE>> animations;
+
+    /**
+     * Instantiate an entity render descriptor.
+     *
+     * @param aLayerFinder Gets the layer to draw an entity in, or null if this descriptor does not draw it
+     * @param aWidth Width the sprite is drawn at, before scaling by the render ratio
+     * @param aHeight Height the sprite is drawn at, before scaling by the render ratio
+     * @param aRotationOffset Added to the entity's rotation on screen, to turn the sprite the way the entity faces
+     * @param anAnimationFactory Creates the animation of an entity that has none
+     * @param aGracePeriodNanos How long an animation is kept after its entity was last seen
+     */
+    public EntityRenderDescriptor(
+        Function<ENTITY_TYPE, RenderLayer> aLayerFinder, int aWidth, int aHeight, double aRotationOffset,
+        Function<ENTITY_TYPE, ClockedAnimation<GameState, ENTITY_TYPE>> anAnimationFactory, long aGracePeriodNanos
+    ) {
+        layerFinder = aLayerFinder;
+        width = aWidth;
+        height = aHeight;
+        rotationOffset = aRotationOffset;
+        animations = new AnimationControllerRegistry<>(anAnimationFactory, aGracePeriodNanos);
+    }
+
+    /**
+     * Get the layer to draw an entity in.
+     *
+     * @param entity The entity
+     * @return The layer, or null if this descriptor does not draw the entity
+     */
+    public RenderLayer layerOf(ENTITY_TYPE entity) {
+        return layerFinder.apply(entity);
+    }
+
+    /**
+     * Get the sprite to draw an entity with this frame.
+     *
+     * @param state The game state
+     * @param entity The entity
+     * @return The sprite
+     */
+    public BufferedImage spriteOf(GameState state, ENTITY_TYPE entity) {
+        return animations.getOrCreate(entity.getMoveableId(), entity).sprite(state, entity);
+    }
+
+    /**
+     * Get the width the sprite is drawn at.
+     *
+     * @return Width before scaling by the render ratio
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Get the height the sprite is drawn at.
+     *
+     * @return Height before scaling by the render ratio
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Get what is added to the entity's rotation on screen.
+     *
+     * @return Rotation offset in radians
+     */
+    public double getRotationOffset() {
+        return rotationOffset;
+    }
+
+    /**
+     * Get the animations of the entities drawn.
+     *
+     * @return The animations
+     */
+    public AnimationControllerRegistry<ENTITY_TYPE, ClockedAnimation<GameState, ENTITY_TYPE>> getAnimations() {
+        return animations;
+    }
+}
@@ -0,0 +1,158 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.IMoveable;
+import com.andronikus.gameclient.engine.SampledFrame;
+import com.andronikus.gameclient.engine.spatial.GameStateIndex;
+import com.andronikus.gameclient.engine.spatial.SpatialGrid;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>Sorts the entities of a sampled game state into the layers they are drawn in. Each source of entities is a list of
+ * the sampled state and the spatial grid of the received state it lines up with, culled to the screen once per frame.
+ * Each visible entity is handed to the first of the source's descriptors that picks a layer for it, which also steps
+ * its animation, and is added to that layer's bucket. The window then draws the buckets in layer order.</p>
+ *
+ * <p>Adding a type of entity is registering a source or a descriptor, not another loop in the window. Meant to be used
+ * from the thread that renders only.</p>
+ *
+ * @author Andronikus
+ */
+public class EntityRenderPipeline {
+
+    private static final RenderLayer[] LAYERS = RenderLayer.values();
+
+    private final List<Source<?>> sources = new ArrayList<>();
+    private final List<EntityRenderDescriptor<?>> descriptors = new ArrayList<>();
+    private final RenderBucket[] buckets = new RenderBucket[LAYERS.length];
+    private final BitSet visible = new BitSet();
+
+    /**
+     * Instantiate an empty entity render pipeline.
+     */
+    public EntityRenderPipeline() {
+        for (int index = 0; index < buckets.length; index++) {
+            buckets[index] = new RenderBucket();
+        }
+    }
+
+    /**
+     * Add a source of entities and the descriptors that draw them. Sources are collected in the order they are added.
+     *
+     * @param grid Gets the grid of the entities from the game state index
+     * @param entities Gets the entities from the game state
+     * @param sourceDescriptors Descriptors of the entities, asked in order which draws each entity
+     * @param <ENTITY_TYPE> Type of the entities
+     */
+    @SafeVarargs
+    public final <ENTITY_TYPE extends IMoveable> void addSource(
+        Function<GameStateIndex, SpatialGrid<ENTITY_TYPE>> grid,
+        Function<GameState, List<ENTITY_TYPE>> entities,
+        EntityRenderDescriptor<ENTITY_TYPE>... sourceDescriptors
+    ) {
+        final Source<ENTITY_TYPE> source = new Source<>(grid, entities);
+        for (EntityRenderDescriptor<ENTITY_TYPE> descriptor : sourceDescriptors) {
+            source.descriptors.add(descriptor);
+            source.cullWidth = Math.max(source.cullWidth, descriptor.getWidth());
+            source.cullHeight = Math.max(source.cullHeight, descriptor.getHeight());
+            descriptors.add(descriptor);
+        }
+        sources.add(source);
+    }
+
+    /**
+     * Start a frame. Entities collected during the frame count as seen at this time.
+     *
+     * @param nowNanos Current time, in {@link System#nanoTime()} time
+     */
+    public void beginFrame(long nowNanos) {
+        for (int index = 0; index < descriptors.size(); index++) {
+            descriptors.get(index).getAnimations().beginFrame(nowNanos);
+        }
+    }
+
+    /**
+     * Empty every bucket and fill them with the visible entities of a sampled game state.
+     *
+     * @param frame The sampled frame
+     * @param culler Culler, with its viewport set for the frame
+     */
+    public void collect(SampledFrame frame, ViewportCuller culler) {
+        for (int index = 0; index < buckets.length; index++) {
+            buckets[index].clear();
+        }
+        for (int index = 0; index < sources.size(); index++) {
+            sources.get(index).collect(frame, culler, visible, buckets);
+        }
+    }
+
+    /**
+     * Get the entities to draw in a layer this frame.
+     *
+     * @param layer The layer
+     * @return The layer's bucket
+     */
+    public RenderBucket getBucket(RenderLayer layer) {
+        return buckets[layer.ordinal()];
+    }
+
+    /**
+     * Evict the animations of entities that have not been seen within the grace period.
+     */
+    public void evictUnseen() {
+        for (int index = 0; index < descriptors.size(); index++) {
+            descriptors.get(index).getAnimations().evictUnseen();
+        }
+    }
+
+    /**
+     * A list of entities, its spatial grid and the descriptors that draw them.
+     *
+     * @param <ENTITY_TYPE> Type of the entities
+     */
+    private static class Source<ENTITY_TYPE extends IMoveable> {
+        private final Function<GameStateIndex, SpatialGrid<ENTITY_TYPE>> grid;
+        private final Function<GameState, List<ENTITY_TYPE>> entities;
+        private final List<EntityRenderDescriptor<ENTITY_TYPE>> descriptors = new ArrayList<>();
+        private int cullWidth = 0;
+        private int cullHeight = 0;
+
+        private Source(Function<GameStateIndex, SpatialGrid<ENTITY_TYPE>> aGrid, Function<GameState, List<ENTITY_TYPE>> anEntities) {
+            grid = aGrid;
+            entities = anEntities;
+        }
+
+        /**
+         * Add the visible entities of the source to the buckets of their layers.
+         *
+         * @param frame The sampled frame
+         * @param culler Culler, with its viewport set for the frame
+         * @param visible Scratch set of visible entities
+         * @param buckets Bucket of each layer
+         */
+        private void collect(SampledFrame frame, ViewportCuller culler, BitSet visible, RenderBucket[] buckets) {
+            final GameState state = frame.getGameState();
+            final List<ENTITY_TYPE> placedEntities = entities.apply(state);
+            final SpatialGrid<ENTITY_TYPE> entityGrid = grid.apply(frame.getSourceFrame().getStateIndex());
+            culler.collectVisible(entityGrid, placedEntities, frame.getDisplacement(), cullWidth, cullHeight, visible);
+
+            for (int index = visible.nextSetBit(0); index >= 0; index = visible.nextSetBit(index + 1)) {
+                final ENTITY_TYPE entity = placedEntities.get(index);
+                for (int descriptorIndex = 0; descriptorIndex < descriptors.size(); descriptorIndex++) {
+                    final EntityRenderDescriptor<ENTITY_TYPE> descriptor = descriptors.get(descriptorIndex);
+                    final RenderLayer layer = descriptor.layerOf(entity);
+                    if (layer != null) {
+                        final BufferedImage sprite = descriptor.spriteOf(state, entity);
+                        buckets[layer.ordinal()].add(entity, sprite, descriptor);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Thread that builds frames when asked. Asking while a frame is being built queues one more build, and asking again
+ * before that starts does not queue another, so the worker never falls behind by more than a frame.
+ *
+ * @author Andronikus
+ */
+public class FrameBuildWorker implements Runnable {
+
+    private static final Logger LOGGER = Logger.getLogger("FrameBuildWorker");
+
+    private final Runnable buildAction;
+    private final AtomicBoolean requested = new AtomicBoolean(false);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Instantiate a frame build worker and start its thread.
+     *
+     * @param aBuildAction Builds a frame
+     */
+    public FrameBuildWorker(Runnable aBuildAction) {
+        buildAction = aBuildAction;
+        thread = new Thread(this, "FrameBuildWorker");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ask for a frame to be built.
+     */
+    public void request() {
+        requested.set(true);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Stop the worker for good. A frame being built is finished first.
+     */
+    public void terminate() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        while (running) {
+            if (!requested.getAndSet(false)) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            try {
+                buildAction.run();
+            } catch (RuntimeException exception) {
+                LOGGER.log(Level.SEVERE, "Building a frame failed.", exception);
+            }
+        }
+    }
+}
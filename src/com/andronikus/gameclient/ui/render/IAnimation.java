@@ -0,0 +1,23 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An animation of one entity, stepped one animation tick at a time.
+ *
+ * @param <CONTEXT_TYPE> Type of the context the animation reads, like the game state
+ * @param <ENTITY_TYPE> Type of the animated entity
+ * @author Andronikus
+ */
+@FunctionalInterface
+public interface IAnimation<CONTEXT_TYPE, ENTITY_TYPE> {
+
+    /**
+     * Step the animation one tick and get the sprite to draw.
+     *
+     * @param context The context
+     * @param entity The animated entity
+     * @return The sprite
+     */
+    BufferedImage nextSprite(CONTEXT_TYPE context, ENTITY_TYPE entity);
+}
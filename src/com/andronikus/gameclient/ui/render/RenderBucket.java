@@ -0,0 +1,90 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.game.model.server.IMoveable;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Entities to draw in one layer this frame, with the sprite and descriptor each is drawn with. The arrays are kept
+ * between frames and only grow, so filling a bucket does not allocate once it is big enough.
+ *
+ * @author Andronikus
+ */
+public class RenderBucket {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private IMoveable[] entities = new IMoveable[INITIAL_CAPACITY];
+    private BufferedImage[] sprites = new BufferedImage[INITIAL_CAPACITY];
+    private EntityRenderDescriptor<?>[] descriptors = new EntityRenderDescriptor<?>[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Add an entity to draw.
+     *
+     * @param entity The entity
+     * @param sprite Sprite to draw it with
+     * @param descriptor How to draw it
+     */
+    void add(IMoveable entity, BufferedImage sprite, EntityRenderDescriptor<?> descriptor) {
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size * 2);
+            sprites = Arrays.copyOf(sprites, size * 2);
+            descriptors = Arrays.copyOf(descriptors, size * 2);
+        }
+        entities[size] = entity;
+        sprites[size] = sprite;
+        descriptors[size] = descriptor;
+        size++;
+    }
+
+    /**
+     * Empty the bucket, letting go of the entities so old game states can be collected.
+     */
+    void clear() {
+        Arrays.fill(entities, 0, size, null);
+        Arrays.fill(sprites, 0, size, null);
+        Arrays.fill(descriptors, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Get how many entities are in the bucket.
+     *
+     * @return Entity count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get an entity.
+     *
+     * @param index Index of the entity in draw order
+     * @return The entity
+     */
+    public IMoveable getEntity(int index) {
+        return entities[index];
+    }
+
+    /**
+     * Get the sprite an entity is drawn with.
+     *
+     * @param index Index of the entity in draw order
+     * @return The sprite
+     */
+    public BufferedImage getSprite(int index) {
+        return sprites[index];
+    }
+
+    /**
+     * Get how an entity is drawn.
+     *
+     * @param index Index of the entity in draw order
+     * @return The descriptor
+     */
+    public EntityRenderDescriptor<?> getDescriptor(int index) {
+        return descriptors[index];
+    }
+}
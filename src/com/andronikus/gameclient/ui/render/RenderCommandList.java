@@ -0,0 +1,349 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.util.TripleBuffer;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * <p>Flat list of what to draw in a frame, in draw order. Every position, rotation and sprite is worked out when the
+ * list is built, so drawing the list is only blitting. The arrays are kept between frames and only grow, so building a
+ * list does not allocate once it is big enough.</p>
+ *
+ * <p>A command is one of:</p>
+ * <ul>
+ *     <li>{@link #SPRITE}: a sprite centred on a point, either as is or transformed by a rotation and scale</li>
+ *     <li>{@link #ENTITY_OVERLAY}: debug text and collision box of an entity</li>
+ *     <li>{@link #PLAYER_OVERLAY}: debug text and collision box of the main player</li>
+ * </ul>
+ *
+ * <p>A list is owned by one thread at a time, handed between them through a {@link TripleBuffer}.</p>
+ *
+ * @author Andronikus
+ */
+public class RenderCommandList {
+
+    public static final byte SPRITE = 0;
+    public static final byte ENTITY_OVERLAY = 1;
+    public static final byte PLAYER_OVERLAY = 2;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] kinds = new byte[INITIAL_CAPACITY];
+    private byte[] layers = new byte[INITIAL_CAPACITY];
+    private BufferedImage[] sprites = new BufferedImage[INITIAL_CAPACITY];
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private int[] widths = new int[INITIAL_CAPACITY];
+    private int[] heights = new int[INITIAL_CAPACITY];
+    private boolean[] transformed = new boolean[INITIAL_CAPACITY];
+    private double[] rotations = new double[INITIAL_CAPACITY];
+    private double[] scaleXs = new double[INITIAL_CAPACITY];
+    private double[] scaleYs = new double[INITIAL_CAPACITY];
+    private long[] serverIds = new long[INITIAL_CAPACITY];
+    private long[] worldXs = new long[INITIAL_CAPACITY];
+    private long[] worldYs = new long[INITIAL_CAPACITY];
+    private double[] angles = new double[INITIAL_CAPACITY];
+    private boolean[] collided = new boolean[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /**
+     * Add a sprite drawn as is, centred on a point.
+     *
+     * @param layer Layer the sprite is drawn in
+     * @param sprite The sprite, already rotated and scaled
+     * @param x X on screen of the sprite's centre
+     * @param y Y on screen of the sprite's centre
+     * @param renderWidth Width the sprite takes up on screen
+     * @param renderHeight Height the sprite takes up on screen
+     */
+    public void addSprite(RenderLayer layer, BufferedImage sprite, int x, int y, int renderWidth, int renderHeight) {
+        final int index = add(SPRITE, layer, x, y, renderWidth, renderHeight);
+        sprites[index] = sprite;
+        transformed[index] = false;
+    }
+
+    /**
+     * Add a sprite drawn rotated about its centre and scaled.
+     *
+     * @param layer Layer the sprite is drawn in
+     * @param sprite The sprite
+     * @param x X on screen of the sprite's centre
+     * @param y Y on screen of the sprite's centre
+     * @param renderWidth Width the sprite takes up on screen before rotating
+     * @param renderHeight Height the sprite takes up on screen before rotating
+     * @param rotation Rotation in radians
+     * @param scaleX Scale across
+     * @param scaleY Scale down
+     */
+    public void addTransformedSprite(
+        RenderLayer layer, BufferedImage sprite, int x, int y, int renderWidth, int renderHeight,
+        double rotation, double scaleX, double scaleY
+    ) {
+        final int index = add(SPRITE, layer, x, y, renderWidth, renderHeight);
+        sprites[index] = sprite;
+        transformed[index] = true;
+        rotations[index] = rotation;
+        scaleXs[index] = scaleX;
+        scaleYs[index] = scaleY;
+    }
+
+    /**
+     * Add the debug overlay of an entity.
+     *
+     * @param layer Layer the entity is drawn in
+     * @param x X on screen of the entity's centre
+     * @param y Y on screen of the entity's centre
+     * @param renderWidth Width the entity takes up on screen
+     * @param renderHeight Height the entity takes up on screen
+     * @param serverId ID of the entity according to the server
+     * @param worldX X of the entity in the world
+     * @param worldY Y of the entity in the world
+     * @param angle Angle of the entity in the world
+     * @param isCollided Whether the server flagged the entity as colliding
+     */
+    public void addEntityOverlay(
+        RenderLayer layer, int x, int y, int renderWidth, int renderHeight,
+        long serverId, long worldX, long worldY, double angle, boolean isCollided
+    ) {
+        final int index = add(ENTITY_OVERLAY, layer, x, y, renderWidth, renderHeight);
+        serverIds[index] = serverId;
+        worldXs[index] = worldX;
+        worldYs[index] = worldY;
+        angles[index] = angle;
+        collided[index] = isCollided;
+    }
+
+    /**
+     * Add the debug overlay of the main player.
+     *
+     * @param x X on screen of the player's centre
+     * @param y Y on screen of the player's centre
+     * @param boxWidth Width the player's hitbox takes up on screen
+     * @param boxHeight Height the player's hitbox takes up on screen
+     * @param isCollided Whether the server flagged the player as colliding
+     */
+    public void addPlayerOverlay(int x, int y, int boxWidth, int boxHeight, boolean isCollided) {
+        final int index = add(PLAYER_OVERLAY, RenderLayer.PLAYERS, x, y, boxWidth, boxHeight);
+        collided[index] = isCollided;
+    }
+
+    /**
+     * Remove every command, letting go of the sprites.
+     */
+    public void clear() {
+        Arrays.fill(sprites, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Append a command, growing the arrays if they are full.
+     *
+     * @return Index of the command
+     */
+    private int add(byte kind, RenderLayer layer, int x, int y, int width, int height) {
+        if (size == kinds.length) {
+            grow();
+        }
+        final int index = size++;
+        kinds[index] = kind;
+        layers[index] = (byte) layer.ordinal();
+        xs[index] = x;
+        ys[index] = y;
+        widths[index] = width;
+        heights[index] = height;
+        return index;
+    }
+
+    /**
+     * Double the capacity of every array.
+     */
+    private void grow() {
+        final int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        layers = Arrays.copyOf(layers, capacity);
+        sprites = Arrays.copyOf(sprites, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        widths = Arrays.copyOf(widths, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        transformed = Arrays.copyOf(transformed, capacity);
+        rotations = Arrays.copyOf(rotations, capacity);
+        scaleXs = Arrays.copyOf(scaleXs, capacity);
+        scaleYs = Arrays.copyOf(scaleYs, capacity);
+        serverIds = Arrays.copyOf(serverIds, capacity);
+        worldXs = Arrays.copyOf(worldXs, capacity);
+        worldYs = Arrays.copyOf(worldYs, capacity);
+        angles = Arrays.copyOf(angles, capacity);
+        collided = Arrays.copyOf(collided, capacity);
+    }
+
+    /**
+     * Get how many commands there are.
+     *
+     * @return Command count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the kind of a command.
+     *
+     * @param index Index of the command
+     * @return {@link #SPRITE}, {@link #ENTITY_OVERLAY} or {@link #PLAYER_OVERLAY}
+     */
+    public byte getKind(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * Get the layer of a command.
+     *
+     * @param index Index of the command
+     * @return Ordinal of the layer
+     */
+    public byte getLayer(int index) {
+        return layers[index];
+    }
+
+    /**
+     * Get the sprite of a sprite command.
+     *
+     * @param index Index of the command
+     * @return The sprite
+     */
+    public BufferedImage getSprite(int index) {
+        return sprites[index];
+    }
+
+    /**
+     * Get the X on screen of a command's centre.
+     *
+     * @param index Index of the command
+     * @return The X
+     */
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    /**
+     * Get the Y on screen of a command's centre.
+     *
+     * @param index Index of the command
+     * @return The Y
+     */
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    /**
+     * Get the width a command takes up on screen.
+     *
+     * @param index Index of the command
+     * @return The width
+     */
+    public int getWidth(int index) {
+        return widths[index];
+    }
+
+    /**
+     * Get the height a command takes up on screen.
+     *
+     * @param index Index of the command
+     * @return The height
+     */
+    public int getHeight(int index) {
+        return heights[index];
+    }
+
+    /**
+     * Check whether a sprite command is drawn transformed.
+     *
+     * @param index Index of the command
+     * @return True if the sprite is rotated and scaled when drawn
+     */
+    public boolean isTransformed(int index) {
+        return transformed[index];
+    }
+
+    /**
+     * Get the rotation of a transformed sprite command.
+     *
+     * @param index Index of the command
+     * @return Rotation in radians
+     */
+    public double getRotation(int index) {
+        return rotations[index];
+    }
+
+    /**
+     * Get the scale across of a transformed sprite command.
+     *
+     * @param index Index of the command
+     * @return The scale
+     */
+    public double getScaleX(int index) {
+        return scaleXs[index];
+    }
+
+    /**
+     * Get the scale down of a transformed sprite command.
+     *
+     * @param index Index of the command
+     * @return The scale
+     */
+    public double getScaleY(int index) {
+        return scaleYs[index];
+    }
+
+    /**
+     * Get the server ID of an entity overlay command.
+     *
+     * @param index Index of the command
+     * @return The ID
+     */
+    public long getServerId(int index) {
+        return serverIds[index];
+    }
+
+    /**
+     * Get the world X of an entity overlay command.
+     *
+     * @param index Index of the command
+     * @return The X
+     */
+    public long getWorldX(int index) {
+        return worldXs[index];
+    }
+
+    /**
+     * Get the world Y of an entity overlay command.
+     *
+     * @param index Index of the command
+     * @return The Y
+     */
+    public long getWorldY(int index) {
+        return worldYs[index];
+    }
+
+    /**
+     * Get the world angle of an entity overlay command.
+     *
+     * @param index Index of the command
+     * @return The angle
+     */
+    public double getAngle(int index) {
+        return angles[index];
+    }
+
+    /**
+     * Check whether an overlay command's entity was flagged as colliding.
+     *
+     * @param index Index of the command
+     * @return True if colliding
+     */
+    public boolean isCollided(int index) {
+        return collided[index];
+    }
+}
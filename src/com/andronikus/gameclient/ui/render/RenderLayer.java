@@ -0,0 +1,17 @@
+package com.andronikus.gameclient.ui.render;
+
+/**
+ * Layers entities are drawn in, from the bottom up. Entities in a layer are drawn in the order they were collected.
+ *
+ * @author Andronikus
+ */
+public enum RenderLayer {
+    MOVING_LASERS,
+    BLACK_HOLES,
+    PORTALS,
+    // Players are drawn by the window, with their trackers and the main player's overlays
+    PLAYERS,
+    SNAKES,
+    ASTEROIDS,
+    STOPPED_LASERS
+}
@@ -0,0 +1,239 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Sprites rendered ahead of time at a fixed set of angles and at the current render ratio, so drawing one is a
+ * plain blit instead of a transformed one. The full turn is split into angle buckets and a sprite is drawn at the
+ * nearest bucket.</p>
+ *
+ * <p>Rotations are rendered on a background thread the first time they are asked for, and again whenever the render
+ * ratio changes. Until a rotation is ready the cache answers with nothing and the caller draws with the exact
+ * transform. Sprites are identified by instance, which is stable since sheets come from {@link SpriteSheetCache}.
+ * Rendered rotations stop being added once they take up the pixel budget.</p>
+ *
+ * @author Andronikus
+ */
+public class RotatedSpriteCache {
+
+    private static final int NOT_REQUESTED = 0;
+    private static final int REQUESTED = 1;
+    private static final double FULL_TURN = Math.PI * 2;
+
+    private final int angleBuckets;
+    private final long pixelBudget;
+    private final ExecutorService builder;
+    private volatile Generation generation;
+
+    /**
+     * Instantiate a rotated sprite cache.
+     *
+     * @param anAngleBuckets How many angles the full turn is split into
+     * @param aPixelBudget Most pixels of rendered rotations to hold
+     */
+    public RotatedSpriteCache(int anAngleBuckets, long aPixelBudget) {
+        if (anAngleBuckets <= 0) {
+            throw new IllegalArgumentException("Angle bucket count must be positive, was " + anAngleBuckets + ".");
+        }
+        angleBuckets = anAngleBuckets;
+        pixelBudget = aPixelBudget;
+        generation = new Generation(1.0, 1.0);
+        builder = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "RotatedSpriteCacheBuilder");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the render ratio rotations are rendered at. When it changes, every rotation rendered so far is rendered again
+     * at the new ratio in the background.
+     *
+     * @param widthScale Width scale of the render ratio
+     * @param heightScale Height scale of the render ratio
+     */
+    public synchronized void setScale(double widthScale, double heightScale) {
+        final Generation oldGeneration = generation;
+        if (oldGeneration.widthScale == widthScale && oldGeneration.heightScale == heightScale) {
+            return;
+        }
+
+        final Generation newGeneration = new Generation(widthScale, heightScale);
+        generation = newGeneration;
+        oldGeneration.rotationSets.values().forEach(oldSet -> {
+            final RotationSet newSet = newGeneration.rotationSetFor(oldSet.sprite, oldSet.width, oldSet.height);
+            for (int bucket = 0; bucket < angleBuckets; bucket++) {
+                if (oldSet.images.get(bucket) != null) {
+                    requestBuild(newGeneration, newSet, bucket);
+                }
+            }
+        });
+    }
+
+    /**
+     * Get a sprite rendered at about the given rotation. Draw it centred on where the sprite's centre goes.
+     *
+     * @param sprite The sprite
+     * @param width Width the sprite is rendered at, before scaling by the render ratio
+     * @param height Height the sprite is rendered at, before scaling by the render ratio
+     * @param rotation Rotation in radians, as passed to {@link AffineTransform#rotate(double)}
+     * @param widthScale Width scale the caller is rendering at
+     * @param heightScale Height scale the caller is rendering at
+     * @return The rendered rotation, or null if it is not ready, in which case the caller draws the sprite itself
+     */
+    public BufferedImage get(
+        BufferedImage sprite, int width, int height, double rotation, double widthScale, double heightScale
+    ) {
+        final Generation currentGeneration = generation;
+        if (currentGeneration.widthScale != widthScale || currentGeneration.heightScale != heightScale) {
+            return null;
+        }
+
+        final RotationSet rotationSet = currentGeneration.rotationSetFor(sprite, width, height);
+        if (rotationSet.width != width || rotationSet.height != height) {
+            // Drawn at more than one size, only the first is cached
+            return null;
+        }
+
+        final int bucket = bucketFor(rotation);
+        final BufferedImage rotated = rotationSet.images.get(bucket);
+        if (rotated == null) {
+            requestBuild(currentGeneration, rotationSet, bucket);
+        }
+        return rotated;
+    }
+
+    /**
+     * Stop the background builder.
+     */
+    public void terminate() {
+        builder.shutdownNow();
+    }
+
+    /**
+     * Get the angle bucket nearest a rotation.
+     *
+     * @param rotation The rotation in radians
+     * @return The bucket
+     */
+    private int bucketFor(double rotation) {
+        final double turns = rotation / FULL_TURN;
+        final double fraction = turns - Math.floor(turns);
+        return (int) Math.round(fraction * angleBuckets) % angleBuckets;
+    }
+
+    /**
+     * Queue a rotation to be rendered unless it already is.
+     *
+     * @param buildGeneration Generation the rotation belongs to
+     * @param rotationSet The sprite's rotations
+     * @param bucket Angle bucket to render
+     */
+    private void requestBuild(Generation buildGeneration, RotationSet rotationSet, int bucket) {
+        if (buildGeneration.pixels.get() >= pixelBudget) {
+            return;
+        }
+        if (!rotationSet.requested.compareAndSet(bucket, NOT_REQUESTED, REQUESTED)) {
+            return;
+        }
+
+        builder.execute(() -> {
+            // Rotations for a ratio that is no longer current are not worth rendering
+            if (generation != buildGeneration) {
+                return;
+            }
+            final BufferedImage rotated = render(rotationSet, bucket, buildGeneration.widthScale, buildGeneration.heightScale);
+            buildGeneration.pixels.addAndGet((long) rotated.getWidth() * rotated.getHeight());
+            rotationSet.images.set(bucket, rotated);
+        });
+    }
+
+    /**
+     * Render a sprite at an angle bucket. Mirrors the transform used to draw sprites directly: scaled, offset by half
+     * the render size, then rotated about the drawing point, which becomes the centre of the rendered image.
+     *
+     * @param rotationSet The sprite's rotations
+     * @param bucket Angle bucket to render
+     * @param widthScale Width scale of the render ratio
+     * @param heightScale Height scale of the render ratio
+     * @return The rendered rotation
+     */
+    private BufferedImage render(RotationSet rotationSet, int bucket, double widthScale, double heightScale) {
+        final BufferedImage sprite = rotationSet.sprite;
+        final int renderWidth = (int) (widthScale * (double) rotationSet.width);
+        final int renderHeight = (int) (heightScale * (double) rotationSet.height);
+        final double left = -(renderWidth / 2);
+        final double top = -(renderHeight / 2);
+        final double right = left + sprite.getWidth() * widthScale;
+        final double bottom = top + sprite.getHeight() * heightScale;
+        final double radius = Math.sqrt(Math.max(
+            Math.max(left * left + top * top, right * right + top * top),
+            Math.max(left * left + bottom * bottom, right * right + bottom * bottom)
+        ));
+
+        final int center = (int) Math.ceil(radius) + 1;
+        final BufferedImage rotated = new BufferedImage(center * 2, center * 2, BufferedImage.TYPE_INT_ARGB_PRE);
+        final Graphics2D graphics = rotated.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+
+        final AffineTransform transform = new AffineTransform();
+        transform.translate(center, center);
+        transform.rotate(FULL_TURN * bucket / angleBuckets);
+        transform.translate(left, top);
+        transform.scale(widthScale, heightScale);
+        graphics.drawImage(sprite, transform, null);
+        graphics.dispose();
+        return rotated;
+    }
+
+    /**
+     * Rotations rendered at one render ratio.
+     */
+    private class Generation {
+        private final double widthScale;
+        private final double heightScale;
+        private final ConcurrentHashMap<BufferedImage, RotationSet> rotationSets = new ConcurrentHashMap<>();
+        private final AtomicLong pixels = new AtomicLong(0);
+
+        private Generation(double aWidthScale, double aHeightScale) {
+            widthScale = aWidthScale;
+            heightScale = aHeightScale;
+        }
+
+        private RotationSet rotationSetFor(BufferedImage sprite, int width, int height) {
+            final RotationSet existingSet = rotationSets.get(sprite);
+            if (existingSet != null) {
+                return existingSet;
+            }
+            return rotationSets.computeIfAbsent(sprite, key -> new RotationSet(key, width, height));
+        }
+    }
+
+    /**
+     * Rendered rotations of one sprite.
+     */
+    private class RotationSet {
+        private final BufferedImage sprite;
+        private final int width;
+        private final int height;
+        private final AtomicReferenceArray<BufferedImage> images = new AtomicReferenceArray<>(angleBuckets);
+        private final AtomicIntegerArray requested = new AtomicIntegerArray(angleBuckets);
+
+        private RotationSet(BufferedImage aSprite, int aWidth, int aHeight) {
+            sprite = aSprite;
+            width = aWidth;
+            height = aHeight;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.gameclient.ui.render.asteroid.LargeAsteroidSpriteSheet;
+import com.andronikus.gameclient.ui.render.asteroid.SmallAsteroidSpriteSheet;
+import com.andronikus.gameclient.ui.render.blackhole.MicroBlackHoleSpriteSheet;
+import com.andronikus.gameclient.ui.render.hud.ShieldSpriteSheet;
+import com.andronikus.gameclient.ui.render.hud.TrackerSpriteSheet;
+import com.andronikus.gameclient.ui.render.laser.LaserSpriteSheet;
+import com.andronikus.gameclient.ui.render.player.PlayerSpriteSheet;
+import com.andronikus.gameclient.ui.render.portal.PortalSpriteSheet;
+import com.andronikus.gameclient.ui.render.snake.SnakeSpriteSheet;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Process wide cache of sprite sheets. Each sheet is read from disk once and the same instance is handed to every
+ * animation controller and renderer that asks for it, so creating a controller never touches the disk.
+ *
+ * @author Andronikus
+ */
+public class SpriteSheetCache {
+
+    private static final Logger LOGGER = Logger.getLogger("SpriteSheetCache");
+
+    private static final Map<Class<? extends CachedSpriteSheet>, Supplier<? extends CachedSpriteSheet>> LOADERS;
+    private static final ConcurrentHashMap<Class<? extends CachedSpriteSheet>, CachedSpriteSheet> SHEETS = new ConcurrentHashMap<>();
+
+    static {
+        final Map<Class<? extends CachedSpriteSheet>, Supplier<? extends CachedSpriteSheet>> loaders = new LinkedHashMap<>();
+        loaders.put(PlayerSpriteSheet.class, PlayerSpriteSheet::new);
+        loaders.put(LaserSpriteSheet.class, LaserSpriteSheet::new);
+        loaders.put(SmallAsteroidSpriteSheet.class, SmallAsteroidSpriteSheet::new);
+        loaders.put(LargeAsteroidSpriteSheet.class, LargeAsteroidSpriteSheet::new);
+        loaders.put(SnakeSpriteSheet.class, SnakeSpriteSheet::new);
+        loaders.put(PortalSpriteSheet.class, PortalSpriteSheet::new);
+        loaders.put(MicroBlackHoleSpriteSheet.class, MicroBlackHoleSpriteSheet::new);
+        loaders.put(ShieldSpriteSheet.class, ShieldSpriteSheet::new);
+        loaders.put(TrackerSpriteSheet.class, TrackerSpriteSheet::new);
+        LOADERS = Collections.unmodifiableMap(loaders);
+    }
+
+    private SpriteSheetCache() {}
+
+    /**
+     * Load every known sprite sheet now, so none is read from disk mid game.
+     */
+    public static void preload() {
+        final long startNanos = System.nanoTime();
+        LOADERS.keySet().forEach(SpriteSheetCache::get);
+        LOGGER.info("Loaded " + LOADERS.size() + " sprite sheets in " + (System.nanoTime() - startNanos) / 1_000_000 + "ms.");
+    }
+
+    /**
+     * Get the shared instance of a sprite sheet, loading it if this is the first time it is asked for.
+     *
+     * @param sheetType Type of the sprite sheet
+     * @param <SHEET_TYPE> Type of the sprite sheet
+     * @return The sprite sheet
+     */
+    public static <SHEET_TYPE extends CachedSpriteSheet> SHEET_TYPE get(Class<SHEET_TYPE> sheetType) {
+        final CachedSpriteSheet sheet = SHEETS.computeIfAbsent(sheetType, type -> {
+            final Supplier<? extends CachedSpriteSheet> loader = LOADERS.get(type);
+            if (loader == null) {
+                throw new IllegalArgumentException("No sprite sheet registered for " + type.getSimpleName() + ".");
+            }
+            return loader.get();
+        });
+        return sheetType.cast(sheet);
+    }
+}
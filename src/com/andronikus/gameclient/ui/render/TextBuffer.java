@@ -0,0 +1,126 @@
+package com.andronikus.gameclient.ui.render;
+
+import java.awt.Graphics;
+
+/**
+ * Reusable buffer for text drawn every frame, so numbers and labels are put together without creating strings. Clear
+ * it, append to it, then draw it.
+ *
+ * @author Andronikus
+ */
+public class TextBuffer {
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private char[] chars = new char[64];
+    private int length = 0;
+
+    /**
+     * Empty the buffer.
+     *
+     * @return This buffer
+     */
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Append text.
+     *
+     * @param text The text, appended as "null" if null
+     * @return This buffer
+     */
+    public TextBuffer append(String text) {
+        final String textToAppend = text == null ? "null" : text;
+        ensureCapacity(length + textToAppend.length());
+        textToAppend.getChars(0, textToAppend.length(), chars, length);
+        length += textToAppend.length();
+        return this;
+    }
+
+    /**
+     * Append a whole number.
+     *
+     * @param value The number
+     * @return This buffer
+     */
+    public TextBuffer append(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+
+        ensureCapacity(length + 20);
+        if (value < 0) {
+            chars[length++] = '-';
+            value = -value;
+        }
+
+        final int start = length;
+        do {
+            chars[length++] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        // Digits come out least significant first
+        for (int left = start, right = length - 1; left < right; left++, right--) {
+            final char swap = chars[left];
+            chars[left] = chars[right];
+            chars[right] = swap;
+        }
+        return this;
+    }
+
+    /**
+     * Append a number with a fixed count of decimal places, rounded half up like {@link String#format}.
+     *
+     * @param value The number
+     * @param decimals Decimal places, at most 6
+     * @return This buffer
+     */
+    public TextBuffer append(double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(Double.isNaN(value) ? "NaN" : value > 0 ? "Infinity" : "-Infinity");
+        }
+
+        final long scale = POWERS_OF_TEN[decimals];
+        final long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0) {
+            append("-");
+        }
+        append(scaled / scale);
+        if (decimals > 0) {
+            append(".");
+            final long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > fraction && digit > 1; digit /= 10) {
+                append("0");
+            }
+            append(fraction);
+        }
+        return this;
+    }
+
+    /**
+     * Draw the buffer's text.
+     *
+     * @param graphics The graphics to draw on
+     * @param x X of the text's baseline
+     * @param y Y of the text's baseline
+     */
+    public void draw(Graphics graphics, int x, int y) {
+        graphics.drawChars(chars, 0, length, x, y);
+    }
+
+    /**
+     * Grow the buffer if it cannot hold a length of text.
+     *
+     * @param capacity The length of text
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > chars.length) {
+            final char[] newChars = new char[Math.max(capacity, chars.length * 2)];
+            System.arraycopy(chars, 0, newChars, 0, length);
+            chars = newChars;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.andronikus.gameclient.ui.render;
+
+import com.andronikus.game.model.server.IMoveable;
+import com.andronikus.gameclient.engine.spatial.SpatialGrid;
+import com.andronikus.gameclient.ui.RenderRatio;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Decides which entities are on screen, so entities far from the main player are not drawn. The visible part of the
+ * world is a rectangle around the main player, and each entity is treated as a circle wide enough to hold it at any
+ * rotation. Entities indexed in a {@link SpatialGrid} are culled through the grid, so entities far off screen are not
+ * looked at at all.
+ *
+ * @author Andronikus
+ */
+public class ViewportCuller {
+
+    private long centerX;
+    private long centerY;
+    private double halfWidth;
+    private double halfHeight;
+    private int visibleCount = 0;
+    private int culledCount = 0;
+
+    /**
+     * Set the visible part of the world for a frame.
+     *
+     * @param aCenterX X of the world position at the centre of the screen
+     * @param aCenterY Y of the world position at the centre of the screen
+     * @param screenWidth Width of the screen in pixels
+     * @param screenHeight Height of the screen in pixels
+     * @param renderRatio Ratio of pixels to world units
+     */
+    public void setViewport(long aCenterX, long aCenterY, int screenWidth, int screenHeight, RenderRatio renderRatio) {
+        centerX = aCenterX;
+        centerY = aCenterY;
+        halfWidth = ((double) screenWidth / 2) / renderRatio.getWidthScale();
+        halfHeight = ((double) screenHeight / 2) / renderRatio.getHeightScale();
+        visibleCount = 0;
+        culledCount = 0;
+    }
+
+    /**
+     * Check whether an entity is on screen.
+     *
+     * @param moveable The entity
+     * @param renderWidth Width the entity's sprite is drawn at, in world units
+     * @param renderHeight Height the entity's sprite is drawn at, in world units
+     * @return True if any part of the entity or its sprite could be on screen
+     */
+    public boolean isVisible(IMoveable moveable, int renderWidth, int renderHeight) {
+        final boolean visible = overlapsViewport(moveable, renderWidth, renderHeight);
+        if (visible) {
+            visibleCount++;
+        } else {
+            culledCount++;
+        }
+        return visible;
+    }
+
+    /**
+     * Find the entities of a grid that are on screen, going by where the entities are drawn.
+     *
+     * @param grid The grid
+     * @param placedEntities Where the entities are drawn, in the order the grid was built from
+     * @param displacement Farthest any entity was moved from where the grid has it, as the sum of the X and Y distances
+     * @param renderWidth Widest the grid's sprites are drawn at, in world units
+     * @param renderHeight Tallest the grid's sprites are drawn at, in world units
+     * @param visible Set to the indices of the entities on screen, which are in the order the grid was built from
+     */
+    public void collectVisible(
+        SpatialGrid<?> grid, List<? extends IMoveable> placedEntities, long displacement, int renderWidth, int renderHeight, BitSet visible
+    ) {
+        final double margin = Math.sqrt((double) renderWidth * renderWidth + (double) renderHeight * renderHeight) / 2 + displacement;
+        grid.collectInRange(
+            (long) Math.floor(centerX - halfWidth - margin), (long) Math.floor(centerY - halfHeight - margin),
+            (long) Math.ceil(centerX + halfWidth + margin), (long) Math.ceil(centerY + halfHeight + margin),
+            visible
+        );
+
+        // The grid answers by cell, so entities near the screen still have to be checked one by one
+        for (int index = visible.nextSetBit(0); index >= 0; index = visible.nextSetBit(index + 1)) {
+            if (!overlapsViewport(placedEntities.get(index), renderWidth, renderHeight)) {
+                visible.clear(index);
+            }
+        }
+
+        final int found = visible.cardinality();
+        visibleCount += found;
+        culledCount += grid.size() - found;
+    }
+
+    /**
+     * Check whether an entity's bounding circle reaches into the viewport.
+     *
+     * @param moveable The entity
+     * @param renderWidth Width the entity's sprite is drawn at, in world units
+     * @param renderHeight Height the entity's sprite is drawn at, in world units
+     * @return True if the circle reaches into the viewport
+     */
+    private boolean overlapsViewport(IMoveable moveable, int renderWidth, int renderHeight) {
+        final int width = Math.max(moveable.getBoxWidth(), renderWidth);
+        final int height = Math.max(moveable.getBoxHeight(), renderHeight);
+        final double radius = Math.sqrt((double) width * width + (double) height * height) / 2;
+
+        return Math.abs(moveable.getBoxX() - centerX) <= halfWidth + radius &&
+            Math.abs(moveable.getBoxY() - centerY) <= halfHeight + radius;
+    }
+
+    /**
+     * Get how many entities were on screen this frame.
+     *
+     * @return Visible entity count
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * Get how many entities were skipped for being off screen this frame.
+     *
+     * @return Culled entity count
+     */
+    public int getCulledCount() {
+        return culledCount;
+    }
+}
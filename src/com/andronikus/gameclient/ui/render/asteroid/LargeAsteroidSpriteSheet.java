@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.asteroid;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 
 import java.awt.image.BufferedImage;
 
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class LargeAsteroidSpriteSheet extends SpriteSheet {
+public class LargeAsteroidSpriteSheet extends CachedSpriteSheet {
 
     public LargeAsteroidSpriteSheet() {
         super("asteroid/asteroid-size-1.png", 96, 192);
@@ -21,7 +21,7 @@ public class LargeAsteroidSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the asteroid
      */
     public BufferedImage getAsteroidSprite() {
-        return getTile(0, 0);
+        return getCachedTile(0, 0);
     }
 
     /**
@@ -31,6 +31,6 @@ public class LargeAsteroidSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the asteroid
      */
     public BufferedImage getCrackingSprite(int crackingState) {
-        return getTile(1, crackingState);
+        return getCachedTile(1, crackingState);
     }
 }
@@ -4,6 +4,9 @@ import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.animation4j.stopmotion.StopMotionState;
 import com.andronikus.game.model.server.Asteroid;
 import com.andronikus.game.model.server.GameState;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.BakedAnimationState;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
 
 /**
  * Animation controller for a large asteroid.
@@ -20,7 +23,7 @@ public class LargeAsteroidStopMotionController extends StopMotionController<Game
      * @param asteroid The asteroid being animated
      */
     public LargeAsteroidStopMotionController(Asteroid asteroid) {
-        super(new LargeAsteroidSpriteSheet());
+        super(SpriteSheetCache.get(LargeAsteroidSpriteSheet.class));
         this.id = asteroid.getId();
     }
 
@@ -45,6 +48,35 @@ public class LargeAsteroidStopMotionController extends StopMotionController<Game
         return neutralState;
     }
 
+    /**
+     * Get the baked animation for a large asteroid, built the first time it is asked for. Plays the same states and
+     * transitions as the stop motion controller.
+     *
+     * @return The baked animation graph
+     */
+    public static BakedAnimationGraph<Asteroid> getBakedGraph() {
+        return BakedGraphHolder.GRAPH;
+    }
+
+    /**
+     * Build the baked animation for a large asteroid.
+     *
+     * @return The baked animation graph
+     */
+    private static BakedAnimationGraph<Asteroid> buildBakedGraph() {
+        final BakedAnimationState<Asteroid, LargeAsteroidSpriteSheet> neutralState = new BakedAnimationState<Asteroid, LargeAsteroidSpriteSheet>(SpriteSheetCache.get(LargeAsteroidSpriteSheet.class))
+            .addFrame(1L, (spriteSheet, counter) -> spriteSheet.getAsteroidSprite())
+            .addFrame(null, (spriteSheet, counter) -> spriteSheet.getAsteroidSprite());
+
+        neutralState.createTransitionState(asteroid -> asteroid.getDurability() <= 0)
+            .addFrame(3L, LargeAsteroidSpriteSheet::getCrackingSprite)
+            .addFrame(3L, LargeAsteroidSpriteSheet::getCrackingSprite)
+            .addFrame(3L, LargeAsteroidSpriteSheet::getCrackingSprite)
+            .addFrame(null, LargeAsteroidSpriteSheet::getCrackingSprite);
+
+        return new BakedAnimationGraph<>(neutralState, asteroid -> asteroid.getDurability() <= 0 ? 1L : 0L);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -52,4 +84,11 @@ public class LargeAsteroidStopMotionController extends StopMotionController<Game
     public boolean checkIfObjectIsRoot(Asteroid asteroid) {
         return asteroid.getId() == id;
     }
+
+    /**
+     * Holds the baked animation, so it is only built when baked animations are used.
+     */
+    private static class BakedGraphHolder {
+        private static final BakedAnimationGraph<Asteroid> GRAPH = buildBakedGraph();
+    }
 }
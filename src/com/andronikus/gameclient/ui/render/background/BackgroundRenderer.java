@@ -4,21 +4,37 @@ import com.andronikus.game.model.server.BoundingBoxBorder;
 import com.andronikus.game.model.server.Player;
 import com.andronikus.gameclient.ui.RenderRatio;
 import com.andronikus.gameclient.ui.GameWindow;
-import com.andronikus.gameclient.ui.ImagesUtil;
 
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 
 /**
- * Renderer for the background.
+ * Renderer for the background. The background is drawn from a pyramid of tiles, at the level of detail nearest the
+ * size it is drawn at, in screen tiles cached at the size they are drawn. Only the screen tiles on screen are drawn,
+ * and those still loading are filled in from the coarsest level, so neither the cost of a frame nor the memory used
+ * grows with the size of the map.
  *
  * @author Andronikus
  */
 public class BackgroundRenderer {
 
-    private final BufferedImage backgroundImage;
+    private static final int TILE_SIZE = 256;
+    private static final int SCREEN_TILE_SIZE = 256;
+
+    // Enough screen tiles to cover a large screen a couple of times over
+    private static final int MIN_CACHED_TILES = 96;
+
+    private final BackgroundTilePyramid pyramid;
+    private final BackgroundTileCache tileCache;
+
+    /**
+     * Instantiate a renderer for the background.
+     *
+     * @param imagePath Path to the background image within the image directory
+     */
     public BackgroundRenderer(String imagePath) {
-        backgroundImage = ImagesUtil.getImage(imagePath);
+        pyramid = new BackgroundTilePyramid(imagePath, TILE_SIZE);
+        tileCache = new BackgroundTileCache(pyramid, SCREEN_TILE_SIZE, MIN_CACHED_TILES);
     }
 
     /**
@@ -36,8 +52,11 @@ public class BackgroundRenderer {
         final double heightScale = observer.getRenderRatio().getHeightScale();
 
         // Dimensions scale with how the outside is scaled
-        final double backgroundWidth  = ((double) RenderRatio.OVERDRAW_WIDTH * 2.0 + (double)border.getMaxX()) * widthScale;
-        final double backgroundHeight = ((double) RenderRatio.OVERDRAW_HEIGHT * 2.0 + (double)border.getMaxY()) * heightScale;
+        final int backgroundWidth = (int) (((double) RenderRatio.OVERDRAW_WIDTH * 2.0 + (double)border.getMaxX()) * widthScale);
+        final int backgroundHeight = (int) (((double) RenderRatio.OVERDRAW_HEIGHT * 2.0 + (double)border.getMaxY()) * heightScale);
+        if (backgroundWidth <= 0 || backgroundHeight <= 0) {
+            return;
+        }
 
         // Box traversal ratios
         final double boxXTraversalRatio = (double) mainPlayer.getX() / (double) border.getMaxX();
@@ -47,6 +66,96 @@ public class BackgroundRenderer {
         final int backGroundX = (int) (-boxXTraversalRatio * (double)border.getMaxX() * widthScale);
         final int backGroundY = (int) (-boxYTraversalRatio * (double)border.getMaxY() * heightScale);
 
-        graphics.drawImage(backgroundImage, backGroundX, backGroundY, (int)backgroundWidth, (int) backgroundHeight, observer);
+        // Until the level wanted is built, the finest level built so far stands in
+        int level = levelFor(backgroundWidth, backgroundHeight);
+        while (!pyramid.isLevelBuilt(level)) {
+            level++;
+        }
+        tileCache.startFrame(
+            level,
+            (double) backgroundWidth / pyramid.getLevelWidth(level),
+            (double) backgroundHeight / pyramid.getLevelHeight(level)
+        );
+
+        // Screen tiles that overlap the screen
+        final int firstColumn = Math.max(0, -backGroundX / SCREEN_TILE_SIZE);
+        final int lastColumn = Math.min((backgroundWidth - 1) / SCREEN_TILE_SIZE, (observer.getWidth() - 1 - backGroundX) / SCREEN_TILE_SIZE);
+        final int firstRow = Math.max(0, -backGroundY / SCREEN_TILE_SIZE);
+        final int lastRow = Math.min((backgroundHeight - 1) / SCREEN_TILE_SIZE, (observer.getHeight() - 1 - backGroundY) / SCREEN_TILE_SIZE);
+        final int visibleTiles = Math.max(0, lastColumn - firstColumn + 1) * Math.max(0, lastRow - firstRow + 1);
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            final int top = row * SCREEN_TILE_SIZE;
+            final int height = Math.min(SCREEN_TILE_SIZE, backgroundHeight - top);
+
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int left = column * SCREEN_TILE_SIZE;
+                final int width = Math.min(SCREEN_TILE_SIZE, backgroundWidth - left);
+
+                final BufferedImage tile = tileCache.get(column, row, width, height, visibleTiles);
+                if (tile != null) {
+                    graphics.drawImage(tile, backGroundX + left, backGroundY + top, observer);
+                } else {
+                    drawFromCoarsestLevel(
+                        graphics, backGroundX, backGroundY, left, top, left + width, top + height,
+                        backgroundWidth, backgroundHeight, observer
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the level whose pixels are drawn nearest one to one at a size.
+     *
+     * @param backgroundWidth Width the background is drawn at
+     * @param backgroundHeight Height the background is drawn at
+     * @return The level
+     */
+    private int levelFor(int backgroundWidth, int backgroundHeight) {
+        int nearestLevel = 0;
+        double nearestDistance = Double.MAX_VALUE;
+        for (int level = 0; level < pyramid.getLevelCount(); level++) {
+            final double scale = Math.min(
+                (double) backgroundWidth / pyramid.getLevelWidth(level),
+                (double) backgroundHeight / pyramid.getLevelHeight(level)
+            );
+            final double distance = Math.abs(Math.log(scale));
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearestLevel = level;
+            }
+        }
+        return nearestLevel;
+    }
+
+    /**
+     * Fill in part of the background from the coarsest level, while the tile for that part loads.
+     *
+     * @param graphics The graphics
+     * @param backGroundX X of the background on screen
+     * @param backGroundY Y of the background on screen
+     * @param left Left of the part within the background
+     * @param top Top of the part within the background
+     * @param right Right of the part within the background
+     * @param bottom Bottom of the part within the background
+     * @param backgroundWidth Width the background is drawn at
+     * @param backgroundHeight Height the background is drawn at
+     * @param observer Where the background is being drawn on
+     */
+    private void drawFromCoarsestLevel(
+        Graphics graphics, int backGroundX, int backGroundY, int left, int top, int right, int bottom,
+        int backgroundWidth, int backgroundHeight, GameWindow observer
+    ) {
+        final BufferedImage coarsest = pyramid.getCoarsestLevel();
+        final double coarseScaleX = (double) coarsest.getWidth() / backgroundWidth;
+        final double coarseScaleY = (double) coarsest.getHeight() / backgroundHeight;
+        graphics.drawImage(
+            coarsest,
+            backGroundX + left, backGroundY + top, backGroundX + right, backGroundY + bottom,
+            (int) (left * coarseScaleX), (int) (top * coarseScaleY),
+            (int) Math.ceil(right * coarseScaleX), (int) Math.ceil(bottom * coarseScaleY),
+            observer
+        );
     }
 }
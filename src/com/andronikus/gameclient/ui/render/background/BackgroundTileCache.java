@@ -0,0 +1,222 @@
+package com.andronikus.gameclient.ui.render.background;
+
+import com.andronikus.util.LongObjectMap;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Least recently used cache of background tiles as they are drawn on screen. Screen tiles are a fixed size
+ * whatever the scale, so how much the cache holds depends on the size of the screen and not the size of the map.
+ * Drawing one is a plain blit.</p>
+ *
+ * <p>Screen tiles are built on a background thread the first time they are asked for, from the tiles of a pyramid
+ * level they overlap. Until one is ready the cache answers with nothing and the caller draws something coarser in its
+ * place. When the level or scale changes every screen tile is dropped. Only the thread that draws the background may
+ * call the cache.</p>
+ *
+ * @author Andronikus
+ */
+public class BackgroundTileCache {
+
+    // Decoded pyramid tiles kept by the loader, enough for the pyramid tiles under a row of screen tiles
+    private static final int DECODED_TILES = 24;
+
+    private final BackgroundTilePyramid pyramid;
+    private final int screenTileSize;
+    private final int minTiles;
+    private final LongObjectMap<Tile> tiles;
+    private final ExecutorService loader;
+    private final LongObjectMap.IEntryVisitor<Tile> leastRecentlyUsedFinder = this::findLeastRecentlyUsed;
+
+    // Only used by the loader
+    private final Map<Long, BufferedImage> decodedTiles = new LinkedHashMap<Long, BufferedImage>(DECODED_TILES * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > DECODED_TILES;
+        }
+    };
+
+    private volatile int generation = 0;
+    private int level = -1;
+    private double scaleX;
+    private double scaleY;
+    private long frame = 0;
+    private long leastRecentlyUsedKey;
+    private long leastRecentlyUsedFrame;
+
+    /**
+     * Instantiate a background tile cache.
+     *
+     * @param aPyramid The tiles to build screen tiles from
+     * @param aScreenTileSize Width and height of a screen tile
+     * @param aMinTiles Least screen tiles to hold, more are held when more are visible at once
+     */
+    public BackgroundTileCache(BackgroundTilePyramid aPyramid, int aScreenTileSize, int aMinTiles) {
+        pyramid = aPyramid;
+        screenTileSize = aScreenTileSize;
+        minTiles = aMinTiles;
+        tiles = new LongObjectMap<>(aMinTiles * 2);
+        loader = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "BackgroundTileLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start a frame, setting the level screen tiles are built from and the scale they are built at. Screen tiles for
+     * another level or scale are dropped.
+     *
+     * @param aLevel The level
+     * @param aScaleX Screen pixels per pixel of the level, across
+     * @param aScaleY Screen pixels per pixel of the level, down
+     */
+    public void startFrame(int aLevel, double aScaleX, double aScaleY) {
+        frame++;
+        if (aLevel != level || aScaleX != scaleX || aScaleY != scaleY) {
+            level = aLevel;
+            scaleX = aScaleX;
+            scaleY = aScaleY;
+            generation++;
+            tiles.clear();
+        }
+    }
+
+    /**
+     * Get a screen tile at the frame's level and scale, building it if it is not cached.
+     *
+     * @param column Column of the screen tile
+     * @param row Row of the screen tile
+     * @param width Width of the screen tile, less than the screen tile size at the right edge of the background
+     * @param height Height of the screen tile, less than the screen tile size at the bottom edge of the background
+     * @param visibleTiles How many screen tiles are visible in the frame
+     * @return The screen tile, or null if it is not ready
+     */
+    public BufferedImage get(int column, int row, int width, int height, int visibleTiles) {
+        final long key = ((long) row << 32) | column;
+        final Tile cachedTile = tiles.get(key);
+        if (cachedTile != null) {
+            cachedTile.lastUsedFrame = frame;
+            return cachedTile.image;
+        }
+
+        final Tile tile = new Tile(frame);
+        tiles.put(key, tile);
+        final int tileGeneration = generation;
+        final int tileLevel = level;
+        final double tileScaleX = scaleX;
+        final double tileScaleY = scaleY;
+        loader.execute(() -> {
+            // Screen tiles for a scale that is no longer current are not worth building
+            if (generation == tileGeneration) {
+                tile.image = build(tileLevel, tileScaleX, tileScaleY, column * screenTileSize, row * screenTileSize, width, height);
+            }
+        });
+
+        // Keep every visible screen tile, and the same again for what scrolls into view next
+        final int maxTiles = Math.max(minTiles, visibleTiles * 2);
+        while (tiles.size() > maxTiles) {
+            evictLeastRecentlyUsed();
+        }
+        return null;
+    }
+
+    /**
+     * Build a screen tile by drawing the pyramid tiles it overlaps, scaled.
+     *
+     * @param tileLevel Level to draw from
+     * @param tileScaleX Screen pixels per pixel of the level, across
+     * @param tileScaleY Screen pixels per pixel of the level, down
+     * @param x X of the screen tile within the background on screen
+     * @param y Y of the screen tile within the background on screen
+     * @param width Width of the screen tile
+     * @param height Height of the screen tile
+     * @return The screen tile
+     */
+    private BufferedImage build(int tileLevel, double tileScaleX, double tileScaleY, int x, int y, int width, int height) {
+        final BufferedImage screenTile;
+        if (GraphicsEnvironment.isHeadless()) {
+            screenTile = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        } else {
+            screenTile = GraphicsEnvironment
+                .getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice()
+                .getDefaultConfiguration()
+                .createCompatibleImage(width, height, Transparency.OPAQUE);
+        }
+
+        final int pyramidTileSize = pyramid.getTileSize();
+        final int firstColumn = (int) (x / tileScaleX) / pyramidTileSize;
+        final int lastColumn = Math.min(pyramid.getColumns(tileLevel) - 1, (int) ((x + width) / tileScaleX) / pyramidTileSize);
+        final int firstRow = (int) (y / tileScaleY) / pyramidTileSize;
+        final int lastRow = Math.min(pyramid.getRows(tileLevel) - 1, (int) ((y + height) / tileScaleY) / pyramidTileSize);
+
+        final Graphics2D graphics = screenTile.createGraphics();
+        graphics.translate(-x, -y);
+        graphics.scale(tileScaleX, tileScaleY);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final BufferedImage pyramidTile = decodedTile(tileLevel, column, row);
+                graphics.drawImage(pyramidTile, column * pyramidTileSize, row * pyramidTileSize, null);
+            }
+        }
+        graphics.dispose();
+        return screenTile;
+    }
+
+    /**
+     * Get a decoded pyramid tile, decoding it if the loader does not have it.
+     *
+     * @param tileLevel Level of the tile
+     * @param column Column of the tile
+     * @param row Row of the tile
+     * @return The decoded tile
+     */
+    private BufferedImage decodedTile(int tileLevel, int column, int row) {
+        final long key = ((long) tileLevel << 48) | ((long) row << 24) | column;
+        return decodedTiles.computeIfAbsent(key, absentKey -> pyramid.decodeTile(tileLevel, column, row));
+    }
+
+    /**
+     * Remove the screen tile that was used least recently.
+     */
+    private void evictLeastRecentlyUsed() {
+        leastRecentlyUsedFrame = Long.MAX_VALUE;
+        tiles.removeIf(leastRecentlyUsedFinder);
+        tiles.remove(leastRecentlyUsedKey);
+    }
+
+    /**
+     * Track the least recently used screen tile across a visit of every screen tile.
+     *
+     * @param key Key of the screen tile
+     * @param tile The screen tile
+     * @return False, nothing is removed while visiting
+     */
+    private boolean findLeastRecentlyUsed(long key, Tile tile) {
+        if (tile.lastUsedFrame < leastRecentlyUsedFrame) {
+            leastRecentlyUsedFrame = tile.lastUsedFrame;
+            leastRecentlyUsedKey = key;
+        }
+        return false;
+    }
+
+    /**
+     * A cached screen tile, whose image is set by the loader once built.
+     */
+    private static class Tile {
+        private volatile BufferedImage image = null;
+        private long lastUsedFrame;
+
+        private Tile(long aLastUsedFrame) {
+            lastUsedFrame = aLastUsedFrame;
+        }
+    }
+}
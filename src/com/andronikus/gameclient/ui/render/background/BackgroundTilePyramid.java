@@ -0,0 +1,296 @@
+package com.andronikus.gameclient.ui.render.background;
+
+import com.andronikus.gameclient.ui.ImagesUtil;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * <p>An image split into square tiles at several levels of detail. Level 0 is the image at full size and each level
+ * after it is half the size of the one before, down to a level that fits in one tile.</p>
+ *
+ * <p>Levels are decoded a strip of tiles at a time with the image reader subsampling the source, so the full image
+ * never has to be held in memory at once. Tiles are kept PNG encoded, which for a background is a small fraction of
+ * their decoded size. The coarsest level is built up front and also kept decoded, to draw while finer tiles load. The
+ * rest are built coarse to fine on a background thread.</p>
+ *
+ * @author Andronikus
+ */
+public class BackgroundTilePyramid {
+
+    private static final Logger LOGGER = Logger.getLogger("BackgroundTilePyramid");
+
+    // Fast compression, which for a background encodes a few times faster than the default for much the same size
+    private static final float ENCODING_QUALITY = 0.9f;
+
+    private final String imagePath;
+    private final int tileSize;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int levelCount;
+    private final AtomicReferenceArray<byte[][]> levels;
+    private final BufferedImage coarsestLevel;
+
+    /**
+     * Build the coarsest level of a pyramid and start building the rest in the background.
+     *
+     * @param anImagePath Path to the image within the image directory
+     * @param aTileSize Width and height of a tile
+     */
+    public BackgroundTilePyramid(String anImagePath, int aTileSize) {
+        imagePath = anImagePath;
+        tileSize = aTileSize;
+
+        final ImageReader reader = openReader();
+        try {
+            imageWidth = reader.getWidth(0);
+            imageHeight = reader.getHeight(0);
+
+            int count = 1;
+            while (levelSize(imageWidth, count - 1) > aTileSize || levelSize(imageHeight, count - 1) > aTileSize) {
+                count++;
+            }
+            levelCount = count;
+            levels = new AtomicReferenceArray<>(count);
+
+            final ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(1 << (count - 1), 1 << (count - 1), 0, 0);
+            final BufferedImage coarsest = reader.read(0, param);
+            levels.set(count - 1, new byte[][] {encode(coarsest)});
+            coarsestLevel = ImagesUtil.toCompatibleImage(coarsest);
+        } catch (IOException problem) {
+            throw new RuntimeException(problem);
+        } finally {
+            reader.dispose();
+        }
+
+        final Thread builder = new Thread(this::buildFinerLevels, "BackgroundTilePyramidBuilder");
+        builder.setDaemon(true);
+        builder.setPriority(Thread.MIN_PRIORITY);
+        builder.start();
+    }
+
+    /**
+     * Get the count of levels.
+     *
+     * @return The count of levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Get the width and height of a tile.
+     *
+     * @return The tile size
+     */
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Get the width of a level.
+     *
+     * @param level The level
+     * @return Width in pixels
+     */
+    public int getLevelWidth(int level) {
+        return levelSize(imageWidth, level);
+    }
+
+    /**
+     * Get the height of a level.
+     *
+     * @param level The level
+     * @return Height in pixels
+     */
+    public int getLevelHeight(int level) {
+        return levelSize(imageHeight, level);
+    }
+
+    /**
+     * Get the count of tile columns in a level.
+     *
+     * @param level The level
+     * @return The count of columns
+     */
+    public int getColumns(int level) {
+        return (getLevelWidth(level) + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * Get the count of tile rows in a level.
+     *
+     * @param level The level
+     * @return The count of rows
+     */
+    public int getRows(int level) {
+        return (getLevelHeight(level) + tileSize - 1) / tileSize;
+    }
+
+    /**
+     * Check whether every tile of a level is built.
+     *
+     * @param level The level
+     * @return True if the level is built
+     */
+    public boolean isLevelBuilt(int level) {
+        return levels.get(level) != null;
+    }
+
+    /**
+     * Get the coarsest level, which is always decoded.
+     *
+     * @return The coarsest level as one image
+     */
+    public BufferedImage getCoarsestLevel() {
+        return coarsestLevel;
+    }
+
+    /**
+     * Decode a tile. Only call for levels that are built.
+     *
+     * @param level The level
+     * @param column Column of the tile
+     * @param row Row of the tile
+     * @return The tile
+     */
+    public BufferedImage decodeTile(int level, int column, int row) {
+        final byte[] encodedTile = levels.get(level)[row * getColumns(level) + column];
+        try {
+            return ImageIO.read(new ByteArrayInputStream(encodedTile));
+        } catch (IOException problem) {
+            throw new RuntimeException(problem);
+        }
+    }
+
+    /**
+     * Build every level but the coarsest, coarsest first.
+     */
+    private void buildFinerLevels() {
+        final long startTime = System.nanoTime();
+        final ImageReader reader = openReader();
+        try {
+            for (int level = levelCount - 2; level >= 0; level--) {
+                levels.set(level, buildLevel(reader, level));
+            }
+        } catch (IOException | RuntimeException problem) {
+            LOGGER.log(Level.SEVERE, "Could not build the tiles of " + imagePath + ".", problem);
+            return;
+        } finally {
+            reader.dispose();
+        }
+        LOGGER.info("Built " + levelCount + " levels of " + imagePath + " in " + (System.nanoTime() - startTime) / 1_000_000 + "ms.");
+    }
+
+    /**
+     * Decode and encode every tile of a level, a row of tiles at a time.
+     *
+     * @param reader Reader of the image
+     * @param level The level
+     * @return Encoded tiles by row then column
+     * @throws IOException If the image cannot be read
+     */
+    private byte[][] buildLevel(ImageReader reader, int level) throws IOException {
+        final int subsampling = 1 << level;
+        final int columns = getColumns(level);
+        final int rows = getRows(level);
+        final byte[][] tiles = new byte[rows * columns][];
+        final ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+        final int sourceStripHeight = tileSize * subsampling;
+        for (int row = 0; row < rows; row++) {
+            final int sourceY = row * sourceStripHeight;
+            param.setSourceRegion(new Rectangle(0, sourceY, imageWidth, Math.min(sourceStripHeight, imageHeight - sourceY)));
+            final BufferedImage strip = reader.read(0, param);
+
+            for (int column = 0; column < columns; column++) {
+                final int x = column * tileSize;
+                final int width = Math.min(tileSize, strip.getWidth() - x);
+                final BufferedImage tile = new BufferedImage(width, strip.getHeight(), strip.getType());
+                final Graphics2D graphics = tile.createGraphics();
+                graphics.drawImage(strip, -x, 0, null);
+                graphics.dispose();
+                tiles[row * columns + column] = encode(tile);
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Open a reader on the image.
+     *
+     * @return The reader, with its input set
+     */
+    private ImageReader openReader() {
+        try {
+            final InputStream imageStream = BackgroundTilePyramid.class.getClassLoader().getResourceAsStream(imagePath);
+            if (imageStream == null) {
+                throw new IllegalArgumentException("No image at " + imagePath + ".");
+            }
+            final ImageInputStream input = ImageIO.createImageInputStream(imageStream);
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IllegalArgumentException("No reader for the image at " + imagePath + ".");
+            }
+            final ImageReader reader = readers.next();
+            reader.setInput(input, false, true);
+            return reader;
+        } catch (IOException problem) {
+            throw new RuntimeException(problem);
+        }
+    }
+
+    /**
+     * PNG encode an image.
+     *
+     * @param image The image
+     * @return The encoded image
+     * @throws IOException If the image cannot be encoded
+     */
+    private static byte[] encode(BufferedImage image) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        final ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(ENCODING_QUALITY);
+
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(encoded)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return encoded.toByteArray();
+    }
+
+    /**
+     * Get the size of a dimension of the image at a level, as the reader subsamples it.
+     *
+     * @param size Size at level 0
+     * @param level The level
+     * @return Size at the level
+     */
+    private static int levelSize(int size, int level) {
+        return (size + (1 << level) - 1) >> level;
+    }
+}
@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.blackhole;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 
 import java.awt.image.BufferedImage;
 
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class MicroBlackHoleSpriteSheet extends SpriteSheet {
+public class MicroBlackHoleSpriteSheet extends CachedSpriteSheet {
 
     private static final int BLACK_HOLE_TILE_SIZE = 128;
 
@@ -24,6 +24,6 @@ public class MicroBlackHoleSpriteSheet extends SpriteSheet {
      * @return The sprite
      */
     public BufferedImage getSprite(int animationState) {
-        return getTile(0, animationState);
+        return getCachedTile(0, animationState);
     }
 }
@@ -4,6 +4,9 @@ import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.animation4j.stopmotion.StopMotionState;
 import com.andronikus.game.model.server.GameState;
 import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.BakedAnimationState;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
 
 /**
  * Animation controller for a black hole.
@@ -20,7 +23,7 @@ public class MicroBlackHoleStopMotionController extends StopMotionController<Gam
      * @param blackHole Black hole being animated
      */
     public MicroBlackHoleStopMotionController(MicroBlackHole blackHole) {
-        super(new MicroBlackHoleSpriteSheet());
+        super(SpriteSheetCache.get(MicroBlackHoleSpriteSheet.class));
         this.id = blackHole.getId();
     }
 
@@ -40,6 +43,35 @@ public class MicroBlackHoleStopMotionController extends StopMotionController<Gam
         return state;
     }
 
+    /**
+     * Get the baked animation for a black hole, built the first time it is asked for. Plays the same states and
+     * transitions as the stop motion controller.
+     *
+     * @return The baked animation graph
+     */
+    public static BakedAnimationGraph<MicroBlackHole> getBakedGraph() {
+        return BakedGraphHolder.GRAPH;
+    }
+
+    /**
+     * Build the baked animation for a black hole.
+     *
+     * @return The baked animation graph
+     */
+    private static BakedAnimationGraph<MicroBlackHole> buildBakedGraph() {
+        final BakedAnimationState<MicroBlackHole, MicroBlackHoleSpriteSheet> state = new BakedAnimationState<MicroBlackHole, MicroBlackHoleSpriteSheet>(SpriteSheetCache.get(MicroBlackHoleSpriteSheet.class))
+            .addFrame(3L, MicroBlackHoleSpriteSheet::getSprite)
+            .addFrame(2L, MicroBlackHoleSpriteSheet::getSprite)
+            .addFrame(3L, MicroBlackHoleSpriteSheet::getSprite)
+            .addFrame(1L, MicroBlackHoleSpriteSheet::getSprite)
+            .addFrame(3L, MicroBlackHoleSpriteSheet::getSprite)
+            .addFrame(4L, MicroBlackHoleSpriteSheet::getSprite)
+            .addFrame(3L, MicroBlackHoleSpriteSheet::getSprite);
+
+        // No transitions, so nothing to depend on
+        return new BakedAnimationGraph<>(state, blackHole -> 0L);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -48,4 +80,10 @@ public class MicroBlackHoleStopMotionController extends StopMotionController<Gam
         return object.getId() == id;
     }
 
+    /**
+     * Holds the baked animation, so it is only built when baked animations are used.
+     */
+    private static class BakedGraphHolder {
+        private static final BakedAnimationGraph<MicroBlackHole> GRAPH = buildBakedGraph();
+    }
 }
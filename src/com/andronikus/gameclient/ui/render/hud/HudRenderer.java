@@ -2,16 +2,22 @@ package com.andronikus.gameclient.ui.render.hud;
 
 import com.andronikus.gameclient.ui.GameWindow;
 import com.andronikus.gameclient.ui.ImagesUtil;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
+import com.andronikus.gameclient.ui.render.TextBuffer;
 
+import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 
 /**
- * Renderer for the HUD.
+ * Renderer for the HUD. The HUD is rendered into a layer image that is kept until the player's stats change, so most
+ * frames draw it with one blit. Colors, fonts and strokes are made once up front.
  *
  * @author Andronikus
  */
@@ -27,16 +33,68 @@ public class HudRenderer {
     private static final int MAX_SHIELD_COUNT = 4;
     private static final double BOOSTING_RECHARGE_CAP = 200.0;
 
+    private static final Color HEALTH_TEXT_COLOR = new Color(255, 250, 250);
+    private static final Color SHIELD_TEXT_COLOR = new Color(0, 148, 255);
+    private static final Color BOOST_RECHARGE_COLOR = new Color(0, 250, 250);
+    private static final Font HEALTH_TEXT_FONT = new Font(Font.SANS_SERIF, Font.BOLD + Font.ITALIC, 20);
+    private static final Font SHIELD_TEXT_FONT = new Font(Font.SANS_SERIF, Font.BOLD + Font.ITALIC, 60);
+    private static final BasicStroke METER_STROKE = new BasicStroke(4);
+    private static final int SHIELD_ICON_COUNT = 13;
+    private static final int SHIELD_ICON_WIDTH = 62;
+    private static final int SHIELD_ICON_HEIGHT = 60;
+    private static final int LASER_CHARGE_WIDTH = 20;
+    private static final int LASER_CHARGE_HEIGHT = 6;
+    private static final int LASER_CHARGE_SPACING = 18;
+
+    // Room around the HUD in its layer for strokes and text that reach past the HUD's edges
+    private static final int LAYER_MARGIN = 8;
+    private static final int LAYER_HEIGHT = HUD_SECTION_OFFSET * 3 + 30 + LAYER_MARGIN * 2;
+
+    // Health bar color for every health from none to full
+    private static final Color[] HEALTH_COLORS = new Color[PLAYER_MAX_HEALTH + 1];
+    static {
+        for (int health = 0; health <= PLAYER_MAX_HEALTH; health++) {
+            HEALTH_COLORS[health] = calculateHealthColor(health);
+        }
+    }
+
     private final BufferedImage laserChargeImage;
-    private final ShieldSpriteSheet shieldSpriteSheet;
+    private final BufferedImage[] shieldStatusIcons = new BufferedImage[SHIELD_ICON_COUNT];
+    private final TextBuffer text = new TextBuffer();
+
+    // What the layer shows, layer health is -1 when the layer has to be rendered again
+    private BufferedImage layer = null;
+    private volatile boolean layerInvalid = false;
+    private int layerHealth = -1;
+    private int layerShieldCount;
+    private int layerShieldStatusIconNumber;
+    private int layerBoostChargeLength;
+    private int layerBoostRechargeLength;
+    private int layerLaserCharge;
 
     public HudRenderer() {
-        shieldSpriteSheet = new ShieldSpriteSheet();
-        laserChargeImage = ImagesUtil.getImage("hud/LaserChargeIcon.png");
+        // Icons are scaled once here to the size they are drawn at
+        final ShieldSpriteSheet shieldSpriteSheet = SpriteSheetCache.get(ShieldSpriteSheet.class);
+        for (int chargeRate = 0; chargeRate < SHIELD_ICON_COUNT; chargeRate++) {
+            shieldStatusIcons[chargeRate] = ImagesUtil.toScaledImage(
+                shieldSpriteSheet.getStatusIcon(chargeRate), SHIELD_ICON_WIDTH, SHIELD_ICON_HEIGHT
+            );
+        }
+        laserChargeImage = ImagesUtil.toScaledImage(
+            ImagesUtil.getImage("hud/LaserChargeIcon.png"), LASER_CHARGE_WIDTH, LASER_CHARGE_HEIGHT
+        );
+    }
+
+    /**
+     * Mark the HUD layer to be rendered again on the next draw, for example because the window was resized.
+     */
+    public void invalidate() {
+        layerInvalid = true;
     }
 
     /**
-     * Draw the HUD onto the graphic.
+     * Draw the HUD onto the graphic. The HUD is rendered into a layer image only when what it shows changes, otherwise
+     * the layer from before is drawn as is.
      *
      * @param graphics The graphics
      * @param health The health of the player
@@ -51,47 +109,98 @@ public class HudRenderer {
         Graphics graphics, int health, int shieldCount, int shieldRecharge,
         int boostCharge, int boostRecharge, int laserCharge, GameWindow observer
     ) {
-        // Draw the health bar
         if (health < 0) {
             health = 0;
         }
+        if (laserCharge < 0) {
+            laserCharge = 0;
+        }
+
+        int shieldStatusIconNumber = SHIELD_ICON_COUNT - 1;
+        if (shieldCount < MAX_SHIELD_COUNT) {
+            shieldStatusIconNumber = (int)((double)shieldRecharge / (SHIELD_RECHARGE_CAP / 12.0));
+            shieldStatusIconNumber = Math.max(0, Math.min(shieldStatusIconNumber, SHIELD_ICON_COUNT - 1));
+        }
+        final int boostRechargeLength = (int)((double)boostRecharge / BOOSTING_RECHARGE_CAP * (double)(HUD_WIDTH - 6));
+        final int boostChargeLength = (int)((double)boostCharge / BOOSTING_RECHARGE_CAP * (double)(HUD_WIDTH - 6));
+
+        // Laser charges can run past the width of the HUD, so the layer grows to fit them
+        final int layerWidth = Math.max(HUD_WIDTH, 5 + LASER_CHARGE_SPACING * laserCharge) + LAYER_MARGIN * 2;
+        final boolean layerTooSmall = layer == null || layer.getWidth() < layerWidth;
+        if (layerTooSmall || layerInvalid) {
+            layerInvalid = false;
+            if (layer != null) {
+                layer.flush();
+            }
+            layer = ((Graphics2D) graphics).getDeviceConfiguration().createCompatibleImage(
+                layerWidth, LAYER_HEIGHT, Transparency.TRANSLUCENT
+            );
+            layerHealth = -1;
+        }
+
+        final boolean changed = health != layerHealth ||
+            shieldCount != layerShieldCount ||
+            shieldStatusIconNumber != layerShieldStatusIconNumber ||
+            boostChargeLength != layerBoostChargeLength ||
+            boostRechargeLength != layerBoostRechargeLength ||
+            laserCharge != layerLaserCharge;
+        if (changed) {
+            layerHealth = health;
+            layerShieldCount = shieldCount;
+            layerShieldStatusIconNumber = shieldStatusIconNumber;
+            layerBoostChargeLength = boostChargeLength;
+            layerBoostRechargeLength = boostRechargeLength;
+            layerLaserCharge = laserCharge;
+            renderLayer(observer);
+        }
+
+        graphics.drawImage(layer, HUD_OFFSET - LAYER_MARGIN, HUD_OFFSET - LAYER_MARGIN, observer);
+    }
 
-        graphics.setColor(new Color(255, 250, 250));
-        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD + Font.ITALIC, 20));
-        graphics.drawString(health + "", HUD_OFFSET, HUD_OFFSET + 20);
+    /**
+     * Render the HUD into the layer from what the layer was last keyed on.
+     *
+     * @param observer HUD Observer
+     */
+    private void renderLayer(GameWindow observer) {
+        final Graphics2D graphics = layer.createGraphics();
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillRect(0, 0, layer.getWidth(), layer.getHeight());
+        graphics.setComposite(AlphaComposite.SrcOver);
+
+        // Text is only rendered when it changes, so it can afford anti-aliasing
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.translate(LAYER_MARGIN - HUD_OFFSET, LAYER_MARGIN - HUD_OFFSET);
+
+        // Draw the health bar
+        graphics.setColor(HEALTH_TEXT_COLOR);
+        graphics.setFont(HEALTH_TEXT_FONT);
+        text.clear().append(layerHealth).draw(graphics, HUD_OFFSET, HUD_OFFSET + 20);
 
         graphics.setColor(Color.LIGHT_GRAY);
-        ((Graphics2D) graphics).setStroke(new BasicStroke(4));
+        graphics.setStroke(METER_STROKE);
         graphics.drawRect(HUD_OFFSET + 2, HUD_OFFSET + 22, HUD_WIDTH - 2, 40);
 
-        graphics.setColor(getHealthColor(health));
-        final double healthLength = (double)health / (double)PLAYER_MAX_HEALTH * (double)(HUD_WIDTH - 6);
+        graphics.setColor(getHealthColor(layerHealth));
+        final double healthLength = (double)layerHealth / (double)PLAYER_MAX_HEALTH * (double)(HUD_WIDTH - 6);
         graphics.fillRect(HUD_OFFSET + 4, HUD_OFFSET + 24, (int)healthLength, 36);
 
         // Draw the shield status
-        int shieldStatusIconNumber = 12;
-        if (shieldCount < MAX_SHIELD_COUNT) {
-            shieldStatusIconNumber = (int)((double)shieldRecharge / (SHIELD_RECHARGE_CAP / 12.0));
-        }
-        final BufferedImage shieldStatusSprite = shieldSpriteSheet.getStatusIcon(shieldStatusIconNumber);
-        graphics.drawImage(shieldStatusSprite, HUD_OFFSET, HUD_OFFSET + 66, 62, 60, observer);
+        graphics.drawImage(shieldStatusIcons[layerShieldStatusIconNumber], HUD_OFFSET, HUD_OFFSET + 66, observer);
 
-        graphics.setColor(new Color(0, 148, 255));
-        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD + Font.ITALIC, 60));
-        graphics.drawString(shieldCount + "", HUD_OFFSET + HUD_SECTION_OFFSET, HUD_OFFSET + (HUD_SECTION_OFFSET * 2));
+        graphics.setColor(SHIELD_TEXT_COLOR);
+        graphics.setFont(SHIELD_TEXT_FONT);
+        text.clear().append(layerShieldCount).draw(graphics, HUD_OFFSET + HUD_SECTION_OFFSET, HUD_OFFSET + (HUD_SECTION_OFFSET * 2));
 
         // Draw the boost meter
         graphics.setColor(Color.LIGHT_GRAY);
-        ((Graphics2D) graphics).setStroke(new BasicStroke(4));
         graphics.drawRect(HUD_OFFSET + 2, HUD_OFFSET + 146, HUD_WIDTH - 2, 40);
 
-        graphics.setColor(new Color(0, 250, 250));
-        final double boostRechargeLength = (double)boostRecharge / BOOSTING_RECHARGE_CAP * (double)(HUD_WIDTH - 6);
-        graphics.fillRect(HUD_OFFSET + 4, HUD_OFFSET + 22 + (HUD_SECTION_OFFSET * 2), (int)boostRechargeLength, 36);
+        graphics.setColor(BOOST_RECHARGE_COLOR);
+        graphics.fillRect(HUD_OFFSET + 4, HUD_OFFSET + 22 + (HUD_SECTION_OFFSET * 2), layerBoostRechargeLength, 36);
 
         graphics.setColor(Color.BLUE);
-        final double boostChargeLength = (double)boostCharge / BOOSTING_RECHARGE_CAP * (double)(HUD_WIDTH - 6);
-        graphics.fillRect(HUD_OFFSET + 4, HUD_OFFSET + (HUD_SECTION_OFFSET * 2) + 24, (int)boostChargeLength, 36);
+        graphics.fillRect(HUD_OFFSET + 4, HUD_OFFSET + (HUD_SECTION_OFFSET * 2) + 24, layerBoostChargeLength, 36);
 
         // Draw a laser counter
         graphics.setColor(Color.LIGHT_GRAY);
@@ -101,11 +210,12 @@ public class HudRenderer {
         final int laserChargeY = HUD_OFFSET + (HUD_SECTION_OFFSET * 3) + 18;
         int laserChargeX = HUD_OFFSET + 3;
 
-        while (laserCharge > 0) {
-            laserCharge--;
-            graphics.drawImage(laserChargeImage, laserChargeX, laserChargeY, 20, 6, observer);
-            laserChargeX += 18;
+        for (int laserCharge = layerLaserCharge; laserCharge > 0; laserCharge--) {
+            graphics.drawImage(laserChargeImage, laserChargeX, laserChargeY, observer);
+            laserChargeX += LASER_CHARGE_SPACING;
         }
+
+        graphics.dispose();
     }
 
     /**
@@ -115,6 +225,19 @@ public class HudRenderer {
      * @return Color of the health bar.
      */
     private Color getHealthColor(int health) {
+        if (health <= PLAYER_MAX_HEALTH) {
+            return HEALTH_COLORS[health];
+        }
+        return calculateHealthColor(health);
+    }
+
+    /**
+     * Calculate color of the health bar based on how of the players health remains.
+     *
+     * @param health The health that remains.
+     * @return Color of the health bar.
+     */
+    private static Color calculateHealthColor(int health) {
         final double quarterMaxHealth = (double) PLAYER_MAX_HEALTH / 4;
         int green = (int)(255.0 * (((double)health - quarterMaxHealth) / (PLAYER_MAX_HEALTH - quarterMaxHealth)));
         int red = (int)(255.0 * (1.0 - (((double)health - quarterMaxHealth) / (PLAYER_MAX_HEALTH - quarterMaxHealth))));
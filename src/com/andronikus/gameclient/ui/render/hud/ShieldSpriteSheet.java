@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.hud;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 import java.awt.image.BufferedImage;
 
 /**
@@ -8,7 +8,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class ShieldSpriteSheet extends SpriteSheet {
+public class ShieldSpriteSheet extends CachedSpriteSheet {
 
     private static final int TILE_WIDTH = 41;
     private static final int TILE_HEIGHT = 39;
@@ -24,6 +24,6 @@ public class ShieldSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the shield
      */
     public BufferedImage getStatusIcon(int chargeRate) {
-        return getTile(0, chargeRate);
+        return getCachedTile(0, chargeRate);
     }
 }
@@ -1,7 +1,7 @@
 package com.andronikus.gameclient.ui.render.hud;
 
 import com.andronikus.game.model.server.PlayerColor;
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 import java.awt.image.BufferedImage;
 
 /**
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class TrackerSpriteSheet extends SpriteSheet {
+public class TrackerSpriteSheet extends CachedSpriteSheet {
 
     private static final int TILE_SIZE = 32;
 
@@ -24,6 +24,6 @@ public class TrackerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the tracker
      */
     public BufferedImage getTrackerSpriteForColor(PlayerColor color) {
-        return getTile(0, color.getId());
+        return getCachedTile(0, color.getId());
     }
 }
@@ -4,6 +4,9 @@ import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.animation4j.stopmotion.StopMotionState;
 import com.andronikus.game.model.server.GameState;
 import com.andronikus.game.model.server.Laser;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.BakedAnimationState;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
 
 /**
  * Animation controller for a laser.
@@ -20,7 +23,7 @@ public class LaserAnimationController extends StopMotionController<GameState, La
      * @param laser The laser being animated
      */
     public LaserAnimationController(Laser laser) {
-        super(new LaserSpriteSheet());
+        super(SpriteSheetCache.get(LaserSpriteSheet.class));
 
         animatedLaserId = laser.getId();
     }
@@ -47,6 +50,37 @@ public class LaserAnimationController extends StopMotionController<GameState, La
         return travelingState;
     }
 
+    /**
+     * Get the baked animation for a laser, built the first time it is asked for. Plays the same states and transitions
+     * as the stop motion controller.
+     *
+     * @return The baked animation graph
+     */
+    public static BakedAnimationGraph<Laser> getBakedGraph() {
+        return BakedGraphHolder.GRAPH;
+    }
+
+    /**
+     * Build the baked animation for a laser.
+     *
+     * @return The baked animation graph
+     */
+    private static BakedAnimationGraph<Laser> buildBakedGraph() {
+        final BakedAnimationState<Laser, LaserSpriteSheet> travelingState = new BakedAnimationState<Laser, LaserSpriteSheet>(SpriteSheetCache.get(LaserSpriteSheet.class))
+            .addFrame((long) 5, LaserSpriteSheet::getTravelingSprite)
+            .addFrame((long) 6, LaserSpriteSheet::getTravelingSprite)
+            .addFrame((long) 7, LaserSpriteSheet::getTravelingSprite)
+            .addFrame((long) 6, LaserSpriteSheet::getTravelingSprite);
+
+        travelingState.createTransitionState(laser -> !laser.isActive())
+            .addFrame((long) 3, LaserSpriteSheet::getHitSprite)
+            .addFrame((long) 2, LaserSpriteSheet::getHitSprite)
+            .addFrame((long) 2, LaserSpriteSheet::getHitSprite)
+            .addFrame(null, LaserSpriteSheet::getHitSprite);
+
+        return new BakedAnimationGraph<>(travelingState, laser -> laser.isActive() ? 1L : 0L);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,4 +88,11 @@ public class LaserAnimationController extends StopMotionController<GameState, La
     public boolean checkIfObjectIsRoot(Laser laser) {
         return laser.getId() == animatedLaserId;
     }
+
+    /**
+     * Holds the baked animation, so it is only built when baked animations are used.
+     */
+    private static class BakedGraphHolder {
+        private static final BakedAnimationGraph<Laser> GRAPH = buildBakedGraph();
+    }
 }
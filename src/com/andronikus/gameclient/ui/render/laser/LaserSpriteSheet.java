@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.laser;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 
 import java.awt.image.BufferedImage;
 
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class LaserSpriteSheet extends SpriteSheet {
+public class LaserSpriteSheet extends CachedSpriteSheet {
 
     private static final int TILE_WIDTH = 48;
     private static final int TILE_HEIGHT = 32;
@@ -25,7 +25,7 @@ public class LaserSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the laser
      */
     public BufferedImage getTravelingSprite(int animationState) {
-        return getTile(0, animationState);
+        return getCachedTile(0, animationState);
     }
 
     /**
@@ -35,6 +35,6 @@ public class LaserSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the laser
      */
     public BufferedImage getHitSprite(int animationState) {
-        return getTile(1, animationState);
+        return getCachedTile(1, animationState);
     }
 }
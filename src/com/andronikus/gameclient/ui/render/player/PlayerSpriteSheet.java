@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.player;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 
 import java.awt.image.BufferedImage;
 
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class PlayerSpriteSheet extends SpriteSheet {
+public class PlayerSpriteSheet extends CachedSpriteSheet {
 
     public static final int TILE_SIZE = 64;
 
@@ -24,7 +24,7 @@ public class PlayerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the player
      */
     public BufferedImage getIdleSprite(int animationState) {
-        return getTile(0, animationState);
+        return getCachedTile(0, animationState);
     }
 
     /**
@@ -34,7 +34,7 @@ public class PlayerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the player
      */
     public BufferedImage getThrustingSprite(int animationState) {
-        return getTile(1, animationState);
+        return getCachedTile(1, animationState);
     }
 
     /**
@@ -44,7 +44,7 @@ public class PlayerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the player
      */
     public BufferedImage getBoostingSprite(int animationState) {
-        return getTile(2, animationState);
+        return getCachedTile(2, animationState);
     }
 
     /**
@@ -54,7 +54,7 @@ public class PlayerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the player
      */
     public BufferedImage getDeathSprite(int animationState) {
-        return getTile(3, animationState);
+        return getCachedTile(3, animationState);
     }
 
     /**
@@ -64,7 +64,7 @@ public class PlayerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the player
      */
     public BufferedImage getWarpingSprite(int animationState) {
-        return getTile(4, animationState);
+        return getCachedTile(4, animationState);
     }
 
     /**
@@ -74,6 +74,6 @@ public class PlayerSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the player
      */
     public BufferedImage getReappearingSprite(int animationState) {
-        return getTile(4, 3 - animationState);
+        return getCachedTile(4, 3 - animationState);
     }
 }
@@ -4,6 +4,9 @@ import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.animation4j.stopmotion.StopMotionState;
 import com.andronikus.game.model.server.GameState;
 import com.andronikus.game.model.server.Player;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.BakedAnimationState;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
 
 /**
  * Animation controller for a player.
@@ -20,7 +23,7 @@ public class PlayerStopMotionController extends StopMotionController<GameState,
      * @param player The player being animated
      */
     public PlayerStopMotionController(Player player) {
-        super(new PlayerSpriteSheet());
+        super(SpriteSheetCache.get(PlayerSpriteSheet.class));
 
         // Can't store player since it's reserialized every gamestate update. So store the
         sessionId = player.getSessionId();
@@ -98,6 +101,95 @@ public class PlayerStopMotionController extends StopMotionController<GameState,
         return idleState;
     }
 
+    /**
+     * Get the baked animation for a player, built the first time it is asked for. Plays the same states and transitions
+     * as the stop motion controller.
+     *
+     * @return The baked animation graph
+     */
+    public static BakedAnimationGraph<Player> getBakedGraph() {
+        return BakedGraphHolder.GRAPH;
+    }
+
+    /**
+     * Build the baked animation for a player.
+     *
+     * @return The baked animation graph
+     */
+    private static BakedAnimationGraph<Player> buildBakedGraph() {
+        final BakedAnimationState<Player, PlayerSpriteSheet> idleState = new BakedAnimationState<>(SpriteSheetCache.get(PlayerSpriteSheet.class));
+
+        idleState
+            .addFrame((long)12, PlayerSpriteSheet::getIdleSprite)
+            .addFrame((long)12, PlayerSpriteSheet::getIdleSprite)
+            .addFrame((long)12, PlayerSpriteSheet::getIdleSprite)
+            .addFrame((long)12, PlayerSpriteSheet::getIdleSprite);
+
+        final BakedAnimationState<Player, PlayerSpriteSheet> thrustingState = idleState.createTransitionState(player -> player.isThrusting() && !player.isBoosting())
+            .addFrame((long)8, PlayerSpriteSheet::getThrustingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getThrustingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getThrustingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getThrustingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getThrustingSprite);
+
+        thrustingState.createTransition(player -> !player.isThrusting() && !player.isBoosting(), idleState);
+
+        final BakedAnimationState<Player, PlayerSpriteSheet> boostingState = idleState.createTransitionState(Player::isBoosting)
+            .addFrame((long)8, PlayerSpriteSheet::getBoostingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getBoostingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getBoostingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getBoostingSprite)
+            .addFrame((long)8, PlayerSpriteSheet::getBoostingSprite);
+
+        thrustingState.createTransition(Player::isBoosting, boostingState);
+        idleState.createTransition(Player::isBoosting, boostingState);
+
+        boostingState.createTransition(player -> !player.isBoosting() && player.isThrusting(), thrustingState);
+        boostingState.createTransition(player -> !player.isBoosting() && !player.isThrusting(), idleState);
+
+        final BakedAnimationState<Player, PlayerSpriteSheet> deathState = idleState.createTransitionState(Player::isDead)
+            .addFrame((long)2, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)2, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)3, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)3, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)4, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)4, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)3, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)2, PlayerSpriteSheet::getDeathSprite)
+            .addFrame((long)2, PlayerSpriteSheet::getDeathSprite)
+            .addFrame(null, PlayerSpriteSheet::getDeathSprite);
+
+        thrustingState.createTransition(Player::isDead, deathState);
+        boostingState.createTransition(Player::isDead, deathState);
+
+        final BakedAnimationState<Player, PlayerSpriteSheet> warpingState = idleState.createTransitionState(player -> player.getCollidedPortalId() != null)
+            .addFrame(5L, PlayerSpriteSheet::getWarpingSprite)
+            .addFrame(4L, PlayerSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PlayerSpriteSheet::getWarpingSprite)
+            .addFrame(6L, PlayerSpriteSheet::getWarpingSprite);
+
+        boostingState.createTransition(player -> player.getCollidedPortalId() != null, warpingState);
+        thrustingState.createTransition(player -> player.getCollidedPortalId() != null, warpingState);
+
+        final BakedAnimationState<Player, PlayerSpriteSheet> reappearingState = warpingState.createTransitionState(player -> player.isPerformedWarp() || player.getCollidedPortalId() == null)
+            .addFrame(6L, PlayerSpriteSheet::getReappearingSprite)
+            .addFrame(3L, PlayerSpriteSheet::getReappearingSprite)
+            .addFrame(4L, PlayerSpriteSheet::getReappearingSprite)
+            .addFrame(5L, PlayerSpriteSheet::getReappearingSprite);
+
+        reappearingState.createTransition(player -> player.getCollidedPortalId() == null, idleState);
+
+        deathState.createTransition(player -> !player.isDead(), idleState);
+
+        return new BakedAnimationGraph<>(idleState, player ->
+            (player.isThrusting() ? 1L : 0L)
+                | (player.isBoosting() ? 2L : 0L)
+                | (player.isDead() ? 4L : 0L)
+                | (player.getCollidedPortalId() != null ? 8L : 0L)
+                | (player.isPerformedWarp() ? 16L : 0L)
+        );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -105,4 +197,11 @@ public class PlayerStopMotionController extends StopMotionController<GameState,
     public boolean checkIfObjectIsRoot(Player player) {
         return player.getSessionId().equals(sessionId);
     }
+
+    /**
+     * Holds the baked animation, so it is only built when baked animations are used.
+     */
+    private static class BakedGraphHolder {
+        private static final BakedAnimationGraph<Player> GRAPH = buildBakedGraph();
+    }
 }
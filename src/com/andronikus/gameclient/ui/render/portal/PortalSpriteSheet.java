@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.portal;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 
 import java.awt.image.BufferedImage;
 
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class PortalSpriteSheet extends SpriteSheet {
+public class PortalSpriteSheet extends CachedSpriteSheet {
 
     private static final int TILE_SIZE = 64;
 
@@ -24,7 +24,7 @@ public class PortalSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the portal
      */
     public BufferedImage getIdleSprite(int animationState) {
-        return getTile(0, animationState);
+        return getCachedTile(0, animationState);
     }
 
     /**
@@ -34,6 +34,6 @@ public class PortalSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the portal
      */
     public BufferedImage getWarpingSprite(int animationState) {
-        return getTile(1, animationState);
+        return getCachedTile(1, animationState);
     }
 }
@@ -4,6 +4,9 @@ import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.animation4j.stopmotion.StopMotionState;
 import com.andronikus.game.model.server.GameState;
 import com.andronikus.game.model.server.Portal;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.BakedAnimationState;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
 
 /**
  * Animation controller for a portal.
@@ -20,7 +23,7 @@ public class PortalStopMotionController extends StopMotionController<GameState,
      * @param portal Portal being animated
      */
     public PortalStopMotionController(Portal portal) {
-        super(new PortalSpriteSheet());
+        super(SpriteSheetCache.get(PortalSpriteSheet.class));
         this.id = portal.getId();
     }
 
@@ -50,6 +53,43 @@ public class PortalStopMotionController extends StopMotionController<GameState,
         return idleState;
     }
 
+    /**
+     * Get the baked animation for a portal, built the first time it is asked for. Plays the same states and transitions
+     * as the stop motion controller.
+     *
+     * @return The baked animation graph
+     */
+    public static BakedAnimationGraph<Portal> getBakedGraph() {
+        return BakedGraphHolder.GRAPH;
+    }
+
+    /**
+     * Build the baked animation for a portal.
+     *
+     * @return The baked animation graph
+     */
+    private static BakedAnimationGraph<Portal> buildBakedGraph() {
+        final BakedAnimationState<Portal, PortalSpriteSheet> idleState = new BakedAnimationState<Portal, PortalSpriteSheet>(SpriteSheetCache.get(PortalSpriteSheet.class))
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite)
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite)
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite)
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite)
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite)
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite)
+            .addFrame(3L, PortalSpriteSheet::getIdleSprite);
+
+        idleState.createTransitionState(portal -> portal.getTicksSinceCollision() != null)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite)
+            .addFrame(3L, PortalSpriteSheet::getWarpingSprite);
+
+        return new BakedAnimationGraph<>(idleState, portal -> portal.getTicksSinceCollision() != null ? 1L : 0L);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -57,4 +97,11 @@ public class PortalStopMotionController extends StopMotionController<GameState,
     public boolean checkIfObjectIsRoot(Portal object) {
         return object.getId() == id;
     }
+
+    /**
+     * Holds the baked animation, so it is only built when baked animations are used.
+     */
+    private static class BakedGraphHolder {
+        private static final BakedAnimationGraph<Portal> GRAPH = buildBakedGraph();
+    }
 }
@@ -1,6 +1,6 @@
 package com.andronikus.gameclient.ui.render.snake;
 
-import com.andronikus.animation4j.spritesheet.SpriteSheet;
+import com.andronikus.gameclient.ui.render.CachedSpriteSheet;
 
 import java.awt.image.BufferedImage;
 
@@ -9,7 +9,7 @@ import java.awt.image.BufferedImage;
  *
  * @author Andronikus
  */
-public class SnakeSpriteSheet extends SpriteSheet {
+public class SnakeSpriteSheet extends CachedSpriteSheet {
 
     public SnakeSpriteSheet() {
         super("snakes/snakes.png", 16, 64);
@@ -22,7 +22,7 @@ public class SnakeSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the snake
      */
     public BufferedImage getIdleSprite(int animationState) {
-        return getTile(0, animationState);
+        return getCachedTile(0, animationState);
     }
 
     /**
@@ -32,7 +32,7 @@ public class SnakeSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the snake
      */
     public BufferedImage getChasingSprite(int animationState) {
-        return getTile(1, animationState);
+        return getCachedTile(1, animationState);
     }
 
     /**
@@ -42,6 +42,6 @@ public class SnakeSpriteSheet extends SpriteSheet {
      * @return Sprite on the grid for the snake
      */
     public BufferedImage getDyingSprite(int animationState) {
-        return getTile(2, animationState);
+        return getCachedTile(2, animationState);
     }
 }
@@ -4,6 +4,9 @@ import com.andronikus.animation4j.stopmotion.StopMotionController;
 import com.andronikus.animation4j.stopmotion.StopMotionState;
 import com.andronikus.game.model.server.GameState;
 import com.andronikus.game.model.server.Snake;
+import com.andronikus.gameclient.ui.render.BakedAnimationGraph;
+import com.andronikus.gameclient.ui.render.BakedAnimationState;
+import com.andronikus.gameclient.ui.render.SpriteSheetCache;
 
 /**
  * Animation controller for a snake.
@@ -20,7 +23,7 @@ public class SnakeStopMotionController extends StopMotionController<GameState, S
      * @param snake The snake being animated
      */
     public SnakeStopMotionController(Snake snake) {
-        super(new SnakeSpriteSheet());
+        super(SpriteSheetCache.get(SnakeSpriteSheet.class));
         this.id = snake.getId();
     }
 
@@ -55,6 +58,48 @@ public class SnakeStopMotionController extends StopMotionController<GameState, S
         return idleState;
     }
 
+    /**
+     * Get the baked animation for a snake, built the first time it is asked for. Plays the same states and transitions
+     * as the stop motion controller.
+     *
+     * @return The baked animation graph
+     */
+    public static BakedAnimationGraph<Snake> getBakedGraph() {
+        return BakedGraphHolder.GRAPH;
+    }
+
+    /**
+     * Build the baked animation for a snake.
+     *
+     * @return The baked animation graph
+     */
+    private static BakedAnimationGraph<Snake> buildBakedGraph() {
+        final BakedAnimationState<Snake, SnakeSpriteSheet> idleState = new BakedAnimationState<Snake, SnakeSpriteSheet>(SpriteSheetCache.get(SnakeSpriteSheet.class))
+            .addFrame(6L, SnakeSpriteSheet::getIdleSprite)
+            .addFrame(6L, SnakeSpriteSheet::getIdleSprite)
+            .addFrame(6L, SnakeSpriteSheet::getIdleSprite)
+            .addFrame(6L, SnakeSpriteSheet::getIdleSprite)
+            .addFrame(6L, SnakeSpriteSheet::getIdleSprite);
+
+        final BakedAnimationState<Snake, SnakeSpriteSheet> chasingState = idleState.createTransitionState(Snake::isChasing)
+            .addFrame(3L, SnakeSpriteSheet::getChasingSprite)
+            .addFrame(3L, SnakeSpriteSheet::getChasingSprite)
+            .addFrame(3L, SnakeSpriteSheet::getChasingSprite)
+            .addFrame(3L, SnakeSpriteSheet::getChasingSprite)
+            .addFrame(3L, SnakeSpriteSheet::getChasingSprite);
+
+        final BakedAnimationState<Snake, SnakeSpriteSheet> dyingState = chasingState.createTransitionState(snake -> snake.getHealth() <= 0)
+            .addFrame(5L, SnakeSpriteSheet::getDyingSprite)
+            .addFrame(7L, SnakeSpriteSheet::getDyingSprite)
+            .addFrame(9L, SnakeSpriteSheet::getDyingSprite)
+            .addFrame(11L, SnakeSpriteSheet::getDyingSprite)
+            .addFrame(null, SnakeSpriteSheet::getDyingSprite);
+
+        idleState.createTransition(snake -> snake.getHealth() <= 0, dyingState);
+
+        return new BakedAnimationGraph<>(idleState, snake -> (snake.isChasing() ? 1L : 0L) | (snake.getHealth() <= 0 ? 2L : 0L));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -62,4 +107,11 @@ public class SnakeStopMotionController extends StopMotionController<GameState, S
     public boolean checkIfObjectIsRoot(Snake object) {
         return id == object.getId();
     }
+
+    /**
+     * Holds the baked animation, so it is only built when baked animations are used.
+     */
+    private static class BakedGraphHolder {
+        private static final BakedAnimationGraph<Snake> GRAPH = buildBakedGraph();
+    }
 }
@@ -0,0 +1,219 @@
+package com.andronikus.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive long keys to objects, so lookups do not box the key. Open addressing with linear probing.
+ * Not thread safe.
+ *
+ * @param <VALUE_TYPE> Type of the values
+ * @author Andronikus
+ */
+public class LongObjectMap<VALUE_TYPE> {
+
+    private static final double MAX_LOAD = 0.5;
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    /**
+     * Instantiate a map.
+     *
+     * @param expectedSize How many entries the map should hold before having to grow
+     */
+    public LongObjectMap(int expectedSize) {
+        int capacity = 8;
+        while (capacity * MAX_LOAD < expectedSize) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+    /**
+     * Get the value for a key.
+     *
+     * @param key The key
+     * @return The value, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public VALUE_TYPE get(long key) {
+        final int mask = keys.length - 1;
+        int index = indexFor(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return (VALUE_TYPE) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Set the value for a key.
+     *
+     * @param key The key
+     * @param value The value, must not be null
+     * @return The value it replaced, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public VALUE_TYPE put(long key, VALUE_TYPE value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Values can not be null.");
+        }
+
+        final int mask = keys.length - 1;
+        int index = indexFor(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                final VALUE_TYPE oldValue = (VALUE_TYPE) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size > keys.length * MAX_LOAD) {
+            grow();
+        }
+        return null;
+    }
+
+    /**
+     * Remove the value for a key.
+     *
+     * @param key The key
+     * @return The removed value, or null if there was none
+     */
+    public VALUE_TYPE remove(long key) {
+        final int mask = keys.length - 1;
+        int index = indexFor(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return removeAt(index);
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Remove the entry in a slot, shifting back later entries of the same probe run so lookups still find them.
+     *
+     * @param index The slot
+     * @return The removed value
+     */
+    @SuppressWarnings("unchecked")
+    private VALUE_TYPE removeAt(int index) {
+        final VALUE_TYPE removed = (VALUE_TYPE) values[index];
+        final int mask = keys.length - 1;
+
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (values[next] != null) {
+            final int home = indexFor(keys[next], mask);
+            // Move the entry into the hole unless its home slot lies cyclically after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Get how many entries are in the map.
+     *
+     * @return The size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Visit every entry, removing those the visitor asks to remove. Entries are not visited in any particular order.
+     *
+     * @param visitor The visitor
+     */
+    @SuppressWarnings("unchecked")
+    public void removeIf(IEntryVisitor<VALUE_TYPE> visitor) {
+        // Walk backwards from a free slot so shifting entries back during removal never moves an unvisited entry
+        // behind the walk
+        final int mask = keys.length - 1;
+        int start = 0;
+        while (values[start] != null) {
+            start++;
+        }
+
+        int index = start;
+        do {
+            index = (index - 1) & mask;
+            if (values[index] != null && visitor.visit(keys[index], (VALUE_TYPE) values[index])) {
+                removeAt(index);
+            }
+        } while (index != start);
+    }
+
+    /**
+     * Double the table.
+     */
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        size = 0;
+        for (int index = 0; index < oldKeys.length; index++) {
+            if (oldValues[index] != null) {
+                put(oldKeys[index], (VALUE_TYPE) oldValues[index]);
+            }
+        }
+    }
+
+    /**
+     * Get the home slot of a key.
+     *
+     * @param key The key
+     * @param mask Table size minus one
+     * @return The slot
+     */
+    private static int indexFor(long key, int mask) {
+        final long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32)) & mask;
+    }
+
+    /**
+     * Visitor of map entries.
+     *
+     * @param <VALUE_TYPE> Type of the values
+     */
+    public interface IEntryVisitor<VALUE_TYPE> {
+
+        /**
+         * Visit an entry.
+         *
+         * @param key The key
+         * @param value The value
+         * @return True to remove the entry
+         */
+        boolean visit(long key, VALUE_TYPE value);
+    }
+}
@@ -0,0 +1,46 @@
+package com.andronikus.util;
+
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Items to reuse instead of allocating new ones every time. Items are taken one after another and all handed back at
+ * once, so the pool only allocates when more items are taken between resets than ever before. Not thread safe.
+ *
+ * @param <ITEM_TYPE> Type of the items
+ * @author Andronikus
+ */
+public class ObjectPool<ITEM_TYPE> {
+
+    private final Supplier<ITEM_TYPE> itemFactory;
+    private final ArrayList<ITEM_TYPE> items = new ArrayList<>();
+    private int takenCount = 0;
+
+    /**
+     * Instantiate a pool.
+     *
+     * @param anItemFactory Creates an item when every item is taken
+     */
+    public ObjectPool(Supplier<ITEM_TYPE> anItemFactory) {
+        itemFactory = anItemFactory;
+    }
+
+    /**
+     * Take an item. The item still holds whatever it was last filled with.
+     *
+     * @return The item
+     */
+    public ITEM_TYPE take() {
+        if (takenCount == items.size()) {
+            items.add(itemFactory.get());
+        }
+        return items.get(takenCount++);
+    }
+
+    /**
+     * Hand every taken item back. Items taken before must not be used afterwards.
+     */
+    public void reset() {
+        takenCount = 0;
+    }
+}
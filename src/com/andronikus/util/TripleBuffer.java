@@ -0,0 +1,72 @@
+package com.andronikus.util;
+
+import java.util.function.Supplier;
+
+/**
+ * <p>Hands items from one thread that fills them to one thread that reads them, without either waiting on the other.
+ * The writer fills an item and publishes it; the reader takes the newest published item and keeps reading it until a
+ * newer one is published. Three items are enough that the writer always has one that the reader is not using, so the
+ * writer fills the next while the reader reads the last.</p>
+ *
+ * <p>An item the reader never took is handed back to the writer to fill again, so a slow reader skips items instead of
+ * falling behind.</p>
+ *
+ * @param <ITEM_TYPE> Type of the items
+ * @author Andronikus
+ */
+public class TripleBuffer<ITEM_TYPE> {
+
+    private ITEM_TYPE writing;
+    private ITEM_TYPE ready = null;
+    private ITEM_TYPE reading;
+    private ITEM_TYPE spare;
+
+    /**
+     * Instantiate a triple buffer.
+     *
+     * @param itemFactory Creates each of the three items. The reader reads one of them until the first is published
+     */
+    public TripleBuffer(Supplier<ITEM_TYPE> itemFactory) {
+        writing = itemFactory.get();
+        reading = itemFactory.get();
+        spare = itemFactory.get();
+    }
+
+    /**
+     * Get the item for the writer to fill. Only call from the writer.
+     *
+     * @return The item
+     */
+    public synchronized ITEM_TYPE getWritable() {
+        return writing;
+    }
+
+    /**
+     * Publish the filled item to the reader. Only call from the writer.
+     */
+    public synchronized void publish() {
+        final ITEM_TYPE unread = ready;
+        ready = writing;
+        if (unread != null) {
+            writing = unread;
+        } else {
+            // The reader took the last published item, and gave back the one it was reading
+            writing = spare;
+            spare = null;
+        }
+    }
+
+    /**
+     * Get the newest published item. Only call from the reader. The item is the reader's until the next call.
+     *
+     * @return The item
+     */
+    public synchronized ITEM_TYPE getReadable() {
+        if (ready != null) {
+            spare = reading;
+            reading = ready;
+            ready = null;
+        }
+        return reading;
+    }
+}
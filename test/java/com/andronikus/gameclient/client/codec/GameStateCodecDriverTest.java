@@ -0,0 +1,262 @@
+package com.andronikus.gameclient.client.codec;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.BoundingBoxBorder;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.MicroBlackHole;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.PlayerColor;
+import com.andronikus.game.model.server.Portal;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.game.model.server.debug.CommandAcknowledgement;
+import com.andronikus.game.model.server.debug.PlayerCollisionFlag;
+import com.andronikus.game.model.server.debug.ServerDebugSettings;
+import com.andronikus.game.model.server.input.InputAcknowledgement;
+import com.andronikus.gameclient.client.GameStateDecodeStage;
+import com.andronikus.gameclient.client.PacketRing;
+import com.andronikus.gameclient.engine.ClientFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Round trip populated game states through the binary codec, the snapshot delta codec and the packet header, and check
+ * that stale and superseded framed packets are dropped before decoding. A decoded state must encode to the same bytes
+ * as the state it was decoded from.
+ *
+ * @author Andronikus
+ */
+public class GameStateCodecDriverTest {
+
+    private static final String SESSION_ID = "driver-session";
+    private static final String OTHER_SESSION_ID = "other-session";
+
+    public static void main(String[] args) {
+        final GameStateCodec codec = new GameStateCodec();
+        final SnapshotDeltaCodec deltaCodec = new SnapshotDeltaCodec();
+
+        // Keyframe
+        final GameState baseline = createGameState(10);
+        final GameState decodedBaseline = codec.decode(codec.encode(baseline));
+        checkSameEncoding("Keyframe", codec, baseline, decodedBaseline);
+        check("Snake target is relinked to the decoded player", decodedBaseline.getSnakes().get(0).getTarget() == decodedBaseline.getPlayers().get(1));
+
+        // Delta against the baseline, with changed, added and removed entities
+        final GameState current = createGameState(11);
+        current.getPlayers().get(0).setX(5_123);
+        current.getPlayers().get(0).setAngle(0.25);
+        current.getPlayers().get(1).setDead(true);
+        current.getLasers().remove(0);
+        final Laser addedLaser = new Laser();
+        addedLaser.setId(99);
+        addedLaser.setX(-40);
+        addedLaser.setY(7);
+        addedLaser.setAngle(1.5);
+        addedLaser.setLoyalty(SESSION_ID);
+        addedLaser.setActive(true);
+        current.getLasers().add(addedLaser);
+        current.getAsteroids().get(1).setDurability(1);
+        current.getInputAcknowledgements().remove(0);
+
+        final byte[] delta = deltaCodec.encode(decodedBaseline, current);
+        check("Delta names its baseline", SnapshotDeltaCodec.readBaselineVersion(delta) == 10);
+        checkSameEncoding("Delta", codec, current, deltaCodec.decode(delta, decodedBaseline));
+
+        // Through the client side of the stream, which only decodes deltas against baselines it has
+        final List<String> controlMessages = new ArrayList<>();
+        final SnapshotDeltaDecoder deltaDecoder = new SnapshotDeltaDecoder();
+        deltaDecoder.setControlMessageSender(controlMessages::add);
+        check("Delta without its baseline is not decoded", deltaDecoder.decodeDelta(delta) == null);
+        deltaDecoder.decodeKeyframe(codec.encode(baseline));
+        checkSameEncoding("Delta decoder", codec, current, deltaDecoder.decodeDelta(delta));
+        check(
+            "Keyframe requested, then both states acknowledged",
+            controlMessages.equals(Arrays.asList("KEYFRAME", "BASELINE 10", "BASELINE 11"))
+        );
+
+        // Packet header
+        final byte[] payload = codec.encode(current);
+        final byte[] packet = PacketHeader.frame(PacketHeader.CODEC_BINARY, current.getVersion(), payload);
+        check("Packet is framed", PacketHeader.isFramed(packet));
+        check("Unframed message is not framed", !PacketHeader.isFramed(payload));
+        check("Codec is read from the header", PacketHeader.readCodec(packet) == PacketHeader.CODEC_BINARY);
+        check("Version is read from the header", PacketHeader.readVersion(packet) == 11);
+        check("Large versions are read from the header", PacketHeader.readVersion(PacketHeader.frame(PacketHeader.CODEC_DELTA, 1L << 40, payload)) == 1L << 40);
+        check("Payload length is read from the header", PacketHeader.readPayloadLength(packet) == payload.length);
+        checkThrows("Truncated packet", () -> PacketHeader.readPayloadLength(Arrays.copyOf(packet, packet.length - 1)));
+
+        // Corrupt counts are rejected before anything is allocated for them
+        final byte[] corrupt = Arrays.copyOf(codec.encode(new GameState()), 64);
+        final int playerCountOffset = 2 + 3 + 1 + 1;
+        corrupt[playerCountOffset] = (byte) 0xFF;
+        corrupt[playerCountOffset + 1] = (byte) 0xFF;
+        corrupt[playerCountOffset + 2] = (byte) 0xFF;
+        corrupt[playerCountOffset + 3] = (byte) 0xFF;
+        corrupt[playerCountOffset + 4] = (byte) 0x07;
+        checkThrows("Corrupt count", () -> codec.decode(corrupt));
+
+        // Stale framed packets are dropped by the decode stage without being decoded
+        final PacketRing ring = new PacketRing(8);
+        final List<ClientFrame> frames = new ArrayList<>();
+        final GameStateDecodeStage decodeStage = new GameStateDecodeStage(
+            ring, new NegotiatedGameStateTransformer(new SnapshotDeltaDecoder(), bytes -> null), frames::add
+        );
+        ring.offer(PacketHeader.frame(PacketHeader.CODEC_BINARY, 11, codec.encode(current)));
+        ring.offer(PacketHeader.frame(PacketHeader.CODEC_BINARY, 10, codec.encode(baseline)));
+        ring.offer(PacketHeader.frame(PacketHeader.CODEC_BINARY, 11, codec.encode(current)));
+        ring.close();
+        decodeStage.run();
+        check("Only the newest packet is passed on", frames.size() == 1 && frames.get(0).getGameState().getVersion() == 11);
+        check("Older and duplicate packets are stale", decodeStage.getStaleCount() == 2);
+
+        // Non-keyframes are skipped when a newer packet is waiting, but not when only an older one that arrived late is
+        final List<ClientFrame> reorderedFrames = new ArrayList<>();
+        final GameStateDecodeStage reorderedDecodeStage = decodeFramedJava(codec, reorderedFrames, 13, 12);
+        check(
+            "Packet with only an older one waiting is passed on",
+            reorderedFrames.size() == 1 && reorderedFrames.get(0).getGameState().getVersion() == 13
+        );
+        check("Late packet is stale", reorderedDecodeStage.getStaleCount() == 1 && reorderedDecodeStage.getSupersededCount() == 0);
+
+        final List<ClientFrame> supersededFrames = new ArrayList<>();
+        final GameStateDecodeStage supersededDecodeStage = decodeFramedJava(codec, supersededFrames, 14, 15);
+        check(
+            "Packet with a newer one waiting is superseded",
+            supersededFrames.size() == 1 && supersededFrames.get(0).getGameState().getVersion() == 15 &&
+                supersededDecodeStage.getSupersededCount() == 1
+        );
+
+        System.out.println("Game state codec round trips passed.");
+    }
+
+    private static GameStateDecodeStage decodeFramedJava(GameStateCodec codec, List<ClientFrame> frames, long... versions) {
+        final PacketRing ring = new PacketRing(8);
+        final GameStateDecodeStage decodeStage = new GameStateDecodeStage(
+            ring, new NegotiatedGameStateTransformer(new SnapshotDeltaDecoder(), codec::decode), frames::add
+        );
+        for (long version : versions) {
+            ring.offer(PacketHeader.frame(PacketHeader.CODEC_JAVA, version, codec.encode(createGameState(version))));
+        }
+        ring.close();
+        decodeStage.run();
+        return decodeStage;
+    }
+
+    private static void checkSameEncoding(String name, GameStateCodec codec, GameState expected, GameState actual) {
+        check(name + " decodes", actual != null);
+        check(name + " round trips", Arrays.equals(codec.encode(expected), codec.encode(actual)));
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) {
+            throw new IllegalStateException(name + " failed.");
+        }
+    }
+
+    private static void checkThrows(String name, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException expected) {
+            return;
+        }
+        throw new IllegalStateException(name + " was not rejected.");
+    }
+
+    private static GameState createGameState(long version) {
+        final GameState state = new GameState();
+        state.setVersion(version);
+        state.setNextLaserId(100);
+        state.setNextSpawnId(200);
+        state.setServerDebugMode(true);
+        state.setTickEnabled(true);
+        state.setMovementEnabled(true);
+        final BoundingBoxBorder border = new BoundingBoxBorder();
+        border.setMaxX(20_000);
+        border.setMaxY(15_000);
+        state.setBorder(border);
+
+        for (int index = 0; index < 2; index++) {
+            final Player player = new Player();
+            player.setSessionId(index == 0 ? SESSION_ID : OTHER_SESSION_ID);
+            player.setX(1_000 * (index + 1));
+            player.setY(-500 * index);
+            player.setXVelocity(3);
+            player.setYVelocity(-4);
+            player.setSpeed(5);
+            player.setAngle(0.5 * index);
+            player.setHealth(80);
+            player.setShieldCount(2);
+            player.setLaserCharges(3);
+            player.setColor(PlayerColor.values()[index]);
+            player.setCollidedPortalId(index == 0 ? null : 7L);
+            player.setThrusting(index == 0);
+            state.getPlayers().add(player);
+        }
+
+        for (int index = 0; index < 3; index++) {
+            final Laser laser = new Laser();
+            laser.setId(index);
+            laser.setX(100 * index);
+            laser.setY(-100 * index);
+            laser.setXVelocity(10);
+            laser.setAngle(0.75);
+            laser.setLoyalty(SESSION_ID);
+            laser.setActive(true);
+            state.getLasers().add(laser);
+
+            final Asteroid asteroid = new Asteroid();
+            asteroid.setId(index);
+            asteroid.setX(3_000 + index);
+            asteroid.setY(4_000 - index);
+            asteroid.setAngularVelocity(0.125);
+            asteroid.setSize(index % 2);
+            asteroid.setDurability(3);
+            state.getAsteroids().add(asteroid);
+        }
+
+        final Snake snake = new Snake();
+        snake.setId(1);
+        snake.setX(60);
+        snake.setY(70);
+        snake.setHealth(5);
+        snake.setChasing(true);
+        snake.setTarget(state.getPlayers().get(1));
+        state.getSnakes().add(snake);
+
+        final MicroBlackHole blackHole = new MicroBlackHole();
+        blackHole.setId(2);
+        blackHole.setX(-900);
+        blackHole.setAngularVelocity(0.5);
+        state.getBlackHoles().add(blackHole);
+
+        final Portal portal = new Portal();
+        portal.setId(7);
+        portal.setY(900);
+        portal.setTicksSinceCollision(4);
+        state.getPortals().add(portal);
+
+        for (int index = 0; index < 2; index++) {
+            final InputAcknowledgement acknowledgement = new InputAcknowledgement();
+            acknowledgement.setSessionId(SESSION_ID);
+            acknowledgement.setInputId(index);
+            acknowledgement.setCreatedGameStateVersion(9);
+            state.getInputAcknowledgements().add(acknowledgement);
+        }
+
+        final ServerDebugSettings debugSettings = new ServerDebugSettings();
+        final CommandAcknowledgement commandAcknowledgement = new CommandAcknowledgement();
+        commandAcknowledgement.setSessionId(SESSION_ID);
+        commandAcknowledgement.setCommandId(3);
+        debugSettings.setCommandAcknowledgements(new ArrayList<>(Arrays.asList(commandAcknowledgement)));
+        final PlayerCollisionFlag collisionFlag = new PlayerCollisionFlag();
+        collisionFlag.setSessionId(SESSION_ID);
+        collisionFlag.setCollisionType("ASTEROID");
+        collisionFlag.setCollisionId(1);
+        collisionFlag.setGameStateVersion(version);
+        debugSettings.setPlayerCollisionFlags(new ArrayList<>(Arrays.asList(collisionFlag)));
+        state.setDebugSettings(debugSettings);
+        return state;
+    }
+}
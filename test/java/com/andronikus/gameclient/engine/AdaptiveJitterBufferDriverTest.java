@@ -0,0 +1,71 @@
+package com.andronikus.gameclient.engine;
+
+import java.util.Random;
+
+/**
+ * Check that the adaptive playout delay grows when game states arrive jittered, shrinks again once they arrive
+ * cleanly, and stays within its bounds when they are changed.
+ *
+ * @author Andronikus
+ */
+public class AdaptiveJitterBufferDriverTest {
+
+    private static final long MILLIS = 1_000_000L;
+    private static final long INTERVAL_NANOS = 33 * MILLIS;
+    // Game states arrive up to this much early or late when the link is jittery
+    private static final long JITTER_NANOS = 40 * MILLIS;
+    private static final int ARRIVALS = 500;
+
+    private static long version = 0;
+    private static long sentNanos = 0;
+
+    public static void main(String[] args) {
+        final AdaptiveJitterBuffer jitterBuffer = new AdaptiveJitterBuffer(
+            ClientEngine.DEFAULT_MINIMUM_PLAYOUT_DELAY_NANOS,
+            ClientEngine.DEFAULT_MAXIMUM_PLAYOUT_DELAY_NANOS,
+            ClientEngine.DEFAULT_MINIMUM_PLAYOUT_DELAY_NANOS
+        );
+        final Random random = new Random(7);
+
+        arrive(jitterBuffer, random, 0);
+        final long cleanDelayNanos = jitterBuffer.getPlayoutDelayNanos();
+        check("Clean arrivals are measured", jitterBuffer.getSmoothedIntervalNanos() == INTERVAL_NANOS);
+        check("Clean arrivals have no jitter", jitterBuffer.getSmoothedJitterNanos() == 0);
+        check(
+            "Clean arrivals keep the least delay", cleanDelayNanos == ClientEngine.DEFAULT_MINIMUM_PLAYOUT_DELAY_NANOS
+        );
+
+        arrive(jitterBuffer, random, JITTER_NANOS);
+        final long jitteredDelayNanos = jitterBuffer.getPlayoutDelayNanos();
+        check("Jittered arrivals are measured", jitterBuffer.getSmoothedJitterNanos() > 0);
+        check("Delay grows on jittered arrivals", jitteredDelayNanos > cleanDelayNanos + JITTER_NANOS);
+
+        arrive(jitterBuffer, random, 0);
+        check("Target returns to the least delay", jitterBuffer.getTargetDelayNanos() == cleanDelayNanos);
+        check("Delay shrinks on clean arrivals", jitterBuffer.getPlayoutDelayNanos() < jitteredDelayNanos);
+
+        // Narrower bounds apply straight away and to every arrival after
+        final long maximumDelayNanos = 50 * MILLIS;
+        jitterBuffer.setDelayBounds(ClientEngine.DEFAULT_MINIMUM_PLAYOUT_DELAY_NANOS, maximumDelayNanos);
+        check("Delay is clamped to new bounds", jitterBuffer.getPlayoutDelayNanos() <= maximumDelayNanos);
+        arrive(jitterBuffer, random, JITTER_NANOS);
+        check("Delay stays within bounds", jitterBuffer.getPlayoutDelayNanos() == maximumDelayNanos);
+
+        System.out.println("Adaptive jitter buffer checks passed.");
+    }
+
+    private static void arrive(AdaptiveJitterBuffer jitterBuffer, Random random, long jitterNanos) {
+        for (int arrival = 0; arrival < ARRIVALS; arrival++) {
+            version++;
+            sentNanos += INTERVAL_NANOS;
+            final long delayNanos = jitterNanos == 0 ? 0 : (long) (random.nextDouble() * jitterNanos);
+            jitterBuffer.recordArrival(version, sentNanos + delayNanos);
+        }
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) {
+            throw new IllegalStateException(name + " failed.");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.andronikus.gameclient.engine.prediction;
+
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.IBorder;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.input.InputAcknowledgement;
+import com.andronikus.gameclient.engine.ClientFrame;
+import com.andronikus.gameclient.engine.SampledFrame;
+import com.andronikus.gameclient.ui.input.ServerInput;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Check that reconciling a game state rewinds the prediction to the server's player and replays only the ticks the
+ * server has not acknowledged, that resent inputs are applied once, and that recording ticks does not allocate.
+ *
+ * @author Andronikus
+ */
+public class LocalPlayerPredictorDriverTest {
+
+    private static final String SESSION_ID = "driver-session";
+    private static final long MILLIS = 1_000_000L;
+    private static final long SERVER_X = 1_000;
+    // Moves the player by a distinct amount for inputs and for steps, so the position tells what was replayed
+    private static final long INPUT_DISTANCE = 100;
+    private static final long STEP_DISTANCE = 1;
+    private static final int MEASURED_TICKS = 10_000;
+    // Less than one byte per tick on average, which leaves room for the measurement itself but not for any object
+    private static final double MAX_BYTES_PER_TICK = 1;
+
+    public static void main(String[] args) {
+        final LocalPlayerPredictor predictor = new LocalPlayerPredictor(new CountingMotionModel());
+
+        // Three ticks, the first two with an input each
+        predictor.recordTick(inputs(input(1)), 0);
+        predictor.recordTick(inputs(input(2)), MILLIS);
+        predictor.recordTick(Collections.emptyList(), 2 * MILLIS);
+
+        // The server applied the first input only, so the second and third ticks are replayed onto its player
+        predictor.reconcile(createFrame(1), SESSION_ID, 3 * MILLIS);
+        check(
+            "Only unacknowledged ticks are replayed",
+            predictedX(predictor) == SERVER_X + INPUT_DISTANCE + 2 * STEP_DISTANCE
+        );
+
+        // A tick advances the prediction, and an input resent until it is acknowledged only counts the first time
+        predictor.recordTick(inputs(input(2)), 4 * MILLIS);
+        check(
+            "Resent input is not applied again",
+            predictedX(predictor) == SERVER_X + INPUT_DISTANCE + 3 * STEP_DISTANCE
+        );
+
+        // Once both inputs are acknowledged, only the ticks after the one holding the newest input are replayed
+        predictor.reconcile(createFrame(1, 2), SESSION_ID, 5 * MILLIS);
+        check("Acknowledged ticks are dropped", predictedX(predictor) == SERVER_X + 2 * STEP_DISTANCE);
+
+        // Ticks older than the round trip time are seen by the server even without acknowledgements
+        predictor.reconcile(createFrame(1, 2), SESSION_ID, 10_000 * MILLIS);
+        check("Old ticks are dropped", predictedX(predictor) == SERVER_X);
+
+        // Recording ticks reuses the ones no longer pending
+        for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+            predictor.recordTick(Collections.emptyList(), 10_000 * MILLIS + tick);
+        }
+        final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+            predictor.recordTick(Collections.emptyList(), 20_000 * MILLIS + tick);
+        }
+        final long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        final double bytesPerTick = allocatedBytes / (double) MEASURED_TICKS;
+        check("Recording ticks does not allocate", bytesPerTick < MAX_BYTES_PER_TICK);
+
+        System.out.println("Local player prediction checks passed.");
+    }
+
+    private static long predictedX(LocalPlayerPredictor predictor) {
+        final SampledFrame frame = new SampledFrame();
+        frame.reset(createFrame());
+        predictor.applyPrediction(frame, SESSION_ID);
+        return frame.getPlayer(SESSION_ID).getX();
+    }
+
+    private static ServerInput input(long inputId) {
+        final ServerInput input = new ServerInput("THRUST", true);
+        input.setInputId(inputId);
+        input.setSessionId(SESSION_ID);
+        return input;
+    }
+
+    private static List<ServerInput> inputs(ServerInput... inputs) {
+        return Arrays.asList(inputs);
+    }
+
+    private static ClientFrame createFrame(long... acknowledgedInputIds) {
+        final GameState state = new GameState();
+        final Player player = new Player();
+        player.setSessionId(SESSION_ID);
+        player.setX(SERVER_X);
+        state.getPlayers().add(player);
+        for (long inputId : acknowledgedInputIds) {
+            final InputAcknowledgement acknowledgement = new InputAcknowledgement();
+            acknowledgement.setSessionId(SESSION_ID);
+            acknowledgement.setInputId(inputId);
+            state.getInputAcknowledgements().add(acknowledgement);
+        }
+        return new ClientFrame(state);
+    }
+
+    private static void check(String name, boolean passed) {
+        if (!passed) {
+            throw new IllegalStateException(name + " failed.");
+        }
+    }
+
+    /**
+     * Motion model that moves the player along X by a fixed amount per input and per step.
+     */
+    private static class CountingMotionModel implements IPlayerMotionModel {
+
+        @Override
+        public void applyInput(Player player, String inputCode) {
+            player.setX(player.getX() + INPUT_DISTANCE);
+        }
+
+        @Override
+        public void step(Player player, IBorder border) {
+            player.setX(player.getX() + STEP_DISTANCE);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.andronikus.gameclient.ui;
+
+import com.andronikus.game.model.server.Asteroid;
+import com.andronikus.game.model.server.BoundingBoxBorder;
+import com.andronikus.game.model.server.GameState;
+import com.andronikus.game.model.server.Laser;
+import com.andronikus.game.model.server.Player;
+import com.andronikus.game.model.server.PlayerColor;
+import com.andronikus.game.model.server.Snake;
+import com.andronikus.gameclient.client.GameClient;
+import com.andronikus.gameclient.engine.ClientEngine;
+import com.andronikus.gameclient.engine.ClientFrame;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Measure how many bytes rendering a frame allocates, as the window is by default and with baked animations. Every
+ * frame goes through the engine as it does in the game: interpolated between game states that keep arriving on
+ * another thread, with the local player predicted, then prepared and painted. Fails if a frame allocates more than
+ * Java2D itself does to draw text and the background.
+ *
+ * @author Andronikus
+ */
+public class PaintAllocationDriverTest {
+
+    private static final String SESSION_ID = "driver-session";
+    private static final int SCREEN_WIDTH = 1280;
+    private static final int SCREEN_HEIGHT = 720;
+    private static final int WARMUP_FRAMES = 3_000;
+    private static final int MEASURED_FRAMES = 2_000;
+    private static final long PLAYOUT_DELAY_NANOS = 100_000_000L;
+    private static final long GAME_STATE_INTERVAL_MILLIS = 33;
+    // What is left is Java2D looking up font strikes when the font changes and scaling the background
+    private static final long MAX_BYTES_PER_FRAME = 1_024;
+
+    public static void main(String[] args) throws InterruptedException {
+        final BufferedImage target = new BufferedImage(SCREEN_WIDTH, SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+
+        final GameWindow defaultWindow = createWindow();
+        final double defaultBytes = measure(defaultWindow, target);
+        System.out.println(String.format("Default:              %,10.1f bytes/frame", defaultBytes));
+
+        final GameWindow bakedWindow = createWindow();
+        bakedWindow.enableBakedAnimations();
+        final double bakedBytes = measure(bakedWindow, target);
+        System.out.println(String.format("Baked animations:     %,10.1f bytes/frame", bakedBytes));
+
+        checkAllocations(defaultBytes);
+        checkAllocations(bakedBytes);
+    }
+
+    private static void checkAllocations(double bytesPerFrame) {
+        if (bytesPerFrame > MAX_BYTES_PER_FRAME) {
+            throw new IllegalStateException(
+                "Rendering allocated " + bytesPerFrame + " bytes per frame, more than " + MAX_BYTES_PER_FRAME + "."
+            );
+        }
+    }
+
+    private static GameWindow createWindow() {
+        final GameWindow window = new GameWindow();
+        window.setSessionId(SESSION_ID);
+        window.setDimensions(SCREEN_WIDTH, SCREEN_HEIGHT);
+        return window;
+    }
+
+    private static double measure(GameWindow window, BufferedImage target) throws InterruptedException {
+        // The client is never started, it only stands in for one that the server already gave a session
+        final GameClient client = new GameClient("localhost", window, window, window) {
+            @Override
+            public String getSessionId() {
+                return SESSION_ID;
+            }
+        };
+        final ClientEngine engine = client.getEngine();
+        engine.setPlayoutDelayNanos(PLAYOUT_DELAY_NANOS);
+        engine.setPredictionEnabled(true);
+        engine.takeGameState(new ClientFrame(createGameState(0)));
+        engine.applyLatestGameState();
+
+        // Game states keep arriving on their own thread, like they do from the decode stage, so frames are interpolated
+        final Thread gameStateThread = new Thread(() -> {
+            try {
+                for (long version = 1; !Thread.currentThread().isInterrupted(); version++) {
+                    Thread.sleep(GAME_STATE_INTERVAL_MILLIS);
+                    engine.takeGameState(new ClientFrame(createGameState(version)));
+                }
+            } catch (InterruptedException ignored) {
+                // Measuring is done
+            }
+        });
+        gameStateThread.setDaemon(true);
+        gameStateThread.start();
+
+        // Render once so every rotation in view is requested, then give the background builder time to render them
+        final Graphics2D graphics = target.createGraphics();
+        renderFrame(engine, window, graphics);
+        Thread.sleep(2_000);
+
+        // One graphics for every frame, so only what rendering allocates is counted
+        for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+            renderFrame(engine, window, graphics);
+        }
+
+        final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+        for (int frame = 0; frame < MEASURED_FRAMES; frame++) {
+            renderFrame(engine, window, graphics);
+        }
+        final long allocatedBytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        graphics.dispose();
+        gameStateThread.interrupt();
+        gameStateThread.join();
+        return (double) allocatedBytes / MEASURED_FRAMES;
+    }
+
+    private static void renderFrame(ClientEngine engine, GameWindow window, Graphics2D graphics) {
+        engine.renderFrame();
+        window.paintComponent(graphics);
+    }
+
+    private static GameState createGameState(long version) {
+        final Random random = new Random(19);
+        // Everything but the local player drifts back and forth, a little further each game state
+        final long drift = Math.round(200 * Math.sin(version * 0.1));
+        final GameState state = new GameState();
+        state.setVersion(version);
+        final BoundingBoxBorder border = new BoundingBoxBorder();
+        border.setMaxX(20_000);
+        border.setMaxY(20_000);
+        state.setBorder(border);
+        state.setTickEnabled(true);
+        state.setMovementEnabled(true);
+        state.setCollisionsEnabled(true);
+        state.setSpawningEnabled(true);
+
+        for (int index = 0; index < 6; index++) {
+            final Player player = new Player();
+            player.setSessionId(index == 0 ? SESSION_ID : "other-session-" + index);
+            player.setColor(PlayerColor.values()[index]);
+            player.setX(10_000 + (index == 0 ? 0 : random.nextInt(4_000) - 2_000 + drift));
+            player.setY(10_000 + (index == 0 ? 0 : random.nextInt(4_000) - 2_000));
+            player.setAngle(random.nextDouble() * Math.PI * 2);
+            player.setHealth(80);
+            player.setShieldCount(2);
+            player.setLaserCharges(3);
+            state.getPlayers().add(player);
+        }
+
+        for (int index = 0; index < 500; index++) {
+            final Asteroid asteroid = new Asteroid();
+            asteroid.setId(index);
+            asteroid.setX(10_000 + random.nextInt(8_000) - 4_000 + drift);
+            asteroid.setY(10_000 + random.nextInt(8_000) - 4_000);
+            asteroid.setAngle(random.nextDouble() * Math.PI * 2);
+            asteroid.setSize(random.nextInt(2));
+            state.getAsteroids().add(asteroid);
+        }
+
+        for (int index = 0; index < 100; index++) {
+            final Laser laser = new Laser();
+            laser.setId(index);
+            laser.setX(10_000 + random.nextInt(3_000) - 1_500 + drift);
+            laser.setY(10_000 + random.nextInt(3_000) - 1_500);
+            laser.setXVelocity(index % 2);
+            laser.setAngle(random.nextDouble() * Math.PI * 2);
+            state.getLasers().add(laser);
+        }
+
+        for (int index = 0; index < 20; index++) {
+            final Snake snake = new Snake();
+            snake.setId(index);
+            snake.setX(10_000 + random.nextInt(3_000) - 1_500 + drift);
+            snake.setY(10_000 + random.nextInt(3_000) - 1_500);
+            snake.setAngle(random.nextDouble() * Math.PI * 2);
+            state.getSnakes().add(snake);
+        }
+        return state;
+    }
+}
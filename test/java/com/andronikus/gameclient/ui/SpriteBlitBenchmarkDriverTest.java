@@ -0,0 +1,61 @@
+package com.andronikus.gameclient.ui;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Compare how fast sprites blit as {@link ImageIO} loads them and after {@link ImagesUtil#toCompatibleImage}.
+ *
+ * @author Andronikus
+ */
+public class SpriteBlitBenchmarkDriverTest {
+
+    private static final String[] SPRITE_PATHS = {
+        "player/player-spritesheet.png",
+        "asteroid/asteroid-size-1.png",
+        "hud/LaserChargeIcon.png"
+    };
+    private static final int WARMUP_DRAWS = 20_000;
+    private static final int MEASURED_DRAWS = 200_000;
+
+    public static void main(String[] args) throws IOException {
+        final BufferedImage target = GraphicsEnvironment.isHeadless() ?
+            new BufferedImage(1280, 720, BufferedImage.TYPE_INT_RGB) :
+            GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(1280, 720, Transparency.OPAQUE);
+
+        for (String path : SPRITE_PATHS) {
+            final URL url = SpriteBlitBenchmarkDriverTest.class.getClassLoader().getResource(path);
+            final BufferedImage loaded = ImageIO.read(url);
+            final BufferedImage tile = loaded.getSubimage(0, 0, Math.min(64, loaded.getWidth()), Math.min(64, loaded.getHeight()));
+            final BufferedImage compatibleTile = ImagesUtil.toCompatibleImage(tile);
+
+            final double loadedRate = measure(target, tile);
+            final double compatibleRate = measure(target, compatibleTile);
+            System.out.println(String.format(
+                "%-32s as loaded (type %d): %,12.0f draws/s   compatible (type %d): %,12.0f draws/s   x%.2f",
+                path, loaded.getType(), loadedRate, compatibleTile.getType(), compatibleRate, compatibleRate / loadedRate
+            ));
+        }
+    }
+
+    private static double measure(BufferedImage target, BufferedImage sprite) {
+        final Graphics2D graphics = target.createGraphics();
+        for (int draw = 0; draw < WARMUP_DRAWS; draw++) {
+            graphics.drawImage(sprite, draw % 1200, draw % 640, null);
+        }
+
+        final long startNanos = System.nanoTime();
+        for (int draw = 0; draw < MEASURED_DRAWS; draw++) {
+            graphics.drawImage(sprite, draw % 1200, draw % 640, null);
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        graphics.dispose();
+        return MEASURED_DRAWS / (elapsedNanos / 1_000_000_000.0);
+    }
+}